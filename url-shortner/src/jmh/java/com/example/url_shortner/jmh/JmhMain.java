@@ -0,0 +1,178 @@
+package com.example.url_shortner.jmh;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.NoBenchmarksException;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs the JMH benchmarks, writes the results as JSON and compares them against the stored baseline
+ * Run with: mvn test -Pjmh (options are the jmh.* properties of the profile, e.g. -Djmh.include=UrlUtils)
+ *
+ * {@link UrlStorageBenchmark} runs once per thread count, the others single-threaded. A result
+ * is a regression when it is worse than the baseline by more than {@code jmh.threshold} and the
+ * difference exceeds the two runs' combined 99.9% error; with {@code jmh.failOnRegression=true}
+ * any regression fails the build.
+ */
+public final class JmhMain {
+    
+    private static final String THREADED = UrlStorageBenchmark.class.getSimpleName();
+    
+    private JmhMain() {
+    }
+    
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = System.getProperty("jmh.include", ".*");
+        Path result = Path.of(System.getProperty("jmh.result", "target/jmh-result.json"));
+        Path baseline = Path.of(System.getProperty("jmh.baseline", "src/jmh/baseline.json"));
+        double threshold = Double.parseDouble(System.getProperty("jmh.threshold", "0.15"));
+        
+        List<RunResult> results = new ArrayList<>();
+        // Single-threaded benchmarks, then the threaded ones at each thread count
+        results.addAll(run(options(include).exclude(THREADED).threads(1)));
+        for (int threads : threadCounts()) {
+            results.addAll(run(options(include).exclude("^(?!.*" + THREADED + ")").threads(threads)));
+        }
+        
+        Files.createDirectories(result.toAbsolutePath().getParent());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(result))) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(results);
+        }
+        System.out.println("JMH results written to " + result);
+        
+        if (Boolean.getBoolean("jmh.updateBaseline")) {
+            Files.copy(result, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Baseline updated: " + baseline);
+            return;
+        }
+        if (!Files.exists(baseline)) {
+            System.out.println("No baseline at " + baseline + "; create one with -Djmh.updateBaseline=true");
+            return;
+        }
+        int regressions = compare(read(baseline), read(result), threshold);
+        if (regressions > 0 && Boolean.getBoolean("jmh.failOnRegression")) {
+            System.err.println(regressions + " benchmark(s) regressed by more than " + Math.round(threshold * 100) + "%");
+            System.exit(1);
+        }
+    }
+    
+    private static ChainedOptionsBuilder options(String include) {
+        return new OptionsBuilder()
+                .include(include)
+                .forks(Integer.getInteger("jmh.forks", 1))
+                .warmupIterations(Integer.getInteger("jmh.warmup", 3))
+                .warmupTime(TimeValue.seconds(Integer.getInteger("jmh.time", 1)))
+                .measurementIterations(Integer.getInteger("jmh.measurement", 5))
+                .measurementTime(TimeValue.seconds(Integer.getInteger("jmh.time", 1)));
+    }
+    
+    private static List<RunResult> run(ChainedOptionsBuilder options) throws RunnerException {
+        try {
+            return new ArrayList<>(new Runner(options.build()).run());
+        } catch (NoBenchmarksException e) {
+            // The include pattern selects none of this group
+            return List.of();
+        }
+    }
+    
+    /**
+     * @return the jmh.threads list if set, otherwise 1, 2, 4, ... up to the number of cores
+     */
+    private static int[] threadCounts() {
+        String threads = System.getProperty("jmh.threads", "").trim();
+        if (threads.isEmpty()) {
+            return BenchmarkSupport.threadCounts();
+        }
+        return Arrays.stream(threads.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+    
+    /**
+     * A benchmark result reduced to what the comparison needs
+     */
+    private static final class Score {
+        private final double value;
+        private final double error;
+        private final String unit;
+        private final boolean higherIsBetter;
+        
+        Score(double value, double error, String unit, boolean higherIsBetter) {
+            this.value = value;
+            // NaN when there was a single measurement iteration
+            this.error = Double.isNaN(error) ? 0 : error;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+        }
+    }
+    
+    /**
+     * @return scores keyed by benchmark name, thread count and parameters
+     */
+    private static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode node : new ObjectMapper().readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(node.get("benchmark").asText()
+                    .replace(JmhMain.class.getPackageName() + ".", ""));
+            key.append(" threads=").append(node.get("threads").asInt());
+            JsonNode params = node.get("params");
+            if (params != null) {
+                Map<String, String> sorted = new TreeMap<>();
+                for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> param = it.next();
+                    sorted.put(param.getKey(), param.getValue().asText());
+                }
+                sorted.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            }
+            JsonNode metric = node.get("primaryMetric");
+            scores.put(key.toString(), new Score(metric.get("score").asDouble(),
+                    metric.get("scoreError").asDouble(), metric.get("scoreUnit").asText(), "thrpt".equals(node.get("mode").asText())));
+        }
+        return scores;
+    }
+    
+    /**
+     * Prints every result next to its baseline
+     * @return the number of results worse than the baseline by more than the threshold
+     */
+    private static int compare(Map<String, Score> baseline, Map<String, Score> current, double threshold) {
+        int regressions = 0;
+        System.out.printf("%n%-75s %14s %14s %8s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null || !before.unit.equals(now.unit)) {
+                System.out.printf("%-75s %14s %14.1f %8s  (no baseline)%n", entry.getKey(), "-", now.value, "");
+                continue;
+            }
+            double change = (now.value - before.value) / before.value;
+            // Worse by more than the threshold, and by more than the two runs' combined error
+            boolean regressed = (now.higherIsBetter ? change < -threshold : change > threshold)
+                    && Math.abs(now.value - before.value) > now.error + before.error;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-75s %14.1f %14.1f %+7.1f%%%s%n", entry.getKey(), before.value, now.value,
+                    change * 100, regressed ? "  REGRESSION" : "");
+        }
+        return regressions;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.url_shortner.jmh;
+
+import com.example.url_shortner.analytics.WindowedMetrics;
+import com.example.url_shortner.codegen.HashShortCodeGenerator;
+import com.example.url_shortner.model.DomainMetric;
+import com.example.url_shortner.service.UrlService;
+import com.example.url_shortner.storage.UrlStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * All-time top-domain queries at several domain cardinalities, with Zipf-like counts
+ */
+@State(Scope.Benchmark)
+public class TopDomainsBenchmark {
+    
+    @Param({"100", "10000", "1000000"})
+    public int domains;
+    
+    @Param({"10"})
+    public int n;
+    
+    private UrlService urlService;
+    
+    @Setup
+    public void setUp() {
+        UrlStorage storage = new UrlStorage();
+        Random random = new Random(11);
+        for (int d = 0; d < domains; d++) {
+            String domain = "host" + d + ".example.com";
+            long count = 1 + (long) (1_000.0 / (d + 1) * random.nextDouble());
+            for (long c = 0; c < count; c++) {
+                storage.incrementDomainCount(domain);
+            }
+        }
+        urlService = new UrlService(storage, new HashShortCodeGenerator(),
+                new WindowedMetrics(10_000), "http://localhost:8080");
+    }
+    
+    @Benchmark
+    public List<DomainMetric> getTopDomains() {
+        return urlService.getTopDomains(n);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.url_shortner.jmh;
+
+import com.example.url_shortner.analytics.WindowedMetrics;
+import com.example.url_shortner.benchmark.UrlCorpus;
+import com.example.url_shortner.codegen.HashShortCodeGenerator;
+import com.example.url_shortner.codegen.ShortCodeGenerator;
+import com.example.url_shortner.service.UrlService;
+import com.example.url_shortner.storage.UrlStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * End-to-end shortening: validation, code generation, reservation and metrics
+ *
+ * {@code repeatRate} is the share of requests for URLs already shortened (answered by the
+ * idempotency lookup); {@code collisionRate} is the share of new URLs whose first candidate code
+ * is taken, forcing a second attempt.
+ */
+// Every iteration stores about a million new mappings
+@Fork(jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class UrlServiceBenchmark {
+    
+    private static final int CORPUS_SIZE = 1 << 16;
+    private static final String TAKEN_CODE = "taken000";
+    
+    @Param({"0.0", "0.3"})
+    public double repeatRate;
+    
+    @Param({"0.0", "0.01", "0.1"})
+    public double collisionRate;
+    
+    private String[] corpus;
+    private String[] separators;
+    private String[] repeated;
+    private long sequence;
+    private UrlService urlService;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        corpus = UrlCorpus.generate(CORPUS_SIZE, 7);
+        separators = new String[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            separators[i] = corpus[i].indexOf('?') < 0 ? "?v=" : "&v=";
+        }
+        UrlStorage storage = new UrlStorage();
+        storage.storeUrl(TAKEN_CODE, "https://example.com/taken");
+        urlService = new UrlService(storage, new CollidingGenerator(collisionRate),
+                new WindowedMetrics(10_000), "http://localhost:8080");
+        // URLs the repeated share of requests draws from, shortened up front
+        repeated = new String[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            repeated[i] = corpus[i] + separators[i] + "repeat";
+            urlService.shortenUrl(repeated[i]);
+        }
+        sequence = 0;
+    }
+    
+    @Benchmark
+    public String shortenUrl() {
+        long i = sequence++;
+        int index = (int) (i & (CORPUS_SIZE - 1));
+        // Deterministic mix: the fraction of requests below repeatRate re-shortens a known URL
+        if (Math.floorMod(i * 0x9E3779B97F4A7C15L >>> 40, 1_000) < repeatRate * 1_000) {
+            return urlService.shortenUrl(repeated[index]);
+        }
+        return urlService.shortenUrl(corpus[index] + separators[index] + i);
+    }
+    
+    /**
+     * Hash generator whose first candidate collides for the given share of URLs
+     */
+    static final class CollidingGenerator implements ShortCodeGenerator {
+        
+        private final ShortCodeGenerator delegate = new HashShortCodeGenerator();
+        private final int threshold;
+        
+        CollidingGenerator(double collisionRate) {
+            this.threshold = (int) (collisionRate * 1_000);
+        }
+        
+        @Override
+        public String candidate(String normalizedUrl, int attempt) {
+            if (attempt == 0 && Math.floorMod(normalizedUrl.hashCode(), 1_000) < threshold) {
+                return TAKEN_CODE;
+            }
+            return delegate.candidate(normalizedUrl, attempt);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.url_shortner.jmh;
+
+import com.example.url_shortner.storage.UrlStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lookups and stores on the in-memory engine
+ * {@link JmhMain} runs these at every thread count from 1 to the number of cores, so contention
+ * regressions show up as a flattening curve.
+ */
+@State(Scope.Benchmark)
+public class UrlStorageBenchmark {
+    
+    @Param({"100000", "1000000"})
+    public int size;
+    
+    private UrlStorage storage;
+    private String[] codes;
+    private String[] urls;
+    
+    @Setup
+    public void setUp() {
+        storage = new UrlStorage();
+        codes = new String[size];
+        urls = new String[size];
+        for (int i = 0; i < size; i++) {
+            codes[i] = Long.toString(0x10000000000L + i * 0x9E3779B97L % 0xFFFFFFFFFFL, 36);
+            urls[i] = "https://example.com/item/" + i;
+            storage.storeUrl(codes[i], urls[i]);
+        }
+    }
+    
+    @Benchmark
+    public String get() {
+        return storage.getOriginalUrl(codes[ThreadLocalRandom.current().nextInt(size)]);
+    }
+    
+    @Benchmark
+    public void store() {
+        // Rewrites existing mappings, so the map stays at its configured size
+        int i = ThreadLocalRandom.current().nextInt(size);
+        storage.storeUrl(codes[i], urls[i]);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.url_shortner.jmh;
+
+import com.example.url_shortner.benchmark.UrlCorpus;
+import com.example.url_shortner.codegen.HashAlgorithm;
+import com.example.url_shortner.codegen.HashShortCodeGenerator;
+import com.example.url_shortner.util.UrlUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-call cost of the URL helpers on the shorten path, over a realistic URL corpus
+ */
+@State(Scope.Thread)
+public class UrlUtilsBenchmark {
+    
+    private static final int CORPUS_SIZE = 1 << 12;
+    
+    private final HashShortCodeGenerator md5 = new HashShortCodeGenerator(HashAlgorithm.MD5);
+    private final HashShortCodeGenerator murmur3 = new HashShortCodeGenerator(HashAlgorithm.MURMUR3);
+    
+    private String[] urls;
+    private String[] rawUrls;
+    private int next;
+    
+    @Setup
+    public void setUp() {
+        urls = UrlCorpus.generate(CORPUS_SIZE, 42);
+        rawUrls = new String[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            // Every other URL without a scheme, so normalization has work to do
+            rawUrls[i] = (i & 1) == 0 ? urls[i] : urls[i].substring(urls[i].indexOf("://") + 3);
+        }
+    }
+    
+    private int nextIndex() {
+        return next++ & (CORPUS_SIZE - 1);
+    }
+    
+    // The first candidate, as generated on the shorten path
+    @Benchmark
+    public String md5Candidate() {
+        return md5.candidate(urls[nextIndex()], 0);
+    }
+    
+    @Benchmark
+    public String murmur3Candidate() {
+        return murmur3.candidate(urls[nextIndex()], 0);
+    }
+    
+    @Benchmark
+    public String validateAndNormalizeUrl() {
+        return UrlUtils.validateAndNormalizeUrl(rawUrls[nextIndex()]);
+    }
+    
+    @Benchmark
+    public String extractDomain() {
+        return UrlUtils.extractDomain(urls[nextIndex()]);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.url_shortner.analytics;
+
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * All-time click totals per short code
+ * Written only by the aggregator thread, so a total is a plain volatile long rather than an
+ * atomic or striped counter; readers see the totals as of the last drained batch.
+ */
+@Component
+public class ClickCounter implements ClickSink {
+    
+    private static final class Total {
+        volatile long clicks;
+    }
+    
+    private final Map<String, Total> totals = new ConcurrentHashMap<>();
+    
+    @Override
+    public void onClicks(String[] shortCodes, long[] visitors, int count, long timestampMillis) {
+        for (int i = 0; i < count; i++) {
+            Total total = totals.get(shortCodes[i]);
+            if (total == null) {
+                total = totals.computeIfAbsent(shortCodes[i], code -> new Total());
+            }
+            total.clicks++;
+        }
+    }
+    
+    @Override
+    public void onRemoved(String shortCode) {
+        totals.remove(shortCode);
+    }
+    
+    /**
+     * @param shortCode the short code
+     * @return clicks recorded for the code, 0 if none
+     */
+    public long getClicks(String shortCode) {
+        Total total = totals.get(shortCode);
+        return total == null ? 0 : total.clicks;
+    }
+}
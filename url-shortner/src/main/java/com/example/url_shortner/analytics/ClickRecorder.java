@@ -0,0 +1,179 @@
+package com.example.url_shortner.analytics;
+
+import com.example.url_shortner.expiry.ExpiryListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.Closeable;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records redirect clicks off the request path
+ *
+ * {@link #record(String)} publishes the short code into one of several {@link ClickRingBuffer}
+ * stripes (chosen by thread, so request threads rarely share a tail) and returns; it never blocks
+ * or allocates. A background aggregator thread drains the stripes in batches and hands each
+ * batch to every {@link ClickSink}, or calls {@link ClickSink#onIdle(long)} when a drain finds
+ * nothing. If the aggregator falls behind and a stripe fills up, clicks are dropped and counted
+ * rather than slowing redirects down. Codes removed by expiry are queued
+ * and delivered to {@link ClickSink#onRemoved(String)} on the same thread, so sinks can drop
+ * their per-code state without synchronizing with the click batches.
+ */
+@Component
+public class ClickRecorder implements ExpiryListener, Closeable {
+    
+    private static final Logger log = LoggerFactory.getLogger(ClickRecorder.class);
+    private static final int BATCH_SIZE = 4096;
+    
+    private final ClickRingBuffer[] stripes;
+    private final List<ClickSink> sinks;
+    private final long drainIntervalNanos;
+    private final LongAdder dropped = new LongAdder();
+    private final String[] batch = new String[BATCH_SIZE];
+    private final long[] visitorBatch = new long[BATCH_SIZE];
+    private final Queue<String> removed = new ConcurrentLinkedQueue<>();
+    private final Thread aggregator;
+    
+    private volatile boolean enabled;
+    private volatile boolean running = true;
+    
+    public ClickRecorder(List<ClickSink> sinks,
+                         @Value("${app.analytics.enabled:true}") boolean enabled,
+                         @Value("${app.analytics.ring-buffer-size:65536}") int ringBufferSize,
+                         @Value("${app.analytics.drain-interval-ms:10}") long drainIntervalMillis) {
+        int stripeCount = ClickRingBuffer.powerOfTwoAtLeast(Runtime.getRuntime().availableProcessors());
+        this.stripes = new ClickRingBuffer[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ClickRingBuffer(Math.max(2, ringBufferSize / stripeCount));
+        }
+        this.sinks = List.copyOf(sinks);
+        this.enabled = enabled;
+        this.drainIntervalNanos = TimeUnit.MILLISECONDS.toNanos(drainIntervalMillis);
+        this.aggregator = new Thread(this::aggregate, "click-aggregator");
+        aggregator.setDaemon(true);
+        aggregator.start();
+    }
+    
+    /**
+     * Publishes a click from an unknown visitor
+     * @param shortCode the clicked short code
+     */
+    public void record(String shortCode) {
+        record(shortCode, ClickSink.UNKNOWN_VISITOR);
+    }
+    
+    /**
+     * Publishes a click; returns immediately whether or not the event could be buffered
+     * @param shortCode the clicked short code
+     * @param visitor 64-bit hash identifying the client, or {@link ClickSink#UNKNOWN_VISITOR}
+     */
+    public void record(String shortCode, long visitor) {
+        if (!enabled) {
+            return;
+        }
+        int stripe = (int) Thread.currentThread().getId() & (stripes.length - 1);
+        if (!stripes[stripe].offer(shortCode, visitor)) {
+            dropped.increment();
+        }
+    }
+    
+    /**
+     * Queues a removed code for {@link ClickSink#onRemoved(String)}; delivered by the next drain
+     */
+    @Override
+    public void onExpired(String shortCode) {
+        removed.add(shortCode);
+    }
+    
+    /**
+     * Turns click recording on or off at runtime
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * @return clicks dropped because a ring buffer was full
+     */
+    public long getDroppedClicks() {
+        return dropped.sum();
+    }
+    
+    /**
+     * Drains everything published so far and delivers it to the sinks
+     * Normally called by the aggregator thread; callers that need recorded clicks to be visible
+     * (e.g. tests, shutdown) may call it directly.
+     * @return number of clicks delivered
+     */
+    public synchronized int drain() {
+        int total = 0;
+        int drained;
+        do {
+            drained = 0;
+            for (ClickRingBuffer stripe : stripes) {
+                drained += stripe.drainTo(batch, visitorBatch, drained);
+                if (drained == batch.length) {
+                    break;
+                }
+            }
+            if (drained > 0) {
+                long now = System.currentTimeMillis();
+                for (ClickSink sink : sinks) {
+                    sink.onClicks(batch, visitorBatch, drained, now);
+                }
+                total += drained;
+            }
+        } while (drained == batch.length);
+        for (String shortCode = removed.poll(); shortCode != null; shortCode = removed.poll()) {
+            for (ClickSink sink : sinks) {
+                sink.onRemoved(shortCode);
+            }
+        }
+        return total;
+    }
+    
+    private synchronized void idle() {
+        long now = System.currentTimeMillis();
+        for (ClickSink sink : sinks) {
+            sink.onIdle(now);
+        }
+    }
+    
+    private void aggregate() {
+        while (running) {
+            try {
+                if (drain() == 0) {
+                    idle();
+                    LockSupport.parkNanos(drainIntervalNanos);
+                }
+            } catch (RuntimeException e) {
+                log.error("Click sink failed; batch discarded", e);
+            }
+        }
+    }
+    
+    /**
+     * Stops the aggregator after delivering the clicks still buffered
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(aggregator);
+        try {
+            aggregator.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.url_shortner.analytics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer, single-consumer queue of clicks (short code and visitor hash)
+ *
+ * Producers claim a sequence number with a CAS on the tail, write the visitor hash with a plain
+ * store and publish the code into its slot with a release store, which also makes the visitor
+ * visible to the consumer; nothing is allocated per event. When the buffer is full the event is
+ * rejected instead of waiting, so a slow consumer can never stall a producer. The single
+ * consumer reads slots in sequence order, clears them and then advances the head.
+ */
+final class ClickRingBuffer {
+    
+    private final AtomicReferenceArray<String> slots;
+    private final long[] visitors;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    ClickRingBuffer(int capacity) {
+        int size = powerOfTwoAtLeast(Math.max(2, capacity));
+        this.slots = new AtomicReferenceArray<>(size);
+        this.visitors = new long[size];
+        this.mask = size - 1;
+    }
+    
+    /**
+     * @return false if the buffer was full and the event was dropped
+     */
+    boolean offer(String shortCode, long visitor) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        int index = (int) sequence & mask;
+        visitors[index] = visitor;
+        slots.setRelease(index, shortCode);
+        return true;
+    }
+    
+    /**
+     * Moves up to {@code batch.length - offset} published events into {@code batch} and their
+     * visitor hashes into {@code visitorBatch} at the same positions
+     * Must only be called by one thread at a time.
+     * @return number of events drained
+     */
+    int drainTo(String[] batch, long[] visitorBatch, int offset) {
+        long sequence = head.get();
+        int drained = 0;
+        while (offset + drained < batch.length) {
+            int index = (int) (sequence + drained) & mask;
+            String shortCode = slots.getAcquire(index);
+            if (shortCode == null) {
+                // Empty, or claimed by a producer that has not published yet
+                break;
+            }
+            visitorBatch[offset + drained] = visitors[index];
+            slots.setPlain(index, null);
+            batch[offset + drained++] = shortCode;
+        }
+        if (drained > 0) {
+            head.set(sequence + drained);
+        }
+        return drained;
+    }
+    
+    int capacity() {
+        return mask + 1;
+    }
+    
+    static int powerOfTwoAtLeast(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.url_shortner.analytics;
+
+/**
+ * Consumer of click events drained by the {@link ClickRecorder} aggregator
+ * Every ClickSink bean is registered automatically. Sinks run on the single aggregator thread,
+ * never on the redirect path, so they need no synchronization of their own for writes.
+ */
+public interface ClickSink {
+    
+    /**
+     * Visitor hash recorded when the client is not known
+     */
+    long UNKNOWN_VISITOR = 0;
+    
+    /**
+     * Handles a batch of clicks drained together
+     * @param shortCodes clicked short codes; only the first {@code count} entries are valid and
+     *                   the array is reused after this call returns
+     * @param visitors hashes identifying the client of each click (same positions as
+     *                 {@code shortCodes}, {@link #UNKNOWN_VISITOR} if not known); also reused
+     * @param count number of clicks in the batch
+     * @param timestampMillis wall-clock time the batch was drained (clicks are at most one drain
+     *                        interval older)
+     */
+    void onClicks(String[] shortCodes, long[] visitors, int count, long timestampMillis);
+    
+    /**
+     * Called by the aggregator when a drain found no clicks, so time-driven state (e.g. decay)
+     * advances while traffic has stopped
+     * @param timestampMillis wall-clock time of the empty drain
+     */
+    default void onIdle(long timestampMillis) {
+    }
+    
+    /**
+     * Drops any state kept for a short code that no longer redirects (e.g. an expired link)
+     * Delivered on the aggregator thread after the clicks drained before the removal.
+     * @param shortCode the removed short code
+     */
+    default void onRemoved(String shortCode) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.url_shortner.analytics;
+
+import com.example.url_shortner.util.Murmur3;
+
+/**
+ * Count-Min sketch of string frequencies
+ *
+ * {@code depth} rows of {@code width} counters; a key increments one counter per row and its
+ * estimate is the smallest of them. Estimates never undercount, and with probability
+ * 1 - e^-depth overcount by at most e / width of the total added. Updates are conservative
+ * (only counters below the new estimate are raised), which tightens estimates for free.
+ * Row positions come from one 64-bit hash split in two (h1 + i * h2, h2 odd). Not thread-safe.
+ */
+public final class CountMinSketch {
+    
+    private final long[][] rows;
+    private final int mask;
+    private long total;
+    
+    /**
+     * @param width counters per row, rounded up to a power of two
+     * @param depth number of rows
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("width and depth must be positive");
+        }
+        int size = ClickRingBuffer.powerOfTwoAtLeast(width);
+        this.rows = new long[depth][size];
+        this.mask = size - 1;
+    }
+    
+    /**
+     * Adds one occurrence of the key
+     * @param key the key
+     * @return the key's estimated count including this occurrence
+     */
+    public long increment(String key) {
+        long hash = Murmur3.hash64(key, 0);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < rows.length; i++) {
+            estimate = Math.min(estimate, rows[i][(h1 + i * h2) & mask]);
+        }
+        estimate++;
+        for (int i = 0; i < rows.length; i++) {
+            int index = (h1 + i * h2) & mask;
+            if (rows[i][index] < estimate) {
+                rows[i][index] = estimate;
+            }
+        }
+        total++;
+        return estimate;
+    }
+    
+    /**
+     * @param key the key
+     * @return the key's estimated count (never below the true count)
+     */
+    public long estimate(String key) {
+        long hash = Murmur3.hash64(key, 0);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < rows.length; i++) {
+            estimate = Math.min(estimate, rows[i][(h1 + i * h2) & mask]);
+        }
+        return estimate;
+    }
+    
+    /**
+     * Halves every counter so old traffic fades out
+     */
+    public void decay() {
+        for (long[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        total >>>= 1;
+    }
+    
+    /**
+     * @return total occurrences added (halved by each decay)
+     */
+    public long getTotal() {
+        return total;
+    }
+    
+    /**
+     * @return the additive error bound e / width * total, exceeded with probability e^-depth
+     */
+    public long getErrorBound() {
+        return (long) Math.ceil(Math.E / (mask + 1) * total);
+    }
+    
+    public int getWidth() {
+        return mask + 1;
+    }
+    
+    public int getDepth() {
+        return rows.length;
+    }
+}
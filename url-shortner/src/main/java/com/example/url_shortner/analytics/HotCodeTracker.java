@@ -0,0 +1,212 @@
+package com.example.url_shortner.analytics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heavy-hitter detection for redirect traffic: the short codes receiving the most clicks lately
+ *
+ * Every click updates a {@link CountMinSketch} (fixed memory, independent of the number of
+ * codes) and a small min-heap of the {@code capacity} codes with the highest estimates; a code
+ * enters the heap once its estimate beats the heap's smallest. Sketch and heap are halved every
+ * decay interval, also while no clicks arrive (driven by the aggregator's idle loop), so a code
+ * that stops receiving traffic decays to zero and drops out of the ranking; an interval of 0
+ * disables decay, so counts accumulate from startup. Only the aggregator thread writes; readers
+ * get the immutable ranking published after each batch or decay.
+ */
+@Component
+public class HotCodeTracker implements ClickSink {
+    
+    /**
+     * A short code and its estimated (decayed) click count
+     */
+    public static final class HotCode {
+        private final String shortCode;
+        private final long estimatedClicks;
+        
+        HotCode(String shortCode, long estimatedClicks) {
+            this.shortCode = shortCode;
+            this.estimatedClicks = estimatedClicks;
+        }
+        
+        public String getShortCode() {
+            return shortCode;
+        }
+        
+        public long getEstimatedClicks() {
+            return estimatedClicks;
+        }
+    }
+    
+    private final CountMinSketch sketch;
+    private final long decayIntervalMillis;
+    private final String[] heapCodes;
+    private final long[] heapCounts;
+    private final Map<String, Integer> heapPositions = new HashMap<>();
+    private int heapSize;
+    private long nextDecayMillis = Long.MIN_VALUE;
+    
+    private volatile List<HotCode> ranking = List.of();
+    private volatile long errorBound;
+    
+    public HotCodeTracker(@Value("${app.analytics.hot-codes.width:2048}") int width,
+                          @Value("${app.analytics.hot-codes.depth:4}") int depth,
+                          @Value("${app.analytics.hot-codes.capacity:100}") int capacity,
+                          @Value("${app.analytics.hot-codes.decay-interval-seconds:60}") long decayIntervalSeconds) {
+        this.sketch = new CountMinSketch(width, depth);
+        this.decayIntervalMillis = TimeUnit.SECONDS.toMillis(decayIntervalSeconds);
+        this.heapCodes = new String[capacity];
+        this.heapCounts = new long[capacity];
+    }
+    
+    @Override
+    public void onClicks(String[] shortCodes, long[] visitors, int count, long timestampMillis) {
+        decayIfDue(timestampMillis);
+        for (int i = 0; i < count; i++) {
+            offer(shortCodes[i], sketch.increment(shortCodes[i]));
+        }
+        publish();
+    }
+    
+    @Override
+    public void onIdle(long timestampMillis) {
+        if (decayIfDue(timestampMillis)) {
+            publish();
+        }
+    }
+    
+    /**
+     * Applies every decay whose interval has passed
+     * @return true if anything was decayed
+     */
+    private boolean decayIfDue(long timestampMillis) {
+        if (decayIntervalMillis <= 0) {
+            return false;
+        }
+        if (nextDecayMillis == Long.MIN_VALUE) {
+            nextDecayMillis = timestampMillis + decayIntervalMillis;
+        }
+        if (timestampMillis < nextDecayMillis) {
+            return false;
+        }
+        // Counts reach zero after 64 halvings, so a long idle gap needs no more than that
+        long due = (timestampMillis - nextDecayMillis) / decayIntervalMillis + 1;
+        for (long i = 0; i < Math.min(due, Long.SIZE); i++) {
+            decay();
+        }
+        nextDecayMillis += due * decayIntervalMillis;
+        return true;
+    }
+    
+    private void offer(String shortCode, long estimate) {
+        Integer position = heapPositions.get(shortCode);
+        if (position != null) {
+            heapCounts[position] = estimate;
+            siftDown(position);
+        } else if (heapSize < heapCodes.length) {
+            heapCodes[heapSize] = shortCode;
+            heapCounts[heapSize] = estimate;
+            heapPositions.put(shortCode, heapSize);
+            siftUp(heapSize++);
+        } else if (heapSize > 0 && estimate > heapCounts[0]) {
+            // Evict the coldest tracked code
+            heapPositions.remove(heapCodes[0]);
+            heapCodes[0] = shortCode;
+            heapCounts[0] = estimate;
+            heapPositions.put(shortCode, 0);
+            siftDown(0);
+        }
+    }
+    
+    private void decay() {
+        sketch.decay();
+        // Halving every count keeps the heap order, so no re-heapify is needed
+        for (int i = 0; i < heapSize; i++) {
+            heapCounts[i] >>>= 1;
+        }
+    }
+    
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (heapCounts[parent] <= heapCounts[position]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+    
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < heapSize && heapCounts[left] < heapCounts[smallest]) {
+                smallest = left;
+            }
+            if (right < heapSize && heapCounts[right] < heapCounts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+    
+    private void swap(int a, int b) {
+        String code = heapCodes[a];
+        long count = heapCounts[a];
+        heapCodes[a] = heapCodes[b];
+        heapCounts[a] = heapCounts[b];
+        heapCodes[b] = code;
+        heapCounts[b] = count;
+        heapPositions.put(heapCodes[a], a);
+        heapPositions.put(heapCodes[b], b);
+    }
+    
+    private void publish() {
+        List<HotCode> snapshot = new ArrayList<>(heapSize);
+        for (int i = 0; i < heapSize; i++) {
+            // Fully decayed codes stay in the heap until displaced but are no longer hot
+            if (heapCounts[i] > 0) {
+                snapshot.add(new HotCode(heapCodes[i], heapCounts[i]));
+            }
+        }
+        snapshot.sort((a, b) -> Long.compare(b.estimatedClicks, a.estimatedClicks));
+        ranking = Collections.unmodifiableList(snapshot);
+        errorBound = sketch.getErrorBound();
+    }
+    
+    /**
+     * @param n the number of codes to return
+     * @return up to n hottest codes, by estimated decayed clicks (descending)
+     */
+    public List<HotCode> getHotCodes(int n) {
+        List<HotCode> current = ranking;
+        return current.subList(0, Math.min(n, current.size()));
+    }
+    
+    /**
+     * @return how far any estimate may exceed the true decayed count (holds with probability
+     *         1 - e^-depth)
+     */
+    public long getErrorBound() {
+        return errorBound;
+    }
+    
+    /**
+     * @return the largest n served by {@link #getHotCodes(int)}
+     */
+    public int getCapacity() {
+        return heapCodes.length;
+    }
+}
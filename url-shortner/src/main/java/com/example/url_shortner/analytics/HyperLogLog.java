@@ -0,0 +1,176 @@
+package com.example.url_shortner.analytics;
+
+import com.example.url_shortner.util.Murmur3;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog cardinality sketch with 2^14 registers
+ *
+ * A sketch starts sparse: only the registers that are set are kept, as a sorted array of
+ * {@code index << 6 | rank} entries that grows on demand. Once it holds more than
+ * 1024 entries (4 KB, a quarter of the dense size) it switches to a dense array of
+ * one byte per register, so only sketches that see many distinct values pay for the full
+ * 16 KB. Small cardinalities are estimated by linear counting, larger ones
+ * by the HyperLogLog harmonic mean; the relative standard error is {@link #RELATIVE_ERROR}.
+ *
+ * Sketches merge by taking the larger rank per register, so sketches of different windows or
+ * servers can be combined without the underlying values. Not thread-safe.
+ */
+public final class HyperLogLog {
+    
+    private static final int PRECISION = 14;
+    static final int REGISTERS = 1 << PRECISION;
+    static final int SPARSE_LIMIT = REGISTERS / 16;
+    private static final int INITIAL_SPARSE_CAPACITY = 4;
+    private static final int RANK_BITS = 6;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+    // Approximate object header plus array header, for the memory figure
+    private static final int OVERHEAD_BYTES = 32;
+    
+    /**
+     * Relative standard error of an estimate, 1.04 / sqrt(registers): about 68% of estimates fall
+     * within this fraction of the true count, 95% within twice and 99.7% within three times it
+     */
+    public static final double RELATIVE_ERROR = 1.04 / Math.sqrt(REGISTERS);
+    
+    private int[] sparse = new int[INITIAL_SPARSE_CAPACITY];
+    private int sparseSize;
+    private byte[] dense;
+    
+    /**
+     * Adds a value by its 64-bit hash
+     * @param hash the value's hash; it is mixed again, so weak hashes are acceptable
+     */
+    public void add(long hash) {
+        long mixed = Murmur3.fmix64(hash);
+        int index = (int) (mixed >>> (64 - PRECISION));
+        // Leading zeros of the remaining bits plus one; the guard bit caps the rank at 51
+        int rank = Long.numberOfLeadingZeros((mixed << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        set(index, rank);
+    }
+    
+    private void set(int index, int rank) {
+        if (dense != null) {
+            if (dense[index] < rank) {
+                dense[index] = (byte) rank;
+            }
+            return;
+        }
+        int position = find(index);
+        if (position >= 0) {
+            if ((sparse[position] & ((1 << RANK_BITS) - 1)) < rank) {
+                sparse[position] = index << RANK_BITS | rank;
+            }
+            return;
+        }
+        if (sparseSize == SPARSE_LIMIT) {
+            toDense();
+            dense[index] = (byte) rank;
+            return;
+        }
+        int insertAt = -position - 1;
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, Math.min(SPARSE_LIMIT, sparse.length * 2));
+        }
+        System.arraycopy(sparse, insertAt, sparse, insertAt + 1, sparseSize - insertAt);
+        sparse[insertAt] = index << RANK_BITS | rank;
+        sparseSize++;
+    }
+    
+    /**
+     * Binary search of the sparse entries by register index
+     * @return the entry's position, or {@code -(insertion point) - 1}
+     */
+    private int find(int index) {
+        int low = 0;
+        int high = sparseSize - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midIndex = sparse[mid] >>> RANK_BITS;
+            if (midIndex < index) {
+                low = mid + 1;
+            } else if (midIndex > index) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+    
+    private void toDense() {
+        dense = new byte[REGISTERS];
+        for (int i = 0; i < sparseSize; i++) {
+            dense[sparse[i] >>> RANK_BITS] = (byte) (sparse[i] & ((1 << RANK_BITS) - 1));
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+    
+    /**
+     * Merges another sketch into this one; afterwards this sketch estimates the union
+     * @param other the sketch to merge (left unchanged)
+     */
+    public void merge(HyperLogLog other) {
+        if (other.dense != null) {
+            if (dense == null) {
+                toDense();
+            }
+            for (int i = 0; i < REGISTERS; i++) {
+                if (dense[i] < other.dense[i]) {
+                    dense[i] = other.dense[i];
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < other.sparseSize; i++) {
+            int entry = other.sparse[i];
+            set(entry >>> RANK_BITS, entry & ((1 << RANK_BITS) - 1));
+        }
+    }
+    
+    /**
+     * @return estimated number of distinct values added
+     */
+    public long estimate() {
+        int zeros;
+        double sum;
+        if (dense != null) {
+            zeros = 0;
+            sum = 0;
+            for (byte rank : dense) {
+                if (rank == 0) {
+                    zeros++;
+                }
+                sum += 1.0 / (1L << rank);
+            }
+        } else {
+            // Registers absent from the sparse list are zero and contribute 2^0 each
+            zeros = REGISTERS - sparseSize;
+            sum = zeros;
+            for (int i = 0; i < sparseSize; i++) {
+                sum += 1.0 / (1L << (sparse[i] & ((1 << RANK_BITS) - 1)));
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            // Linear counting is more accurate while many registers are still empty
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+    
+    /**
+     * @return true while the sketch is still in its sparse representation
+     */
+    public boolean isSparse() {
+        return dense == null;
+    }
+    
+    /**
+     * @return approximate heap footprint of the sketch in bytes
+     */
+    public int memoryBytes() {
+        return OVERHEAD_BYTES + (dense != null ? dense.length : sparse.length * Integer.BYTES);
+    }
+}
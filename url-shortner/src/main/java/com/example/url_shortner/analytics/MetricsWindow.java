@@ -0,0 +1,79 @@
+package com.example.url_shortner.analytics;
+
+/**
+ * A rolling metrics window such as {@code 5m}, {@code 1h} or {@code 1d}
+ * Windows up to an hour are served from minute buckets, longer ones from hour buckets, so a
+ * window covers the current (partial) bucket plus the preceding full ones.
+ */
+public final class MetricsWindow {
+    
+    /**
+     * Bucket length backing a window
+     */
+    public enum Resolution {
+        MINUTE, HOUR
+    }
+    
+    private final String label;
+    private final Resolution resolution;
+    private final int buckets;
+    
+    private MetricsWindow(String label, Resolution resolution, int buckets) {
+        this.label = label;
+        this.resolution = resolution;
+        this.buckets = buckets;
+    }
+    
+    /**
+     * Parses a window of the form {@code <n>m} (1-60), {@code <n>h} (1-24) or {@code 1d}
+     * @param window the window text
+     * @return the parsed window
+     * @throws IllegalArgumentException if the window is malformed or out of range
+     */
+    public static MetricsWindow parse(String window) {
+        if (window == null || window.length() < 2) {
+            throw invalid();
+        }
+        int amount;
+        try {
+            amount = Integer.parseInt(window.substring(0, window.length() - 1));
+        } catch (NumberFormatException e) {
+            throw invalid();
+        }
+        char unit = window.charAt(window.length() - 1);
+        if (unit == 'm' && amount >= 1 && amount <= 60) {
+            return new MetricsWindow(window, Resolution.MINUTE, amount);
+        }
+        if (unit == 'h' && amount == 1) {
+            // Sliding at minute granularity rather than jumping a whole hour at a time
+            return new MetricsWindow(window, Resolution.MINUTE, 60);
+        }
+        if (unit == 'h' && amount >= 2 && amount <= 24) {
+            return new MetricsWindow(window, Resolution.HOUR, amount);
+        }
+        if (unit == 'd' && amount == 1) {
+            return new MetricsWindow(window, Resolution.HOUR, 24);
+        }
+        throw invalid();
+    }
+    
+    private static IllegalArgumentException invalid() {
+        return new IllegalArgumentException("window must be between 1m and 1d, e.g. 5m, 1h or 1d");
+    }
+    
+    public Resolution getResolution() {
+        return resolution;
+    }
+    
+    /**
+     * @return number of buckets merged for this window
+     */
+    public int getBuckets() {
+        return buckets;
+    }
+    
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.url_shortner.analytics;
+
+import com.example.url_shortner.storage.SpaceSavingDomainCounter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-key counts over a rolling time window, bucketed into fixed-length intervals
+ *
+ * A fixed-size ring holds one bucket per interval and an interval always maps to the same slot.
+ * When the ring wraps, the expired bucket is replaced by a fresh one with a single CAS, so
+ * rotation needs neither a lock nor a pass that clears old entries. Memory is bounded by the
+ * slot count times the keys tracked per bucket, however long the service has been up. A full
+ * bucket keeps counting with Space-Saving: a new key takes over a low counter and its count, so
+ * a key that only gets busy late in the interval still surfaces, possibly over-counted.
+ */
+final class RollingCounter {
+    
+    private static final class Bucket {
+        final long interval;
+        final SpaceSavingDomainCounter counts;
+        
+        Bucket(long interval, int maxKeys) {
+            this.interval = interval;
+            // Only merged, never asked for its top keys
+            this.counts = new SpaceSavingDomainCounter(maxKeys, 1);
+        }
+    }
+    
+    private final AtomicReferenceArray<Bucket> ring;
+    private final long intervalMillis;
+    private final int maxKeysPerBucket;
+    
+    /**
+     * @param slots number of intervals retained (the longest window that can be queried)
+     * @param intervalMillis length of one interval
+     * @param maxKeysPerBucket distinct keys counted per interval; further keys replace the
+     *                         lowest-counted ones
+     */
+    RollingCounter(int slots, long intervalMillis, int maxKeysPerBucket) {
+        if (maxKeysPerBucket < 1) {
+            throw new IllegalArgumentException("maxKeysPerBucket must be positive");
+        }
+        this.ring = new AtomicReferenceArray<>(slots);
+        this.intervalMillis = intervalMillis;
+        this.maxKeysPerBucket = maxKeysPerBucket;
+    }
+    
+    /**
+     * Adds to the key's count in the interval containing the given time
+     * Events older than the retained window are ignored.
+     */
+    void add(String key, long timeMillis, long delta) {
+        Bucket bucket = bucketFor(Math.floorDiv(timeMillis, intervalMillis));
+        if (bucket == null) {
+            return;
+        }
+        bucket.counts.add(key, delta);
+    }
+    
+    private Bucket bucketFor(long interval) {
+        int slot = slot(interval);
+        while (true) {
+            Bucket current = ring.get(slot);
+            if (current != null) {
+                if (current.interval == interval) {
+                    return current;
+                }
+                if (current.interval > interval) {
+                    // The slot has already moved on to a newer interval
+                    return null;
+                }
+            }
+            Bucket fresh = new Bucket(interval, maxKeysPerBucket);
+            if (ring.compareAndSet(slot, current, fresh)) {
+                return fresh;
+            }
+        }
+    }
+    
+    /**
+     * Sums the buckets of the last {@code intervals} intervals, the one containing
+     * {@code nowMillis} included; only those slots are visited
+     * @param intervals number of intervals to merge, at most the slot count
+     * @param nowMillis end of the window
+     * @return counts per key over the window
+     */
+    Map<String, Long> merge(int intervals, long nowMillis) {
+        if (intervals < 1 || intervals > ring.length()) {
+            throw new IllegalArgumentException("intervals must be between 1 and " + ring.length());
+        }
+        long newest = Math.floorDiv(nowMillis, intervalMillis);
+        Map<String, Long> merged = new HashMap<>();
+        for (long interval = newest - intervals + 1; interval <= newest; interval++) {
+            Bucket bucket = ring.get(slot(interval));
+            // Empty slot, or one still holding an interval from an earlier lap of the ring
+            if (bucket == null || bucket.interval != interval) {
+                continue;
+            }
+            bucket.counts.snapshot().forEach((key, count) -> merged.merge(key, count, Long::sum));
+        }
+        return merged;
+    }
+    
+    private int slot(long interval) {
+        return (int) Math.floorMod(interval, (long) ring.length());
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.url_shortner.analytics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Estimated distinct visitors per short code over a rolling window
+ *
+ * As in {@link WindowedMetrics}, each code has a ring of 60 one-minute and a ring of 24 one-hour
+ * {@link HyperLogLog} sketches; a query merges the sketches its {@link MetricsWindow} covers, so
+ * a visitor seen in several intervals is counted once. Slots are created on the first click of
+ * an interval, so idle codes hold only the sketches of intervals they were clicked in, and a code
+ * is dropped when it is removed or none of its sketches is still within a day.
+ *
+ * Sketches are updated by the aggregator thread, never on the redirect path. A code's rings are
+ * locked only against concurrent reads from the analytics endpoint, so the lock is uncontended
+ * on the write side.
+ */
+@Component
+public class UniqueVisitorCounter implements ClickSink {
+    
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    
+    /**
+     * Window of {@link #getUniqueVisitors(String)}, the longest one retained
+     */
+    public static final MetricsWindow DEFAULT_WINDOW = MetricsWindow.parse("1d");
+    
+    /**
+     * One sketch per interval in a fixed ring; an interval always maps to the same slot
+     */
+    private static final class SketchRing {
+        private final HyperLogLog[] sketches;
+        private final long[] intervals;
+        private final long intervalMillis;
+        
+        SketchRing(int slots, long intervalMillis) {
+            this.sketches = new HyperLogLog[slots];
+            this.intervals = new long[slots];
+            this.intervalMillis = intervalMillis;
+        }
+        
+        void add(long visitor, long timeMillis) {
+            long interval = Math.floorDiv(timeMillis, intervalMillis);
+            int slot = slot(interval);
+            if (sketches[slot] == null || intervals[slot] < interval) {
+                // Replaces the sketch of an earlier lap of the ring
+                sketches[slot] = new HyperLogLog();
+                intervals[slot] = interval;
+            } else if (intervals[slot] > interval) {
+                return;
+            }
+            sketches[slot].add(visitor);
+        }
+        
+        /**
+         * Merges the sketches of the last {@code count} intervals, the one containing
+         * {@code nowMillis} included
+         */
+        HyperLogLog merge(int count, long nowMillis) {
+            long newest = Math.floorDiv(nowMillis, intervalMillis);
+            HyperLogLog union = new HyperLogLog();
+            for (long interval = newest - count + 1; interval <= newest; interval++) {
+                int slot = slot(interval);
+                if (sketches[slot] != null && intervals[slot] == interval) {
+                    union.merge(sketches[slot]);
+                }
+            }
+            return union;
+        }
+        
+        /**
+         * @return true if no sketch covers an interval still within the ring
+         */
+        boolean isExpired(long nowMillis) {
+            long oldest = Math.floorDiv(nowMillis, intervalMillis) - sketches.length + 1;
+            for (int slot = 0; slot < sketches.length; slot++) {
+                if (sketches[slot] != null && intervals[slot] >= oldest) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        int memoryBytes() {
+            int bytes = 0;
+            for (HyperLogLog sketch : sketches) {
+                if (sketch != null) {
+                    bytes += sketch.memoryBytes();
+                }
+            }
+            return bytes;
+        }
+        
+        private int slot(long interval) {
+            return (int) Math.floorMod(interval, (long) sketches.length);
+        }
+    }
+    
+    private static final class CodeSketches {
+        final SketchRing byMinute = new SketchRing(60, MINUTE_MILLIS);
+        final SketchRing byHour = new SketchRing(24, HOUR_MILLIS);
+    }
+    
+    private final Map<String, CodeSketches> sketches = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    // Aggregator thread only
+    private long lastPruneMillis;
+    
+    @Autowired
+    public UniqueVisitorCounter() {
+        this(System::currentTimeMillis);
+    }
+    
+    UniqueVisitorCounter(LongSupplier clock) {
+        this.clock = clock;
+        this.lastPruneMillis = clock.getAsLong();
+    }
+    
+    @Override
+    public void onClicks(String[] shortCodes, long[] visitors, int count, long timestampMillis) {
+        for (int i = 0; i < count; i++) {
+            if (visitors[i] == UNKNOWN_VISITOR) {
+                continue;
+            }
+            CodeSketches code = sketches.get(shortCodes[i]);
+            if (code == null) {
+                code = sketches.computeIfAbsent(shortCodes[i], key -> new CodeSketches());
+            }
+            synchronized (code) {
+                code.byMinute.add(visitors[i], timestampMillis);
+                code.byHour.add(visitors[i], timestampMillis);
+            }
+        }
+        if (timestampMillis - lastPruneMillis >= HOUR_MILLIS) {
+            lastPruneMillis = timestampMillis;
+            prune(timestampMillis);
+        }
+    }
+    
+    /**
+     * Drops codes without a click in the last day, whose sketches can no longer be queried
+     */
+    private void prune(long nowMillis) {
+        sketches.values().removeIf(code -> {
+            synchronized (code) {
+                return code.byHour.isExpired(nowMillis);
+            }
+        });
+    }
+    
+    @Override
+    public void onRemoved(String shortCode) {
+        sketches.remove(shortCode);
+    }
+    
+    /**
+     * @param shortCode the short code
+     * @return estimated distinct visitors of the code over {@link #DEFAULT_WINDOW}, 0 if none
+     */
+    public long getUniqueVisitors(String shortCode) {
+        return getUniqueVisitors(shortCode, DEFAULT_WINDOW);
+    }
+    
+    /**
+     * @param shortCode the short code
+     * @param window the window
+     * @return estimated distinct visitors of the code within the window, 0 if none
+     */
+    public long getUniqueVisitors(String shortCode, MetricsWindow window) {
+        CodeSketches code = sketches.get(shortCode);
+        if (code == null) {
+            return 0;
+        }
+        HyperLogLog union;
+        synchronized (code) {
+            SketchRing ring = window.getResolution() == MetricsWindow.Resolution.MINUTE ? code.byMinute : code.byHour;
+            union = ring.merge(window.getBuckets(), clock.getAsLong());
+        }
+        return union.estimate();
+    }
+    
+    /**
+     * @param shortCode the short code
+     * @return approximate bytes held by the code's sketches, 0 if it has none
+     */
+    public int getSketchBytes(String shortCode) {
+        CodeSketches code = sketches.get(shortCode);
+        if (code == null) {
+            return 0;
+        }
+        synchronized (code) {
+            return code.byMinute.memoryBytes() + code.byHour.memoryBytes();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.url_shortner.analytics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Rolling-window counts of shortened domains and redirected short codes
+ *
+ * Each series is kept twice: in a ring of 60 one-minute buckets (windows up to an hour) and a
+ * ring of 24 one-hour buckets (windows up to a day). A query merges only the buckets its
+ * {@link MetricsWindow} covers. Redirects arrive as {@link ClickSink} batches from the
+ * aggregator thread; shortens are recorded by the service when a new URL is stored.
+ */
+@Component
+public class WindowedMetrics implements ClickSink {
+    
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    
+    private static final Comparator<Map.Entry<String, Long>> BY_COUNT =
+            Map.Entry.<String, Long>comparingByValue()
+                    .thenComparing(Map.Entry.<String, Long>comparingByKey().reversed());
+    
+    private final RollingCounter domainsByMinute;
+    private final RollingCounter domainsByHour;
+    private final RollingCounter codesByMinute;
+    private final RollingCounter codesByHour;
+    private final LongSupplier clock;
+    
+    @Autowired
+    public WindowedMetrics(@Value("${app.metrics.window.max-keys-per-bucket:10000}") int maxKeysPerBucket) {
+        this(maxKeysPerBucket, System::currentTimeMillis);
+    }
+    
+    WindowedMetrics(int maxKeysPerBucket, LongSupplier clock) {
+        this.domainsByMinute = new RollingCounter(60, MINUTE_MILLIS, maxKeysPerBucket);
+        this.domainsByHour = new RollingCounter(24, HOUR_MILLIS, maxKeysPerBucket);
+        this.codesByMinute = new RollingCounter(60, MINUTE_MILLIS, maxKeysPerBucket);
+        this.codesByHour = new RollingCounter(24, HOUR_MILLIS, maxKeysPerBucket);
+        this.clock = clock;
+    }
+    
+    /**
+     * Records a newly shortened URL's domain at the current time
+     * @param domain the domain
+     */
+    public void recordShorten(String domain) {
+        long now = clock.getAsLong();
+        domainsByMinute.add(domain, now, 1);
+        domainsByHour.add(domain, now, 1);
+    }
+    
+    @Override
+    public void onClicks(String[] shortCodes, long[] visitors, int count, long timestampMillis) {
+        for (int i = 0; i < count; i++) {
+            codesByMinute.add(shortCodes[i], timestampMillis, 1);
+            codesByHour.add(shortCodes[i], timestampMillis, 1);
+        }
+    }
+    
+    /**
+     * Gets the most shortened domains within the window
+     * @param n the number of domains to return
+     * @param window the window
+     * @return up to n (domain, count) entries sorted by count (descending)
+     */
+    public List<Map.Entry<String, Long>> getTopDomains(int n, MetricsWindow window) {
+        return top(select(window, domainsByMinute, domainsByHour)
+                .merge(window.getBuckets(), clock.getAsLong()), n);
+    }
+    
+    /**
+     * Gets the most redirected short codes within the window
+     * @param n the number of codes to return
+     * @param window the window
+     * @return up to n (short code, clicks) entries sorted by clicks (descending)
+     */
+    public List<Map.Entry<String, Long>> getTopCodes(int n, MetricsWindow window) {
+        return top(select(window, codesByMinute, codesByHour)
+                .merge(window.getBuckets(), clock.getAsLong()), n);
+    }
+    
+    private static RollingCounter select(MetricsWindow window, RollingCounter byMinute, RollingCounter byHour) {
+        return window.getResolution() == MetricsWindow.Resolution.MINUTE ? byMinute : byHour;
+    }
+    
+    /**
+     * Selects the n largest counts with a bounded min-heap rather than sorting every key
+     */
+    private static List<Map.Entry<String, Long>> top(Map<String, Long> counts, int n) {
+        PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(Math.min(n, counts.size()) + 1, BY_COUNT);
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            if (heap.size() < n) {
+                heap.add(entry);
+            } else if (BY_COUNT.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        List<Map.Entry<String, Long>> result = new ArrayList<>(heap);
+        result.sort(BY_COUNT.reversed());
+        return result;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.url_shortner.codegen;
+
+/**
+ * Hash used by {@link HashShortCodeGenerator} ({@code app.shortcode.hash})
+ */
+public enum HashAlgorithm {
+    
+    /**
+     * MD5 digest of the UTF-8 bytes, Base64url-encoded (the original codes)
+     */
+    MD5,
+    
+    /**
+     * Murmur3 over the URL's chars, encoded straight into the same alphabet;
+     * codes differ from MD5 codes, so switching only affects newly shortened URLs
+     */
+    MURMUR3;
+    
+    public static HashAlgorithm fromString(String value) {
+        return valueOf(value.trim().toUpperCase());
+    }
+}
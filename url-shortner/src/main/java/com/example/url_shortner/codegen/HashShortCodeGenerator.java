@@ -0,0 +1,121 @@
+package com.example.url_shortner.codegen;
+
+import com.example.url_shortner.exception.ShortCodeExhaustedException;
+import com.example.url_shortner.util.Murmur3;
+import com.example.url_shortner.util.UrlUtils;
+import java.util.function.LongSupplier;
+
+/**
+ * Hash-derived short codes ({@code app.shortcode.strategy=hash}, the default)
+ * The URL's 64-bit hash is encoded 6 bits per character by {@link UrlUtils#encodeShortCode(long, int)},
+ * so the first candidate at the default length is the original code (the MD5 digest's Base64url
+ * prefix, or the Murmur3 code).
+ * Collisions are resolved by double hashing at a fixed length: candidate k is h1 + k * h2,
+ * with h2 derived from h1, so the probes for a URL are independent of other URLs' codes and
+ * expected probes stay below 1 / (1 - load). After {@code probesPerLength} taken candidates the
+ * sequence continues one character longer, up to {@link #MAX_LENGTH}; past that the URL is
+ * rejected with a {@link ShortCodeExhaustedException} rather than probing forever.
+ *
+ * The code length grows by itself once the mappings fill more than {@code maxLoadFactor} of the
+ * current length's 64^length codes, which keeps the expected probe count constant as the store
+ * grows. Lengths never shrink.
+ */
+public class HashShortCodeGenerator implements ShortCodeGenerator {
+    
+    public static final int DEFAULT_LENGTH = 8;
+    public static final int MAX_LENGTH = 10;
+    public static final int DEFAULT_PROBES_PER_LENGTH = 8;
+    public static final double DEFAULT_MAX_LOAD_FACTOR = 0.5;
+    
+    private static final int ALPHABET_SIZE = 64;
+    
+    private final HashAlgorithm algorithm;
+    private final int probesPerLength;
+    private final double maxLoadFactor;
+    private final LongSupplier mappings;
+    private volatile int length;
+    
+    public HashShortCodeGenerator() {
+        this(HashAlgorithm.MD5);
+    }
+    
+    public HashShortCodeGenerator(HashAlgorithm algorithm) {
+        this(algorithm, DEFAULT_LENGTH, DEFAULT_PROBES_PER_LENGTH, DEFAULT_MAX_LOAD_FACTOR, () -> 0);
+    }
+    
+    /**
+     * @param algorithm hash of the URL
+     * @param length starting code length, 1 to {@link #MAX_LENGTH}
+     * @param probesPerLength candidates tried at one length before trying longer codes
+     * @param maxLoadFactor fraction of the current length's codes in use at which codes grow a character
+     * @param mappings number of stored mappings, polled when a new URL is shortened
+     */
+    public HashShortCodeGenerator(HashAlgorithm algorithm, int length, int probesPerLength,
+                                  double maxLoadFactor, LongSupplier mappings) {
+        if (length < 1 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("length must be between 1 and " + MAX_LENGTH);
+        }
+        if (probesPerLength < 1) {
+            throw new IllegalArgumentException("probesPerLength must be positive");
+        }
+        if (maxLoadFactor <= 0 || maxLoadFactor >= 1) {
+            throw new IllegalArgumentException("maxLoadFactor must be between 0 and 1");
+        }
+        this.algorithm = algorithm;
+        this.length = length;
+        this.probesPerLength = probesPerLength;
+        this.maxLoadFactor = maxLoadFactor;
+        this.mappings = mappings;
+    }
+    
+    @Override
+    public String candidate(String normalizedUrl, int attempt) {
+        int base = attempt == 0 ? growLength() : length;
+        int codeLength = base + attempt / probesPerLength;
+        if (codeLength > MAX_LENGTH) {
+            throw new ShortCodeExhaustedException("No free short code after " + attempt + " probes");
+        }
+        long h1 = hash(normalizedUrl);
+        // Odd, so the probe sequence never revisits a hash value
+        long h2 = Murmur3.fmix64(h1) | 1;
+        return UrlUtils.encodeShortCode(h1 + attempt * h2, codeLength);
+    }
+    
+    /**
+     * @return the current length, after growing it if the mappings passed the load factor
+     */
+    private int growLength() {
+        int current = length;
+        if (current < MAX_LENGTH && mappings.getAsLong() > maxLoadFactor * capacity(current)) {
+            synchronized (this) {
+                while (length < MAX_LENGTH && mappings.getAsLong() > maxLoadFactor * capacity(length)) {
+                    length++;
+                }
+                current = length;
+            }
+        }
+        return current;
+    }
+    
+    private static double capacity(int length) {
+        return Math.pow(ALPHABET_SIZE, length);
+    }
+    
+    private long hash(String normalizedUrl) {
+        return algorithm == HashAlgorithm.MURMUR3 ? Murmur3.hash64(normalizedUrl, 0) : UrlUtils.md5Hash64(normalizedUrl);
+    }
+    
+    /**
+     * @return the length of a new URL's first candidate
+     */
+    public int getLength() {
+        return length;
+    }
+    
+    /**
+     * @return fraction of the current length's codes in use
+     */
+    public double getLoadFactor() {
+        return mappings.getAsLong() / capacity(length);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.url_shortner.codegen;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Hands out disjoint blocks of a monotonically increasing 64-bit ID sequence
+ *
+ * When a state file is configured, the allocator persists a high-water mark before handing out
+ * any ID below it, reserving many blocks per write. After a restart allocation resumes at the
+ * persisted mark, so IDs are never reissued; IDs reserved but unused before a restart are skipped.
+ */
+public class IdBlockAllocator {
+    
+    private final int blockSize;
+    private final int blocksPerReservation;
+    private final Path stateFile;
+    
+    // Guarded by this
+    private long next;
+    private long reservedUpTo;
+    
+    /**
+     * In-memory allocator starting at 0; IDs restart from 0 after a restart
+     */
+    public IdBlockAllocator(int blockSize) {
+        this.blockSize = blockSize;
+        this.blocksPerReservation = 1;
+        this.stateFile = null;
+        this.reservedUpTo = Long.MAX_VALUE;
+    }
+    
+    /**
+     * Persistent allocator resuming from the high-water mark in {@code stateFile}
+     * @param blockSize IDs per block handed to a thread
+     * @param blocksPerReservation blocks reserved per state file write
+     * @param stateFile file holding the high-water mark
+     */
+    public IdBlockAllocator(int blockSize, int blocksPerReservation, Path stateFile) throws IOException {
+        if (blockSize <= 0 || blocksPerReservation <= 0) {
+            throw new IllegalArgumentException("Block size and blocks per reservation must be positive");
+        }
+        this.blockSize = blockSize;
+        this.blocksPerReservation = blocksPerReservation;
+        this.stateFile = stateFile;
+        if (Files.exists(stateFile)) {
+            ByteBuffer state = ByteBuffer.wrap(Files.readAllBytes(stateFile));
+            if (state.remaining() != Long.BYTES) {
+                throw new IOException("Corrupt ID allocator state: " + stateFile);
+            }
+            this.next = state.getLong();
+        }
+        this.reservedUpTo = next;
+    }
+    
+    /**
+     * @return the first ID of a fresh block of {@link #getBlockSize()} IDs
+     */
+    public synchronized long allocateBlock() {
+        if (next > reservedUpTo - blockSize) {
+            reserve(next + (long) blockSize * blocksPerReservation);
+        }
+        long start = next;
+        next += blockSize;
+        return start;
+    }
+    
+    public int getBlockSize() {
+        return blockSize;
+    }
+    
+    private void reserve(long highWaterMark) {
+        try {
+            if (stateFile.getParent() != null) {
+                Files.createDirectories(stateFile.getParent());
+            }
+            Path tmp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer state = ByteBuffer.allocate(Long.BYTES).putLong(highWaterMark).flip();
+                while (state.hasRemaining()) {
+                    channel.write(state);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to persist ID allocator state to " + stateFile, e);
+        }
+        reservedUpTo = highWaterMark;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.url_shortner.codegen;
+
+/**
+ * Sequence-derived short codes ({@code app.shortcode.strategy=sequence})
+ *
+ * Each code encodes a unique 64-bit ID, so there is no hashing and collisions can only occur
+ * with codes stored earlier by another strategy (the next ID is then tried). IDs come from
+ * per-thread ranges handed out by an {@link IdBlockAllocator}, so the common path touches no
+ * shared state. IDs are permuted with an affine bijection modulo 62^8 and written as 8 base62
+ * characters, so consecutive links do not get guessable, consecutive codes; codes grow past 8
+ * characters only after 62^8 (about 2.2e14) IDs.
+ */
+public class SequenceShortCodeGenerator implements ShortCodeGenerator {
+    
+    private static final char[] BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final int CODE_LENGTH = 8;
+    private static final long SPACE = 218_340_105_584_896L; // 62^8
+    // Coprime with 62^8 (odd, not a multiple of 31), so id -> id * MULTIPLIER + OFFSET is a bijection
+    private static final long MULTIPLIER = 141_650_939_617_613L;
+    private static final long OFFSET = 71_394_120_398_521L;
+    
+    private final IdBlockAllocator allocator;
+    private final ThreadLocal<long[]> ranges = ThreadLocal.withInitial(() -> new long[] {0, 0});
+    
+    public SequenceShortCodeGenerator(IdBlockAllocator allocator) {
+        this.allocator = allocator;
+    }
+    
+    @Override
+    public String candidate(String normalizedUrl, int attempt) {
+        return encode(nextId());
+    }
+    
+    /**
+     * @return the next ID from this thread's range, refilling it from the allocator when exhausted
+     */
+    long nextId() {
+        long[] range = ranges.get();
+        if (range[0] == range[1]) {
+            range[0] = allocator.allocateBlock();
+            range[1] = range[0] + allocator.getBlockSize();
+        }
+        return range[0]++;
+    }
+    
+    /**
+     * Bijectively encodes an ID: IDs below 62^8 map to distinct 8-character base62 codes,
+     * larger IDs to distinct longer codes
+     */
+    static String encode(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("ID must be non-negative");
+        }
+        if (id >= SPACE) {
+            return Long.toString(id / SPACE, 36) + "." + encode(id % SPACE);
+        }
+        long value = (multiplyMod(id, MULTIPLIER) + OFFSET) % SPACE;
+        char[] chars = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            chars[i] = BASE62[(int) (value % 62)];
+            value /= 62;
+        }
+        return new String(chars);
+    }
+    
+    /**
+     * (a * b) mod 62^8 for a, b below 62^8 (&lt; 2^48), one byte of b at a time so nothing overflows
+     */
+    private static long multiplyMod(long a, long b) {
+        long result = 0;
+        for (int shift = 40; shift >= 0; shift -= 8) {
+            result = ((result << 8) + a * ((b >>> shift) & 0xFF)) % SPACE;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.url_shortner.codegen;
+
+/**
+ * Strategy for producing candidate short codes
+ * Selected with the {@code app.shortcode.strategy} property.
+ */
+public interface ShortCodeGenerator {
+    
+    /**
+     * Returns the candidate short code for a URL
+     * The storage calls this with attempt 0, 1, 2, ... until a candidate is free.
+     * @param normalizedUrl the validated, normalized URL
+     * @param attempt the attempt number, starting at 0
+     * @return the candidate short code
+     * @throws com.example.url_shortner.exception.ShortCodeExhaustedException if the URL has no
+     *         candidate left; the shorten is rejected
+     */
+    String candidate(String normalizedUrl, int attempt);
+}
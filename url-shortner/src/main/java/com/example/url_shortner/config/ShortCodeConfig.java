@@ -0,0 +1,72 @@
+package com.example.url_shortner.config;
+
+import com.example.url_shortner.codegen.HashAlgorithm;
+import com.example.url_shortner.codegen.HashShortCodeGenerator;
+import com.example.url_shortner.codegen.IdBlockAllocator;
+import com.example.url_shortner.codegen.SequenceShortCodeGenerator;
+import com.example.url_shortner.codegen.ShortCodeGenerator;
+import com.example.url_shortner.storage.UrlStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Short code generation strategy
+ * Set {@code app.shortcode.strategy} to one of: hash (default), sequence
+ * Hash codes start at {@code app.shortcode.length} characters and grow once the mappings fill
+ * {@code app.shortcode.max-load-factor} of the codes of that length.
+ * Sequence IDs restart at 0 without {@code app.shortcode.sequence.state-file}, so a store that
+ * keeps its mappings across restarts requires one: otherwise every code issued before would be
+ * probed again as a collision.
+ */
+@Configuration
+public class ShortCodeConfig {
+    
+    @Bean
+    public ShortCodeGenerator shortCodeGenerator(@Value("${app.shortcode.strategy:hash}") String strategy,
+                                                 @Value("${app.shortcode.hash:md5}") String hash,
+                                                 @Value("${app.shortcode.length:8}") int length,
+                                                 @Value("${app.shortcode.probes-per-length:8}") int probesPerLength,
+                                                 @Value("${app.shortcode.max-load-factor:0.5}") double maxLoadFactor,
+                                                 @Value("${app.shortcode.sequence.block-size:1000}") int blockSize,
+                                                 @Value("${app.shortcode.sequence.state-file:}") String stateFile,
+                                                 UrlStore urlStore) throws IOException {
+        switch (strategy.trim().toLowerCase()) {
+            case "hash":
+                return new HashShortCodeGenerator(HashAlgorithm.fromString(hash), length, probesPerLength,
+                        maxLoadFactor, urlStore::size);
+            case "sequence":
+                if (stateFile.isBlank() && urlStore.isPersistent()) {
+                    throw new IllegalArgumentException("The sequence strategy with a persistent store requires "
+                            + "app.shortcode.sequence.state-file");
+                }
+                IdBlockAllocator allocator = stateFile.isBlank()
+                        ? new IdBlockAllocator(blockSize)
+                        : new IdBlockAllocator(blockSize, 100, Path.of(stateFile));
+                return new SequenceShortCodeGenerator(allocator);
+            default:
+                throw new IllegalArgumentException("Unknown short code strategy: " + strategy);
+        }
+    }
+    
+    /**
+     * Gauges of the hash codes' current length and how full that length is
+     */
+    @Bean
+    public MeterBinder shortCodeMeters(ShortCodeGenerator shortCodeGenerator) {
+        return registry -> {
+            if (shortCodeGenerator instanceof HashShortCodeGenerator hash) {
+                Gauge.builder("urlshortener.shortcode.length", hash, HashShortCodeGenerator::getLength)
+                        .description("Length of new short codes")
+                        .register(registry);
+                Gauge.builder("urlshortener.shortcode.load", hash, HashShortCodeGenerator::getLoadFactor)
+                        .description("Fraction of the codes of the current length in use")
+                        .register(registry);
+            }
+        };
+    }
+}
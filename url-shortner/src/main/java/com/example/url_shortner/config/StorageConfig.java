@@ -0,0 +1,135 @@
+package com.example.url_shortner.config;
+
+import com.example.url_shortner.storage.BloomFilterUrlStore;
+import com.example.url_shortner.storage.DomainCounter;
+import com.example.url_shortner.storage.DurableUrlStore;
+import com.example.url_shortner.storage.ExactDomainCounter;
+import com.example.url_shortner.storage.FsyncPolicy;
+import com.example.url_shortner.storage.InstrumentedUrlStore;
+import com.example.url_shortner.storage.OffHeapUrlStore;
+import com.example.url_shortner.storage.SnapshotUrlStore;
+import com.example.url_shortner.storage.SortedUrlStore;
+import com.example.url_shortner.storage.SpaceSavingDomainCounter;
+import com.example.url_shortner.storage.TieredUrlStore;
+import com.example.url_shortner.storage.UrlStorage;
+import com.example.url_shortner.storage.UrlStore;
+import com.example.url_shortner.storage.WriteAheadLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Storage engine selection
+ * Set {@code app.storage.engine} to one of: memory (default), sorted, offheap, snapshot, tiered.
+ * Set {@code app.storage.wal.enabled=true} to make any engine durable with a write-ahead log; the
+ * snapshot and tiered engines are then checkpointed every {@code app.storage.wal.checkpoint-interval-seconds}.
+ * Lookups of unknown codes are answered by a Bloom filter unless {@code app.storage.bloom.enabled=false}.
+ * Storage operations are timed unless {@code app.telemetry.enabled=false}.
+ */
+@Configuration
+public class StorageConfig {
+    
+    @Bean
+    public UrlStore urlStore(@Value("${app.storage.engine:memory}") String engine,
+                             @Value("${app.storage.wal.enabled:false}") boolean walEnabled,
+                             @Value("${app.storage.wal.path:data/urls.wal}") String walPath,
+                             @Value("${app.storage.wal.fsync:batched}") String fsyncPolicy,
+                             @Value("${app.storage.wal.fsync-interval-ms:100}") long fsyncIntervalMillis,
+                             @Value("${app.storage.wal.checkpoint-interval-seconds:300}") long checkpointIntervalSeconds,
+                             @Value("${app.storage.snapshot.path:data/urls.snapshot}") String snapshotPath,
+                             @Value("${app.storage.snapshot.interval-seconds:300}") long snapshotIntervalSeconds,
+                             @Value("${app.storage.tiered.path:data/urls.tiered}") String tieredPath,
+                             @Value("${app.storage.tiered.hot-max-bytes:67108864}") long tieredHotMaxBytes,
+                             @Value("${app.storage.bloom.enabled:true}") boolean bloomEnabled,
+                             @Value("${app.storage.bloom.expected-insertions:1000000}") long bloomExpectedInsertions,
+                             @Value("${app.storage.bloom.false-positive-rate:0.01}") double bloomFalsePositiveRate,
+                             @Value("${app.storage.bloom.rebuild-interval-seconds:3600}") long bloomRebuildIntervalSeconds,
+                             @Value("${app.telemetry.enabled:true}") boolean telemetryEnabled,
+                             DomainCounter domainCounter,
+                             MeterRegistry meterRegistry) throws IOException {
+        UrlStore store;
+        switch (engine.trim().toLowerCase()) {
+            case "memory":
+                store = new UrlStorage(domainCounter);
+                break;
+            case "sorted":
+                store = new SortedUrlStore(domainCounter);
+                break;
+            case "offheap":
+                store = new OffHeapUrlStore(1 << 10, domainCounter);
+                break;
+            case "snapshot":
+                // With the log in front, its checkpoints write the snapshots
+                store = new SnapshotUrlStore(Path.of(snapshotPath), walEnabled ? 0 : snapshotIntervalSeconds, domainCounter);
+                break;
+            case "tiered":
+                store = new TieredUrlStore(Path.of(tieredPath), tieredHotMaxBytes, domainCounter, meterRegistry);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown storage engine: " + engine);
+        }
+        if (walEnabled) {
+            WriteAheadLog writeAheadLog = new WriteAheadLog(Path.of(walPath), FsyncPolicy.fromString(fsyncPolicy), fsyncIntervalMillis);
+            store = new DurableUrlStore(store, writeAheadLog, checkpointIntervalSeconds);
+        }
+        if (telemetryEnabled) {
+            // Inside the filter, so the timers see the lookups that reach the engine
+            store = new InstrumentedUrlStore(store, meterRegistry);
+        }
+        if (bloomEnabled) {
+            // Outermost, so it is filled after the log has been replayed
+            store = new BloomFilterUrlStore(store, bloomExpectedInsertions, bloomFalsePositiveRate, bloomRebuildIntervalSeconds);
+        }
+        return store;
+    }
+    
+    /**
+     * Gauges of the mapping count and estimated memory, and the Bloom filter's counters
+     */
+    @Bean
+    public MeterBinder storageMeters(UrlStore urlStore) {
+        return registry -> {
+            Gauge.builder("urlshortener.storage.mappings", urlStore, UrlStore::size)
+                    .description("Stored short code mappings")
+                    .register(registry);
+            Gauge.builder("urlshortener.storage.memory", urlStore, UrlStore::estimatedMemoryBytes)
+                    .description("Estimated memory held by the mappings and the filter")
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(registry);
+            if (urlStore instanceof BloomFilterUrlStore filtered) {
+                FunctionCounter.builder("urlshortener.storage.filter.lookups", filtered, BloomFilterUrlStore::getRejectedLookups)
+                        .description("Lookups answered by the Bloom filter")
+                        .tag("result", "rejected")
+                        .register(registry);
+                FunctionCounter.builder("urlshortener.storage.filter.lookups", filtered, BloomFilterUrlStore::getFalsePositives)
+                        .description("Lookups answered by the Bloom filter")
+                        .tag("result", "false-positive")
+                        .register(registry);
+            }
+        };
+    }
+    
+    /**
+     * Domain counting mode: exact (default) or space-saving (bounded memory, approximate)
+     */
+    @Bean
+    public DomainCounter domainCounter(@Value("${app.metrics.domains.mode:exact}") String mode,
+                                       @Value("${app.metrics.domains.capacity:10000}") int capacity,
+                                       @Value("${app.metrics.domains.top-capacity:100}") int topCapacity) {
+        switch (mode.trim().toLowerCase()) {
+            case "exact":
+                return new ExactDomainCounter(topCapacity);
+            case "space-saving":
+                return new SpaceSavingDomainCounter(capacity, topCapacity);
+            default:
+                throw new IllegalArgumentException("Unknown domain count mode: " + mode);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.url_shortner.controller;
+
+import com.example.url_shortner.exception.InvalidUrlException;
+import com.example.url_shortner.exception.UrlNotFoundException;
+import com.example.url_shortner.model.ErrorResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps exceptions thrown by the controllers to error responses
+ *
+ * Client errors (unknown short codes, invalid URLs) use preallocated bodies, and the hot paths
+ * return them directly through {@link #notFound()} and {@link #badRequest(String)} without
+ * throwing at all. Spring MVC's own exceptions (wrong method, unsupported media type, ...) keep
+ * their standard statuses via {@link ResponseEntityExceptionHandler}; anything else becomes a 500.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
+    
+    private static final Logger log = LoggerFactory.getLogger(ApiExceptionHandler.class);
+    
+    // Shared, never modified
+    static final ErrorResponse URL_NOT_FOUND = new ErrorResponse("Short URL not found");
+    static final ErrorResponse URL_REQUIRED = new ErrorResponse("URL is required");
+    
+    // Validation messages come from a small fixed set, so bodies are cached per message
+    private static final int MAX_CACHED_MESSAGES = 64;
+    private static final Map<String, ErrorResponse> BAD_REQUEST_BODIES = new ConcurrentHashMap<>();
+    
+    /**
+     * @return a 404 response with the preallocated "Short URL not found" body
+     */
+    static ResponseEntity<ErrorResponse> notFound() {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(URL_NOT_FOUND);
+    }
+    
+    /**
+     * @param message the validation error
+     * @return a 400 response whose body is shared by every request failing with the same message
+     */
+    static ResponseEntity<ErrorResponse> badRequest(String message) {
+        ErrorResponse body = BAD_REQUEST_BODIES.get(message);
+        if (body == null) {
+            body = new ErrorResponse(message);
+            if (BAD_REQUEST_BODIES.size() < MAX_CACHED_MESSAGES) {
+                BAD_REQUEST_BODIES.putIfAbsent(message, body);
+            }
+        }
+        return ResponseEntity.badRequest().body(body);
+    }
+    
+    @ExceptionHandler(UrlNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleNotFound(UrlNotFoundException e) {
+        return notFound();
+    }
+    
+    @ExceptionHandler(InvalidUrlException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidUrl(InvalidUrlException e) {
+        return badRequest(e.getMessage());
+    }
+    
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorResponse> handleUnexpected(Exception e) {
+        log.error("Request failed", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponse("An error occurred: " + e.getMessage()));
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.url_shortner.controller;
+
+import com.example.url_shortner.model.BatchShortenResult;
+import com.example.url_shortner.model.ErrorResponse;
+import com.example.url_shortner.service.ShortenResult;
+import com.example.url_shortner.service.UrlService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Controller for bulk URL shortening
+ * Streams URLs in and results out, so a batch is never buffered in full.
+ */
+@RestController
+@RequestMapping("/api")
+@Tag(name = "URL Shortener", description = "API endpoints for URL shortening, redirection, and metrics")
+public class BatchShortenController {
+    
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    
+    private final UrlService urlService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    
+    public BatchShortenController(UrlService urlService,
+                                  ObjectMapper objectMapper,
+                                  @Value("${app.batch.chunk-size:500}") int chunkSize) {
+        this.urlService = urlService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+    
+    /**
+     * POST /api/shorten/batch - Shortens many URLs in one request
+     * Items are URL strings or {"url": ...} objects, sent as a JSON array or as NDJSON
+     * (one item per line). Results follow the request format and are written and flushed
+     * chunk by chunk, one per item in input order.
+     * @param request the HTTP request whose body is read incrementally
+     * @return the streamed results
+     */
+    @Operation(
+            summary = "Shorten a batch of URLs",
+            description = "Accepts a JSON array or NDJSON stream of URLs (strings or {\"url\": ...} objects) and streams back " +
+                         "one result per item in order. Invalid items get an error entry without failing the batch."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Results streamed, one per input item",
+                    content = @Content(schema = @Schema(implementation = BatchShortenResult.class))
+            ),
+            @ApiResponse(
+                    responseCode = "415",
+                    description = "Body is neither application/json nor application/x-ndjson",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @PostMapping(value = "/shorten/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> shortenBatch(HttpServletRequest request) {
+        boolean ndjson = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE));
+        StreamingResponseBody body = output -> shortenBatch(request.getInputStream(), output, ndjson);
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.parseMediaType(APPLICATION_NDJSON_VALUE) : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+    
+    /**
+     * Reads items chunk by chunk, shortens them and writes the results
+     * Malformed JSON ends the batch with a final error entry, since the stream cannot be resynchronized.
+     */
+    void shortenBatch(InputStream input, OutputStream output, boolean ndjson) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(output, JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(null);
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+            List<String> chunk = new ArrayList<>(chunkSize);
+            int index = 0;
+            try {
+                JsonToken token = parser.nextToken();
+                boolean array = token == JsonToken.START_ARRAY;
+                if (array) {
+                    token = parser.nextToken();
+                }
+                while (token != null && token != JsonToken.END_ARRAY) {
+                    chunk.add(readUrl(parser, token));
+                    if (chunk.size() == chunkSize) {
+                        index = writeChunk(chunk, index, generator, ndjson);
+                    }
+                    token = parser.nextToken();
+                }
+            } catch (JsonProcessingException e) {
+                index = writeChunk(chunk, index, generator, ndjson);
+                generator.writeObject(BatchShortenResult.failure(index, null, "Malformed batch input: " + e.getOriginalMessage()));
+                newLine(generator, ndjson);
+            }
+            writeChunk(chunk, index, generator, ndjson);
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+    }
+    
+    /**
+     * @return the item's URL, or null if the item has none
+     */
+    private static String readUrl(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        String url = null;
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("url".equals(field) && value == JsonToken.VALUE_STRING) {
+                    url = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } else {
+            parser.skipChildren();
+        }
+        return url;
+    }
+    
+    /**
+     * Shortens and writes a chunk, then flushes so the client sees results incrementally
+     * @return the index of the next item
+     */
+    private int writeChunk(List<String> chunk, int index, JsonGenerator generator, boolean ndjson) throws IOException {
+        for (String url : chunk) {
+            generator.writeObject(shorten(index++, url));
+            newLine(generator, ndjson);
+        }
+        chunk.clear();
+        generator.flush();
+        return index;
+    }
+    
+    private BatchShortenResult shorten(int index, String url) {
+        if (url == null || url.trim().isEmpty()) {
+            return BatchShortenResult.failure(index, url, "URL is required");
+        }
+        try {
+            ShortenResult result = urlService.tryShortenUrl(url);
+            return result.isValid()
+                    ? BatchShortenResult.success(index, result.getShortUrl(), url)
+                    : BatchShortenResult.failure(index, url, result.getError());
+        } catch (Exception e) {
+            return BatchShortenResult.failure(index, url, "An error occurred while shortening the URL: " + e.getMessage());
+        }
+    }
+    
+    private static void newLine(JsonGenerator generator, boolean ndjson) throws IOException {
+        if (ndjson) {
+            generator.writeRaw('\n');
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.url_shortner.controller;
+
+import com.example.url_shortner.analytics.ClickCounter;
+import com.example.url_shortner.analytics.HyperLogLog;
+import com.example.url_shortner.analytics.MetricsWindow;
+import com.example.url_shortner.analytics.UniqueVisitorCounter;
+import com.example.url_shortner.model.ClickStats;
+import com.example.url_shortner.model.ErrorResponse;
+import com.example.url_shortner.service.UrlService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller for click analytics
+ */
+@RestController
+@RequestMapping("/api/clicks")
+@Tag(name = "Analytics", description = "Click analytics for short URLs")
+public class ClickController {
+    
+    private final UrlService urlService;
+    private final ClickCounter clickCounter;
+    private final UniqueVisitorCounter uniqueVisitorCounter;
+    
+    public ClickController(UrlService urlService, ClickCounter clickCounter,
+                           UniqueVisitorCounter uniqueVisitorCounter) {
+        this.urlService = urlService;
+        this.clickCounter = clickCounter;
+        this.uniqueVisitorCounter = uniqueVisitorCounter;
+    }
+    
+    /**
+     * GET /api/clicks/{shortCode} - Returns the total clicks and estimated unique visitors of a short URL
+     * @param shortCode the short code
+     * @return click statistics
+     */
+    @Operation(
+            summary = "Get clicks for a short URL",
+            description = "Returns the number of redirects served for the short code and the estimated number of " +
+                         "distinct clients within a rolling window (default 1d), with the estimate's relative standard error and the memory its sketch uses. " +
+                         "Clicks are aggregated in the background, so the newest few milliseconds of clicks may not be included yet."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Click statistics retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = ClickStats.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "The window is invalid",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Short URL not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping("/{shortCode}")
+    public ResponseEntity<?> getClicks(
+            @PathVariable String shortCode,
+            @Parameter(description = "Rolling window of the unique visitor estimate: 1m-60m, 1h-24h or 1d")
+            @RequestParam(defaultValue = "1d") String window) {
+        MetricsWindow metricsWindow;
+        try {
+            metricsWindow = MetricsWindow.parse(window);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+        // Throws UrlNotFoundException (mapped to 404 by ApiExceptionHandler) for unknown codes
+        urlService.getOriginalUrl(shortCode);
+        return ResponseEntity.ok(new ClickStats(shortCode,
+                clickCounter.getClicks(shortCode),
+                metricsWindow.toString(),
+                uniqueVisitorCounter.getUniqueVisitors(shortCode, metricsWindow),
+                HyperLogLog.RELATIVE_ERROR,
+                uniqueVisitorCounter.getSketchBytes(shortCode)));
+    }
+}
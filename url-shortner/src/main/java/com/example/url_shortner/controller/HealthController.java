@@ -1,35 +1,68 @@
 package com.example.url_shortner.controller;
 
+import com.example.url_shortner.telemetry.StorageHealthIndicator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 /**
  * Controller for health check endpoint
+ * A readiness check: the full breakdown is at /actuator/health/readiness, for authorized callers.
  */
 @RestController
 @Tag(name = "Health", description = "Health check endpoint")
 public class HealthController {
     
+    private final StorageHealthIndicator storageHealth;
+    private final ApplicationAvailability availability;
+    
+    public HealthController(StorageHealthIndicator storageHealth, ApplicationAvailability availability) {
+        this.storageHealth = storageHealth;
+        this.availability = availability;
+    }
+    
     /**
      * GET /health - Health check endpoint
-     * @return OK status
+     * @return OK when the application accepts traffic and storage is up, otherwise 503 with the reason
      */
     @Operation(
             summary = "Health check",
-            description = "Returns the health status of the service"
+            description = "Returns OK when the service is ready to serve: started, not shutting down, " +
+                         "and with working storage"
     )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
                     description = "Service is healthy"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Service is not ready to serve traffic"
             )
     })
     @GetMapping("/health")
     public ResponseEntity<String> health() {
+        if (availability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC) {
+            return unavailable("refusing traffic");
+        }
+        Health storage = storageHealth.health();
+        if (!Status.UP.equals(storage.getStatus())) {
+            // The problem itself may carry exception messages, so it is only shown to authorized
+            // callers of /actuator/health
+            return unavailable("storage " + storage.getStatus());
+        }
         return ResponseEntity.ok("OK");
     }
+    
+    private static ResponseEntity<String> unavailable(String reason) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("UNAVAILABLE: " + reason);
+    }
 }
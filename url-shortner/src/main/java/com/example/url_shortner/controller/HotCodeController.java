@@ -0,0 +1,69 @@
+package com.example.url_shortner.controller;
+
+import com.example.url_shortner.analytics.HotCodeTracker;
+import com.example.url_shortner.model.CodeMetric;
+import com.example.url_shortner.model.ErrorResponse;
+import com.example.url_shortner.model.HotCodesResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Controller for the short codes currently dominating redirect traffic
+ */
+@RestController
+@RequestMapping("/api/hot-codes")
+@Tag(name = "Analytics", description = "Click analytics for short URLs")
+public class HotCodeController {
+    
+    private final HotCodeTracker hotCodeTracker;
+    
+    public HotCodeController(HotCodeTracker hotCodeTracker) {
+        this.hotCodeTracker = hotCodeTracker;
+    }
+    
+    /**
+     * GET /api/hot-codes - Returns the N most redirected short codes lately (10 by default)
+     * @param n the number of codes to return
+     * @return hot codes with estimated recent clicks
+     */
+    @Operation(
+            summary = "Get hot short codes",
+            description = "Returns the short codes with the most recent redirects, from a Count-Min sketch whose counts " +
+                         "are halved every decay interval. Clicks are estimates that may exceed the true count by at " +
+                         "most error_bound (with high probability); n is capped at the tracked capacity."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Hot codes retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = HotCodesResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "n is not a positive number",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping
+    public ResponseEntity<?> getHotCodes(
+            @Parameter(description = "Number of hot codes to return")
+            @RequestParam(defaultValue = "10") int n) {
+        if (n < 1) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse("n must be a positive number"));
+        }
+        List<CodeMetric> hotCodes = hotCodeTracker.getHotCodes(n).stream()
+                .map(hot -> new CodeMetric(hot.getShortCode(), hot.getEstimatedClicks()))
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(new HotCodesResponse(hotCodes, hotCodeTracker.getErrorBound()));
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.url_shortner.controller;
+
+import com.example.url_shortner.model.ErrorResponse;
+import com.example.url_shortner.model.RecordingStatus;
+import com.example.url_shortner.telemetry.FlightRecording;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+
+/**
+ * Controller for on-demand JFR recordings
+ * Lets latency spikes be attributed in production without attaching a profiler. Only registered
+ * with {@code app.telemetry.jfr.enabled=true}: a recording holds environment variables, system
+ * properties and thread dumps, so the endpoints must also be restricted to operators.
+ */
+@RestController
+@ConditionalOnProperty(name = "app.telemetry.jfr.enabled", havingValue = "true")
+@RequestMapping("/api/admin/recording")
+@Tag(name = "Admin", description = "Diagnostics for operators")
+public class RecordingController {
+    
+    private final FlightRecording flightRecording;
+    
+    public RecordingController(FlightRecording flightRecording) {
+        this.flightRecording = flightRecording;
+    }
+    
+    /**
+     * GET /api/admin/recording - Returns whether a recording is running
+     * @return recording status
+     */
+    @Operation(summary = "Get JFR recording status")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Recording status",
+                    content = @Content(schema = @Schema(implementation = RecordingStatus.class))
+            )
+    })
+    @GetMapping
+    public ResponseEntity<RecordingStatus> getStatus() {
+        return ResponseEntity.ok(flightRecording.getStatus());
+    }
+    
+    /**
+     * POST /api/admin/recording/start - Starts a JFR recording
+     * @param settings JDK settings, "default" or "profile"
+     * @return recording status
+     */
+    @Operation(
+            summary = "Start a JFR recording",
+            description = "Records the JDK's events with the given settings plus the service's shorten and lookup " +
+                         "events. The recording stops itself after app.telemetry.jfr.max-duration-seconds."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Recording started",
+                    content = @Content(schema = @Schema(implementation = RecordingStatus.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Unknown settings",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "A recording is already running",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @PostMapping("/start")
+    public ResponseEntity<?> start(
+            @Parameter(description = "JDK settings: default (low overhead) or profile (more detail)", example = "profile")
+            @RequestParam(defaultValue = "default") String settings) throws IOException, ParseException {
+        if (!FlightRecording.SETTINGS.contains(settings)) {
+            return ApiExceptionHandler.badRequest("Settings must be one of: default, profile");
+        }
+        if (!flightRecording.start(settings)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ErrorResponse("A recording is already running; stop it first"));
+        }
+        return ResponseEntity.ok(flightRecording.getStatus());
+    }
+    
+    /**
+     * POST /api/admin/recording/stop - Stops the recording and returns it
+     * @return the .jfr file, for JDK Mission Control or the jfr tool
+     */
+    @Operation(
+            summary = "Stop the JFR recording and download it",
+            description = "Stops the recording and streams the .jfr file. Open it with JDK Mission Control or " +
+                         "'jfr print --events urlshortener.Shorten'."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "The recording",
+                    content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "No recording was started",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @PostMapping("/stop")
+    public ResponseEntity<?> stop() throws IOException {
+        Path file = flightRecording.stop();
+        if (file == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse("No recording is running"));
+        }
+        long size = Files.size(file);
+        // Streamed from disk; the file is deleted once the response has been written
+        InputStreamResource body = new InputStreamResource(Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(size)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"url-shortener.jfr\"")
+                .body(body);
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.url_shortner.controller;
 
-import com.example.url_shortner.exception.UrlNotFoundException;
+import com.example.url_shortner.analytics.ClickRecorder;
 import com.example.url_shortner.model.ErrorResponse;
 import com.example.url_shortner.service.UrlService;
+import com.example.url_shortner.telemetry.ShortenerMetrics;
+import com.example.url_shortner.util.Murmur3;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,9 +12,12 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.util.Optional;
 
 /**
  * Controller for URL redirection
@@ -23,9 +28,13 @@ import org.springframework.web.bind.annotation.*;
 public class RedirectController {
     
     private final UrlService urlService;
+    private final ClickRecorder clickRecorder;
+    private final ShortenerMetrics metrics;
     
-    public RedirectController(UrlService urlService) {
+    public RedirectController(UrlService urlService, ClickRecorder clickRecorder, ShortenerMetrics metrics) {
         this.urlService = urlService;
+        this.clickRecorder = clickRecorder;
+        this.metrics = metrics;
     }
     
     /**
@@ -35,12 +44,13 @@ public class RedirectController {
      */
     @Operation(
             summary = "Redirect to original URL",
-            description = "Redirects the short URL to its original URL. Returns HTTP 301 (Moved Permanently). " +
+            description = "Redirects the short URL to its original URL. Returns HTTP 302 (Found), not cacheable, " +
+                         "so every click is counted and expired links stop redirecting. " +
                          "Enter only the short code (e.g., 'pZqm5765'), not the full URL."
     )
     @ApiResponses(value = {
             @ApiResponse(
-                    responseCode = "301",
+                    responseCode = "302",
                     description = "Redirect to original URL"
             ),
             @ApiResponse(
@@ -61,18 +71,23 @@ public class RedirectController {
                     required = true,
                     example = "pZqm5765"
             )
-            @PathVariable String shortCode) {
-        try {
-            String originalUrl = urlService.getOriginalUrl(shortCode);
-            return ResponseEntity.status(HttpStatus.MOVED_PERMANENTLY)
-                    .header("Location", originalUrl)
-                    .build();
-        } catch (UrlNotFoundException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(new ErrorResponse(e.getMessage()));
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ErrorResponse("An error occurred: " + e.getMessage()));
+            @PathVariable String shortCode,
+            HttpServletRequest request) {
+        long start = metrics.start();
+        // Unknown codes are common (scanners), so a miss is a value rather than an exception
+        Optional<String> originalUrl = urlService.findOriginalUrl(shortCode);
+        metrics.recordRedirect(start, originalUrl.isPresent());
+        if (originalUrl.isEmpty()) {
+            return ApiExceptionHandler.notFound();
         }
+        // Non-blocking: the click is aggregated in the background. Only a hash of the client
+        // address is recorded, for the unique-visitor sketch.
+        clickRecorder.record(shortCode, Murmur3.hash64(request.getRemoteAddr(), 0));
+        // Temporary and uncached: a browser caching a 301 would skip the click count and keep
+        // following a link after it expires
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .cacheControl(CacheControl.noStore())
+                .header("Location", originalUrl.get())
+                .build();
     }
 }
@@ -0,0 +1,64 @@
+package com.example.url_shortner.controller;
+
+import com.example.url_shortner.model.FilterStats;
+import com.example.url_shortner.storage.BloomFilter;
+import com.example.url_shortner.storage.BloomFilterUrlStore;
+import com.example.url_shortner.storage.UrlStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller for storage diagnostics
+ */
+@RestController
+@RequestMapping("/api/storage")
+@Tag(name = "Storage", description = "Storage engine diagnostics")
+public class StorageController {
+    
+    private final UrlStore urlStore;
+    
+    public StorageController(UrlStore urlStore) {
+        this.urlStore = urlStore;
+    }
+    
+    /**
+     * GET /api/storage/filter - Returns the short code Bloom filter's size and hit statistics
+     * @return filter statistics
+     */
+    @Operation(
+            summary = "Get short code filter statistics",
+            description = "Returns the Bloom filter that answers lookups of unknown short codes: its configured and current " +
+                         "false-positive rates, memory footprint, and how many lookups it rejected or let through in error."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Filter statistics retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = FilterStats.class))
+            )
+    })
+    @GetMapping("/filter")
+    public ResponseEntity<FilterStats> getFilterStats() {
+        if (!(urlStore instanceof BloomFilterUrlStore)) {
+            return ResponseEntity.ok(new FilterStats(false));
+        }
+        BloomFilterUrlStore filtered = (BloomFilterUrlStore) urlStore;
+        BloomFilter filter = filtered.getFilter();
+        FilterStats stats = new FilterStats(true);
+        stats.setExpectedInsertions(filtered.getExpectedInsertions());
+        stats.setInsertions(filter.getInsertions());
+        stats.setTargetFalsePositiveRate(filtered.getTargetFalsePositiveRate());
+        stats.setExpectedFalsePositiveRate(filter.getExpectedFalsePositiveRate());
+        stats.setHashFunctions(filter.getHashCount());
+        stats.setMemoryBytes(filter.getMemoryBytes());
+        stats.setRejectedLookups(filtered.getRejectedLookups());
+        stats.setFalsePositives(filtered.getFalsePositives());
+        return ResponseEntity.ok(stats);
+    }
+}
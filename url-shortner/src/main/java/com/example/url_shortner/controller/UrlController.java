@@ -1,20 +1,22 @@
 package com.example.url_shortner.controller;
 
-import com.example.url_shortner.exception.InvalidUrlException;
+import com.example.url_shortner.analytics.MetricsWindow;
 import com.example.url_shortner.model.ErrorResponse;
 import com.example.url_shortner.model.MetricsResponse;
 import com.example.url_shortner.model.ShortenRequest;
 import com.example.url_shortner.model.ShortenResponse;
+import com.example.url_shortner.service.ShortenResult;
 import com.example.url_shortner.service.UrlService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.Instant;
 
 /**
  * REST controller for URL shortening operations
@@ -37,7 +39,9 @@ public class UrlController {
      */
     @Operation(
             summary = "Shorten a URL",
-            description = "Accepts a URL and returns a shortened URL. If the same URL is shortened again, it returns the existing short URL (idempotent)."
+            description = "Accepts a URL and returns a shortened URL. If the same URL is shortened again, it returns the existing short URL (idempotent). "
+                    + "With expires_in (seconds) the short URL stops redirecting after that long; shortening the URL again "
+                    + "with a later expiry extends it, and without expires_in keeps its current expiry. A permanent short URL stays permanent."
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -47,7 +51,7 @@ public class UrlController {
             ),
             @ApiResponse(
                     responseCode = "400",
-                    description = "Invalid URL provided",
+                    description = "Invalid URL or expires_in provided",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             ),
             @ApiResponse(
@@ -58,43 +62,66 @@ public class UrlController {
     })
     @PostMapping("/shorten")
     public ResponseEntity<?> shortenUrl(@RequestBody ShortenRequest request) {
-        try {
-            if (request == null || request.getUrl() == null || request.getUrl().trim().isEmpty()) {
-                return ResponseEntity.badRequest()
-                        .body(new ErrorResponse("URL is required"));
-            }
-            
-            String shortUrl = urlService.shortenUrl(request.getUrl());
-            ShortenResponse response = new ShortenResponse(shortUrl, request.getUrl());
-            return ResponseEntity.ok(response);
-            
-        } catch (InvalidUrlException e) {
-            return ResponseEntity.badRequest()
-                    .body(new ErrorResponse(e.getMessage()));
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ErrorResponse("An error occurred while shortening the URL: " + e.getMessage()));
+        if (request == null || request.getUrl() == null || request.getUrl().trim().isEmpty()) {
+            return ResponseEntity.badRequest().body(ApiExceptionHandler.URL_REQUIRED);
+        }
+        
+        // Invalid input is a result, not an exception: junk requests never capture a stack trace
+        ShortenResult result = urlService.tryShortenUrl(request.getUrl(), request.getExpiresIn());
+        if (!result.isValid()) {
+            return ApiExceptionHandler.badRequest(result.getError());
         }
+        String expiresAt = result.getExpiresAt() != null ? Instant.ofEpochMilli(result.getExpiresAt()).toString() : null;
+        return ResponseEntity.ok(new ShortenResponse(result.getShortUrl(), request.getUrl(), expiresAt));
     }
     
     /**
-     * GET /api/metrics - Returns top 3 domains
-     * @return metrics response with top domains
+     * GET /api/metrics - Returns the top N domains (3 by default), all-time or within a rolling window
+     * @param n the number of domains (and codes) to return
+     * @param window optional rolling window, e.g. 5m, 1h or 1d
+     * @return metrics response with top domains, plus top codes for a windowed query
      */
     @Operation(
             summary = "Get top domains metrics",
-            description = "Returns the top 3 domains that have been shortened the most number of times, sorted by count in descending order."
+            description = "Returns the top n domains (default 3) that have been shortened the most number of times, sorted by count in descending order. "
+                    + "With a window (e.g. 5m, 1h, 1d) the counts cover only that rolling window and the most redirected short codes are included."
     )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
                     description = "Metrics retrieved successfully",
                     content = @Content(schema = @Schema(implementation = MetricsResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "n is not a positive number or the window is invalid",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             )
     })
     @GetMapping("/metrics")
-    public ResponseEntity<MetricsResponse> getMetrics() {
-        MetricsResponse response = new MetricsResponse(urlService.getTopDomains(3));
+    public ResponseEntity<?> getMetrics(
+            @Parameter(description = "Number of top domains to return")
+            @RequestParam(defaultValue = "3") int n,
+            @Parameter(description = "Rolling window: 1m-60m, 1h-24h or 1d (all-time when omitted)")
+            @RequestParam(required = false) String window) {
+        if (n < 1) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse("n must be a positive number"));
+        }
+        if (window == null) {
+            return ResponseEntity.ok(new MetricsResponse(urlService.getTopDomains(n)));
+        }
+        
+        MetricsWindow metricsWindow;
+        try {
+            metricsWindow = MetricsWindow.parse(window);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+        MetricsResponse response = new MetricsResponse(metricsWindow.toString(),
+                urlService.getTopDomains(n, metricsWindow),
+                urlService.getTopCodes(n, metricsWindow));
         return ResponseEntity.ok(response);
     }
     
@@ -2,10 +2,12 @@ package com.example.url_shortner.exception;
 
 /**
  * Exception thrown when a URL is invalid
+ * Carries no stack trace: it reports bad client input, not a bug, and capturing the trace
+ * would dominate the cost of rejecting junk requests.
  */
 public class InvalidUrlException extends RuntimeException {
     
     public InvalidUrlException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
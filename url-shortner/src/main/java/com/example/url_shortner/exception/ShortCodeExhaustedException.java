@@ -0,0 +1,12 @@
+package com.example.url_shortner.exception;
+
+/**
+ * Exception thrown by a short code generator that has no candidate left for a URL
+ * Carries no stack trace: it is turned into a rejected shorten, not reported as a storage failure.
+ */
+public class ShortCodeExhaustedException extends RuntimeException {
+    
+    public ShortCodeExhaustedException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -2,10 +2,11 @@ package com.example.url_shortner.exception;
 
 /**
  * Exception thrown when a short URL is not found
+ * Carries no stack trace, since a miss is an expected outcome rather than a bug.
  */
 public class UrlNotFoundException extends RuntimeException {
     
     public UrlNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,14 @@
+package com.example.url_shortner.expiry;
+
+/**
+ * Notified by {@link LinkExpiry} when an expired link has been removed from the store
+ * Every ExpiryListener bean is registered automatically. Called on the expiry thread, so
+ * implementations should hand the work off rather than block.
+ */
+public interface ExpiryListener {
+    
+    /**
+     * @param shortCode the code that no longer redirects
+     */
+    void onExpired(String shortCode);
+}
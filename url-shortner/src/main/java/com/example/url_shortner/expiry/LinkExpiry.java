@@ -0,0 +1,417 @@
+package com.example.url_shortner.expiry;
+
+import com.example.url_shortner.exception.UrlNotFoundException;
+import com.example.url_shortner.storage.FsyncPolicy;
+import com.example.url_shortner.storage.UrlStore;
+import com.example.url_shortner.storage.WriteAheadLog;
+import com.example.url_shortner.util.UrlUtils;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Expires short links created with an {@code expires_in}
+ *
+ * Deadlines are kept in a {@link TimingWheel}, so scheduling a link and expiring it are O(1)
+ * and nothing scans the mappings. A daemon thread, started with the first deadline, advances
+ * the wheel every {@code app.expiry.tick-millis}; expired codes are removed from the store in
+ * both directions and stop redirecting, at most about one tick after their deadline. With
+ * {@code app.expiry.adjust-domain-counts=true} the link's domain count is decremented as well,
+ * and every {@link ExpiryListener} is told so per-code analytics can be dropped.
+ *
+ * Links are shared by URL: shortening an expiring URL again with a later deadline extends it,
+ * and without {@code expires_in} leaves its deadline as it is. A due link is removed under the
+ * same lock that extends deadlines, so a request either extends it in time or finds it gone.
+ *
+ * When the store is persistent, every deadline and removal is appended to a journal at
+ * {@code app.expiry.journal.path}, a {@link WriteAheadLog} synced like the store's own. On startup
+ * the journal is replayed into the wheel, skipping codes that no longer resolve, and deadlines
+ * that passed while the process was down expire on the first tick. Once most of its records are
+ * obsolete the journal is compacted by rewriting the pending deadlines and dropping the rest.
+ */
+@Component
+public class LinkExpiry implements MeterBinder, Closeable {
+    
+    private static final Logger log = LoggerFactory.getLogger(LinkExpiry.class);
+    
+    // Journal records left obsolete before it is compacted, at least
+    private static final long MIN_COMPACTION_RECORDS = 1024;
+    
+    private final UrlStore urlStore;
+    private final long tickMillis;
+    private final long maxSeconds;
+    private final boolean adjustDomainCounts;
+    private final List<ExpiryListener> listeners;
+    private final WriteAheadLog journal;
+    private final LongSupplier clock;
+    private final long originMillis;
+    private final LongAdder expired = new LongAdder();
+    
+    // Guarded by this
+    private final TimingWheel wheel = new TimingWheel(0);
+    // Includes due entries, unlinked from the wheel until their removal
+    private final Map<String, TimingWheel.Entry> deadlines = new HashMap<>();
+    private long journalRecords;
+    private ScheduledExecutorService ticker;
+    private boolean closed;
+    
+    @Autowired
+    public LinkExpiry(UrlStore urlStore,
+                      @Value("${app.expiry.tick-millis:1000}") long tickMillis,
+                      @Value("${app.expiry.max-seconds:31536000}") long maxSeconds,
+                      @Value("${app.expiry.adjust-domain-counts:false}") boolean adjustDomainCounts,
+                      @Value("${app.expiry.journal.path:data/expiry.wal}") String journalPath,
+                      @Value("${app.storage.wal.fsync:batched}") String fsyncPolicy,
+                      @Value("${app.storage.wal.fsync-interval-ms:100}") long fsyncIntervalMillis,
+                      List<ExpiryListener> listeners) throws IOException {
+        this(urlStore, tickMillis, maxSeconds, adjustDomainCounts, listeners,
+                urlStore.isPersistent()
+                        ? new WriteAheadLog(Path.of(journalPath), FsyncPolicy.fromString(fsyncPolicy), fsyncIntervalMillis)
+                        : null,
+                System::currentTimeMillis);
+    }
+    
+    public LinkExpiry(UrlStore urlStore, long tickMillis, long maxSeconds, boolean adjustDomainCounts,
+                      LongSupplier clock) {
+        this(urlStore, tickMillis, maxSeconds, adjustDomainCounts, List.of(), clock);
+    }
+    
+    public LinkExpiry(UrlStore urlStore, long tickMillis, long maxSeconds, boolean adjustDomainCounts,
+                      List<ExpiryListener> listeners, LongSupplier clock) {
+        this(urlStore, tickMillis, maxSeconds, adjustDomainCounts, listeners, null, clock);
+    }
+    
+    /**
+     * @param urlStore store the expired codes are removed from
+     * @param tickMillis wheel resolution: how late after its deadline a link may still redirect
+     * @param maxSeconds largest accepted {@code expires_in}
+     * @param adjustDomainCounts whether expiring a link decrements its domain's count
+     * @param listeners notified of every expired code
+     * @param journal log the deadlines are restored from and persisted to, or null to keep them in memory only
+     * @param clock wall clock in milliseconds
+     */
+    public LinkExpiry(UrlStore urlStore, long tickMillis, long maxSeconds, boolean adjustDomainCounts,
+                      List<ExpiryListener> listeners, WriteAheadLog journal, LongSupplier clock) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.urlStore = urlStore;
+        this.tickMillis = tickMillis;
+        this.maxSeconds = maxSeconds;
+        this.adjustDomainCounts = adjustDomainCounts;
+        this.listeners = List.copyOf(listeners);
+        this.journal = journal;
+        this.clock = clock;
+        this.originMillis = clock.getAsLong();
+        if (journal != null) {
+            try {
+                restore();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to restore link expiry deadlines", e);
+            }
+        }
+    }
+    
+    /**
+     * Schedules the deadlines left in the journal by the previous run
+     */
+    private synchronized void restore() throws IOException {
+        Map<String, Long> restored = new HashMap<>();
+        journalRecords = journal.replay((type, shortCode, value) -> {
+            if (type == WriteAheadLog.PUT) {
+                restored.put(shortCode, Long.parseLong(value));
+            } else if (type == WriteAheadLog.REMOVE) {
+                restored.remove(shortCode);
+            }
+        });
+        restored.forEach((shortCode, expiresAt) -> {
+            // Removed from the store after its deadline was journaled, e.g. by a crash mid-expiry
+            if (urlStore.getOriginalUrl(shortCode) != null) {
+                deadlines.put(shortCode, wheel.schedule(shortCode, toTick(expiresAt)));
+            }
+        });
+        if (!deadlines.isEmpty()) {
+            log.info("Restored {} link expiry deadline(s) from {} journal record(s)", deadlines.size(), journalRecords);
+            startTicker();
+        }
+    }
+    
+    /**
+     * @return null if {@code expiresInSeconds} is acceptable, otherwise why not
+     */
+    public String validate(long expiresInSeconds) {
+        if (expiresInSeconds < 1 || expiresInSeconds > maxSeconds) {
+            return "expires_in must be between 1 and " + maxSeconds + " seconds";
+        }
+        return null;
+    }
+    
+    /**
+     * Sets the deadline of a newly created link
+     * @return the expiry time in epoch milliseconds
+     */
+    public long schedule(String shortCode, long expiresInSeconds) {
+        long expiresAt;
+        long position;
+        synchronized (this) {
+            expiresAt = clock.getAsLong() + TimeUnit.SECONDS.toMillis(expiresInSeconds);
+            position = journal(WriteAheadLog.PUT, shortCode, expiresAt);
+            TimingWheel.Entry entry = deadlines.get(shortCode);
+            if (entry != null) {
+                wheel.reschedule(entry, toTick(expiresAt));
+            } else {
+                deadlines.put(shortCode, wheel.schedule(shortCode, toTick(expiresAt)));
+            }
+            startTicker();
+        }
+        awaitJournal(position);
+        return expiresAt;
+    }
+    
+    /**
+     * Moves an existing link's deadline later; permanent links stay permanent
+     * A due link not yet removed is extended as well.
+     * @return the expiry time in epoch milliseconds, or null if the link does not expire
+     * @throws UrlNotFoundException if the link has expired since it was looked up
+     */
+    public Long extend(String shortCode, long expiresInSeconds) {
+        long expiresAt;
+        long position;
+        synchronized (this) {
+            TimingWheel.Entry entry = existing(shortCode);
+            if (entry == null) {
+                return null;
+            }
+            expiresAt = clock.getAsLong() + TimeUnit.SECONDS.toMillis(expiresInSeconds);
+            long tick = toTick(expiresAt);
+            if (tick <= entry.deadline && entry.isScheduled()) {
+                return toMillis(entry.deadline);
+            }
+            position = journal(WriteAheadLog.PUT, shortCode, expiresAt);
+            wheel.reschedule(entry, tick);
+        }
+        awaitJournal(position);
+        return expiresAt;
+    }
+    
+    /**
+     * @return an existing link's expiry time in epoch milliseconds, or null if the link does not expire
+     * @throws UrlNotFoundException if the link has expired since it was looked up
+     */
+    public synchronized Long expiresAt(String shortCode) {
+        TimingWheel.Entry entry = existing(shortCode);
+        return entry == null ? null : toMillis(entry.deadline);
+    }
+    
+    // Caller holds this; removals happen under it too, so a missing mapping is an expired one
+    private TimingWheel.Entry existing(String shortCode) {
+        TimingWheel.Entry entry = deadlines.get(shortCode);
+        if (entry == null && urlStore.getOriginalUrl(shortCode) == null) {
+            throw new UrlNotFoundException("Short URL expired");
+        }
+        return entry;
+    }
+    
+    private long toMillis(long tick) {
+        return originMillis + tick * tickMillis;
+    }
+    
+    // Rounded up, so a link never expires before its deadline
+    private long toTick(long epochMillis) {
+        return Math.floorDiv(epochMillis - originMillis + tickMillis - 1, tickMillis);
+    }
+    
+    /**
+     * Removes every link whose deadline has passed
+     * A link the store fails to remove is retried on the next tick; the rest of the batch is
+     * still expired, and the first failure is rethrown afterwards.
+     * @return number of mappings removed
+     */
+    public int expireDue() {
+        List<String> due = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(Math.floorDiv(clock.getAsLong() - originMillis, tickMillis), due::add);
+        }
+        // One lock per code rather than per batch, so shorten requests are not held up by a
+        // large batch's store writes; a code extended meanwhile is back in the wheel and skipped
+        int removed = 0;
+        RuntimeException failure = null;
+        int next = 0;
+        try {
+            while (next < due.size()) {
+                String shortCode = due.get(next++);
+                String originalUrl;
+                long position;
+                synchronized (this) {
+                    TimingWheel.Entry entry = deadlines.get(shortCode);
+                    if (entry == null || entry.isScheduled()) {
+                        continue;
+                    }
+                    try {
+                        originalUrl = urlStore.removeUrl(shortCode);
+                    } catch (RuntimeException e) {
+                        wheel.reschedule(entry, wheel.currentTick() + 1);
+                        if (failure == null) {
+                            failure = e;
+                        } else {
+                            failure.addSuppressed(e);
+                        }
+                        continue;
+                    }
+                    deadlines.remove(shortCode);
+                    position = journal(WriteAheadLog.REMOVE, shortCode, null);
+                }
+                awaitJournal(position);
+                if (originalUrl != null) {
+                    removed++;
+                    if (adjustDomainCounts) {
+                        urlStore.decrementDomainCount(UrlUtils.extractDomain(originalUrl));
+                    }
+                    for (ExpiryListener listener : listeners) {
+                        listener.onExpired(shortCode);
+                    }
+                }
+            }
+        } finally {
+            // Anything else thrown leaves the rest of the batch out of the wheel; put it back
+            rescheduleUnexpired(due.subList(next, due.size()));
+            expired.add(removed);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return removed;
+    }
+    
+    private synchronized void rescheduleUnexpired(List<String> shortCodes) {
+        for (String shortCode : shortCodes) {
+            TimingWheel.Entry entry = deadlines.get(shortCode);
+            if (entry != null && !entry.isScheduled()) {
+                wheel.reschedule(entry, wheel.currentTick() + 1);
+            }
+        }
+    }
+    
+    private void expireQuietly() {
+        try {
+            expireDue();
+            compactJournal();
+        } catch (IOException | RuntimeException e) {
+            log.error("Expiring short links failed", e);
+        }
+    }
+    
+    /**
+     * Appends a record to the journal, if there is one
+     * Caller holds this, so the journal's order matches the wheel's.
+     * @return the position to await, or -1 without a journal
+     */
+    private long journal(byte type, String shortCode, Long expiresAt) {
+        if (journal == null) {
+            return -1;
+        }
+        long position = journal.write(type, shortCode, expiresAt == null ? "" : Long.toString(expiresAt));
+        journalRecords++;
+        return position;
+    }
+    
+    private void awaitJournal(long position) {
+        if (position >= 0) {
+            journal.await(position);
+        }
+    }
+    
+    /**
+     * Rewrites the pending deadlines at the end of the journal and drops everything before them,
+     * once the obsolete records outnumber the pending ones
+     */
+    void compactJournal() throws IOException {
+        long position;
+        synchronized (this) {
+            if (journal == null || journalRecords < Math.max(MIN_COMPACTION_RECORDS, 2L * deadlines.size())) {
+                return;
+            }
+            position = journal.position();
+            journalRecords = 0;
+            for (TimingWheel.Entry entry : deadlines.values()) {
+                journal(WriteAheadLog.PUT, entry.key, toMillis(entry.deadline));
+            }
+        }
+        // Records appended meanwhile follow the rewritten ones and are kept
+        journal.discardBefore(position);
+    }
+    
+    // Caller holds this
+    private void startTicker() {
+        if (ticker != null || closed) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "link-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::expireQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * @return number of links waiting for their deadline
+     */
+    public synchronized int pending() {
+        return wheel.size();
+    }
+    
+    /**
+     * @return number of mappings removed since startup
+     */
+    public long expired() {
+        return expired.sum();
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("urlshortener.expiry.pending", this, LinkExpiry::pending)
+                .description("Short links waiting for their expiry")
+                .register(registry);
+        FunctionCounter.builder("urlshortener.expiry.expired", this, LinkExpiry::expired)
+                .description("Short links removed after expiring")
+                .register(registry);
+    }
+    
+    /**
+     * Stops the ticker and closes the journal
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("Closing the link expiry journal failed", e);
+            }
+        }
+    }
+}
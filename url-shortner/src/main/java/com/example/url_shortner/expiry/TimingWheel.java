@@ -0,0 +1,164 @@
+package com.example.url_shortner.expiry;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel (Varghese and Lauck) of short code deadlines, in ticks
+ *
+ * Level 0 has 64 slots of one tick; each slot of a higher level spans a full turn of the level
+ * below, so 4 levels cover 64^4 ticks (194 days at one-second ticks). A deadline is linked into
+ * the slot of the lowest level that covers it, so scheduling and cancelling are O(1) and no
+ * timer exists per entry. Each tick runs one level-0 slot; when a level wraps, the next slot of
+ * the level above is cascaded into finer slots. Deadlines past the top level's span wait in its
+ * farthest slot and are placed again when it cascades. Not thread-safe.
+ */
+final class TimingWheel {
+    
+    static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final long SPAN = 1L << (SLOT_BITS * LEVELS);
+    
+    /**
+     * A scheduled deadline, linked into one slot's list
+     */
+    static final class Entry {
+        final String key;
+        long deadline;
+        private Entry prev;
+        private Entry next;
+        private int level = -1;
+        private int slot;
+        
+        private Entry(String key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+        
+        boolean isScheduled() {
+            return level >= 0;
+        }
+    }
+    
+    private final Entry[][] slots = new Entry[LEVELS][SLOTS];
+    private long currentTick;
+    private int size;
+    
+    /**
+     * @param startTick the tick the wheel starts at
+     */
+    TimingWheel(long startTick) {
+        this.currentTick = startTick;
+    }
+    
+    /**
+     * @param deadline tick at which the key expires; past deadlines expire on the next tick
+     */
+    Entry schedule(String key, long deadline) {
+        Entry entry = new Entry(key, Math.max(deadline, currentTick + 1));
+        place(entry);
+        return entry;
+    }
+    
+    /**
+     * Moves a scheduled entry to a new deadline
+     */
+    void reschedule(Entry entry, long deadline) {
+        cancel(entry);
+        entry.deadline = Math.max(deadline, currentTick + 1);
+        place(entry);
+    }
+    
+    void cancel(Entry entry) {
+        if (!entry.isScheduled()) {
+            return;
+        }
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            slots[entry.level][entry.slot] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        entry.level = -1;
+        size--;
+    }
+    
+    /**
+     * Advances tick by tick up to {@code tick}, passing every key that reached its deadline
+     * @param tick the current tick
+     * @param expired receives the expired keys, after their entries are unlinked
+     */
+    void advance(long tick, Consumer<String> expired) {
+        if (size == 0 && tick > currentTick) {
+            currentTick = tick;
+            return;
+        }
+        while (currentTick < tick) {
+            currentTick++;
+            cascade(1);
+            Entry entry = slots[0][(int) (currentTick & MASK)];
+            while (entry != null) {
+                Entry next = entry.next;
+                cancel(entry);
+                expired.accept(entry.key);
+                entry = next;
+            }
+        }
+    }
+    
+    /**
+     * When every level below {@code level} has wrapped, re-places the level's current slot;
+     * higher levels go first, so their entries can land in the slot cascaded next
+     */
+    private void cascade(int level) {
+        if (level >= LEVELS || (currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+            return;
+        }
+        cascade(level + 1);
+        int slot = (int) ((currentTick >>> (SLOT_BITS * level)) & MASK);
+        Entry entry = slots[level][slot];
+        slots[level][slot] = null;
+        while (entry != null) {
+            Entry next = entry.next;
+            entry.prev = null;
+            entry.next = null;
+            entry.level = -1;
+            size--;
+            place(entry);
+            entry = next;
+        }
+    }
+    
+    private void place(Entry entry) {
+        long delta = entry.deadline - currentTick;
+        // Beyond the span: park in the top level's farthest slot
+        long deadline = delta < SPAN ? entry.deadline : currentTick + SPAN - 1;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = (int) ((deadline >>> (SLOT_BITS * level)) & MASK);
+        Entry head = slots[level][slot];
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        slots[level][slot] = entry;
+        entry.level = level;
+        entry.slot = slot;
+        size++;
+    }
+    
+    long currentTick() {
+        return currentTick;
+    }
+    
+    int size() {
+        return size;
+    }
+}
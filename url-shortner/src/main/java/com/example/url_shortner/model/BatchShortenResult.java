@@ -0,0 +1,73 @@
+package com.example.url_shortner.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One result of the batch shortening API: a short URL or a per-item error
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchShortenResult {
+    
+    @JsonProperty("index")
+    private int index;
+    
+    @JsonProperty("short_url")
+    private String shortUrl;
+    
+    @JsonProperty("original_url")
+    private String originalUrl;
+    
+    @JsonProperty("error")
+    private String error;
+    
+    public BatchShortenResult() {
+    }
+    
+    public BatchShortenResult(int index, String shortUrl, String originalUrl, String error) {
+        this.index = index;
+        this.shortUrl = shortUrl;
+        this.originalUrl = originalUrl;
+        this.error = error;
+    }
+    
+    public static BatchShortenResult success(int index, String shortUrl, String originalUrl) {
+        return new BatchShortenResult(index, shortUrl, originalUrl, null);
+    }
+    
+    public static BatchShortenResult failure(int index, String originalUrl, String error) {
+        return new BatchShortenResult(index, null, originalUrl, error);
+    }
+    
+    public int getIndex() {
+        return index;
+    }
+    
+    public void setIndex(int index) {
+        this.index = index;
+    }
+    
+    public String getShortUrl() {
+        return shortUrl;
+    }
+    
+    public void setShortUrl(String shortUrl) {
+        this.shortUrl = shortUrl;
+    }
+    
+    public String getOriginalUrl() {
+        return originalUrl;
+    }
+    
+    public void setOriginalUrl(String originalUrl) {
+        this.originalUrl = originalUrl;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
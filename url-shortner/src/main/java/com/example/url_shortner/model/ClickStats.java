@@ -0,0 +1,105 @@
+package com.example.url_shortner.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Click statistics for one short code
+ */
+public class ClickStats {
+    
+    @JsonProperty("short_code")
+    private String shortCode;
+    
+    @JsonProperty("clicks")
+    private long clicks;
+    
+    @JsonProperty("window")
+    private String window;
+    
+    @JsonProperty("unique_visitors")
+    private long uniqueVisitors;
+    
+    @JsonProperty("unique_visitors_error")
+    private double uniqueVisitorsError;
+    
+    @JsonProperty("sketch_bytes")
+    private int sketchBytes;
+    
+    public ClickStats() {
+    }
+    
+    public ClickStats(String shortCode, long clicks) {
+        this.shortCode = shortCode;
+        this.clicks = clicks;
+    }
+    
+    public ClickStats(String shortCode, long clicks, String window, long uniqueVisitors, double uniqueVisitorsError,
+                      int sketchBytes) {
+        this.shortCode = shortCode;
+        this.clicks = clicks;
+        this.window = window;
+        this.uniqueVisitors = uniqueVisitors;
+        this.uniqueVisitorsError = uniqueVisitorsError;
+        this.sketchBytes = sketchBytes;
+    }
+    
+    public String getShortCode() {
+        return shortCode;
+    }
+    
+    public void setShortCode(String shortCode) {
+        this.shortCode = shortCode;
+    }
+    
+    public long getClicks() {
+        return clicks;
+    }
+    
+    public void setClicks(long clicks) {
+        this.clicks = clicks;
+    }
+    
+    /**
+     * @return rolling window the unique visitor estimate covers
+     */
+    public String getWindow() {
+        return window;
+    }
+    
+    public void setWindow(String window) {
+        this.window = window;
+    }
+    
+    /**
+     * @return estimated distinct visitors within the window (HyperLogLog)
+     */
+    public long getUniqueVisitors() {
+        return uniqueVisitors;
+    }
+    
+    public void setUniqueVisitors(long uniqueVisitors) {
+        this.uniqueVisitors = uniqueVisitors;
+    }
+    
+    /**
+     * @return relative standard error of the unique visitor estimate
+     */
+    public double getUniqueVisitorsError() {
+        return uniqueVisitorsError;
+    }
+    
+    public void setUniqueVisitorsError(double uniqueVisitorsError) {
+        this.uniqueVisitorsError = uniqueVisitorsError;
+    }
+    
+    /**
+     * @return approximate bytes used by the code's unique visitor sketches
+     */
+    public int getSketchBytes() {
+        return sketchBytes;
+    }
+    
+    public void setSketchBytes(int sketchBytes) {
+        this.sketchBytes = sketchBytes;
+    }
+}
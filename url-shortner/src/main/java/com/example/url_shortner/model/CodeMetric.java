@@ -0,0 +1,39 @@
+package com.example.url_shortner.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Short code metric model for windowed metrics
+ */
+public class CodeMetric {
+    
+    @JsonProperty("short_code")
+    private String shortCode;
+    
+    @JsonProperty("clicks")
+    private long clicks;
+    
+    public CodeMetric() {
+    }
+    
+    public CodeMetric(String shortCode, long clicks) {
+        this.shortCode = shortCode;
+        this.clicks = clicks;
+    }
+    
+    public String getShortCode() {
+        return shortCode;
+    }
+    
+    public void setShortCode(String shortCode) {
+        this.shortCode = shortCode;
+    }
+    
+    public long getClicks() {
+        return clicks;
+    }
+    
+    public void setClicks(long clicks) {
+        this.clicks = clicks;
+    }
+}
@@ -11,12 +11,12 @@ public class DomainMetric {
     private String domain;
     
     @JsonProperty("count")
-    private int count;
+    private long count;
     
     public DomainMetric() {
     }
     
-    public DomainMetric(String domain, int count) {
+    public DomainMetric(String domain, long count) {
         this.domain = domain;
         this.count = count;
     }
@@ -29,11 +29,11 @@ public class DomainMetric {
         this.domain = domain;
     }
     
-    public int getCount() {
+    public long getCount() {
         return count;
     }
     
-    public void setCount(int count) {
+    public void setCount(long count) {
         this.count = count;
     }
 }
@@ -0,0 +1,124 @@
+package com.example.url_shortner.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Statistics of the short code Bloom filter
+ */
+public class FilterStats {
+    
+    @JsonProperty("enabled")
+    private boolean enabled;
+    
+    @JsonProperty("expected_insertions")
+    private long expectedInsertions;
+    
+    @JsonProperty("insertions")
+    private long insertions;
+    
+    @JsonProperty("target_false_positive_rate")
+    private double targetFalsePositiveRate;
+    
+    @JsonProperty("expected_false_positive_rate")
+    private double expectedFalsePositiveRate;
+    
+    @JsonProperty("hash_functions")
+    private int hashFunctions;
+    
+    @JsonProperty("memory_bytes")
+    private long memoryBytes;
+    
+    @JsonProperty("rejected_lookups")
+    private long rejectedLookups;
+    
+    @JsonProperty("false_positives")
+    private long falsePositives;
+    
+    public FilterStats() {
+    }
+    
+    public FilterStats(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public long getExpectedInsertions() {
+        return expectedInsertions;
+    }
+    
+    public void setExpectedInsertions(long expectedInsertions) {
+        this.expectedInsertions = expectedInsertions;
+    }
+    
+    public long getInsertions() {
+        return insertions;
+    }
+    
+    public void setInsertions(long insertions) {
+        this.insertions = insertions;
+    }
+    
+    public double getTargetFalsePositiveRate() {
+        return targetFalsePositiveRate;
+    }
+    
+    public void setTargetFalsePositiveRate(double targetFalsePositiveRate) {
+        this.targetFalsePositiveRate = targetFalsePositiveRate;
+    }
+    
+    /**
+     * @return false-positive rate expected at the current number of insertions
+     */
+    public double getExpectedFalsePositiveRate() {
+        return expectedFalsePositiveRate;
+    }
+    
+    public void setExpectedFalsePositiveRate(double expectedFalsePositiveRate) {
+        this.expectedFalsePositiveRate = expectedFalsePositiveRate;
+    }
+    
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+    
+    public void setHashFunctions(int hashFunctions) {
+        this.hashFunctions = hashFunctions;
+    }
+    
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+    
+    public void setMemoryBytes(long memoryBytes) {
+        this.memoryBytes = memoryBytes;
+    }
+    
+    /**
+     * @return lookups answered by the filter without touching storage
+     */
+    public long getRejectedLookups() {
+        return rejectedLookups;
+    }
+    
+    public void setRejectedLookups(long rejectedLookups) {
+        this.rejectedLookups = rejectedLookups;
+    }
+    
+    /**
+     * @return lookups the filter let through that storage then missed
+     */
+    public long getFalsePositives() {
+        return falsePositives;
+    }
+    
+    public void setFalsePositives(long falsePositives) {
+        this.falsePositives = falsePositives;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.url_shortner.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * Response model for the hot codes API
+ */
+public class HotCodesResponse {
+    
+    @JsonProperty("hot_codes")
+    private List<CodeMetric> hotCodes;
+    
+    @JsonProperty("error_bound")
+    private long errorBound;
+    
+    public HotCodesResponse() {
+    }
+    
+    public HotCodesResponse(List<CodeMetric> hotCodes, long errorBound) {
+        this.hotCodes = hotCodes;
+        this.errorBound = errorBound;
+    }
+    
+    /**
+     * @return hottest codes with their estimated recent (decayed) clicks
+     */
+    public List<CodeMetric> getHotCodes() {
+        return hotCodes;
+    }
+    
+    public void setHotCodes(List<CodeMetric> hotCodes) {
+        this.hotCodes = hotCodes;
+    }
+    
+    /**
+     * @return how far an estimate may exceed the true count
+     */
+    public long getErrorBound() {
+        return errorBound;
+    }
+    
+    public void setErrorBound(long errorBound) {
+        this.errorBound = errorBound;
+    }
+}
@@ -1,16 +1,26 @@
 package com.example.url_shortner.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
 
 /**
  * Response model for metrics API
+ * {@code window} and {@code top_codes} are only present for windowed queries.
  */
 public class MetricsResponse {
     
+    @JsonProperty("window")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String window;
+    
     @JsonProperty("top_domains")
     private List<DomainMetric> topDomains;
     
+    @JsonProperty("top_codes")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<CodeMetric> topCodes;
+    
     public MetricsResponse() {
     }
     
@@ -18,6 +28,20 @@ public class MetricsResponse {
         this.topDomains = topDomains;
     }
     
+    public MetricsResponse(String window, List<DomainMetric> topDomains, List<CodeMetric> topCodes) {
+        this.window = window;
+        this.topDomains = topDomains;
+        this.topCodes = topCodes;
+    }
+    
+    public String getWindow() {
+        return window;
+    }
+    
+    public void setWindow(String window) {
+        this.window = window;
+    }
+    
     public List<DomainMetric> getTopDomains() {
         return topDomains;
     }
@@ -25,4 +49,12 @@ public class MetricsResponse {
     public void setTopDomains(List<DomainMetric> topDomains) {
         this.topDomains = topDomains;
     }
+    
+    public List<CodeMetric> getTopCodes() {
+        return topCodes;
+    }
+    
+    public void setTopCodes(List<CodeMetric> topCodes) {
+        this.topCodes = topCodes;
+    }
 }
@@ -0,0 +1,82 @@
+package com.example.url_shortner.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * State of the on-demand JFR recording
+ */
+public class RecordingStatus {
+    
+    @JsonProperty("recording")
+    private boolean recording;
+    
+    @JsonProperty("state")
+    private String state;
+    
+    @JsonProperty("settings")
+    private String settings;
+    
+    @JsonProperty("started_at")
+    private String startedAt;
+    
+    @JsonProperty("max_duration_seconds")
+    private long maxDurationSeconds;
+    
+    @JsonProperty("size_bytes")
+    private long sizeBytes;
+    
+    public RecordingStatus() {
+    }
+    
+    public RecordingStatus(boolean recording) {
+        this.recording = recording;
+    }
+    
+    public boolean isRecording() {
+        return recording;
+    }
+    
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+    
+    public String getState() {
+        return state;
+    }
+    
+    public void setState(String state) {
+        this.state = state;
+    }
+    
+    public String getSettings() {
+        return settings;
+    }
+    
+    public void setSettings(String settings) {
+        this.settings = settings;
+    }
+    
+    public String getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(String startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public long getMaxDurationSeconds() {
+        return maxDurationSeconds;
+    }
+    
+    public void setMaxDurationSeconds(long maxDurationSeconds) {
+        this.maxDurationSeconds = maxDurationSeconds;
+    }
+    
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+    
+    public void setSizeBytes(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+}
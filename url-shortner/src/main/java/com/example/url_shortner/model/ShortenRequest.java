@@ -10,6 +10,10 @@ public class ShortenRequest {
     @JsonProperty("url")
     private String url;
     
+    // Seconds until the short URL stops redirecting; omitted for a permanent link
+    @JsonProperty("expires_in")
+    private Long expiresIn;
+    
     public ShortenRequest() {
     }
     
@@ -24,4 +28,12 @@ public class ShortenRequest {
     public void setUrl(String url) {
         this.url = url;
     }
+    
+    public Long getExpiresIn() {
+        return expiresIn;
+    }
+    
+    public void setExpiresIn(Long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
 }
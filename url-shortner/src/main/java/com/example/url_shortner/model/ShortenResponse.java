@@ -1,5 +1,6 @@
 package com.example.url_shortner.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -13,6 +14,11 @@ public class ShortenResponse {
     @JsonProperty("original_url")
     private String originalUrl;
     
+    // ISO-8601 instant; omitted for links that do not expire
+    @JsonProperty("expires_at")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String expiresAt;
+    
     public ShortenResponse() {
     }
     
@@ -21,6 +27,12 @@ public class ShortenResponse {
         this.originalUrl = originalUrl;
     }
     
+    public ShortenResponse(String shortUrl, String originalUrl, String expiresAt) {
+        this.shortUrl = shortUrl;
+        this.originalUrl = originalUrl;
+        this.expiresAt = expiresAt;
+    }
+    
     public String getShortUrl() {
         return shortUrl;
     }
@@ -36,4 +48,12 @@ public class ShortenResponse {
     public void setOriginalUrl(String originalUrl) {
         this.originalUrl = originalUrl;
     }
+    
+    public String getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(String expiresAt) {
+        this.expiresAt = expiresAt;
+    }
 }
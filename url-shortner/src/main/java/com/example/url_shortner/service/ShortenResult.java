@@ -0,0 +1,58 @@
+package com.example.url_shortner.service;
+
+/**
+ * Outcome of {@link UrlService#tryShortenUrl(String)}: the short URL, or why the input was rejected
+ * Lets callers handle invalid input as a value instead of catching an exception.
+ */
+public final class ShortenResult {
+    
+    private final String shortUrl;
+    private final Long expiresAt;
+    private final String error;
+    
+    private ShortenResult(String shortUrl, Long expiresAt, String error) {
+        this.shortUrl = shortUrl;
+        this.expiresAt = expiresAt;
+        this.error = error;
+    }
+    
+    public static ShortenResult success(String shortUrl) {
+        return success(shortUrl, null);
+    }
+    
+    /**
+     * @param expiresAt epoch milliseconds at which the short URL expires, or null if it does not
+     */
+    public static ShortenResult success(String shortUrl, Long expiresAt) {
+        return new ShortenResult(shortUrl, expiresAt, null);
+    }
+    
+    public static ShortenResult invalid(String error) {
+        return new ShortenResult(null, null, error);
+    }
+    
+    public boolean isValid() {
+        return error == null;
+    }
+    
+    /**
+     * @return the short URL, or null if the input was rejected
+     */
+    public String getShortUrl() {
+        return shortUrl;
+    }
+    
+    /**
+     * @return epoch milliseconds at which the short URL expires, or null if it does not
+     */
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+    
+    /**
+     * @return why the input was rejected, or null if valid
+     */
+    public String getError() {
+        return error;
+    }
+}
@@ -1,13 +1,26 @@
 package com.example.url_shortner.service;
 
+import com.example.url_shortner.analytics.MetricsWindow;
+import com.example.url_shortner.analytics.WindowedMetrics;
+import com.example.url_shortner.codegen.ShortCodeGenerator;
 import com.example.url_shortner.exception.InvalidUrlException;
+import com.example.url_shortner.exception.ShortCodeExhaustedException;
 import com.example.url_shortner.exception.UrlNotFoundException;
-import com.example.url_shortner.storage.UrlStorage;
-import com.example.url_shortner.util.UrlUtils;
+import com.example.url_shortner.expiry.LinkExpiry;
+import com.example.url_shortner.model.CodeMetric;
+import com.example.url_shortner.model.DomainMetric;
+import com.example.url_shortner.storage.ShortCodeReservation;
+import com.example.url_shortner.storage.UrlStore;
+import com.example.url_shortner.telemetry.LookupEvent;
+import com.example.url_shortner.telemetry.ShortenEvent;
+import com.example.url_shortner.telemetry.ShortenerMetrics;
+import com.example.url_shortner.util.ParsedUrl;
+import com.example.url_shortner.util.UrlParser;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -16,13 +29,42 @@ import java.util.stream.Collectors;
 @Service
 public class UrlService {
     
-    private final UrlStorage urlStorage;
+    private final UrlStore urlStore;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final WindowedMetrics windowedMetrics;
     private final String baseUrl;
+    private final ShortenerMetrics metrics;
+    private final LinkExpiry linkExpiry;
     
-    public UrlService(UrlStorage urlStorage, 
-                     @Value("${app.base-url:http://localhost:8080}") String baseUrl) {
-        this.urlStorage = urlStorage;
+    public UrlService(UrlStore urlStore,
+                     ShortCodeGenerator shortCodeGenerator,
+                     WindowedMetrics windowedMetrics,
+                     String baseUrl) {
+        this(urlStore, shortCodeGenerator, windowedMetrics, baseUrl, ShortenerMetrics.disabled());
+    }
+    
+    public UrlService(UrlStore urlStore,
+                     ShortCodeGenerator shortCodeGenerator,
+                     WindowedMetrics windowedMetrics,
+                     String baseUrl,
+                     ShortenerMetrics metrics) {
+        this(urlStore, shortCodeGenerator, windowedMetrics, baseUrl, metrics,
+                new LinkExpiry(urlStore, 1000, 31_536_000, false, System::currentTimeMillis));
+    }
+    
+    @Autowired
+    public UrlService(UrlStore urlStore,
+                     ShortCodeGenerator shortCodeGenerator,
+                     WindowedMetrics windowedMetrics,
+                     @Value("${app.base-url:http://localhost:8080}") String baseUrl,
+                     ShortenerMetrics metrics,
+                     LinkExpiry linkExpiry) {
+        this.urlStore = urlStore;
+        this.shortCodeGenerator = shortCodeGenerator;
+        this.windowedMetrics = windowedMetrics;
         this.baseUrl = baseUrl;
+        this.metrics = metrics;
+        this.linkExpiry = linkExpiry;
     }
     
     /**
@@ -33,35 +75,124 @@ public class UrlService {
      * @throws InvalidUrlException if the URL is invalid
      */
     public String shortenUrl(String originalUrl) {
-        // Validate and normalize the URL
-        String normalizedUrl = UrlUtils.validateAndNormalizeUrl(originalUrl);
-        
-        // Check if URL was already shortened (idempotency)
-        String existingShortCode = urlStorage.getShortCode(normalizedUrl);
-        if (existingShortCode != null) {
-            return baseUrl + "/" + existingShortCode;
+        ShortenResult result = tryShortenUrl(originalUrl);
+        if (!result.isValid()) {
+            throw new InvalidUrlException(result.getError());
         }
-        
-        // Generate short code
-        String shortCode = UrlUtils.generateShortCode(normalizedUrl);
-        
-        // Handle potential collisions (very rare but possible)
-        int counter = 0;
-        String originalShortCode = shortCode;
-        while (urlStorage.getOriginalUrl(shortCode) != null) {
-            counter++;
-            shortCode = originalShortCode + counter;
+        return result.getShortUrl();
+    }
+    
+    /**
+     * Shortens a URL, reporting invalid input in the result rather than throwing
+     * If the URL was already shortened, returns the existing short URL (idempotent)
+     * @param originalUrl the original URL to shorten
+     * @return the short URL, or the reason the URL was rejected
+     */
+    public ShortenResult tryShortenUrl(String originalUrl) {
+        return tryShortenUrl(originalUrl, null);
+    }
+    
+    /**
+     * Shortens a URL that optionally expires, reporting invalid input in the result
+     * A URL shortened before keeps its code; a later deadline extends it, and no deadline
+     * leaves its expiry as it is (see {@link LinkExpiry}).
+     * @param originalUrl the original URL to shorten
+     * @param expiresInSeconds seconds until the short URL stops redirecting, or null for never
+     * @return the short URL and its expiry, or the reason the input was rejected
+     */
+    public ShortenResult tryShortenUrl(String originalUrl, Long expiresInSeconds) {
+        // Phases are timed for the metrics and, while a recording enables it, the JFR event
+        ShortenEvent event = new ShortenEvent();
+        event.begin();
+        boolean traced = event.isEnabled();
+        long start = clock(traced);
+        // Validate and normalize the URL; the parse also locates the host
+        ParsedUrl parsedUrl = UrlParser.parseAndNormalize(originalUrl);
+        metrics.recordValidate(start);
+        if (traced) {
+            event.validationTime = System.nanoTime() - start;
+            event.urlLength = originalUrl == null ? 0 : originalUrl.length();
+        }
+        String error = !parsedUrl.isValid() ? parsedUrl.getError()
+                : expiresInSeconds != null ? linkExpiry.validate(expiresInSeconds) : null;
+        if (error != null) {
+            metrics.recordInvalid(start);
+            if (traced) {
+                event.outcome = "invalid";
+                event.commit();
+            }
+            return ShortenResult.invalid(error);
         }
+        String normalizedUrl = parsedUrl.getUrl();
         
-        // Extract domain for metrics
-        String domain = UrlUtils.extractDomain(normalizedUrl);
+        // Atomically return the existing short code (idempotency) or reserve a new one.
+        // Candidates are only generated for new URLs; on a collision the generator
+        // is asked for the next candidate.
+        long reserveStart = clock(traced);
+        ShortCodeReservation reservation;
+        Long expiresAt = null;
+        try {
+            while (true) {
+                reservation = urlStore.reserveShortCode(normalizedUrl, attempt -> {
+                    long generateStart = clock(traced);
+                    String candidate = shortCodeGenerator.candidate(normalizedUrl, attempt);
+                    metrics.recordGenerate(generateStart);
+                    if (traced) {
+                        event.hashTime += System.nanoTime() - generateStart;
+                    }
+                    return candidate;
+                });
+                if (reservation.isCreated()) {
+                    break;
+                }
+                try {
+                    String existing = reservation.getShortCode();
+                    expiresAt = expiresInSeconds != null
+                            ? linkExpiry.extend(existing, expiresInSeconds) : linkExpiry.expiresAt(existing);
+                    break;
+                } catch (UrlNotFoundException e) {
+                    // The link expired after the reservation found it: shorten the URL afresh
+                }
+            }
+        } catch (ShortCodeExhaustedException e) {
+            // Every candidate for this URL is taken: rejected like invalid input, not a server error
+            metrics.recordInvalid(start);
+            if (traced) {
+                event.outcome = "exhausted";
+                event.commit();
+            }
+            return ShortenResult.invalid("No short code is available for this URL");
+        }
+        if (traced) {
+            event.storeTime = System.nanoTime() - reserveStart - event.hashTime;
+        }
         
-        // Store the mapping
-        urlStorage.storeUrl(shortCode, normalizedUrl);
-        urlStorage.incrementDomainCount(domain);
+        String shortCode = reservation.getShortCode();
+        if (reservation.isCreated()) {
+            // Domain for metrics, from the host offsets found while validating
+            urlStore.incrementDomainCount(parsedUrl.getHost());
+            windowedMetrics.recordShorten(parsedUrl.getHost());
+            if (expiresInSeconds != null) {
+                expiresAt = linkExpiry.schedule(shortCode, expiresInSeconds);
+            }
+        }
+        metrics.recordShorten(start, reservation);
+        if (traced) {
+            event.outcome = reservation.isCreated() ? "created" : "existing";
+            event.shortCode = shortCode;
+            event.probes = reservation.getProbes();
+            event.commit();
+        }
         
         // Return the full short URL
-        return baseUrl + "/" + shortCode;
+        return ShortenResult.success(baseUrl + "/" + shortCode, expiresAt);
+    }
+    
+    /**
+     * @return the time for a phase start, read only when the metrics or the JFR event need it
+     */
+    private long clock(boolean traced) {
+        return traced ? System.nanoTime() : metrics.start();
     }
     
     /**
@@ -71,25 +202,67 @@ public class UrlService {
      * @throws UrlNotFoundException if the short code is not found
      */
     public String getOriginalUrl(String shortCode) {
-        String originalUrl = urlStorage.getOriginalUrl(shortCode);
+        String originalUrl = lookup(shortCode);
         if (originalUrl == null) {
             throw new UrlNotFoundException("Short URL not found");
         }
         return originalUrl;
     }
     
+    /**
+     * Looks up the original URL for a short code without throwing on a miss
+     * Used on the redirect path, where unknown codes are common (scanners, typos).
+     * @param shortCode the short code
+     * @return the original URL, or empty if the short code is not found
+     */
+    public Optional<String> findOriginalUrl(String shortCode) {
+        return Optional.ofNullable(lookup(shortCode));
+    }
+    
+    private String lookup(String shortCode) {
+        LookupEvent event = new LookupEvent();
+        event.begin();
+        String originalUrl = urlStore.getOriginalUrl(shortCode);
+        if (event.shouldCommit()) {
+            event.shortCode = shortCode;
+            event.found = originalUrl != null;
+            event.commit();
+        }
+        return originalUrl;
+    }
+    
     /**
      * Gets the top N domains by count
      * @param n the number of top domains to return
      * @return list of domain metrics sorted by count (descending)
      */
-    public List<com.example.url_shortner.model.DomainMetric> getTopDomains(int n) {
-        Map<String, Integer> domainCounts = urlStorage.getDomainCounts();
-        
-        return domainCounts.entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .limit(n)
-                .map(entry -> new com.example.url_shortner.model.DomainMetric(entry.getKey(), entry.getValue()))
+    public List<DomainMetric> getTopDomains(int n) {
+        return urlStore.getTopDomains(n).stream()
+                .map(entry -> new DomainMetric(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Gets the top N domains shortened within a rolling window
+     * @param n the number of top domains to return
+     * @param window the window
+     * @return list of domain metrics sorted by count (descending)
+     */
+    public List<DomainMetric> getTopDomains(int n, MetricsWindow window) {
+        return windowedMetrics.getTopDomains(n, window).stream()
+                .map(entry -> new DomainMetric(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Gets the top N short codes by redirects within a rolling window
+     * @param n the number of top codes to return
+     * @param window the window
+     * @return list of code metrics sorted by clicks (descending)
+     */
+    public List<CodeMetric> getTopCodes(int n, MetricsWindow window) {
+        return windowedMetrics.getTopCodes(n, window).stream()
+                .map(entry -> new CodeMetric(entry.getKey(), entry.getValue()))
                 .collect(Collectors.toList());
     }
 }
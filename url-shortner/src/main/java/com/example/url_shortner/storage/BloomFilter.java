@@ -0,0 +1,139 @@
+package com.example.url_shortner.storage;
+
+import com.example.url_shortner.util.Murmur3;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe, cache-line-blocked Bloom filter of strings
+ * Sized from the expected number of insertions and the target false-positive rate:
+ * m = -n ln(p) / ln(2)^2 bits and k = m / n ln(2) hash functions. All k bits of a key fall in
+ * one 512-bit block (a cache line), so a lookup costs a single memory access however large the
+ * filter is. Keys are hashed with 64-bit {@link Murmur3#hash64(CharSequence, int)}, so the
+ * false-positive rate is not floored by 32-bit collisions and codes that pass the filter cannot
+ * be constructed by inverting {@link String#hashCode()}. Bits are set lock-free; a bit already
+ * set costs only a read. A filter has no false negatives, but entries cannot be removed.
+ */
+public class BloomFilter {
+    
+    private static final int WORDS_PER_BLOCK = 8;
+    private static final int BLOCK_BITS_LOG2 = 9;
+    // Bit positions taken from one 64-bit hash before it is remixed
+    private static final int BITS_PER_HASH = 64 / BLOCK_BITS_LOG2;
+    
+    private final AtomicLongArray words;
+    private final int blockCount;
+    private final int hashCount;
+    private final LongAdder insertions = new LongAdder();
+    
+    /**
+     * @param expectedInsertions number of entries the filter is sized for
+     * @param falsePositiveRate target false-positive rate at that size, between 0 and 1
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.blockCount = (int) Math.min((Integer.MAX_VALUE - 8) / WORDS_PER_BLOCK,
+                Math.max(1, (bits + (1 << BLOCK_BITS_LOG2) - 1) >>> BLOCK_BITS_LOG2));
+        this.words = new AtomicLongArray(blockCount * WORDS_PER_BLOCK);
+        this.hashCount = (int) Math.max(1, Math.min(32,
+                Math.round((double) getBitCount() / expectedInsertions * Math.log(2))));
+    }
+    
+    /**
+     * Adds the key
+     * @param key the key
+     * @return true if the key set a bit, i.e. it was certainly not in the filter yet
+     */
+    public boolean add(String key) {
+        long hash = Murmur3.hash64(key, 0);
+        int block = block(hash);
+        long bits = Murmur3.fmix64(hash);
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++, bits >>>= BLOCK_BITS_LOG2) {
+            if (i % BITS_PER_HASH == 0 && i > 0) {
+                bits = Murmur3.fmix64(bits ^ hash);
+            }
+            int word = block + (int) ((bits >>> 6) & (WORDS_PER_BLOCK - 1));
+            long mask = 1L << bits;
+            long current = words.get(word);
+            while ((current & mask) == 0) {
+                long witness = words.compareAndExchange(word, current, current | mask);
+                if (witness == current) {
+                    changed = true;
+                    break;
+                }
+                current = witness;
+            }
+        }
+        // Repeated keys set no bit and are not counted; neither is a new key that was already a
+        // false positive, which undercounts by about the false-positive rate
+        if (changed) {
+            insertions.increment();
+        }
+        return changed;
+    }
+    
+    /**
+     * @param key the key
+     * @return false if the key was definitely never added, true if it may have been
+     */
+    public boolean mightContain(String key) {
+        long hash = Murmur3.hash64(key, 0);
+        int block = block(hash);
+        long bits = Murmur3.fmix64(hash);
+        for (int i = 0; i < hashCount; i++, bits >>>= BLOCK_BITS_LOG2) {
+            if (i % BITS_PER_HASH == 0 && i > 0) {
+                bits = Murmur3.fmix64(bits ^ hash);
+            }
+            int word = block + (int) ((bits >>> 6) & (WORDS_PER_BLOCK - 1));
+            if ((words.get(word) & (1L << bits)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * @return index of the first word of the key's block
+     */
+    private int block(long hash) {
+        // Multiply-shift maps the high hash bits onto [0, blockCount) without a division
+        return (int) Math.multiplyHigh(hash & Long.MAX_VALUE, (long) blockCount << 1) * WORDS_PER_BLOCK;
+    }
+    
+    /**
+     * @return the current false-positive rate, (1 - e^(-k n / m))^k for the n keys added so far
+     *         (blocking adds a few percent on top of this)
+     */
+    public double getExpectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashCount * (double) insertions.sum() / getBitCount()), hashCount);
+    }
+    
+    /**
+     * @return number of distinct keys added so far (see {@link #add(String)})
+     */
+    public long getInsertions() {
+        return insertions.sum();
+    }
+    
+    public long getBitCount() {
+        return (long) blockCount << BLOCK_BITS_LOG2;
+    }
+    
+    public int getHashCount() {
+        return hashCount;
+    }
+    
+    /**
+     * @return bytes used by the bit array
+     */
+    public long getMemoryBytes() {
+        return getBitCount() / 8;
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.url_shortner.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Decorator that answers lookups of unknown short codes from a {@link BloomFilter}
+ * ({@code app.storage.bloom.enabled=true}, the default)
+ *
+ * Every stored code is added to the filter, and {@link #getOriginalUrl(String)} consults the
+ * filter first: a definite miss returns null without touching the wrapped engine, which keeps
+ * scanners probing random codes off the storage path. Codes are added before they are inserted,
+ * so a concurrent lookup can never see a stored code rejected; candidates that lose a collision
+ * stay in the filter and only cost an occasional extra lookup. The filter is filled from the
+ * engine's existing mappings on construction. Removed codes cannot be deleted from the filter;
+ * lookups of them reach the engine and count as false positives.
+ *
+ * So that removals (e.g. expired links) do not degrade the filter without bound, it is rebuilt
+ * from the engine's mappings every {@code app.storage.bloom.rebuild-interval-seconds}, sized for
+ * the larger of the configured and the current number of codes. Writes add to the filter being
+ * built as well; they hold a read lock from adding a code until it is stored, and the rebuild
+ * takes the write lock only to publish that filter, so every code stored before its scan starts
+ * is seen by the scan and every later one is added directly. Lookups take no lock.
+ */
+public class BloomFilterUrlStore implements UrlStore, Closeable {
+    
+    private static final Logger log = LoggerFactory.getLogger(BloomFilterUrlStore.class);
+    
+    private final UrlStore delegate;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService rebuilder;
+    
+    private volatile BloomFilter filter;
+    // The filter a rebuild is filling, null otherwise
+    private volatile BloomFilter building;
+    
+    public BloomFilterUrlStore(UrlStore delegate, long expectedInsertions, double falsePositiveRate) {
+        this(delegate, expectedInsertions, falsePositiveRate, 0);
+    }
+    
+    /**
+     * @param delegate the engine holding the mappings
+     * @param expectedInsertions number of short codes the filter is sized for
+     * @param falsePositiveRate target false-positive rate at that size
+     * @param rebuildIntervalSeconds how often the filter is rebuilt from the mappings; 0 for never
+     */
+    public BloomFilterUrlStore(UrlStore delegate, long expectedInsertions, double falsePositiveRate,
+                               long rebuildIntervalSeconds) {
+        this.delegate = delegate;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = load();
+        log.info("Short code filter: {} codes loaded, {} KB, {} hash functions",
+                filter.getInsertions(), filter.getMemoryBytes() / 1024, filter.getHashCount());
+        if (rebuildIntervalSeconds > 0) {
+            rebuilder = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "bloom-rebuild");
+                thread.setDaemon(true);
+                return thread;
+            });
+            rebuilder.scheduleWithFixedDelay(this::rebuildQuietly,
+                    rebuildIntervalSeconds, rebuildIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            rebuilder = null;
+        }
+    }
+    
+    private BloomFilter load() {
+        BloomFilter loaded = new BloomFilter(Math.max(expectedInsertions, delegate.size()), falsePositiveRate);
+        delegate.forEach((shortCode, originalUrl) -> loaded.add(shortCode));
+        return loaded;
+    }
+    
+    /**
+     * Replaces the filter with one holding only the codes currently stored
+     */
+    public void rebuild() {
+        BloomFilter fresh = new BloomFilter(Math.max(expectedInsertions, delegate.size()), falsePositiveRate);
+        // Waits for writes that have not seen the new filter to finish storing their codes
+        rebuildLock.writeLock().lock();
+        try {
+            building = fresh;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+        long before = filter.getInsertions();
+        try {
+            delegate.forEach((shortCode, originalUrl) -> fresh.add(shortCode));
+            // Published before building is cleared, so a write that sees no rebuild sees the new filter
+            filter = fresh;
+        } finally {
+            building = null;
+        }
+        log.info("Rebuilt short code filter: {} codes, {} before", fresh.getInsertions(), before);
+    }
+    
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Rebuilding the short code filter failed", e);
+        }
+    }
+    
+    // Caller holds the read lock
+    private void addCode(String shortCode) {
+        // building before filter: see rebuild()
+        BloomFilter next = building;
+        filter.add(shortCode);
+        if (next != null) {
+            next.add(shortCode);
+        }
+    }
+    
+    @Override
+    public String getOriginalUrl(String shortCode) {
+        if (!filter.mightContain(shortCode)) {
+            rejected.increment();
+            return null;
+        }
+        String originalUrl = delegate.getOriginalUrl(shortCode);
+        if (originalUrl == null) {
+            falsePositives.increment();
+        }
+        return originalUrl;
+    }
+    
+    @Override
+    public String getShortCode(String originalUrl) {
+        return delegate.getShortCode(originalUrl);
+    }
+    
+    @Override
+    public void storeUrl(String shortCode, String originalUrl) {
+        rebuildLock.readLock().lock();
+        try {
+            addCode(shortCode);
+            delegate.storeUrl(shortCode, originalUrl);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public ShortCodeReservation reserveShortCode(String originalUrl, IntFunction<String> candidates) {
+        rebuildLock.readLock().lock();
+        try {
+            return delegate.reserveShortCode(originalUrl, attempt -> {
+                String candidate = candidates.apply(attempt);
+                addCode(candidate);
+                return candidate;
+            });
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public String removeUrl(String shortCode) {
+        return delegate.removeUrl(shortCode);
+    }
+    
+    @Override
+    public void incrementDomainCount(String domain) {
+        delegate.incrementDomainCount(domain);
+    }
+    
+    @Override
+    public void decrementDomainCount(String domain) {
+        delegate.decrementDomainCount(domain);
+    }
+    
+    @Override
+    public Map<String, Long> getDomainCounts() {
+        return delegate.getDomainCounts();
+    }
+    
+    @Override
+    public List<Map.Entry<String, Long>> getTopDomains(int n) {
+        return delegate.getTopDomains(n);
+    }
+    
+    @Override
+    public void forEach(BiConsumer<String, String> action) {
+        delegate.forEach(action);
+    }
+    
+    @Override
+    public long size() {
+        return delegate.size();
+    }
+    
+    @Override
+    public long estimatedMemoryBytes() {
+        return delegate.estimatedMemoryBytes() + filter.getMemoryBytes();
+    }
+    
+    @Override
+    public boolean recountsDomainsOnOpen() {
+        return delegate.recountsDomainsOnOpen();
+    }
+    
+    @Override
+    public boolean isPersistent() {
+        return delegate.isPersistent();
+    }
+    
+    @Override
+    public String getHealthProblem() {
+        return delegate.getHealthProblem();
+    }
+    
+    public BloomFilter getFilter() {
+        return filter;
+    }
+    
+    public long getExpectedInsertions() {
+        return expectedInsertions;
+    }
+    
+    /**
+     * @return the configured false-positive rate at the expected number of insertions
+     */
+    public double getTargetFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+    
+    /**
+     * @return lookups answered by the filter alone
+     */
+    public long getRejectedLookups() {
+        return rejected.sum();
+    }
+    
+    /**
+     * @return lookups the filter let through that the engine then missed
+     */
+    public long getFalsePositives() {
+        return falsePositives.sum();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.url_shortner.storage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Lock-free {@link UrlStore} built on a pair of ConcurrentMaps and their per-key atomic operations.
+ * Readers never block. Reverse mappings are only written while the forward entry for their
+ * code is claimed (by putIfAbsent or inside compute), so a short code returned from
+ * {@link #getShortCode(String)} always resolves once the write that published it completes.
+ */
+public class ConcurrentMapUrlStore implements UrlStore {
+    
+    // Per mapping: an 8-char and an ~80-char compact String plus an entry in each map
+    private static final long ESTIMATED_BYTES_PER_MAPPING = 256;
+    
+    // Maps short code to original URL
+    private final ConcurrentMap<String, String> shortToOriginal;
+    
+    // Maps original URL to short code (for idempotency)
+    private final ConcurrentMap<String, String> originalToShort;
+    
+    // Maps domain to count
+    private final DomainCounter domainCounts;
+    
+    protected ConcurrentMapUrlStore(ConcurrentMap<String, String> shortToOriginal,
+                                    ConcurrentMap<String, String> originalToShort,
+                                    DomainCounter domainCounts) {
+        this.shortToOriginal = shortToOriginal;
+        this.originalToShort = originalToShort;
+        this.domainCounts = domainCounts;
+    }
+    
+    @Override
+    public String getOriginalUrl(String shortCode) {
+        return shortToOriginal.get(shortCode);
+    }
+    
+    @Override
+    public String getShortCode(String originalUrl) {
+        return originalToShort.get(originalUrl);
+    }
+    
+    /**
+     * Stores the mapping between short code and original URL
+     * If the short code previously pointed at another URL, that URL's reverse
+     * mapping is dropped (only if it still points at this code). Both reverse updates run
+     * inside the forward compute, so concurrent stores to the same code apply them in the
+     * same order as the forward writes and cannot leave a reverse entry for a replaced URL.
+     */
+    @Override
+    public void storeUrl(String shortCode, String originalUrl) {
+        shortToOriginal.compute(shortCode, (code, previous) -> {
+            if (previous != null && !previous.equals(originalUrl)) {
+                originalToShort.remove(previous, code);
+            }
+            originalToShort.put(originalUrl, code);
+            return originalUrl;
+        });
+    }
+    
+    /**
+     * The common (existing URL) path is a single hash lookup. Otherwise candidates are
+     * tried in order until one is claimed with putIfAbsent, so two URLs can never share
+     * a code and concurrent calls for the same URL agree on a single code.
+     */
+    @Override
+    public ShortCodeReservation reserveShortCode(String originalUrl, IntFunction<String> candidates) {
+        String existing = originalToShort.get(originalUrl);
+        if (existing != null) {
+            return ShortCodeReservation.existing(existing);
+        }
+        for (int attempt = 0; ; attempt++) {
+            String shortCode = candidates.apply(attempt);
+            String owner = shortToOriginal.putIfAbsent(shortCode, originalUrl);
+            if (owner == null) {
+                String winner = originalToShort.putIfAbsent(originalUrl, shortCode);
+                if (winner != null && !winner.equals(shortCode)) {
+                    // Another thread mapped this URL with a different code first; release ours
+                    shortToOriginal.remove(shortCode, originalUrl);
+                    return ShortCodeReservation.existing(winner);
+                }
+                return ShortCodeReservation.created(shortCode, attempt + 1);
+            }
+            if (owner.equals(originalUrl)) {
+                // Another thread is reserving the same code for the same URL
+                String winner = originalToShort.putIfAbsent(originalUrl, shortCode);
+                return ShortCodeReservation.existing(winner != null ? winner : shortCode);
+            }
+        }
+    }
+    
+    /**
+     * The reverse mapping is dropped only if it still points at this code
+     */
+    @Override
+    public String removeUrl(String shortCode) {
+        String originalUrl = shortToOriginal.remove(shortCode);
+        if (originalUrl != null) {
+            originalToShort.remove(originalUrl, shortCode);
+        }
+        return originalUrl;
+    }
+    
+    @Override
+    public void incrementDomainCount(String domain) {
+        domainCounts.increment(domain);
+    }
+    
+    @Override
+    public void decrementDomainCount(String domain) {
+        domainCounts.decrement(domain);
+    }
+    
+    @Override
+    public Map<String, Long> getDomainCounts() {
+        return domainCounts.snapshot();
+    }
+    
+    @Override
+    public List<Map.Entry<String, Long>> getTopDomains(int n) {
+        return domainCounts.top(n);
+    }
+    
+    @Override
+    public void forEach(BiConsumer<String, String> action) {
+        shortToOriginal.forEach(action);
+    }
+    
+    @Override
+    public long size() {
+        return shortToOriginal.size();
+    }
+    
+    @Override
+    public long estimatedMemoryBytes() {
+        return size() * ESTIMATED_BYTES_PER_MAPPING;
+    }
+}
@@ -0,0 +1,571 @@
+package com.example.url_shortner.storage;
+
+import com.example.url_shortner.util.Murmur3;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * On-disk key-value file of URL mappings, the cold tier of {@link TieredUrlStore}
+ *
+ * Mappings are appended to a log of PUT and REMOVE records and found through two open-addressing
+ * (linear probing) hash indexes, short code to record and URL to record, in memory-mapped files
+ * next to the log. A 16-byte slot holds the key's 64-bit hash and the record offset, so a probe
+ * reads the log only for a matching hash. Neither keys nor values live on the heap; the page
+ * cache decides which parts of the files stay resident. The indexes are rebuilt from the log
+ * on open, which also cuts off a record torn by a crash. Records are forced to disk on close and
+ * on {@link #force()}; combine with the write-ahead log for durability across crashes.
+ *
+ * Replaced and removed records stay in the log until a write finds them taking more than half of
+ * it (and at least {@link #MIN_COMPACTION_BYTES}); the live records are then copied, in log order,
+ * to a new log that atomically replaces the old one, and the indexes are rebuilt from it. An index
+ * is one memory mapping of at most 2^26 slots (1 GiB, within the 2 GiB a mapping can address) kept
+ * at most three quarters full, so the file holds at most {@link #MAX_MAPPINGS} (about 50 million)
+ * mappings. A new code beyond that is rejected before anything is appended to the log.
+ *
+ * Lookups may run concurrently; writes must be exclusive with every other call.
+ * Layout (big-endian): magic, then records of byte type, short code length, int URL length,
+ * code and URL (UTF-8).
+ */
+final class DiskUrlFile implements Closeable {
+    
+    private static final long MAGIC = 0x55524c4b56303031L; // "URLKV001"
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 7;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    // Bytes read for a record before knowing its length; most records fit
+    private static final int READ_AHEAD_BYTES = 256;
+    // Dead bytes below which the log is never compacted, so small files are not rewritten often
+    static final long MIN_COMPACTION_BYTES = 1 << 20;
+    
+    /**
+     * Mappings the indexes can hold
+     */
+    static final long MAX_MAPPINGS = HashIndex.MAX_ENTRIES;
+    
+    /**
+     * A decoded log record
+     */
+    private static final class Record {
+        final String shortCode;
+        final String originalUrl;
+        final int length;
+        
+        Record(String shortCode, String originalUrl, int length) {
+            this.shortCode = shortCode;
+            this.originalUrl = originalUrl;
+            this.length = length;
+        }
+    }
+    
+    private final Path path;
+    private final long maxMappings;
+    // Replaced when the log is compacted
+    private FileChannel channel;
+    private final HashIndex byCode;
+    private final HashIndex byUrl;
+    private long end;
+    // Bytes of the records the code index points to
+    private long liveBytes;
+    private volatile long size;
+    private volatile long compactions;
+    
+    DiskUrlFile(Path path) throws IOException {
+        this(path, MAX_MAPPINGS);
+    }
+    
+    /**
+     * Opens the log at {@code path}, creating it if absent, and rebuilds the indexes from it
+     * @param maxMappings mappings held before new codes are rejected, at most {@link #MAX_MAPPINGS}
+     */
+    DiskUrlFile(Path path, long maxMappings) throws IOException {
+        if (maxMappings < 1 || maxMappings > MAX_MAPPINGS) {
+            throw new IllegalArgumentException("maxMappings must be between 1 and " + MAX_MAPPINGS);
+        }
+        this.path = path;
+        this.maxMappings = maxMappings;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.byCode = new HashIndex(sibling(".codes"));
+        this.byUrl = new HashIndex(sibling(".urls"));
+        if (channel.size() < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putLong(0, MAGIC);
+            writeFully(header, 0);
+            channel.truncate(HEADER_BYTES);
+            end = HEADER_BYTES;
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(header, 0);
+            if (header.getLong(0) != MAGIC) {
+                channel.close();
+                throw new IOException(path + " is not a URL key-value file");
+            }
+            end = HEADER_BYTES;
+            long valid = scan(channel.size(), (offset, type, record) -> {
+                if (type == PUT) {
+                    index(record, offset);
+                } else {
+                    unindex(record.shortCode);
+                }
+            });
+            if (valid < channel.size()) {
+                // A crash tore the last record
+                channel.truncate(valid);
+            }
+            end = valid;
+        }
+    }
+    
+    private Path sibling(String suffix) {
+        return path.resolveSibling(path.getFileName() + suffix);
+    }
+    
+    /**
+     * @return the original URL, or null if the code is not mapped
+     */
+    String get(String shortCode) {
+        long offset = findByCode(shortCode);
+        return offset < 0 ? null : read(offset).originalUrl;
+    }
+    
+    /**
+     * @return the code the URL is mapped to, or null if none
+     */
+    String getShortCode(String originalUrl) {
+        long offset = byUrl.find(hash(originalUrl), candidate -> originalUrl.equals(read(candidate).originalUrl));
+        return offset < 0 ? null : read(offset).shortCode;
+    }
+    
+    private long findByCode(String shortCode) {
+        return byCode.find(hash(shortCode), candidate -> shortCode.equals(read(candidate).shortCode));
+    }
+    
+    /**
+     * Maps the code to the URL, replacing the code's previous mapping; the URL resolves to this
+     * code from now on, while a code it was mapped to before keeps redirecting
+     */
+    void put(String shortCode, String originalUrl) {
+        long previous = findByCode(shortCode);
+        if (previous >= 0 && originalUrl.equals(read(previous).originalUrl)) {
+            return;
+        }
+        // Checked before appending, so the log never holds a record the indexes could not take
+        if (previous < 0 && size >= maxMappings) {
+            throw new IllegalStateException(path + " is full at " + size + " mappings");
+        }
+        ByteBuffer record = encode(PUT, shortCode, originalUrl);
+        long offset = append(record);
+        index(new Record(shortCode, originalUrl, record.limit()), offset);
+        compactIfMostlyDead();
+    }
+    
+    /**
+     * @return the URL the code was mapped to, or null if it was not mapped
+     */
+    String remove(String shortCode) {
+        long offset = findByCode(shortCode);
+        if (offset < 0) {
+            return null;
+        }
+        String originalUrl = read(offset).originalUrl;
+        append(encode(REMOVE, shortCode, ""));
+        unindex(shortCode);
+        compactIfMostlyDead();
+        return originalUrl;
+    }
+    
+    private void index(Record record, long offset) {
+        String originalUrl = record.originalUrl;
+        long codeHash = hash(record.shortCode);
+        long previous = findByCode(record.shortCode);
+        if (previous >= 0) {
+            Record replaced = read(previous);
+            byCode.remove(codeHash, previous);
+            byUrl.remove(hash(replaced.originalUrl), previous);
+            liveBytes -= replaced.length;
+            size--;
+        }
+        long urlHash = hash(originalUrl);
+        long mapped = byUrl.find(urlHash, candidate -> originalUrl.equals(read(candidate).originalUrl));
+        if (mapped >= 0) {
+            byUrl.remove(urlHash, mapped);
+        }
+        byCode.insert(codeHash, offset);
+        byUrl.insert(urlHash, offset);
+        liveBytes += record.length;
+        size++;
+    }
+    
+    private void unindex(String shortCode) {
+        long offset = findByCode(shortCode);
+        if (offset >= 0) {
+            Record removed = read(offset);
+            byCode.remove(hash(shortCode), offset);
+            byUrl.remove(hash(removed.originalUrl), offset);
+            liveBytes -= removed.length;
+            size--;
+        }
+    }
+    
+    private void compactIfMostlyDead() {
+        long deadBytes = end - HEADER_BYTES - liveBytes;
+        if (deadBytes >= MIN_COMPACTION_BYTES && deadBytes > liveBytes) {
+            try {
+                compact();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to compact " + path, e);
+            }
+        }
+    }
+    
+    /**
+     * Rewrites the log with only the live records and rebuilds the indexes from it
+     * A crash leaves either the old or the new log, and both hold every live mapping.
+     */
+    void compact() throws IOException {
+        Path next = sibling(".compact");
+        try (FileChannel file = FileChannel.open(next, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(file), 1 << 16))) {
+            out.writeLong(MAGIC);
+            forEach((shortCode, originalUrl) -> {
+                try {
+                    out.write(encode(PUT, shortCode, originalUrl).array());
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to write " + next, e);
+                }
+            });
+            out.flush();
+            file.force(true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(next, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        FileChannel previous = channel;
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        previous.close();
+        byCode.clear();
+        byUrl.clear();
+        liveBytes = 0;
+        size = 0;
+        end = scan(channel.size(), (offset, type, record) -> index(record, offset));
+        compactions++;
+    }
+    
+    /**
+     * Visits the live mappings in log order with a sequential read of the log
+     */
+    void forEach(BiConsumer<String, String> action) {
+        try {
+            scan(end, (offset, type, record) -> {
+                if (type == PUT && findByCode(record.shortCode) == offset) {
+                    action.accept(record.shortCode, record.originalUrl);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + path, e);
+        }
+    }
+    
+    private interface RecordVisitor {
+        void visit(long offset, byte type, Record record) throws IOException;
+    }
+    
+    /**
+     * @return the offset after the last complete record below {@code limit}
+     */
+    private long scan(long limit, RecordVisitor visitor) throws IOException {
+        long offset = HEADER_BYTES;
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            in.skipNBytes(HEADER_BYTES);
+            while (offset + RECORD_HEADER_BYTES <= limit) {
+                byte type = in.readByte();
+                int codeLength = in.readUnsignedShort();
+                int urlLength = in.readInt();
+                if ((type != PUT && type != REMOVE) || urlLength < 0
+                        || offset + RECORD_HEADER_BYTES + codeLength + urlLength > limit) {
+                    break;
+                }
+                String shortCode = new String(in.readNBytes(codeLength), StandardCharsets.UTF_8);
+                String originalUrl = new String(in.readNBytes(urlLength), StandardCharsets.UTF_8);
+                int length = RECORD_HEADER_BYTES + codeLength + urlLength;
+                visitor.visit(offset, type, new Record(shortCode, originalUrl, length));
+                offset += length;
+            }
+        } catch (EOFException e) {
+            // Torn tail: everything up to offset is intact
+        }
+        return offset;
+    }
+    
+    private static ByteBuffer encode(byte type, String shortCode, String originalUrl) {
+        byte[] code = shortCode.getBytes(StandardCharsets.UTF_8);
+        byte[] url = originalUrl.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + code.length + url.length);
+        return record.put(type).putShort((short) code.length).putInt(url.length).put(code).put(url).flip();
+    }
+    
+    private long append(ByteBuffer record) {
+        long offset = end;
+        try {
+            writeFully(record, offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to " + path, e);
+        }
+        end += record.limit();
+        return offset;
+    }
+    
+    private Record read(long offset) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_AHEAD_BYTES);
+            readFully(buffer, offset);
+            int codeLength = buffer.getShort(1) & 0xFFFF;
+            int urlLength = buffer.getInt(3);
+            int length = RECORD_HEADER_BYTES + codeLength + urlLength;
+            if (length > buffer.capacity()) {
+                buffer = ByteBuffer.allocate(length);
+                readFully(buffer, offset);
+            }
+            byte[] bytes = buffer.array();
+            return new Record(new String(bytes, RECORD_HEADER_BYTES, codeLength, StandardCharsets.UTF_8),
+                    new String(bytes, RECORD_HEADER_BYTES + codeLength, urlLength, StandardCharsets.UTF_8), length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + path, e);
+        }
+    }
+    
+    // Stops early at the end of the file, which only the read-ahead of the last record reaches
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return;
+            }
+        }
+    }
+    
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+    
+    private static long hash(String key) {
+        return Murmur3.hash64(key, 0);
+    }
+    
+    /**
+     * @return number of live mappings
+     */
+    long size() {
+        return size;
+    }
+    
+    /**
+     * @return true if new codes are rejected; replacing or removing mappings still works
+     */
+    boolean isFull() {
+        return size >= maxMappings;
+    }
+    
+    /**
+     * @return bytes on disk: the log, including superseded records, plus both indexes
+     */
+    long diskBytes() {
+        return end + byCode.fileBytes() + byUrl.fileBytes();
+    }
+    
+    /**
+     * @return bytes of the log taken by superseded and removed records, reclaimed by compaction
+     */
+    long deadBytes() {
+        return end - HEADER_BYTES - liveBytes;
+    }
+    
+    /**
+     * @return number of times the log has been compacted since it was opened
+     */
+    long compactions() {
+        return compactions;
+    }
+    
+    /**
+     * Forces the log to disk; the indexes are rebuilt from it on open
+     */
+    void force() throws IOException {
+        channel.force(false);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.force(true);
+        channel.close();
+    }
+    
+    /**
+     * Memory-mapped linear-probing table of (hash, record offset + 1) slots; 0 marks an empty slot
+     */
+    static final class HashIndex {
+        
+        static final int SLOT_BYTES = 16;
+        private static final int INITIAL_SLOTS = 1 << 12;
+        // The largest power of two whose table fits one mapping, which addresses below 2 GiB
+        static final int MAX_SLOTS = 1 << 26;
+        // Grown at three quarters full, so the largest table holds this many entries
+        static final long MAX_ENTRIES = MAX_SLOTS / 4 * 3L;
+        
+        private final Path path;
+        private MappedByteBuffer slots;
+        private int mask;
+        private int used;
+        
+        HashIndex(Path path) throws IOException {
+            this.path = path;
+            this.slots = map(path, INITIAL_SLOTS);
+            this.mask = INITIAL_SLOTS - 1;
+        }
+        
+        // Created empty: the index is rebuilt from the log on every open
+        private static MappedByteBuffer map(Path path, int capacity) throws IOException {
+            try (FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                return file.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * SLOT_BYTES);
+            }
+        }
+        
+        /**
+         * @return the offset of the first record with this hash accepted by {@code matches}, or -1
+         */
+        long find(long hash, LongPredicate matches) {
+            MappedByteBuffer current = slots;
+            int currentMask = mask;
+            int index = (int) hash & currentMask;
+            while (true) {
+                long ref = current.getLong(index * SLOT_BYTES + 8);
+                if (ref == 0) {
+                    return -1;
+                }
+                if (current.getLong(index * SLOT_BYTES) == hash && matches.test(ref - 1)) {
+                    return ref - 1;
+                }
+                index = (index + 1) & currentMask;
+            }
+        }
+        
+        void insert(long hash, long offset) {
+            if ((used + 1) * 4L > (mask + 1) * 3L) {
+                grow();
+            }
+            put(slots, mask, hash, offset + 1);
+            used++;
+        }
+        
+        private static void put(MappedByteBuffer table, int tableMask, long hash, long ref) {
+            int index = (int) hash & tableMask;
+            while (table.getLong(index * SLOT_BYTES + 8) != 0) {
+                index = (index + 1) & tableMask;
+            }
+            table.putLong(index * SLOT_BYTES, hash);
+            table.putLong(index * SLOT_BYTES + 8, ref);
+        }
+        
+        // Rehashes into a new file; the old mapping is released once unreachable
+        private void grow() {
+            int capacity = (mask + 1) * 2;
+            if (capacity > MAX_SLOTS) {
+                throw new IllegalStateException("Index " + path + " is full at " + used + " entries");
+            }
+            MappedByteBuffer table = replace(capacity);
+            for (int i = 0; i <= mask; i++) {
+                long ref = slots.getLong(i * SLOT_BYTES + 8);
+                if (ref != 0) {
+                    put(table, capacity - 1, slots.getLong(i * SLOT_BYTES), ref);
+                }
+            }
+            slots = table;
+            mask = capacity - 1;
+        }
+        
+        /**
+         * Empties the index, back to its initial size
+         */
+        void clear() {
+            slots = replace(INITIAL_SLOTS);
+            mask = INITIAL_SLOTS - 1;
+            used = 0;
+        }
+        
+        // Maps a new empty table in a file that replaces the index's own
+        private MappedByteBuffer replace(int capacity) {
+            try {
+                Path next = path.resolveSibling(path.getFileName() + ".tmp");
+                MappedByteBuffer table = map(next, capacity);
+                Files.move(next, path, StandardCopyOption.REPLACE_EXISTING);
+                return table;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map index " + path, e);
+            }
+        }
+        
+        // Backward-shift deletion keeps probe chains intact
+        void remove(long hash, long offset) {
+            int index = (int) hash & mask;
+            while (true) {
+                long ref = slots.getLong(index * SLOT_BYTES + 8);
+                if (ref == 0) {
+                    return;
+                }
+                if (ref == offset + 1) {
+                    break;
+                }
+                index = (index + 1) & mask;
+            }
+            int hole = index;
+            int next = (hole + 1) & mask;
+            while (true) {
+                long ref = slots.getLong(next * SLOT_BYTES + 8);
+                if (ref == 0) {
+                    break;
+                }
+                long slotHash = slots.getLong(next * SLOT_BYTES);
+                int home = (int) slotHash & mask;
+                // Move the entry back if the hole lies on its probe path (home..next, cyclically)
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    slots.putLong(hole * SLOT_BYTES, slotHash);
+                    slots.putLong(hole * SLOT_BYTES + 8, ref);
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            slots.putLong(hole * SLOT_BYTES, 0);
+            slots.putLong(hole * SLOT_BYTES + 8, 0);
+            used--;
+        }
+        
+        long fileBytes() {
+            return (long) (mask + 1) * SLOT_BYTES;
+        }
+    }
+}
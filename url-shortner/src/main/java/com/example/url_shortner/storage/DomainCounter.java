@@ -0,0 +1,38 @@
+package com.example.url_shortner.storage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-domain shorten counts with an incrementally maintained top-K
+ * Selected with {@code app.metrics.domains.mode}: exact ({@link ExactDomainCounter}, default)
+ * or space-saving ({@link SpaceSavingDomainCounter}, bounded memory, approximate counts).
+ */
+public interface DomainCounter {
+    
+    void increment(String domain);
+    
+    void add(String domain, long delta);
+    
+    /**
+     * Subtracts one from a counted domain, for a removed link; domains not counted are left alone
+     */
+    void decrement(String domain);
+    
+    /**
+     * @return the domain's count (an upper-bound estimate in approximate mode), or 0 if not counted
+     */
+    long get(String domain);
+    
+    /**
+     * @return a point-in-time copy of all counts held
+     */
+    Map<String, Long> snapshot();
+    
+    /**
+     * Returns the n highest-counted domains without touching the rest of the counters
+     * @param n the number of domains to return
+     * @return domain and count pairs sorted by count (descending)
+     */
+    List<Map.Entry<String, Long>> top(int n);
+}
@@ -0,0 +1,19 @@
+package com.example.url_shortner.storage;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Striped counter for one domain, tagged with whether {@link TopDomainTracker} currently holds it
+ */
+final class DomainTally extends LongAdder {
+    
+    final String domain;
+    // Over-estimation carried over from an evicted counter (Space-Saving); 0 for exact counts
+    final long error;
+    volatile boolean tracked;
+    
+    DomainTally(String domain, long error) {
+        this.domain = domain;
+        this.error = error;
+    }
+}
@@ -0,0 +1,383 @@
+package com.example.url_shortner.storage;
+
+import com.example.url_shortner.util.UrlUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Durable decorator for any {@link UrlStore} engine ({@code app.storage.wal.enabled=true})
+ * Every new mapping is appended to a {@link WriteAheadLog} before the call returns
+ * (subject to the log's fsync policy). On construction the log is replayed into the
+ * wrapped engine, and domain counts are rebuilt from the replayed URLs. Records the engine
+ * already holds (e.g. from a snapshot) are skipped, so replay is idempotent. Removed codes and
+ * domain decrements are logged too and re-applied in order. Decrements are not idempotent, so a
+ * checkpoint excludes them while it captures the engine's counts, and an engine that recounts its
+ * domains on open only gets the decrements matching removals the replay itself applied.
+ *
+ * A code's records are written while holding a lock striped by code, right after the engine
+ * applied the change, so the log orders them exactly as the engine did: a removal racing with
+ * the code being created again can never be replayed after it. A newly reserved code is visible
+ * in the engine before its record is durable; callers that find it meanwhile wait until it is,
+ * so no caller is handed a code that a crash could lose. If the record cannot be written, the
+ * reservation is undone and the error propagates.
+ *
+ * Engines that persist their own state (snapshot, tiered) are checkpointed every
+ * {@code app.storage.wal.checkpoint-interval-seconds}, after which the records they cover are
+ * dropped from the head of the log, which bounds its size and the replay on startup.
+ */
+public class DurableUrlStore implements UrlStore, Closeable {
+    
+    private static final Logger log = LoggerFactory.getLogger(DurableUrlStore.class);
+    
+    private static final int STRIPES = 256;
+    
+    private final UrlStore delegate;
+    private final WriteAheadLog writeAheadLog;
+    private final Object[] stripes = new Object[STRIPES];
+    // URLs whose new code is visible in the engine but may not be durable yet
+    private final ConcurrentMap<String, CountDownLatch> pending = new ConcurrentHashMap<>();
+    // Decrements share the read lock; a checkpoint takes the write lock, so each one is either
+    // in the engine's checkpointed counts or logged after the position the log is trimmed to
+    private final ReadWriteLock decrementLock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService checkpointer;
+    private volatile String checkpointFailure;
+    
+    public DurableUrlStore(UrlStore delegate, WriteAheadLog writeAheadLog) throws IOException {
+        this(delegate, writeAheadLog, 0);
+    }
+    
+    /**
+     * Replays the log into the engine
+     * @param delegate the engine
+     * @param writeAheadLog the log, not yet replayed
+     * @param checkpointIntervalSeconds how often to checkpoint the engine and drop the records it
+     *                                  covers from the log (0 disables)
+     */
+    public DurableUrlStore(UrlStore delegate, WriteAheadLog writeAheadLog, long checkpointIntervalSeconds)
+            throws IOException {
+        this.delegate = delegate;
+        this.writeAheadLog = writeAheadLog;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        long started = System.nanoTime();
+        // Per domain, removals that took a replayed mapping out of the engine. An engine that
+        // recounts its domains on open already reflects every other removal's decrement.
+        Map<String, Integer> replayedRemovals = delegate.recountsDomainsOnOpen() ? new HashMap<>() : null;
+        long records = writeAheadLog.replay((type, shortCode, originalUrl) -> {
+            if (type == WriteAheadLog.PUT && !originalUrl.equals(delegate.getOriginalUrl(shortCode))) {
+                delegate.storeUrl(shortCode, originalUrl);
+                delegate.incrementDomainCount(UrlUtils.extractDomain(originalUrl));
+            } else if (type == WriteAheadLog.REMOVE) {
+                String removed = delegate.removeUrl(shortCode);
+                if (removed != null && replayedRemovals != null) {
+                    replayedRemovals.merge(UrlUtils.extractDomain(removed), 1, Integer::sum);
+                }
+            } else if (type == WriteAheadLog.DOMAIN_DECREMENT) {
+                if (replayedRemovals == null || consume(replayedRemovals, shortCode)) {
+                    delegate.decrementDomainCount(shortCode);
+                }
+            }
+        });
+        log.info("Replayed {} write-ahead log records in {} ms", records, (System.nanoTime() - started) / 1_000_000);
+        if (checkpointIntervalSeconds > 0) {
+            checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "wal-checkpoint");
+                thread.setDaemon(true);
+                return thread;
+            });
+            checkpointer.scheduleWithFixedDelay(this::checkpointQuietly,
+                    checkpointIntervalSeconds, checkpointIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            checkpointer = null;
+        }
+    }
+    
+    private static boolean consume(Map<String, Integer> counts, String key) {
+        Integer count = counts.get(key);
+        if (count == null) {
+            return false;
+        }
+        if (count == 1) {
+            counts.remove(key);
+        } else {
+            counts.put(key, count - 1);
+        }
+        return true;
+    }
+    
+    private Object stripe(String shortCode) {
+        int hash = shortCode.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+    
+    @Override
+    public String getOriginalUrl(String shortCode) {
+        return delegate.getOriginalUrl(shortCode);
+    }
+    
+    @Override
+    public String getShortCode(String originalUrl) {
+        return delegate.getShortCode(originalUrl);
+    }
+    
+    @Override
+    public void storeUrl(String shortCode, String originalUrl) {
+        CountDownLatch durable = claim(originalUrl);
+        try {
+            long position;
+            synchronized (stripe(shortCode)) {
+                delegate.storeUrl(shortCode, originalUrl);
+                position = writeAheadLog.write(WriteAheadLog.PUT, shortCode, originalUrl);
+            }
+            writeAheadLog.await(position);
+        } finally {
+            release(originalUrl, durable);
+        }
+    }
+    
+    /**
+     * Only newly created mappings are logged. The existing-URL path stays a lookup, plus a wait
+     * in the rare case that the code was created a moment ago and is not durable yet.
+     */
+    @Override
+    public ShortCodeReservation reserveShortCode(String originalUrl, IntFunction<String> candidates) {
+        String existing = delegate.getShortCode(originalUrl);
+        while (existing != null) {
+            // Claimed before the code became visible, so a creator still writing is always seen here
+            CountDownLatch creating = pending.get(originalUrl);
+            if (creating == null) {
+                return ShortCodeReservation.existing(existing);
+            }
+            await(creating);
+            existing = delegate.getShortCode(originalUrl);
+        }
+        CountDownLatch durable = claim(originalUrl);
+        try {
+            // With the claim held, an existing code found now was made durable by its creator
+            ShortCodeReservation reservation = delegate.reserveShortCode(originalUrl, candidates);
+            if (reservation.isCreated()) {
+                logCreated(reservation.getShortCode(), originalUrl);
+            }
+            return reservation;
+        } finally {
+            release(originalUrl, durable);
+        }
+    }
+    
+    private void logCreated(String shortCode, String originalUrl) {
+        long position;
+        synchronized (stripe(shortCode)) {
+            if (!originalUrl.equals(delegate.getOriginalUrl(shortCode))) {
+                // Removed again before we got here; that removal is already logged
+                return;
+            }
+            try {
+                position = writeAheadLog.write(WriteAheadLog.PUT, shortCode, originalUrl);
+            } catch (RuntimeException e) {
+                delegate.removeUrl(shortCode);
+                throw e;
+            }
+        }
+        try {
+            writeAheadLog.await(position);
+        } catch (RuntimeException e) {
+            synchronized (stripe(shortCode)) {
+                if (originalUrl.equals(delegate.getOriginalUrl(shortCode))) {
+                    delegate.removeUrl(shortCode);
+                    try {
+                        writeAheadLog.write(WriteAheadLog.REMOVE, shortCode, "");
+                    } catch (RuntimeException suppressed) {
+                        e.addSuppressed(suppressed);
+                    }
+                }
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Registers the URL as being written; waits while another thread holds it
+     */
+    private CountDownLatch claim(String originalUrl) {
+        CountDownLatch durable = new CountDownLatch(1);
+        while (true) {
+            CountDownLatch creating = pending.putIfAbsent(originalUrl, durable);
+            if (creating == null) {
+                return durable;
+            }
+            await(creating);
+        }
+    }
+    
+    private void release(String originalUrl, CountDownLatch durable) {
+        pending.remove(originalUrl, durable);
+        durable.countDown();
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a write-ahead log record", e);
+        }
+    }
+    
+    /**
+     * The removal is logged under the code's stripe, so a concurrent re-creation of the code is
+     * logged after it; if the record cannot be written the mapping is put back
+     */
+    @Override
+    public String removeUrl(String shortCode) {
+        String originalUrl;
+        long position;
+        synchronized (stripe(shortCode)) {
+            originalUrl = delegate.removeUrl(shortCode);
+            if (originalUrl == null) {
+                return null;
+            }
+            try {
+                position = writeAheadLog.write(WriteAheadLog.REMOVE, shortCode, "");
+            } catch (RuntimeException e) {
+                delegate.storeUrl(shortCode, originalUrl);
+                throw e;
+            }
+        }
+        writeAheadLog.await(position);
+        return originalUrl;
+    }
+    
+    @Override
+    public void incrementDomainCount(String domain) {
+        delegate.incrementDomainCount(domain);
+    }
+    
+    /**
+     * Logged, since replayed mappings re-count their domains
+     */
+    @Override
+    public void decrementDomainCount(String domain) {
+        decrementLock.readLock().lock();
+        try {
+            delegate.decrementDomainCount(domain);
+            writeAheadLog.append(WriteAheadLog.DOMAIN_DECREMENT, domain, "");
+        } finally {
+            decrementLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public Map<String, Long> getDomainCounts() {
+        return delegate.getDomainCounts();
+    }
+
+    @Override
+    public List<Map.Entry<String, Long>> getTopDomains(int n) {
+        return delegate.getTopDomains(n);
+    }
+    
+    @Override
+    public void forEach(BiConsumer<String, String> action) {
+        delegate.forEach(action);
+    }
+    
+    @Override
+    public long size() {
+        return delegate.size();
+    }
+    
+    @Override
+    public long estimatedMemoryBytes() {
+        return delegate.estimatedMemoryBytes();
+    }
+    
+    /**
+     * Has the engine persist its state and drops the log records it now covers
+     * Every record is written after the engine applied its change, so all records before the
+     * position read here are part of the engine's checkpoint. Records after it are replayed on
+     * top of the checkpoint, which skips mappings it already holds. Domain decrements wait until
+     * the engine has captured its counts, so none is both in them and replayed.
+     * @return true if the engine persisted its state and the log was trimmed
+     */
+    @Override
+    public synchronized boolean checkpoint() throws IOException {
+        long position;
+        decrementLock.writeLock().lock();
+        try {
+            position = writeAheadLog.position();
+            if (!delegate.checkpoint()) {
+                return false;
+            }
+        } finally {
+            decrementLock.writeLock().unlock();
+        }
+        long before = writeAheadLog.size();
+        writeAheadLog.discardBefore(position);
+        checkpointFailure = null;
+        log.info("Checkpointed storage, write-ahead log trimmed from {} to {} bytes", before, writeAheadLog.size());
+        return true;
+    }
+    
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            checkpointFailure = "Checkpoint failed: " + e.getMessage();
+            log.error("Background checkpoint of the storage engine failed", e);
+        }
+    }
+    
+    @Override
+    public boolean isPersistent() {
+        return true;
+    }
+    
+    @Override
+    public String getHealthProblem() {
+        String failure = writeAheadLog.getFailure();
+        if (failure != null) {
+            return "Write-ahead log: " + failure;
+        }
+        return checkpointFailure != null ? checkpointFailure : delegate.getHealthProblem();
+    }
+    
+    /**
+     * Checkpoints once more, so the next start replays as little as possible
+     */
+    @Override
+    public void close() throws IOException {
+        if (checkpointer != null) {
+            checkpointer.shutdown();
+            try {
+                checkpointer.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            log.error("Final checkpoint of the storage engine failed", e);
+        }
+        writeAheadLog.close();
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+}
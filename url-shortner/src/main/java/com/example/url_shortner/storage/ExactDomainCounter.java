@@ -0,0 +1,86 @@
+package com.example.url_shortner.storage;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Exact 64-bit counters for every domain ({@code app.metrics.domains.mode=exact}, the default)
+ * Each domain gets a striped {@link java.util.concurrent.atomic.LongAdder}: after the first
+ * increment of a domain, counting is a lock-free map read plus a CAS on a per-thread cell, with
+ * no boxing, so a few very popular domains do not become a hotspot. The top domains are kept
+ * in a {@link TopDomainTracker} as counts change.
+ */
+public class ExactDomainCounter implements DomainCounter {
+    
+    public static final int DEFAULT_TOP_CAPACITY = 100;
+    
+    private final ConcurrentMap<String, DomainTally> counters = new ConcurrentHashMap<>();
+    private final TopDomainTracker topDomains;
+    
+    public ExactDomainCounter() {
+        this(DEFAULT_TOP_CAPACITY);
+    }
+    
+    /**
+     * @param topCapacity largest n served from the incremental top-K; larger requests sort all counts
+     */
+    public ExactDomainCounter(int topCapacity) {
+        this.topDomains = new TopDomainTracker(topCapacity);
+    }
+    
+    @Override
+    public void increment(String domain) {
+        add(domain, 1);
+    }
+    
+    @Override
+    public void add(String domain, long delta) {
+        // get() first: computeIfAbsent would lock the bin even when the domain is present
+        DomainTally tally = counters.get(domain);
+        if (tally == null) {
+            tally = counters.computeIfAbsent(domain, d -> new DomainTally(d, 0));
+        }
+        tally.add(delta);
+        topDomains.offerIfAbove(tally);
+    }
+    
+    @Override
+    public void decrement(String domain) {
+        DomainTally tally = counters.get(domain);
+        if (tally != null && tally.sum() > 0) {
+            tally.decrement();
+            topDomains.decreased(tally);
+        }
+    }
+    
+    @Override
+    public long get(String domain) {
+        DomainTally tally = counters.get(domain);
+        return tally == null ? 0 : tally.sum();
+    }
+    
+    @Override
+    public Map<String, Long> snapshot() {
+        Map<String, Long> counts = new HashMap<>(counters.size() * 2);
+        counters.forEach((domain, tally) -> counts.put(domain, tally.sum()));
+        return counts;
+    }
+    
+    @Override
+    public List<Map.Entry<String, Long>> top(int n) {
+        if (n <= topDomains.capacity()) {
+            if (topDomains.isStale()) {
+                topDomains.rebuild(counters.values());
+            }
+            return topDomains.top(n);
+        }
+        return snapshot().entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(n)
+                .collect(Collectors.toList());
+    }
+}
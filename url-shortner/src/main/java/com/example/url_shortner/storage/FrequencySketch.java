@@ -0,0 +1,90 @@
+package com.example.url_shortner.storage;
+
+import com.example.url_shortner.util.Murmur3;
+
+/**
+ * Count-Min sketch of access frequencies with 4-bit counters, for {@link WTinyLfuCache} admission
+ *
+ * Admission only compares a candidate with a victim, and counts are halved periodically, so
+ * counters saturating at 15 lose nothing that matters; sixteen of them pack into a long, an
+ * eighth of the {@link com.example.url_shortner.analytics.CountMinSketch} footprint. Four rows
+ * of {@code width} counters share one table; a key increments one counter per row,
+ * conservatively, and its estimate is the smallest of them. Not thread-safe.
+ */
+final class FrequencySketch {
+    
+    private static final int DEPTH = 4;
+    static final int MAX_COUNT = 15;
+    // Every 4-bit counter but its top bit, to halve all sixteen with one shift
+    private static final long HALF_MASK = 0x7777_7777_7777_7777L;
+    
+    private final long[] table;
+    private final int width;
+    private final int mask;
+    
+    /**
+     * @param width counters per row, rounded up to a power of two of at least 16
+     */
+    FrequencySketch(int width) {
+        if (width < 1) {
+            throw new IllegalArgumentException("width must be positive");
+        }
+        this.width = Math.max(16, Integer.highestOneBit(width - 1) << 1);
+        this.mask = this.width - 1;
+        this.table = new long[DEPTH * this.width / 16];
+    }
+    
+    /**
+     * Adds one occurrence of the key, unless its estimate is already saturated
+     */
+    void increment(String key) {
+        long hash = Murmur3.hash64(key, 0);
+        int estimate = estimate(hash);
+        if (estimate >= MAX_COUNT) {
+            return;
+        }
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < DEPTH; i++) {
+            int counter = i * width + ((h1 + i * h2) & mask);
+            int shift = (counter & 15) << 2;
+            if ((int) (table[counter >>> 4] >>> shift & 0xF) == estimate) {
+                table[counter >>> 4] += 1L << shift;
+            }
+        }
+    }
+    
+    /**
+     * @return the key's estimated count, at most {@link #MAX_COUNT}
+     */
+    int estimate(String key) {
+        return estimate(Murmur3.hash64(key, 0));
+    }
+    
+    private int estimate(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int estimate = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            int counter = i * width + ((h1 + i * h2) & mask);
+            estimate = Math.min(estimate, (int) (table[counter >>> 4] >>> ((counter & 15) << 2) & 0xF));
+        }
+        return estimate;
+    }
+    
+    /**
+     * Halves every counter so old traffic fades out
+     */
+    void decay() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & HALF_MASK;
+        }
+    }
+    
+    /**
+     * @return bytes of the counter table
+     */
+    long memoryBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.url_shortner.storage;
+
+/**
+ * When the write-ahead log forces appended records to disk
+ */
+public enum FsyncPolicy {
+    
+    /**
+     * One fsync per record, issued before the write returns
+     */
+    ALWAYS,
+    
+    /**
+     * Group commit: writers wait until their record is durable, and all writers that
+     * arrive while an fsync is in flight share the next one
+     */
+    BATCHED,
+    
+    /**
+     * Writers return as soon as the record is written; a background thread fsyncs every
+     * N milliseconds, so up to N ms of acknowledged writes can be lost on power failure
+     */
+    INTERVAL;
+    
+    public static FsyncPolicy fromString(String value) {
+        return valueOf(value.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.url_shortner.storage;
+
+import com.example.url_shortner.exception.ShortCodeExhaustedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Decorator that times the storage operations on the request paths
+ * ({@code app.telemetry.enabled=true}, the default)
+ *
+ * Records the {@code urlshortener.storage.operation} timer by op (get, get-short-code, store,
+ * reserve, remove) and result, and counts failed operations in {@code urlshortener.storage.errors}.
+ * Meters are resolved once here, so an operation only pays two clock reads and a timer update.
+ * Consecutive failures are reported through {@link #getHealthProblem()} until an operation succeeds.
+ */
+public class InstrumentedUrlStore implements UrlStore, Closeable {
+    
+    private static final String OPERATION = "urlshortener.storage.operation";
+    
+    private final UrlStore delegate;
+    private final Timer getHit;
+    private final Timer getMiss;
+    private final Timer getShortCode;
+    private final Timer store;
+    private final Timer reserveCreated;
+    private final Timer reserveExisting;
+    private final Timer remove;
+    private final Counter errors;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile String lastFailure;
+    
+    /**
+     * @param delegate the store to time
+     * @param registry registry the meters are added to
+     */
+    public InstrumentedUrlStore(UrlStore delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.getHit = timer(registry, "get", "hit");
+        this.getMiss = timer(registry, "get", "miss");
+        this.getShortCode = timer(registry, "get-short-code", "any");
+        this.store = timer(registry, "store", "any");
+        this.reserveCreated = timer(registry, "reserve", "created");
+        this.reserveExisting = timer(registry, "reserve", "existing");
+        this.remove = timer(registry, "remove", "any");
+        this.errors = Counter.builder("urlshortener.storage.errors")
+                .description("Storage operations that threw")
+                .register(registry);
+    }
+    
+    private static Timer timer(MeterRegistry registry, String op, String result) {
+        return Timer.builder(OPERATION)
+                .description("Storage operation latency")
+                .tag("op", op)
+                .tag("result", result)
+                .register(registry);
+    }
+    
+    @Override
+    public String getOriginalUrl(String shortCode) {
+        long start = System.nanoTime();
+        try {
+            String originalUrl = delegate.getOriginalUrl(shortCode);
+            (originalUrl != null ? getHit : getMiss).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            succeeded();
+            return originalUrl;
+        } catch (RuntimeException e) {
+            failed(e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public String getShortCode(String originalUrl) {
+        long start = System.nanoTime();
+        try {
+            String shortCode = delegate.getShortCode(originalUrl);
+            getShortCode.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            succeeded();
+            return shortCode;
+        } catch (RuntimeException e) {
+            failed(e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public void storeUrl(String shortCode, String originalUrl) {
+        long start = System.nanoTime();
+        try {
+            delegate.storeUrl(shortCode, originalUrl);
+            store.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            succeeded();
+        } catch (RuntimeException e) {
+            failed(e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public ShortCodeReservation reserveShortCode(String originalUrl, IntFunction<String> candidates) {
+        long start = System.nanoTime();
+        try {
+            ShortCodeReservation reservation = delegate.reserveShortCode(originalUrl, candidates);
+            (reservation.isCreated() ? reserveCreated : reserveExisting)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            succeeded();
+            return reservation;
+        } catch (ShortCodeExhaustedException e) {
+            // The generator ran out of candidates; the engine itself worked
+            throw e;
+        } catch (RuntimeException e) {
+            failed(e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public String removeUrl(String shortCode) {
+        long start = System.nanoTime();
+        try {
+            String originalUrl = delegate.removeUrl(shortCode);
+            remove.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            succeeded();
+            return originalUrl;
+        } catch (RuntimeException e) {
+            failed(e);
+            throw e;
+        }
+    }
+    
+    private void succeeded() {
+        // Read first, so the common healthy case never writes the shared counter
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+    }
+    
+    private void failed(RuntimeException e) {
+        errors.increment();
+        lastFailure = e.getClass().getSimpleName() + ": " + e.getMessage();
+        consecutiveFailures.incrementAndGet();
+    }
+    
+    @Override
+    public void incrementDomainCount(String domain) {
+        delegate.incrementDomainCount(domain);
+    }
+    
+    @Override
+    public void decrementDomainCount(String domain) {
+        delegate.decrementDomainCount(domain);
+    }
+    
+    @Override
+    public Map<String, Long> getDomainCounts() {
+        return delegate.getDomainCounts();
+    }
+    
+    @Override
+    public List<Map.Entry<String, Long>> getTopDomains(int n) {
+        return delegate.getTopDomains(n);
+    }
+    
+    @Override
+    public void forEach(BiConsumer<String, String> action) {
+        delegate.forEach(action);
+    }
+    
+    @Override
+    public long size() {
+        return delegate.size();
+    }
+    
+    @Override
+    public long estimatedMemoryBytes() {
+        return delegate.estimatedMemoryBytes();
+    }
+    
+    @Override
+    public boolean recountsDomainsOnOpen() {
+        return delegate.recountsDomainsOnOpen();
+    }
+    
+    @Override
+    public boolean isPersistent() {
+        return delegate.isPersistent();
+    }
+    
+    @Override
+    public String getHealthProblem() {
+        int failures = consecutiveFailures.get();
+        if (failures > 0) {
+            return failures + " consecutive storage operation(s) failed, last: " + lastFailure;
+        }
+        return delegate.getHealthProblem();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+}
@@ -0,0 +1,534 @@
+package com.example.url_shortner.storage;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Immutable, memory-mapped snapshot of URL mappings
+ *
+ * Lookups are served straight from the mapped file, so opening a snapshot costs a few
+ * mmap calls regardless of how many mappings it holds. Layout (big-endian):
+ * <pre>
+ *   header      magic, version, mapping count, region offsets
+ *   data        records: short code length, code, int URL length, URL (UTF-8);
+ *               a record never crosses a 1 GiB mapping segment
+ *   code index  long record offset per mapping, sorted by code bytes (binary search)
+ *   url index   (long URL hash, long record offset) per mapping, sorted by hash
+ *   domains     int count, then short length, domain, long count per domain; unaligned and
+ *               free to cross segments, as it is read once through the file rather than the mapping
+ * </pre>
+ */
+public final class MappedSnapshot implements Closeable {
+    
+    private static final long MAGIC = 0x55524c534e415031L; // "URLSNAP1"
+    private static final int HEADER_BYTES = 64;
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_BYTES = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_BYTES - 1;
+    
+    private final Path path;
+    private final MappedByteBuffer[] segments;
+    private final long count;
+    private final long codeIndexOffset;
+    private final long urlIndexOffset;
+    private final Map<String, Long> domainCounts;
+    
+    private MappedSnapshot(Path path, MappedByteBuffer[] segments, long count, long codeIndexOffset,
+                           long urlIndexOffset, Map<String, Long> domainCounts) {
+        this.path = path;
+        this.segments = segments;
+        this.count = count;
+        this.codeIndexOffset = codeIndexOffset;
+        this.urlIndexOffset = urlIndexOffset;
+        this.domainCounts = domainCounts;
+    }
+    
+    /**
+     * An empty snapshot, used before the first one has been written
+     */
+    public static MappedSnapshot empty() {
+        return new MappedSnapshot(null, new MappedByteBuffer[0], 0, 0, 0, Map.of());
+    }
+    
+    /**
+     * Maps an existing snapshot file
+     * @param path snapshot file
+     * @return the opened snapshot
+     */
+    public static MappedSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Truncated snapshot: " + path);
+            }
+            MappedByteBuffer[] segments = map(channel, size);
+            ByteBuffer header = segments[0];
+            if (header.getLong(0) != MAGIC || header.getInt(8) != 1) {
+                throw new IOException("Not a URL snapshot: " + path);
+            }
+            long count = header.getLong(16);
+            long codeIndexOffset = header.getLong(24);
+            long urlIndexOffset = header.getLong(32);
+            long domainOffset = header.getLong(40);
+            if (header.getLong(48) != size) {
+                throw new IOException("Incomplete snapshot: " + path);
+            }
+            Map<String, Long> domainCounts = readDomainCounts(channel.position(domainOffset));
+            return new MappedSnapshot(path, segments, count, codeIndexOffset, urlIndexOffset, domainCounts);
+        }
+    }
+    
+    /**
+     * Writes a snapshot of the given mappings and domain counts, atomically replacing {@code path}
+     * Records are streamed to the file as they are fed, keeping only their offsets and URL hashes
+     * (16 bytes per mapping) on the heap. The indexes are then sorted by reading the codes back
+     * through a read-only mapping of the data region, so no copy of the data set is ever held.
+     * @param path destination file
+     * @param mappings feeds every (shortCode, originalUrl) pair to the given callback, e.g. {@code store::forEach};
+     *                 codes must be unique
+     * @param domainCounts domain counts to persist alongside the mappings
+     */
+    public static void write(Path path, Consumer<BiConsumer<String, String>> mappings, Map<String, Long> domainCounts)
+            throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             SnapshotOutput out = new SnapshotOutput(Channels.newOutputStream(channel))) {
+            out.skip(HEADER_BYTES);
+            RecordIndex records = new RecordIndex();
+            try {
+                mappings.accept((shortCode, originalUrl) -> {
+                    try {
+                        byte[] code = shortCode.getBytes(StandardCharsets.UTF_8);
+                        byte[] url = originalUrl.getBytes(StandardCharsets.UTF_8);
+                        int recordBytes = 2 + code.length + 4 + url.length;
+                        if ((out.position & SEGMENT_MASK) + recordBytes > SEGMENT_BYTES) {
+                            out.skip(SEGMENT_BYTES - (out.position & SEGMENT_MASK));
+                        }
+                        records.add(out.position, hash(url));
+                        out.writeShort(code.length);
+                        out.write(code);
+                        out.writeInt(url.length);
+                        out.write(url);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+            
+            // Second pass: sort record offsets by code, reading the codes back from the file
+            int count = records.count;
+            long[] offsets = records.offsets;
+            long[] hashes = records.hashes;
+            MappedByteBuffer[] data = map(channel, out.position);
+            sort(count, (i, j) -> compareCodes(data, offsets[i], offsets[j]), (i, j) -> {
+                swap(offsets, i, j);
+                swap(hashes, i, j);
+            });
+            out.align(16);
+            long codeIndexOffset = out.position;
+            for (int i = 0; i < count; i++) {
+                out.writeLong(offsets[i]);
+            }
+            out.align(16);
+            long urlIndexOffset = out.position;
+            sort(count, (i, j) -> Long.compare(hashes[i], hashes[j]), (i, j) -> {
+                swap(offsets, i, j);
+                swap(hashes, i, j);
+            });
+            for (int i = 0; i < count; i++) {
+                out.writeLong(hashes[i]);
+                out.writeLong(offsets[i]);
+            }
+            long domainOffset = out.position;
+            out.writeInt(domainCounts.size());
+            for (Map.Entry<String, Long> domain : domainCounts.entrySet()) {
+                byte[] name = domain.getKey().getBytes(StandardCharsets.UTF_8);
+                if (name.length > 0xFFFF) {
+                    throw new IllegalArgumentException("Domain name longer than 65535 bytes");
+                }
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeLong(domain.getValue());
+            }
+            out.flush();
+            header.putLong(MAGIC).putInt(1).putInt(0)
+                    .putLong(count).putLong(codeIndexOffset).putLong(urlIndexOffset)
+                    .putLong(domainOffset).putLong(out.position)
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static MappedByteBuffer[] map(FileChannel channel, long size) throws IOException {
+        int segmentCount = (int) ((size + SEGMENT_BYTES - 1) >>> SEGMENT_SHIFT);
+        MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long start = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_BYTES, size - start));
+        }
+        return segments;
+    }
+    
+    /**
+     * Retrieves the original URL for a short code by binary search over the code index
+     * @param shortCode the short code
+     * @return the original URL, or null if not found
+     */
+    public String getOriginalUrl(String shortCode) {
+        long record = findRecord(shortCode.getBytes(StandardCharsets.UTF_8));
+        return record < 0 ? null : readUrl(record);
+    }
+    
+    /**
+     * Retrieves the short code for a URL via the hash-sorted URL index
+     * @param originalUrl the original URL
+     * @return the short code, or null if not found
+     */
+    public String getShortCode(String originalUrl) {
+        byte[] url = originalUrl.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(url);
+        long low = 0;
+        long high = count;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (getLong(urlIndexOffset + mid * 16) < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (long i = low; i < count && getLong(urlIndexOffset + i * 16) == hash; i++) {
+            long record = getLong(urlIndexOffset + i * 16 + 8);
+            if (urlEquals(record, url)) {
+                return readCode(record);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Visits every mapping in code order
+     */
+    public void forEach(BiConsumer<String, String> action) {
+        for (long i = 0; i < count; i++) {
+            long record = getLong(codeIndexOffset + i * 8);
+            action.accept(readCode(record), readUrl(record));
+        }
+    }
+    
+    public long size() {
+        return count;
+    }
+    
+    /**
+     * @return domain counts captured when the snapshot was written
+     */
+    public Map<String, Long> getDomainCounts() {
+        return domainCounts;
+    }
+    
+    /**
+     * @return bytes mapped from the snapshot file
+     */
+    public long mappedBytes() {
+        long bytes = 0;
+        for (MappedByteBuffer segment : segments) {
+            bytes += segment.capacity();
+        }
+        return bytes;
+    }
+    
+    public Path getPath() {
+        return path;
+    }
+    
+    /**
+     * Mapped buffers are released by the garbage collector once unreachable
+     */
+    @Override
+    public void close() {
+    }
+    
+    private long findRecord(byte[] code) {
+        long low = 0;
+        long high = count - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            long record = getLong(codeIndexOffset + mid * 8);
+            int cmp = compareCode(record, code);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return record;
+            }
+        }
+        return -1;
+    }
+    
+    // Unsigned byte order, matching the code index
+    private static int compareCodes(MappedByteBuffer[] segments, long left, long right) {
+        ByteBuffer leftSegment = segments[(int) (left >>> SEGMENT_SHIFT)];
+        ByteBuffer rightSegment = segments[(int) (right >>> SEGMENT_SHIFT)];
+        int leftPosition = (int) (left & SEGMENT_MASK);
+        int rightPosition = (int) (right & SEGMENT_MASK);
+        int leftLength = Short.toUnsignedInt(leftSegment.getShort(leftPosition));
+        int rightLength = Short.toUnsignedInt(rightSegment.getShort(rightPosition));
+        int common = Math.min(leftLength, rightLength);
+        for (int i = 0; i < common; i++) {
+            int cmp = Byte.compareUnsigned(leftSegment.get(leftPosition + 2 + i), rightSegment.get(rightPosition + 2 + i));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(leftLength, rightLength);
+    }
+    
+    private int compareCode(long record, byte[] code) {
+        ByteBuffer segment = segments[(int) (record >>> SEGMENT_SHIFT)];
+        int position = (int) (record & SEGMENT_MASK);
+        int length = Short.toUnsignedInt(segment.getShort(position));
+        int common = Math.min(length, code.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Byte.compareUnsigned(segment.get(position + 2 + i), code[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, code.length);
+    }
+    
+    private boolean urlEquals(long record, byte[] url) {
+        ByteBuffer segment = segments[(int) (record >>> SEGMENT_SHIFT)];
+        int position = (int) (record & SEGMENT_MASK);
+        position += 2 + Short.toUnsignedInt(segment.getShort(position));
+        if (segment.getInt(position) != url.length) {
+            return false;
+        }
+        position += 4;
+        for (int i = 0; i < url.length; i++) {
+            if (segment.get(position + i) != url[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private String readCode(long record) {
+        ByteBuffer segment = segments[(int) (record >>> SEGMENT_SHIFT)];
+        int position = (int) (record & SEGMENT_MASK);
+        byte[] code = new byte[Short.toUnsignedInt(segment.getShort(position))];
+        segment.get(position + 2, code);
+        return new String(code, StandardCharsets.UTF_8);
+    }
+    
+    private String readUrl(long record) {
+        ByteBuffer segment = segments[(int) (record >>> SEGMENT_SHIFT)];
+        int position = (int) (record & SEGMENT_MASK);
+        position += 2 + Short.toUnsignedInt(segment.getShort(position));
+        byte[] url = new byte[segment.getInt(position)];
+        segment.get(position + 4, url);
+        return new String(url, StandardCharsets.UTF_8);
+    }
+    
+    // Streamed from the channel's position, so the section may span segments
+    private static Map<String, Long> readDomainCounts(FileChannel channel) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        int domains = in.readInt();
+        Map<String, Long> domainCounts = new HashMap<>();
+        for (int i = 0; i < domains; i++) {
+            byte[] name = new byte[in.readUnsignedShort()];
+            in.readFully(name);
+            domainCounts.put(new String(name, StandardCharsets.UTF_8), in.readLong());
+        }
+        return domainCounts;
+    }
+    
+    private long getLong(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getLong((int) (offset & SEGMENT_MASK));
+    }
+    
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes of a URL
+     */
+    static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+    
+    /**
+     * Offsets and URL hashes of the records written so far, in parallel growable arrays
+     */
+    private static final class RecordIndex {
+        long[] offsets = new long[1024];
+        long[] hashes = new long[1024];
+        int count;
+        
+        void add(long offset, long hash) {
+            if (count == offsets.length) {
+                if (count == Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Too many mappings for one snapshot");
+                }
+                int capacity = (int) Math.min(Integer.MAX_VALUE - 8, count * 2L);
+                offsets = Arrays.copyOf(offsets, capacity);
+                hashes = Arrays.copyOf(hashes, capacity);
+            }
+            offsets[count] = offset;
+            hashes[count] = hash;
+            count++;
+        }
+    }
+    
+    private interface IndexComparator {
+        int compare(int i, int j);
+    }
+    
+    private interface IndexSwapper {
+        void swap(int i, int j);
+    }
+    
+    /**
+     * In-place heapsort over positions 0..count-1, so parallel primitive arrays can be sorted
+     * together without boxing or extra memory
+     */
+    private static void sort(int count, IndexComparator comparator, IndexSwapper swapper) {
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(i, count, comparator, swapper);
+        }
+        for (int end = count - 1; end > 0; end--) {
+            swapper.swap(0, end);
+            siftDown(0, end, comparator, swapper);
+        }
+    }
+    
+    private static void siftDown(int root, int count, IndexComparator comparator, IndexSwapper swapper) {
+        while (true) {
+            int child = 2 * root + 1;
+            if (child >= count) {
+                return;
+            }
+            if (child + 1 < count && comparator.compare(child + 1, child) > 0) {
+                child++;
+            }
+            if (comparator.compare(root, child) >= 0) {
+                return;
+            }
+            swapper.swap(root, child);
+            root = child;
+        }
+    }
+    
+    private static void swap(long[] array, int i, int j) {
+        long value = array[i];
+        array[i] = array[j];
+        array[j] = value;
+    }
+    
+    /**
+     * Buffered big-endian writer that tracks the absolute file position
+     */
+    private static final class SnapshotOutput implements Closeable {
+        
+        private final OutputStream out;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private long position;
+        
+        SnapshotOutput(OutputStream out) {
+            this.out = out;
+        }
+        
+        void writeShort(int value) throws IOException {
+            ensure(2);
+            buffer.putShort((short) value);
+            position += 2;
+        }
+        
+        void writeInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+        
+        void writeLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+            position += 8;
+        }
+        
+        void write(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.capacity()) {
+                flush();
+                out.write(bytes);
+            } else {
+                ensure(bytes.length);
+                buffer.put(bytes);
+            }
+            position += bytes.length;
+        }
+        
+        void skip(long bytes) throws IOException {
+            for (long i = 0; i < bytes; i++) {
+                ensure(1);
+                buffer.put((byte) 0);
+            }
+            position += bytes;
+        }
+        
+        void align(int alignment) throws IOException {
+            long padding = (alignment - (position % alignment)) % alignment;
+            skip(padding);
+        }
+        
+        void flush() throws IOException {
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+            out.flush();
+        }
+        
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,641 @@
+package com.example.url_shortner.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Off-heap storage engine ({@code app.storage.engine=offheap})
+ *
+ * Mappings live in direct memory instead of String objects and map nodes:
+ * <ul>
+ *   <li>an append-only arena of records: byte code kind, the code (8-char base64url codes
+ *       packed into a 48-bit long, anything else as raw bytes), int URL length, UTF-8 URL</li>
+ *   <li>two open-addressing (linear probing) tables of 8-byte slots, one keyed by code and
+ *       one keyed by URL hash; each slot packs a 24-bit hash tag with a 40-bit arena offset</li>
+ * </ul>
+ * Codes that cannot be packed fall back to a small on-heap index. Reads are lock-free
+ * (optimistic {@link StampedLock} reads per table segment); writes are serialized by a single
+ * writer lock, which suits a redirect-heavy workload where shortens are comparatively rare.
+ */
+public class OffHeapUrlStore implements UrlStore {
+
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+    private static final byte[] DECODE = new byte[128];
+    private static final int PACKED_LENGTH = 8;
+    private static final byte PACKED_KIND = 0;
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length(); i++) {
+            DECODE[ALPHABET.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final Arena arena = new Arena();
+    private final Table byCode;
+    private final Table byUrl;
+    // Codes that are not 8 base64url characters (e.g. collision suffixes): code -> arena offset
+    private final Map<String, Long> unpackedCodes = new ConcurrentHashMap<>();
+    private final DomainCounter domainCounts;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile long size;
+
+    public OffHeapUrlStore() {
+        this(1 << 10);
+    }
+
+    /**
+     * @param initialSlotsPerSegment initial slots in each of the 64 segments per table (power of two)
+     */
+    public OffHeapUrlStore(int initialSlotsPerSegment) {
+        this(initialSlotsPerSegment, new ExactDomainCounter());
+    }
+
+    /**
+     * @param initialSlotsPerSegment initial slots in each of the 64 segments per table (power of two)
+     * @param domainCounts domain counter
+     */
+    public OffHeapUrlStore(int initialSlotsPerSegment, DomainCounter domainCounts) {
+        this.domainCounts = domainCounts;
+        this.byCode = new Table(initialSlotsPerSegment, ref -> codeHash(arena, ref));
+        this.byUrl = new Table(initialSlotsPerSegment, ref -> urlHash(arena, ref));
+    }
+
+    @Override
+    public String getOriginalUrl(String shortCode) {
+        long ref = findByCode(shortCode);
+        return ref < 0 ? null : arena.readUrl(ref);
+    }
+
+    @Override
+    public String getShortCode(String originalUrl) {
+        long ref = findByUrl(originalUrl.getBytes(StandardCharsets.UTF_8));
+        return ref < 0 ? null : arena.readCode(ref);
+    }
+
+    @Override
+    public void storeUrl(String shortCode, String originalUrl) {
+        byte[] url = originalUrl.getBytes(StandardCharsets.UTF_8);
+        writeLock.lock();
+        try {
+            long previous = findByCode(shortCode);
+            if (previous >= 0) {
+                if (arena.urlEquals(previous, url)) {
+                    return;
+                }
+                removeByCode(shortCode, previous);
+                byUrl.remove(urlHash(arena, previous), previous);
+                size--;
+            }
+            long mappedRef = findByUrl(url);
+            if (mappedRef >= 0) {
+                // The URL now resolves to the new code; its old code keeps redirecting
+                byUrl.remove(hashUrl(url), mappedRef);
+            }
+            insert(shortCode, url);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public ShortCodeReservation reserveShortCode(String originalUrl, IntFunction<String> candidates) {
+        byte[] url = originalUrl.getBytes(StandardCharsets.UTF_8);
+        long existing = findByUrl(url);
+        if (existing >= 0) {
+            return ShortCodeReservation.existing(arena.readCode(existing));
+        }
+        writeLock.lock();
+        try {
+            existing = findByUrl(url);
+            if (existing >= 0) {
+                return ShortCodeReservation.existing(arena.readCode(existing));
+            }
+            for (int attempt = 0; ; attempt++) {
+                String shortCode = candidates.apply(attempt);
+                if (findByCode(shortCode) < 0) {
+                    insert(shortCode, url);
+                    return ShortCodeReservation.created(shortCode, attempt + 1);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Unlinks the record from both tables; its arena bytes are not reclaimed, since the arena
+     * is append-only
+     */
+    @Override
+    public String removeUrl(String shortCode) {
+        writeLock.lock();
+        try {
+            long ref = findByCode(shortCode);
+            if (ref < 0) {
+                return null;
+            }
+            removeByCode(shortCode, ref);
+            byUrl.remove(urlHash(arena, ref), ref);
+            size--;
+            return arena.readUrl(ref);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void incrementDomainCount(String domain) {
+        domainCounts.increment(domain);
+    }
+
+    @Override
+    public void decrementDomainCount(String domain) {
+        domainCounts.decrement(domain);
+    }
+
+    @Override
+    public Map<String, Long> getDomainCounts() {
+        return domainCounts.snapshot();
+    }
+
+    @Override
+    public List<Map.Entry<String, Long>> getTopDomains(int n) {
+        return domainCounts.top(n);
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, String> action) {
+        byCode.forEachRef(ref -> action.accept(arena.readCode(ref), arena.readUrl(ref)));
+        unpackedCodes.forEach((shortCode, ref) -> action.accept(shortCode, arena.readUrl(ref)));
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Direct memory only; the few codes that do not pack into a long live on the heap
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        return offHeapBytes();
+    }
+    
+    /**
+     * @return direct memory reserved by the arena and both tables, in bytes
+     */
+    public long offHeapBytes() {
+        return arena.reservedBytes() + byCode.reservedBytes() + byUrl.reservedBytes();
+    }
+
+    /**
+     * @return direct memory actually in use (arena records plus table slots) per mapping
+     */
+    public double bytesPerMapping() {
+        long mappings = size;
+        return mappings == 0 ? 0 : (double) (arena.usedBytes() + byCode.reservedBytes() + byUrl.reservedBytes()) / mappings;
+    }
+
+    // Caller holds writeLock
+    private void insert(String shortCode, byte[] url) {
+        long packed = pack(shortCode);
+        long ref = arena.append(shortCode, packed, url);
+        if (packed >= 0) {
+            byCode.insert(mix(packed), ref);
+        } else {
+            unpackedCodes.put(shortCode, ref);
+        }
+        byUrl.insert(hashUrl(url), ref);
+        size++;
+    }
+
+    // Caller holds writeLock
+    private void removeByCode(String shortCode, long ref) {
+        long packed = pack(shortCode);
+        if (packed >= 0) {
+            byCode.remove(mix(packed), ref);
+        } else {
+            unpackedCodes.remove(shortCode, ref);
+        }
+    }
+
+    private long findByCode(String shortCode) {
+        long packed = pack(shortCode);
+        if (packed < 0) {
+            Long ref = unpackedCodes.get(shortCode);
+            return ref == null ? -1 : ref;
+        }
+        long hash = mix(packed);
+        Table.Segment segment = byCode.segment(hash);
+        long stamp = segment.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                long ref = segment.findPackedCode(hash, packed, arena);
+                if (segment.lock.validate(stamp)) {
+                    return ref;
+                }
+            } catch (RuntimeException e) {
+                // Torn read during a concurrent write; retry under the read lock
+            }
+        }
+        stamp = segment.lock.readLock();
+        try {
+            return segment.findPackedCode(hash, packed, arena);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    private long findByUrl(byte[] url) {
+        long hash = hashUrl(url);
+        Table.Segment segment = byUrl.segment(hash);
+        long stamp = segment.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                long ref = segment.findUrl(hash, url, arena);
+                if (segment.lock.validate(stamp)) {
+                    return ref;
+                }
+            } catch (RuntimeException e) {
+                // Torn read during a concurrent write; retry under the read lock
+            }
+        }
+        stamp = segment.lock.readLock();
+        try {
+            return segment.findUrl(hash, url, arena);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Packs an 8-character base64url code into the low 48 bits of a long
+     * @return the packed code, or -1 if the code is not 8 base64url characters
+     */
+    static long pack(String shortCode) {
+        if (shortCode.length() != PACKED_LENGTH) {
+            return -1;
+        }
+        long packed = 0;
+        for (int i = 0; i < PACKED_LENGTH; i++) {
+            char c = shortCode.charAt(i);
+            int value = c < 128 ? DECODE[c] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            packed = (packed << 6) | value;
+        }
+        return packed;
+    }
+
+    static String unpack(long packed) {
+        char[] chars = new char[PACKED_LENGTH];
+        for (int i = PACKED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET.charAt((int) (packed & 63));
+            packed >>>= 6;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * MurmurHash3 fmix64 finalizer
+     */
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    static long hashUrl(byte[] url) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : url) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long codeHash(Arena arena, long ref) {
+        return mix(arena.readPackedCode(ref));
+    }
+
+    private static long urlHash(Arena arena, long ref) {
+        return hashUrl(arena.readUrlBytes(ref));
+    }
+
+    /**
+     * Append-only record arena made of 16 MiB direct chunks
+     * Records never straddle chunks. Appends happen under the store's writer lock.
+     */
+    static final class Arena {
+
+        private static final int CHUNK_SHIFT = 24;
+        private static final int CHUNK_BYTES = 1 << CHUNK_SHIFT;
+        private static final int CHUNK_MASK = CHUNK_BYTES - 1;
+
+        private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+        private long cursor;
+        private long used;
+
+        long append(String shortCode, long packed, byte[] url) {
+            byte[] code = packed >= 0 ? null : shortCode.getBytes(StandardCharsets.UTF_8);
+            if (code != null && (code.length == 0 || code.length > 255)) {
+                throw new IllegalArgumentException("Short code must be 1 to 255 bytes");
+            }
+            int length = 1 + (code == null ? 8 : code.length) + 4 + url.length;
+            if (length > CHUNK_BYTES) {
+                throw new IllegalArgumentException("URL too long for off-heap storage");
+            }
+            if ((cursor & CHUNK_MASK) + length > CHUNK_BYTES) {
+                cursor = (cursor | CHUNK_MASK) + 1;
+            }
+            int chunkIndex = (int) (cursor >>> CHUNK_SHIFT);
+            if (chunkIndex >= chunks.length) {
+                ByteBuffer[] grown = Arrays.copyOf(chunks, chunkIndex + 1);
+                grown[chunkIndex] = ByteBuffer.allocateDirect(CHUNK_BYTES);
+                chunks = grown;
+            }
+            long ref = cursor;
+            ByteBuffer chunk = chunks[chunkIndex];
+            int position = (int) (ref & CHUNK_MASK);
+            if (code == null) {
+                chunk.put(position, PACKED_KIND);
+                chunk.putLong(position + 1, packed);
+                position += 9;
+            } else {
+                chunk.put(position, (byte) code.length);
+                chunk.put(position + 1, code);
+                position += 1 + code.length;
+            }
+            chunk.putInt(position, url.length);
+            chunk.put(position + 4, url);
+            cursor += length;
+            used += length;
+            return ref;
+        }
+
+        long readPackedCode(long ref) {
+            ByteBuffer chunk = chunks[(int) (ref >>> CHUNK_SHIFT)];
+            int position = (int) (ref & CHUNK_MASK);
+            return chunk.get(position) == PACKED_KIND ? chunk.getLong(position + 1) : -1;
+        }
+
+        String readCode(long ref) {
+            ByteBuffer chunk = chunks[(int) (ref >>> CHUNK_SHIFT)];
+            int position = (int) (ref & CHUNK_MASK);
+            int kind = Byte.toUnsignedInt(chunk.get(position));
+            if (kind == PACKED_KIND) {
+                return unpack(chunk.getLong(position + 1));
+            }
+            byte[] code = new byte[kind];
+            chunk.get(position + 1, code);
+            return new String(code, StandardCharsets.UTF_8);
+        }
+
+        private int urlPosition(ByteBuffer chunk, long ref) {
+            int position = (int) (ref & CHUNK_MASK);
+            int kind = Byte.toUnsignedInt(chunk.get(position));
+            return position + 1 + (kind == PACKED_KIND ? 8 : kind);
+        }
+
+        byte[] readUrlBytes(long ref) {
+            ByteBuffer chunk = chunks[(int) (ref >>> CHUNK_SHIFT)];
+            int position = urlPosition(chunk, ref);
+            byte[] url = new byte[chunk.getInt(position)];
+            chunk.get(position + 4, url);
+            return url;
+        }
+
+        String readUrl(long ref) {
+            return new String(readUrlBytes(ref), StandardCharsets.UTF_8);
+        }
+
+        boolean urlEquals(long ref, byte[] url) {
+            ByteBuffer chunk = chunks[(int) (ref >>> CHUNK_SHIFT)];
+            int position = urlPosition(chunk, ref);
+            if (chunk.getInt(position) != url.length) {
+                return false;
+            }
+            position += 4;
+            for (int i = 0; i < url.length; i++) {
+                if (chunk.get(position + i) != url[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long usedBytes() {
+            return used;
+        }
+
+        long reservedBytes() {
+            return (long) chunks.length * CHUNK_BYTES;
+        }
+    }
+
+    /**
+     * Open-addressing table split into 64 independently resized segments
+     * Slot layout: 24-bit hash tag (bits 40-63) | arena offset + 1 (bits 0-39); 0 marks an empty slot.
+     */
+    static final class Table {
+
+        private static final int SEGMENT_BITS = 6;
+        private static final int REF_BITS = 40;
+        private static final long REF_MASK = (1L << REF_BITS) - 1;
+
+        private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+        // Recomputes an entry's full hash from its arena record (for resize and deletion)
+        private final LongUnaryOperator rehash;
+
+        Table(int initialSlots, LongUnaryOperator rehash) {
+            if (Integer.bitCount(initialSlots) != 1) {
+                throw new IllegalArgumentException("initialSlots must be a power of two");
+            }
+            this.rehash = rehash;
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = new Segment(initialSlots);
+            }
+        }
+
+        Segment segment(long hash) {
+            return segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+        }
+
+        private static long tag(long hash) {
+            return (hash >>> 34) & 0xFFFFFF;
+        }
+
+        // Caller holds the store's writer lock
+        void insert(long hash, long ref) {
+            Segment segment = segment(hash);
+            long stamp = segment.lock.writeLock();
+            try {
+                if ((segment.used + 1) * 4L > segment.capacity * 3L) {
+                    segment.resize(segment.capacity * 2, rehash);
+                }
+                segment.put(hash, (tag(hash) << REF_BITS) | (ref + 1));
+                segment.used++;
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+
+        // Caller holds the store's writer lock; backward-shift deletion keeps probe chains intact
+        void remove(long hash, long ref) {
+            Segment segment = segment(hash);
+            long stamp = segment.lock.writeLock();
+            try {
+                int mask = segment.capacity - 1;
+                int index = (int) hash & mask;
+                while (true) {
+                    long slot = segment.slots.getLong(index * 8);
+                    if (slot == 0) {
+                        return;
+                    }
+                    if ((slot & REF_MASK) == ref + 1) {
+                        break;
+                    }
+                    index = (index + 1) & mask;
+                }
+                int hole = index;
+                int next = (hole + 1) & mask;
+                while (true) {
+                    long slot = segment.slots.getLong(next * 8);
+                    if (slot == 0) {
+                        break;
+                    }
+                    int home = (int) rehash.applyAsLong((slot & REF_MASK) - 1) & mask;
+                    // Move the entry back if the hole lies on its probe path (home..next, cyclically)
+                    if (((next - home) & mask) >= ((next - hole) & mask)) {
+                        segment.slots.putLong(hole * 8, slot);
+                        hole = next;
+                    }
+                    next = (next + 1) & mask;
+                }
+                segment.slots.putLong(hole * 8, 0);
+                segment.used--;
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+
+        void forEachRef(LongConsumer action) {
+            for (Segment segment : segments) {
+                long[] refs;
+                long stamp = segment.lock.readLock();
+                try {
+                    refs = new long[segment.used];
+                    int n = 0;
+                    for (int i = 0; i < segment.capacity; i++) {
+                        long slot = segment.slots.getLong(i * 8);
+                        if (slot != 0) {
+                            refs[n++] = (slot & REF_MASK) - 1;
+                        }
+                    }
+                } finally {
+                    segment.lock.unlockRead(stamp);
+                }
+                for (long ref : refs) {
+                    action.accept(ref);
+                }
+            }
+        }
+
+        long reservedBytes() {
+            long bytes = 0;
+            for (Segment segment : segments) {
+                bytes += segment.capacity * 8L;
+            }
+            return bytes;
+        }
+
+        static final class Segment {
+
+            final StampedLock lock = new StampedLock();
+            private ByteBuffer slots;
+            private int capacity;
+            private int used;
+
+            Segment(int capacity) {
+                this.capacity = capacity;
+                this.slots = ByteBuffer.allocateDirect(capacity * 8);
+            }
+
+            long findPackedCode(long hash, long packed, Arena arena) {
+                ByteBuffer table = slots;
+                int mask = capacity - 1;
+                long tag = tag(hash);
+                for (int index = (int) hash & mask, probes = 0; probes <= mask; index = (index + 1) & mask, probes++) {
+                    long slot = table.getLong(index * 8);
+                    if (slot == 0) {
+                        return -1;
+                    }
+                    if ((slot >>> REF_BITS) == tag) {
+                        long ref = (slot & REF_MASK) - 1;
+                        if (arena.readPackedCode(ref) == packed) {
+                            return ref;
+                        }
+                    }
+                }
+                return -1;
+            }
+
+            long findUrl(long hash, byte[] url, Arena arena) {
+                ByteBuffer table = slots;
+                int mask = capacity - 1;
+                long tag = tag(hash);
+                for (int index = (int) hash & mask, probes = 0; probes <= mask; index = (index + 1) & mask, probes++) {
+                    long slot = table.getLong(index * 8);
+                    if (slot == 0) {
+                        return -1;
+                    }
+                    if ((slot >>> REF_BITS) == tag) {
+                        long ref = (slot & REF_MASK) - 1;
+                        if (arena.urlEquals(ref, url)) {
+                            return ref;
+                        }
+                    }
+                }
+                return -1;
+            }
+
+            private void put(long hash, long slotValue) {
+                int mask = capacity - 1;
+                int index = (int) hash & mask;
+                while (slots.getLong(index * 8) != 0) {
+                    index = (index + 1) & mask;
+                }
+                slots.putLong(index * 8, slotValue);
+            }
+
+            private void resize(int newCapacity, LongUnaryOperator rehash) {
+                ByteBuffer old = slots;
+                int oldCapacity = capacity;
+                slots = ByteBuffer.allocateDirect(newCapacity * 8);
+                capacity = newCapacity;
+                for (int i = 0; i < oldCapacity; i++) {
+                    long slot = old.getLong(i * 8);
+                    if (slot != 0) {
+                        put(rehash.applyAsLong((slot & REF_MASK) - 1), slot);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.url_shortner.storage;
+
+/**
+ * Result of an atomic shorten-or-get operation on the storage
+ */
+public final class ShortCodeReservation {
+
+    private final String shortCode;
+    private final boolean created;
+    private final int probes;
+
+    private ShortCodeReservation(String shortCode, boolean created, int probes) {
+        this.shortCode = shortCode;
+        this.created = created;
+        this.probes = probes;
+    }
+
+    /**
+     * The URL was already mapped; nothing was inserted
+     */
+    public static ShortCodeReservation existing(String shortCode) {
+        return new ShortCodeReservation(shortCode, false, 0);
+    }
+
+    /**
+     * A new mapping was inserted after trying the given number of candidate codes
+     */
+    public static ShortCodeReservation created(String shortCode, int probes) {
+        return new ShortCodeReservation(shortCode, true, probes);
+    }
+
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    /**
+     * @return true if this call inserted the mapping, false if it already existed
+     */
+    public boolean isCreated() {
+        return created;
+    }
+
+    /**
+     * @return number of candidate codes tried (0 when the mapping already existed)
+     */
+    public int getProbes() {
+        return probes;
+    }
+}
@@ -0,0 +1,388 @@
+package com.example.url_shortner.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Snapshot-backed storage engine ({@code app.storage.engine=snapshot})
+ *
+ * Most mappings live in an immutable {@link MappedSnapshot} that is opened with mmap at startup
+ * and served directly from the page cache. Recent writes go to a small on-heap delta
+ * ({@link UrlStorage}). A background task periodically freezes the delta, writes a new snapshot
+ * containing the old snapshot plus the frozen delta, and swaps it in. Lookups check the delta,
+ * then the frozen deltas (while a snapshot is being written), then the snapshot. A frozen delta
+ * whose snapshot failed to write stays in place below the next one, and both go into the next
+ * snapshot, so a failed write never loses mappings.
+ * Removing a code that lives below the delta records a tombstone that hides it until the next
+ * snapshot is written without it.
+ */
+public class SnapshotUrlStore implements UrlStore, Closeable {
+    
+    private static final Logger log = LoggerFactory.getLogger(SnapshotUrlStore.class);
+    
+    /**
+     * Immutable layers below the live delta
+     */
+    private static final class Layers {
+        final MappedSnapshot snapshot;
+        // Newest first; more than one only after a snapshot failed to write
+        final List<UrlStorage> frozen;
+        
+        Layers(MappedSnapshot snapshot, List<UrlStorage> frozen) {
+            this.snapshot = snapshot;
+            this.frozen = frozen;
+        }
+        
+        /**
+         * @return the newest mapping of the code in the frozen layers, or null
+         */
+        String getFrozen(String shortCode) {
+            for (UrlStorage layer : frozen) {
+                String originalUrl = layer.getOriginalUrl(shortCode);
+                if (originalUrl != null) {
+                    return originalUrl;
+                }
+            }
+            return null;
+        }
+        
+        /**
+         * @return whether a frozen layer newer than {@code layer} maps the code
+         */
+        boolean shadowed(String shortCode, int layer) {
+            for (int i = 0; i < layer; i++) {
+                if (frozen.get(i).getOriginalUrl(shortCode) != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+    
+    private final Path path;
+    private final DomainCounter domainCounts;
+    // Writers share the read lock; only the delta swap takes the write lock
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService snapshotter;
+    
+    // Codes removed from the snapshot or frozen delta, until a snapshot without them is swapped in
+    private final Set<String> removed = ConcurrentHashMap.newKeySet();
+    
+    private volatile UrlStorage delta = new UrlStorage();
+    private volatile Layers layers;
+    private volatile String snapshotFailure;
+    
+    /**
+     * Opens the snapshot at {@code path} if present
+     * @param path snapshot file
+     * @param intervalSeconds how often to write a new snapshot in the background (0 disables)
+     */
+    public SnapshotUrlStore(Path path, long intervalSeconds) throws IOException {
+        this(path, intervalSeconds, new ExactDomainCounter());
+    }
+    
+    /**
+     * Opens the snapshot at {@code path} if present
+     * @param path snapshot file
+     * @param intervalSeconds how often to write a new snapshot in the background (0 disables)
+     * @param domainCounts domain counter, seeded with the counts stored in the snapshot
+     */
+    public SnapshotUrlStore(Path path, long intervalSeconds, DomainCounter domainCounts) throws IOException {
+        this.path = path;
+        this.domainCounts = domainCounts;
+        long started = System.nanoTime();
+        MappedSnapshot snapshot = Files.exists(path) ? MappedSnapshot.open(path) : MappedSnapshot.empty();
+        snapshot.getDomainCounts().forEach(domainCounts::add);
+        this.layers = new Layers(snapshot, List.of());
+        log.info("Opened snapshot of {} mappings in {} ms", snapshot.size(), (System.nanoTime() - started) / 1_000_000);
+        if (intervalSeconds > 0) {
+            snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotter.scheduleWithFixedDelay(this::snapshotQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        } else {
+            snapshotter = null;
+        }
+    }
+    
+    @Override
+    public String getOriginalUrl(String shortCode) {
+        String originalUrl = delta.getOriginalUrl(shortCode);
+        return originalUrl != null ? originalUrl : getBelowDelta(layers, shortCode);
+    }
+    
+    private String getBelowDelta(Layers current, String shortCode) {
+        if (removed.contains(shortCode)) {
+            return null;
+        }
+        String originalUrl = current.getFrozen(shortCode);
+        return originalUrl != null ? originalUrl : current.snapshot.getOriginalUrl(shortCode);
+    }
+    
+    /**
+     * A code found in a lower layer only counts if no newer layer re-pointed it at another URL
+     */
+    @Override
+    public String getShortCode(String originalUrl) {
+        String shortCode = delta.getShortCode(originalUrl);
+        if (shortCode != null) {
+            return shortCode;
+        }
+        Layers current = layers;
+        for (int i = 0; i < current.frozen.size() && shortCode == null; i++) {
+            shortCode = current.frozen.get(i).getShortCode(originalUrl);
+        }
+        if (shortCode == null) {
+            shortCode = current.snapshot.getShortCode(originalUrl);
+        }
+        return shortCode != null && originalUrl.equals(getOriginalUrl(shortCode)) ? shortCode : null;
+    }
+    
+    @Override
+    public void storeUrl(String shortCode, String originalUrl) {
+        swapLock.readLock().lock();
+        try {
+            delta.storeUrl(shortCode, originalUrl);
+            removed.remove(shortCode);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Candidates already taken in the snapshot or frozen delta are skipped before the
+     * delta's atomic reservation; those layers no longer change, so the check is stable.
+     */
+    @Override
+    public ShortCodeReservation reserveShortCode(String originalUrl, IntFunction<String> candidates) {
+        String existing = getShortCode(originalUrl);
+        if (existing != null) {
+            return ShortCodeReservation.existing(existing);
+        }
+        swapLock.readLock().lock();
+        try {
+            Layers current = layers;
+            int[] next = {0};
+            ShortCodeReservation reservation = delta.reserveShortCode(originalUrl, attempt -> {
+                while (true) {
+                    String shortCode = candidates.apply(next[0]++);
+                    if (getBelowDelta(current, shortCode) == null) {
+                        return shortCode;
+                    }
+                }
+            });
+            if (!reservation.isCreated()) {
+                return reservation;
+            }
+            removed.remove(reservation.getShortCode());
+            return ShortCodeReservation.created(reservation.getShortCode(), next[0]);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public String removeUrl(String shortCode) {
+        swapLock.readLock().lock();
+        try {
+            String originalUrl = delta.removeUrl(shortCode);
+            // Also hide an older mapping of the code below the delta
+            String below = getBelowDelta(layers, shortCode);
+            if (below != null) {
+                removed.add(shortCode);
+            }
+            return originalUrl != null ? originalUrl : below;
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void incrementDomainCount(String domain) {
+        domainCounts.increment(domain);
+    }
+    
+    @Override
+    public void decrementDomainCount(String domain) {
+        domainCounts.decrement(domain);
+    }
+    
+    @Override
+    public Map<String, Long> getDomainCounts() {
+        return domainCounts.snapshot();
+    }
+
+    @Override
+    public List<Map.Entry<String, Long>> getTopDomains(int n) {
+        return domainCounts.top(n);
+    }
+    
+    @Override
+    public void forEach(BiConsumer<String, String> action) {
+        UrlStorage live = delta;
+        Layers current = layers;
+        live.forEach(action);
+        forEachBelowDelta(current, removed, (shortCode, originalUrl) -> {
+            if (live.getOriginalUrl(shortCode) == null) {
+                action.accept(shortCode, originalUrl);
+            }
+        });
+    }
+    
+    /**
+     * Visits the newest mapping of every code in the frozen layers and the snapshot, except the
+     * removed ones
+     */
+    private static void forEachBelowDelta(Layers current, Set<String> removed, BiConsumer<String, String> action) {
+        for (int i = 0; i < current.frozen.size(); i++) {
+            int layer = i;
+            current.frozen.get(i).forEach((shortCode, originalUrl) -> {
+                if (!removed.contains(shortCode) && !current.shadowed(shortCode, layer)) {
+                    action.accept(shortCode, originalUrl);
+                }
+            });
+        }
+        current.snapshot.forEach((shortCode, originalUrl) -> {
+            if (!removed.contains(shortCode) && current.getFrozen(shortCode) == null) {
+                action.accept(shortCode, originalUrl);
+            }
+        });
+    }
+    
+    /**
+     * Approximate: codes overwritten in the delta are counted in both layers
+     */
+    @Override
+    public long size() {
+        Layers current = layers;
+        long size = delta.size() + current.snapshot.size() - removed.size();
+        for (UrlStorage frozen : current.frozen) {
+            size += frozen.size();
+        }
+        return size;
+    }
+    
+    /**
+     * Mapped snapshot file plus the on-heap delta (and the frozen deltas until a snapshot is written)
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        Layers current = layers;
+        long bytes = current.snapshot.mappedBytes() + delta.estimatedMemoryBytes();
+        for (UrlStorage frozen : current.frozen) {
+            bytes += frozen.estimatedMemoryBytes();
+        }
+        return bytes;
+    }
+    
+    /**
+     * Unhealthy while the latest background snapshot has failed: the delta keeps growing on the heap
+     */
+    @Override
+    public boolean isPersistent() {
+        return true;
+    }
+    
+    @Override
+    public String getHealthProblem() {
+        return snapshotFailure;
+    }
+    
+    /**
+     * @return number of mappings held in the on-heap delta
+     */
+    public long deltaSize() {
+        return delta.size();
+    }
+    
+    /**
+     * Freezes the delta and writes a new snapshot containing everything stored so far, less
+     * the removed codes. If the write fails, the frozen deltas stay in place and are written
+     * by the next call.
+     */
+    public synchronized void snapshot() throws IOException {
+        if (delta.size() == 0 && removed.isEmpty() && layers.frozen.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        Layers current;
+        Set<String> applied;
+        swapLock.writeLock().lock();
+        try {
+            current = layers;
+            if (delta.size() > 0) {
+                List<UrlStorage> frozen = new ArrayList<>();
+                frozen.add(delta);
+                frozen.addAll(current.frozen);
+                current = new Layers(current.snapshot, List.copyOf(frozen));
+                layers = current;
+                delta = new UrlStorage();
+            }
+            applied = Set.copyOf(removed);
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        MappedSnapshot base = current.snapshot;
+        Map<String, Long> counts = domainCounts.snapshot();
+        Layers written = current;
+        MappedSnapshot.write(path, action -> forEachBelowDelta(written, applied, action), counts);
+        MappedSnapshot next = MappedSnapshot.open(path);
+        layers = new Layers(next, List.of());
+        removed.removeAll(applied);
+        base.close();
+        snapshotFailure = null;
+        log.info("Wrote snapshot of {} mappings in {} ms", next.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    /**
+     * Writes a snapshot of everything stored so far
+     */
+    @Override
+    public boolean checkpoint() throws IOException {
+        snapshot();
+        return true;
+    }
+    
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            snapshotFailure = "Snapshot to " + path + " failed: " + e.getMessage();
+            log.error("Background snapshot to {} failed", path, e);
+        }
+    }
+    
+    /**
+     * Stops the background writer and persists the remaining delta
+     */
+    @Override
+    public void close() throws IOException {
+        if (snapshotter != null) {
+            snapshotter.shutdown();
+            try {
+                snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        snapshot();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.url_shortner.storage;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sorted in-memory storage for URL mappings ({@code app.storage.engine=sorted})
+ * Keeps short codes in a ConcurrentSkipListMap so {@link #forEach} visits them in code order,
+ * which lets sequential exports (snapshots, dumps) be written without a separate sort.
+ * Lookups are O(log n) instead of O(1).
+ */
+public class SortedUrlStore extends ConcurrentMapUrlStore {
+
+    public SortedUrlStore() {
+        this(new ExactDomainCounter());
+    }
+
+    public SortedUrlStore(DomainCounter domainCounts) {
+        super(new ConcurrentSkipListMap<>(), new ConcurrentHashMap<>(), domainCounts);
+    }
+}
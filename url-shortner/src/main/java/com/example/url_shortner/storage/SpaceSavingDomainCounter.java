@@ -0,0 +1,166 @@
+package com.example.url_shortner.storage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Approximate counts in bounded memory ({@code app.metrics.domains.mode=space-saving})
+ *
+ * Space-Saving (Metwally et al.): at most {@code capacity} domains are monitored. An unmonitored
+ * domain replaces the lowest counter and inherits its count, so counts never under-estimate and
+ * over-estimate by at most the inherited amount; any domain with more than total/capacity
+ * shortens is guaranteed to be monitored. Monitored domains count lock-free as in
+ * {@link ExactDomainCounter}. To avoid scanning every counter per eviction, victims are taken in
+ * order from a batch of the lowest counters, re-selected once a quarter of them is used or once
+ * the next one has grown above the average count. Counters sum to total, so the minimum never
+ * exceeds total/capacity and a victim at or below the average keeps the guarantee.
+ */
+public class SpaceSavingDomainCounter implements DomainCounter {
+    
+    private final int capacity;
+    private final ConcurrentMap<String, DomainTally> monitored;
+    private final TopDomainTracker topDomains;
+    private final LongAdder total = new LongAdder();
+    
+    // Guarded by this
+    private DomainTally[] victims = new DomainTally[0];
+    private int nextVictim;
+    
+    /**
+     * @param capacity number of domains monitored
+     * @param topCapacity largest n served by {@link #top(int)}
+     */
+    public SpaceSavingDomainCounter(int capacity, int topCapacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        // Grown on demand: rolling-window buckets hold one each, and most never fill up
+        this.monitored = new ConcurrentHashMap<>();
+        this.topDomains = new TopDomainTracker(Math.min(capacity, topCapacity));
+    }
+    
+    @Override
+    public void increment(String domain) {
+        add(domain, 1);
+    }
+    
+    @Override
+    public void add(String domain, long delta) {
+        DomainTally tally = monitored.get(domain);
+        if (tally == null) {
+            tally = admit(domain);
+        }
+        // An increment racing with the eviction of its counter is lost, within the approximation
+        tally.add(delta);
+        total.add(delta);
+        topDomains.offerIfAbove(tally);
+        if (tally.tracked && monitored.get(domain) != tally) {
+            // Evicted while offering: admit() removed it from the tracker before or after our
+            // offer; if before, the offer put it back, so drop it again
+            topDomains.remove(tally);
+        }
+    }
+    
+    private synchronized DomainTally admit(String domain) {
+        DomainTally tally = monitored.get(domain);
+        if (tally != null) {
+            return tally;
+        }
+        if (monitored.size() < capacity) {
+            tally = new DomainTally(domain, 0);
+        } else {
+            DomainTally victim = nextVictim();
+            monitored.remove(victim.domain);
+            topDomains.remove(victim);
+            long inherited = victim.sum();
+            tally = new DomainTally(domain, inherited);
+            tally.add(inherited);
+        }
+        monitored.put(domain, tally);
+        return tally;
+    }
+    
+    private DomainTally nextVictim() {
+        boolean fresh = false;
+        while (true) {
+            if (nextVictim >= victims.length) {
+                selectVictims();
+                fresh = true;
+            }
+            DomainTally candidate = victims[nextVictim++];
+            if (monitored.get(candidate.domain) != candidate) {
+                continue;
+            }
+            // A fresh batch starts at the minimum; an older one may have outgrown the average
+            if (fresh || candidate.sum() * capacity <= total.sum()) {
+                return candidate;
+            }
+            nextVictim = victims.length;
+        }
+    }
+    
+    /**
+     * Picks the lowest quarter of the counters, lowest first
+     */
+    private void selectVictims() {
+        DomainTally[] all = monitored.values().toArray(new DomainTally[0]);
+        long[] counts = new long[all.length];
+        Integer[] order = new Integer[all.length];
+        for (int i = 0; i < all.length; i++) {
+            counts[i] = all[i].sum();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(counts[a], counts[b]));
+        victims = new DomainTally[Math.max(1, all.length / 4)];
+        for (int i = 0; i < victims.length; i++) {
+            victims[i] = all[order[i]];
+        }
+        nextVictim = 0;
+    }
+    
+    @Override
+    public void decrement(String domain) {
+        DomainTally tally = monitored.get(domain);
+        if (tally != null && tally.sum() > 0) {
+            tally.decrement();
+            total.decrement();
+            topDomains.decreased(tally);
+        }
+    }
+    
+    @Override
+    public long get(String domain) {
+        DomainTally tally = monitored.get(domain);
+        return tally == null ? 0 : tally.sum();
+    }
+    
+    /**
+     * @param domain the domain
+     * @return how much of the domain's count may be over-estimated, or 0 if not monitored
+     */
+    public long getError(String domain) {
+        DomainTally tally = monitored.get(domain);
+        return tally == null ? 0 : tally.error;
+    }
+    
+    @Override
+    public Map<String, Long> snapshot() {
+        Map<String, Long> counts = new HashMap<>(monitored.size() * 2);
+        monitored.forEach((domain, tally) -> counts.put(domain, tally.sum()));
+        return counts;
+    }
+    
+    @Override
+    public List<Map.Entry<String, Long>> top(int n) {
+        if (topDomains.isStale()) {
+            topDomains.rebuild(monitored.values());
+        }
+        return topDomains.top(n);
+    }
+}
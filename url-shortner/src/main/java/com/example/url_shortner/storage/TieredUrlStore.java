@@ -0,0 +1,279 @@
+package com.example.url_shortner.storage;
+
+import com.example.url_shortner.util.UrlUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Tiered storage engine ({@code app.storage.engine=tiered})
+ *
+ * Every mapping is written through to a {@link DiskUrlFile} on local disk, the cold tier.
+ * Redirect lookups are served from a {@link WTinyLfuCache} of short codes capped at
+ * {@code app.storage.tiered.hot-max-bytes}, the hot tier; a miss reads the disk file and offers
+ * the mapping to the hot tier, whose W-TinyLFU policy keeps recent and frequently redirected
+ * links and lets one-off lookups pass through. Heap use is bounded by the hot tier whatever the
+ * number of mappings. URL to code lookups (the shorten path) always go to the disk indexes.
+ *
+ * Lookups share a read lock with each other; writes are serialized and update the hot tier while
+ * holding the write lock, so a cold read racing with a removal can never re-cache the removed code.
+ * Meters: {@code urlshortener.storage.tier.lookups} by tier (hot, cold, miss), the
+ * {@code urlshortener.storage.cold.read} timer, hot tier and disk size gauges, and the disk file's
+ * compaction count. The disk indexes hold at most {@link DiskUrlFile#MAX_MAPPINGS} (about 50 million)
+ * mappings; once they are full, new links are rejected and {@link #getHealthProblem()} reports it.
+ */
+public class TieredUrlStore implements UrlStore, Closeable {
+    
+    private static final Logger log = LoggerFactory.getLogger(TieredUrlStore.class);
+    
+    private final WTinyLfuCache hot;
+    private final DiskUrlFile cold;
+    private final DomainCounter domainCounts;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Counter hotLookups;
+    private final Counter coldLookups;
+    private final Counter missedLookups;
+    private final Timer coldRead;
+    
+    public TieredUrlStore(Path path, long hotMaxBytes) throws IOException {
+        this(path, hotMaxBytes, new ExactDomainCounter(), new SimpleMeterRegistry());
+    }
+    
+    /**
+     * Opens the disk file at {@code path}, creating it if absent
+     * @param path disk file; its indexes are written next to it
+     * @param hotMaxBytes estimated heap bytes the hot tier may hold
+     * @param domainCounts domain counter, seeded from the mappings on disk
+     * @param registry registry the tier meters are added to
+     */
+    public TieredUrlStore(Path path, long hotMaxBytes, DomainCounter domainCounts, MeterRegistry registry) throws IOException {
+        this(path, hotMaxBytes, DiskUrlFile.MAX_MAPPINGS, domainCounts, registry);
+    }
+    
+    TieredUrlStore(Path path, long hotMaxBytes, long maxMappings, DomainCounter domainCounts,
+                   MeterRegistry registry) throws IOException {
+        long started = System.nanoTime();
+        this.hot = new WTinyLfuCache(hotMaxBytes);
+        this.cold = new DiskUrlFile(path, maxMappings);
+        this.domainCounts = domainCounts;
+        cold.forEach((shortCode, originalUrl) -> domainCounts.increment(UrlUtils.extractDomain(originalUrl)));
+        log.info("Opened {} with {} mappings in {} ms", path, cold.size(), (System.nanoTime() - started) / 1_000_000);
+        this.hotLookups = lookups(registry, "hot");
+        this.coldLookups = lookups(registry, "cold");
+        this.missedLookups = lookups(registry, "miss");
+        this.coldRead = Timer.builder("urlshortener.storage.cold.read")
+                .description("Disk read latency of short code lookups that missed the hot tier")
+                .register(registry);
+        Gauge.builder("urlshortener.storage.hot.entries", hot, WTinyLfuCache::size)
+                .description("Mappings held in the hot tier")
+                .register(registry);
+        Gauge.builder("urlshortener.storage.hot.bytes", hot, WTinyLfuCache::weightedSize)
+                .description("Estimated heap bytes held by the hot tier")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("urlshortener.storage.cold.bytes", cold, DiskUrlFile::diskBytes)
+                .description("Bytes of the cold tier's disk file and indexes")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        FunctionCounter.builder("urlshortener.storage.cold.compactions", cold, DiskUrlFile::compactions)
+                .description("Rewrites of the cold tier's log without its superseded records")
+                .register(registry);
+    }
+    
+    private static Counter lookups(MeterRegistry registry, String tier) {
+        return Counter.builder("urlshortener.storage.tier.lookups")
+                .description("Short code lookups by the tier that answered them")
+                .tag("tier", tier)
+                .register(registry);
+    }
+    
+    @Override
+    public String getOriginalUrl(String shortCode) {
+        String originalUrl = hot.get(shortCode);
+        if (originalUrl != null) {
+            hotLookups.increment();
+            return originalUrl;
+        }
+        lock.readLock().lock();
+        try {
+            long start = System.nanoTime();
+            originalUrl = cold.get(shortCode);
+            coldRead.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (originalUrl == null) {
+                missedLookups.increment();
+                return null;
+            }
+            coldLookups.increment();
+            hot.put(shortCode, originalUrl);
+            return originalUrl;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public String getShortCode(String originalUrl) {
+        lock.readLock().lock();
+        try {
+            return cold.getShortCode(originalUrl);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void storeUrl(String shortCode, String originalUrl) {
+        lock.writeLock().lock();
+        try {
+            cold.put(shortCode, originalUrl);
+            hot.remove(shortCode);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * New codes are also offered to the hot tier's window, since new links are often redirected soon
+     */
+    @Override
+    public ShortCodeReservation reserveShortCode(String originalUrl, IntFunction<String> candidates) {
+        String existing = getShortCode(originalUrl);
+        if (existing != null) {
+            return ShortCodeReservation.existing(existing);
+        }
+        lock.writeLock().lock();
+        try {
+            existing = cold.getShortCode(originalUrl);
+            if (existing != null) {
+                return ShortCodeReservation.existing(existing);
+            }
+            for (int attempt = 0; ; attempt++) {
+                String shortCode = candidates.apply(attempt);
+                if (cold.get(shortCode) == null) {
+                    cold.put(shortCode, originalUrl);
+                    hot.put(shortCode, originalUrl);
+                    return ShortCodeReservation.created(shortCode, attempt + 1);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public String removeUrl(String shortCode) {
+        lock.writeLock().lock();
+        try {
+            String originalUrl = cold.remove(shortCode);
+            hot.remove(shortCode);
+            return originalUrl;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void incrementDomainCount(String domain) {
+        domainCounts.increment(domain);
+    }
+    
+    @Override
+    public void decrementDomainCount(String domain) {
+        domainCounts.decrement(domain);
+    }
+    
+    @Override
+    public Map<String, Long> getDomainCounts() {
+        return domainCounts.snapshot();
+    }
+    
+    @Override
+    public List<Map.Entry<String, Long>> getTopDomains(int n) {
+        return domainCounts.top(n);
+    }
+    
+    /**
+     * Reads the disk file sequentially; writes wait until the iteration finishes
+     */
+    @Override
+    public void forEach(BiConsumer<String, String> action) {
+        lock.readLock().lock();
+        try {
+            cold.forEach(action);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public long size() {
+        return cold.size();
+    }
+    
+    /**
+     * Heap only: the hot tier and its frequency sketch; the disk file is reported by the
+     * {@code urlshortener.storage.cold.bytes} gauge
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        return hot.weightedSize() + hot.sketchBytes();
+    }
+    
+    /**
+     * Forces the disk file, which already holds every mapping
+     */
+    @Override
+    public boolean checkpoint() throws IOException {
+        lock.readLock().lock();
+        try {
+            cold.force();
+        } finally {
+            lock.readLock().unlock();
+        }
+        return true;
+    }
+    
+    @Override
+    public boolean recountsDomainsOnOpen() {
+        return true;
+    }
+    
+    @Override
+    public boolean isPersistent() {
+        return true;
+    }
+    
+    @Override
+    public String getHealthProblem() {
+        if (cold.isFull()) {
+            return "Disk indexes are full at " + cold.size() + " mappings; new links cannot be stored";
+        }
+        return null;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            cold.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
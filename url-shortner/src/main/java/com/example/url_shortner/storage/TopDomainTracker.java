@@ -0,0 +1,159 @@
+package com.example.url_shortner.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The K highest counters, maintained as counts change
+ *
+ * Counts only grow, so a counter can only enter the top K by exceeding its current minimum.
+ * Callers offer a counter after incrementing it when it is not yet tracked and its count is
+ * above {@link #threshold()}; tracked counters are summed live, so increments of popular domains
+ * never take the lock. The threshold never decreases while the tracker is full, and a counter
+ * that skips the offer is at most the smallest tracked count, so the tracked set is exactly the
+ * top K of everything offered.
+ *
+ * The exception is removing an expired link, which decrements a domain. A decreased tracked
+ * counter may fall below an untracked one that never needed an offer, so the tracker is marked
+ * stale and the owner re-selects from all counters with {@link #rebuild(Collection)} before the
+ * next {@link #top(int)}.
+ */
+final class TopDomainTracker {
+    
+    private final DomainTally[] members;
+    // Guarded by this
+    private int size;
+    private volatile long threshold = -1;
+    private volatile boolean stale;
+    
+    TopDomainTracker(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Top-K capacity must be positive");
+        }
+        this.members = new DomainTally[capacity];
+    }
+    
+    int capacity() {
+        return members.length;
+    }
+    
+    /**
+     * @return the count an untracked counter must exceed to be offered (-1 until K counters are tracked)
+     */
+    long threshold() {
+        return threshold;
+    }
+    
+    /**
+     * Called after incrementing an untracked counter whose count exceeds the threshold
+     */
+    void offerIfAbove(DomainTally tally) {
+        if (!tally.tracked && tally.sum() > threshold) {
+            offer(tally);
+        }
+    }
+    
+    private synchronized void offer(DomainTally tally) {
+        if (tally.tracked) {
+            return;
+        }
+        if (size < members.length) {
+            members[size++] = tally;
+            tally.tracked = true;
+            if (size == members.length) {
+                threshold = members[minIndex()].sum();
+            }
+            return;
+        }
+        int min = minIndex();
+        if (tally.sum() > members[min].sum()) {
+            members[min].tracked = false;
+            members[min] = tally;
+            tally.tracked = true;
+            min = minIndex();
+        }
+        threshold = members[min].sum();
+    }
+    
+    /**
+     * Drops a counter that no longer exists (Space-Saving eviction); the freed slot is refilled
+     * by the next counter offered
+     */
+    synchronized void remove(DomainTally tally) {
+        if (!tally.tracked) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            if (members[i] == tally) {
+                members[i] = members[--size];
+                members[size] = null;
+                tally.tracked = false;
+                threshold = -1;
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Called after decrementing a counter
+     */
+    void decreased(DomainTally tally) {
+        if (tally.tracked) {
+            stale = true;
+        }
+    }
+    
+    boolean isStale() {
+        return stale;
+    }
+    
+    /**
+     * Re-selects the top K from every counter, O(N K); only needed after a tracked counter decreased
+     */
+    synchronized void rebuild(Collection<DomainTally> all) {
+        stale = false;
+        for (int i = 0; i < size; i++) {
+            members[i].tracked = false;
+            members[i] = null;
+        }
+        size = 0;
+        threshold = -1;
+        for (DomainTally tally : all) {
+            if (tally.sum() > threshold) {
+                offer(tally);
+            }
+        }
+    }
+    
+    /**
+     * O(K log K) in the tracker's capacity, independent of the number of domains
+     */
+    List<Map.Entry<String, Long>> top(int n) {
+        DomainTally[] current;
+        synchronized (this) {
+            current = Arrays.copyOf(members, size);
+        }
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(current.length);
+        for (DomainTally tally : current) {
+            entries.add(Map.entry(tally.domain, tally.sum()));
+        }
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return entries.size() > n ? new ArrayList<>(entries.subList(0, n)) : entries;
+    }
+    
+    private int minIndex() {
+        int min = 0;
+        long minCount = members[0].sum();
+        for (int i = 1; i < size; i++) {
+            long count = members[i].sum();
+            if (count < minCount) {
+                min = i;
+                minCount = count;
+            }
+        }
+        return min;
+    }
+}
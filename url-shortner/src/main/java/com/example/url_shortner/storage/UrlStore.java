@@ -0,0 +1,133 @@
+package com.example.url_shortner.storage;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Storage engine SPI for URL mappings
+ * Implementations must be thread-safe and keep the short code and original URL
+ * directions consistent: a code returned by {@link #getShortCode(String)} or
+ * {@link #reserveShortCode(String, IntFunction)} must resolve via {@link #getOriginalUrl(String)}.
+ * The engine is selected with the {@code app.storage.engine} property.
+ */
+public interface UrlStore {
+
+    /**
+     * Retrieves the original URL for a given short code
+     * @param shortCode the short code
+     * @return the original URL, or null if not found
+     */
+    String getOriginalUrl(String shortCode);
+
+    /**
+     * Retrieves the short code for a given original URL
+     * @param originalUrl the original URL
+     * @return the short code, or null if not found
+     */
+    String getShortCode(String originalUrl);
+
+    /**
+     * Stores the mapping between short code and original URL, replacing any previous
+     * mapping for the short code
+     * @param shortCode the short code
+     * @param originalUrl the original URL
+     */
+    void storeUrl(String shortCode, String originalUrl);
+
+    /**
+     * Atomically returns the short code already mapped to the URL, or reserves a new one
+     * by trying candidates in order until one is free
+     * @param originalUrl the original URL
+     * @param candidates candidate short codes by attempt number (0, 1, 2, ...)
+     * @return the reservation holding the short code and whether it was created
+     */
+    ShortCodeReservation reserveShortCode(String originalUrl, IntFunction<String> candidates);
+
+    /**
+     * Removes a short code's mapping in both directions, so it stops resolving
+     * @param shortCode the short code
+     * @return the original URL it mapped to, or null if it was not mapped
+     */
+    String removeUrl(String shortCode);
+
+    /**
+     * Increments the count for a domain
+     * @param domain the domain name
+     */
+    void incrementDomainCount(String domain);
+
+    /**
+     * Decrements the count for a domain, when one of its links is removed
+     * @param domain the domain name
+     */
+    void decrementDomainCount(String domain);
+
+    /**
+     * Gets all domain counts
+     * @return a copy of the domain counts map
+     */
+    Map<String, Long> getDomainCounts();
+
+    /**
+     * Gets the most frequent domains from the incrementally maintained top-K
+     * @param n the number of domains to return
+     * @return domain and count pairs sorted by count (descending)
+     */
+    List<Map.Entry<String, Long>> getTopDomains(int n);
+
+    /**
+     * Visits every short code to original URL mapping
+     * Iteration is weakly consistent: mappings added concurrently may or may not be seen.
+     * @param action callback receiving (shortCode, originalUrl)
+     */
+    void forEach(BiConsumer<String, String> action);
+
+    /**
+     * @return the number of stored mappings
+     */
+    long size();
+
+    /**
+     * Approximate memory held by the mappings, on heap and in direct or mapped buffers
+     * Must be cheap enough to poll from a metrics gauge.
+     * @return estimated bytes
+     */
+    long estimatedMemoryBytes();
+
+    /**
+     * Persists every mapping stored so far to the engine's own files (a snapshot, a forced disk
+     * file), so that a write-ahead log in front of the engine can drop the records before this call
+     * @return true if the engine's state is on disk, false if the engine keeps nothing on disk
+     */
+    default boolean checkpoint() throws IOException {
+        return false;
+    }
+
+    /**
+     * @return true if the engine recounts its domains from the mappings it persisted when it is
+     * opened, so its counts already reflect every removal it persisted
+     */
+    default boolean recountsDomainsOnOpen() {
+        return false;
+    }
+    
+    /**
+     * @return true if the mappings survive a restart (an engine with its own files, or a
+     * write-ahead log in front), so state kept alongside them should be persisted too
+     */
+    default boolean isPersistent() {
+        return false;
+    }
+    
+    /**
+     * Reports conditions that make the store unable to serve or persist mappings reliably,
+     * such as a failing write-ahead log, for the readiness check
+     * @return a description of the problem, or null if the store is healthy
+     */
+    default String getHealthProblem() {
+        return null;
+    }
+}
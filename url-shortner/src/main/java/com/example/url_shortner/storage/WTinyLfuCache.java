@@ -0,0 +1,283 @@
+package com.example.url_shortner.storage;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Size-bounded short code cache with W-TinyLFU admission and eviction (Einziger, Friedman and
+ * Manes), the hot tier of {@link TieredUrlStore}
+ *
+ * New entries enter a small LRU window (1% of the capacity) that absorbs bursts of recent links.
+ * An entry leaving the window competes with the eviction victim of the main region, and the one
+ * with the higher access frequency in a {@link FrequencySketch} stays, so a scan of one-off codes
+ * cannot flush the popular ones. The main region is a segmented LRU: an entry accessed again in
+ * probation moves to the protected segment (80% of main). Frequencies are halved every
+ * {@code 10 x} the expected entry count of accesses, so popularity ages out.
+ *
+ * Capacity is in bytes and covers the sketch as well as the entries, whose bytes are estimated
+ * from the string lengths; the sketch takes about 2 bytes per expected entry. Reads are a lock-free map
+ * lookup; the policy update that follows only takes the lock if it is free, so under contention
+ * some accesses go unrecorded, like a lossy read buffer.
+ */
+final class WTinyLfuCache {
+    
+    // Node, map entry and two String headers, beyond the characters themselves
+    static final int ENTRY_OVERHEAD_BYTES = 160;
+    // Expected code plus URL length, for sizing the sketch
+    private static final int TYPICAL_ENTRY_BYTES = ENTRY_OVERHEAD_BYTES + 96;
+    private static final int SAMPLE_FACTOR = 10;
+    
+    private static final int REMOVED = -1;
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    
+    private static final class Node {
+        final String key;
+        final String value;
+        final int weight;
+        // Guarded by the cache lock
+        int queue;
+        Node prev;
+        Node next;
+        
+        Node(String key, String value) {
+            this.key = key;
+            this.value = value;
+            this.weight = ENTRY_OVERHEAD_BYTES + key.length() + value.length();
+        }
+    }
+    
+    /**
+     * Access-ordered list, least recently used first
+     */
+    private static final class AccessOrder {
+        private final Node head = new Node("", "");
+        long weight;
+        
+        AccessOrder() {
+            head.prev = head;
+            head.next = head;
+        }
+        
+        Node first() {
+            return head.next == head ? null : head.next;
+        }
+        
+        Node last() {
+            return head.prev == head ? null : head.prev;
+        }
+        
+        void addLast(Node node) {
+            node.prev = head.prev;
+            node.next = head;
+            head.prev.next = node;
+            head.prev = node;
+            weight += node.weight;
+        }
+        
+        void remove(Node node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            weight -= node.weight;
+        }
+        
+        void moveToLast(Node node) {
+            remove(node);
+            addLast(node);
+        }
+    }
+    
+    private final ConcurrentHashMap<String, Node> data = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long maxWeight;
+    private final long windowMaxWeight;
+    private final long protectedMaxWeight;
+    // Guarded by lock
+    private final FrequencySketch sketch;
+    private final long sampleSize;
+    private final AccessOrder window = new AccessOrder();
+    private final AccessOrder probation = new AccessOrder();
+    private final AccessOrder protectedSegment = new AccessOrder();
+    private long samples;
+    private int candidates;
+    
+    /**
+     * @param maxBytes capacity in estimated bytes, the frequency sketch included
+     */
+    WTinyLfuCache(long maxBytes) {
+        long expectedEntries = Math.max(64, maxBytes / TYPICAL_ENTRY_BYTES);
+        this.sketch = new FrequencySketch((int) Math.min(1 << 24, expectedEntries));
+        this.sampleSize = SAMPLE_FACTOR * expectedEntries;
+        this.maxWeight = maxBytes - sketch.memoryBytes();
+        if (maxWeight < ENTRY_OVERHEAD_BYTES) {
+            throw new IllegalArgumentException("Hot tier must hold at least one entry");
+        }
+        this.windowMaxWeight = Math.max(ENTRY_OVERHEAD_BYTES, maxWeight / 100);
+        this.protectedMaxWeight = (maxWeight - windowMaxWeight) * 4 / 5;
+    }
+    
+    /**
+     * Looks up a key and records the access, hit or miss, for admission
+     * @return the cached value, or null
+     */
+    String get(String key) {
+        Node node = data.get(key);
+        if (lock.tryLock()) {
+            try {
+                record(key);
+                if (node != null && node.queue != REMOVED) {
+                    onHit(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return node == null ? null : node.value;
+    }
+    
+    /**
+     * Adds or replaces an entry; it starts in the window and may be evicted right away on leaving it
+     */
+    void put(String key, String value) {
+        Node node = new Node(key, value);
+        lock.lock();
+        try {
+            Node previous = data.put(key, node);
+            if (previous != null) {
+                unlink(previous);
+            }
+            node.queue = WINDOW;
+            window.addLast(node);
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    void remove(String key) {
+        lock.lock();
+        try {
+            Node node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void record(String key) {
+        sketch.increment(key);
+        if (++samples >= sampleSize) {
+            sketch.decay();
+            samples /= 2;
+        }
+    }
+    
+    private void onHit(Node node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToLast(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protectedSegment.addLast(node);
+                // Demoted entries go back to probation as its most recently used
+                while (protectedSegment.weight > protectedMaxWeight) {
+                    Node demoted = protectedSegment.first();
+                    protectedSegment.remove(demoted);
+                    demoted.queue = PROBATION;
+                    probation.addLast(demoted);
+                }
+                break;
+            default:
+                protectedSegment.moveToLast(node);
+        }
+    }
+    
+    private void unlink(Node node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.remove(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            case PROTECTED:
+                protectedSegment.remove(node);
+                break;
+            default:
+                return;
+        }
+        node.queue = REMOVED;
+    }
+    
+    /**
+     * Moves the window's overflow to the tail of probation as candidates, then evicts the
+     * less frequent of candidate and probation victim until the cache fits
+     */
+    private void evict() {
+        while (window.weight > windowMaxWeight) {
+            Node node = window.first();
+            window.remove(node);
+            node.queue = PROBATION;
+            probation.addLast(node);
+            candidates++;
+        }
+        while (weightedSize() > maxWeight) {
+            Node victim = probation.first();
+            if (victim == null) {
+                victim = protectedSegment.first() != null ? protectedSegment.first() : window.first();
+                evict(victim);
+                continue;
+            }
+            Node candidate = candidates > 0 ? probation.last() : null;
+            if (candidate == null || candidate == victim) {
+                if (candidate != null) {
+                    candidates--;
+                }
+                evict(victim);
+            } else if (sketch.estimate(candidate.key) > sketch.estimate(victim.key)) {
+                evict(victim);
+            } else {
+                evict(candidate);
+                candidates--;
+            }
+        }
+        candidates = 0;
+    }
+    
+    private void evict(Node node) {
+        unlink(node);
+        data.remove(node.key, node);
+    }
+    
+    /**
+     * @return estimated bytes held by the entries
+     */
+    long weightedSize() {
+        return window.weight + probation.weight + protectedSegment.weight;
+    }
+    
+    long size() {
+        return data.size();
+    }
+    
+    /**
+     * @return the capacity left for entries, in estimated bytes
+     */
+    long maxWeight() {
+        return maxWeight;
+    }
+    
+    /**
+     * @return bytes of the frequency sketch
+     */
+    long sketchBytes() {
+        return sketch.memoryBytes();
+    }
+}
@@ -0,0 +1,440 @@
+package com.example.url_shortner.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log of storage mutations with group commit
+ *
+ * File layout: an 8-byte magic header followed by records of the form
+ * <pre>
+ *   int   payload length
+ *   int   CRC32 of payload
+ *   payload: byte type, short key length, key bytes (UTF-8), value bytes (UTF-8)
+ * </pre>
+ * {@link #replay(RecordHandler)} stops at the first incomplete or corrupt record
+ * (a torn tail from a crash mid-write) and truncates the file there.
+ * Positions handed out by {@link #write} and {@link #position()} count every byte ever appended,
+ * so they stay valid after {@link #discardBefore(long)} drops the head of the file.
+ */
+public class WriteAheadLog implements Closeable {
+    
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+    
+    public static final byte PUT = 1;
+    // Key is the removed short code, value is empty
+    public static final byte REMOVE = 2;
+    // Key is the domain, value is empty
+    public static final byte DOMAIN_DECREMENT = 3;
+    
+    private static final long MAGIC = 0x55524c57414c3031L; // "URLWAL01"
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_PAYLOAD_BYTES = 1 << 20;
+    
+    /**
+     * Receives records during replay
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void onRecord(byte type, String key, String value);
+    }
+    
+    private final Path path;
+    private final FsyncPolicy fsyncPolicy;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Object syncMonitor = new Object();
+    private final ScheduledExecutorService flusher;
+    
+    // Replaced (under writeLock) when the head of the log is discarded
+    private volatile FileChannel channel;
+    
+    // Guarded by writeLock
+    private long writtenPosition;
+    // Bytes dropped from the head of the file: file offset = position - discarded
+    private long discarded;
+    private boolean replayed;
+    
+    // Guarded by syncMonitor
+    private long durablePosition;
+    private boolean syncInProgress;
+    
+    // Latest write or fsync failure, cleared by the next successful fsync
+    private volatile String failure;
+    
+    /**
+     * Opens (or creates) the log
+     * @param path log file path
+     * @param fsyncPolicy when appended records are forced to disk
+     * @param fsyncIntervalMillis fsync period for {@link FsyncPolicy#INTERVAL}
+     */
+    public WriteAheadLog(Path path, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) throws IOException {
+        this.path = path;
+        this.fsyncPolicy = fsyncPolicy;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_BYTES) {
+            channel.truncate(0);
+            writeFully(channel, header(), 0);
+            channel.force(true);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(header, 0);
+            if (header.flip().getLong() != MAGIC) {
+                channel.close();
+                throw new IOException("Not a URL write-ahead log: " + path);
+            }
+        }
+        this.writtenPosition = HEADER_BYTES;
+        this.durablePosition = HEADER_BYTES;
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "wal-fsync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::syncQuietly, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+    
+    /**
+     * Replays every intact record in order, then truncates any torn tail
+     * Must be called once before the first {@link #append}.
+     * @param handler receives each record
+     * @return number of records replayed
+     */
+    public long replay(RecordHandler handler) throws IOException {
+        writeLock.lock();
+        try {
+            long fileSize = channel.size();
+            long position = HEADER_BYTES;
+            long records = 0;
+            CRC32 crc = new CRC32();
+            byte[] payload = new byte[256];
+            channel.position(HEADER_BYTES);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+            while (position + RECORD_HEADER_BYTES <= fileSize) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 3 || length > MAX_PAYLOAD_BYTES || position + RECORD_HEADER_BYTES + length > fileSize) {
+                    break;
+                }
+                if (payload.length < length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+                in.readFully(payload, 0, length);
+                crc.reset();
+                crc.update(payload, 0, length);
+                int keyLength = ((payload[1] & 0xFF) << 8) | (payload[2] & 0xFF);
+                if ((int) crc.getValue() != checksum || 3 + keyLength > length) {
+                    break;
+                }
+                String key = new String(payload, 3, keyLength, StandardCharsets.UTF_8);
+                String value = new String(payload, 3 + keyLength, length - 3 - keyLength, StandardCharsets.UTF_8);
+                handler.onRecord(payload[0], key, value);
+                records++;
+                position += RECORD_HEADER_BYTES + length;
+            }
+            if (position < fileSize) {
+                log.warn("Truncating torn tail of write-ahead log {} at offset {} ({} bytes discarded)",
+                        path, position, fileSize - position);
+                channel.truncate(position);
+                channel.force(true);
+            }
+            writtenPosition = position;
+            synchronized (syncMonitor) {
+                durablePosition = position;
+            }
+            replayed = true;
+            return records;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * Appends a record and, depending on the fsync policy, waits until it is durable
+     * @param type record type
+     * @param key record key (at most 65535 UTF-8 bytes)
+     * @param value record value
+     */
+    public void append(byte type, String key, String value) {
+        await(write(type, key, value));
+    }
+    
+    /**
+     * Appends a record without waiting for a batched fsync, so callers can order their writes
+     * under their own locks and wait for durability after releasing them
+     * @param type record type
+     * @param key record key (at most 65535 UTF-8 bytes)
+     * @param value record value
+     * @return the log position after the record, to pass to {@link #await(long)}
+     */
+    public long write(byte type, String key, String value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Key too long for write-ahead log record");
+        }
+        int length = 3 + keyBytes.length + valueBytes.length;
+        if (length > MAX_PAYLOAD_BYTES) {
+            throw new IllegalArgumentException("Record too large for write-ahead log");
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + length);
+        record.putInt(length).putInt(0)
+                .put(type).putShort((short) keyBytes.length).put(keyBytes).put(valueBytes);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_BYTES, length);
+        record.putInt(4, (int) crc.getValue()).flip();
+        
+        long endPosition;
+        writeLock.lock();
+        try {
+            if (!replayed) {
+                throw new IllegalStateException("replay() must be called before append()");
+            }
+            writeFully(channel, record, writtenPosition - discarded);
+            writtenPosition += record.limit();
+            endPosition = writtenPosition;
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                channel.force(false);
+                failure = null;
+                synchronized (syncMonitor) {
+                    durablePosition = endPosition;
+                }
+            }
+        } catch (IOException e) {
+            failure = "Append failed: " + e.getMessage();
+            throw new UncheckedIOException("Failed to append to write-ahead log " + path, e);
+        } finally {
+            writeLock.unlock();
+        }
+        return endPosition;
+    }
+    
+    /**
+     * Waits until everything up to {@code position} is durable, if the fsync policy requires it
+     * ({@link FsyncPolicy#ALWAYS} forces each record as it is written, {@link FsyncPolicy#INTERVAL}
+     * never waits)
+     * @param position a position returned by {@link #write}
+     */
+    public void await(long position) {
+        if (fsyncPolicy == FsyncPolicy.BATCHED) {
+            awaitDurable(position);
+        }
+    }
+    
+    /**
+     * Group commit: the first waiter becomes the leader and fsyncs everything written so far;
+     * writers arriving meanwhile wait and are covered by the leader's next round.
+     */
+    private void awaitDurable(long position) {
+        while (true) {
+            synchronized (syncMonitor) {
+                while (durablePosition < position && syncInProgress) {
+                    try {
+                        syncMonitor.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted waiting for write-ahead log fsync", e);
+                    }
+                }
+                if (durablePosition >= position) {
+                    return;
+                }
+                syncInProgress = true;
+            }
+            try {
+                sync();
+            } finally {
+                synchronized (syncMonitor) {
+                    syncInProgress = false;
+                    syncMonitor.notifyAll();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Forces everything written so far to disk
+     */
+    public void sync() {
+        long target;
+        FileChannel current;
+        writeLock.lock();
+        try {
+            target = writtenPosition;
+            current = channel;
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            current.force(false);
+        } catch (ClosedChannelException e) {
+            if (current == channel) {
+                failure = "Fsync failed: log is closed";
+                throw new UncheckedIOException("Failed to fsync write-ahead log " + path, e);
+            }
+            // The head was discarded meanwhile, which forced everything written before the swap
+        } catch (IOException e) {
+            failure = "Fsync failed: " + e.getMessage();
+            throw new UncheckedIOException("Failed to fsync write-ahead log " + path, e);
+        }
+        failure = null;
+        synchronized (syncMonitor) {
+            if (target > durablePosition) {
+                durablePosition = target;
+            }
+        }
+    }
+    
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            log.error("Background fsync of write-ahead log {} failed", path, e);
+        }
+    }
+    
+    /**
+     * @return the position after the last appended record
+     */
+    public long position() {
+        writeLock.lock();
+        try {
+            return writtenPosition;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * @return current size of the log file in bytes
+     */
+    public long size() {
+        writeLock.lock();
+        try {
+            return writtenPosition - discarded;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * Drops every record before {@code position}, once the state they describe has been persisted
+     * elsewhere (a checkpoint of the storage engine). The remaining records are copied to a new
+     * file that atomically replaces the log, so a crash leaves either the old or the new log.
+     * Appends wait while the tail is copied; it is short right after a checkpoint.
+     * @param position a position returned by {@link #position()} before the checkpoint started
+     */
+    public void discardBefore(long position) throws IOException {
+        writeLock.lock();
+        try {
+            long from = position - discarded;
+            if (from <= HEADER_BYTES) {
+                return;
+            }
+            long end = writtenPosition - discarded;
+            // Everything written so far becomes durable here, before the old file goes away
+            channel.force(false);
+            synchronized (syncMonitor) {
+                durablePosition = Math.max(durablePosition, writtenPosition);
+                syncMonitor.notifyAll();
+            }
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel next = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(next, header(), 0);
+                next.position(HEADER_BYTES);
+                long copied = 0;
+                while (copied < end - from) {
+                    copied += channel.transferTo(from + copied, end - from - copied, next);
+                }
+                next.force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            FileChannel previous = channel;
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            previous.close();
+            discarded += from - HEADER_BYTES;
+            failure = null;
+        } catch (IOException e) {
+            failure = "Discarding checkpointed records failed: " + e.getMessage();
+            throw e;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * @return the latest append or fsync failure, or null if the log has been written and synced since
+     */
+    public String getFailure() {
+        return failure;
+    }
+    
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        writeLock.lock();
+        try {
+            if (channel.isOpen()) {
+                channel.force(true);
+                channel.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    private static ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER_BYTES).putLong(MAGIC).flip();
+    }
+    
+    private static void writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += target.write(buffer, offset);
+        }
+    }
+    
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of write-ahead log " + path);
+            }
+            offset += read;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.url_shortner.telemetry;
+
+import com.example.url_shortner.model.RecordingStatus;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * On-demand JFR recording of the running service, for the admin endpoint
+ * One recording at a time, with one of the JDK's settings ("default", about 1% overhead, or
+ * "profile", more detail at a few percent) plus the {@link ShortenEvent} and {@link LookupEvent}
+ * events. A recording stops itself after {@code app.telemetry.jfr.max-duration-seconds} so a
+ * forgotten one does not run on; its data is kept until it is stopped and dumped.
+ */
+@Component
+public class FlightRecording implements Closeable {
+    
+    private static final Logger log = LoggerFactory.getLogger(FlightRecording.class);
+    
+    public static final Set<String> SETTINGS = Set.of("default", "profile");
+    
+    private final Duration maxDuration;
+    private Recording recording;
+    private String settings;
+    
+    public FlightRecording(@Value("${app.telemetry.jfr.max-duration-seconds:600}") long maxDurationSeconds) {
+        this.maxDuration = Duration.ofSeconds(maxDurationSeconds);
+        // Makes the events known to recordings started outside the service (jcmd JFR.start)
+        FlightRecorder.register(ShortenEvent.class);
+        FlightRecorder.register(LookupEvent.class);
+    }
+    
+    /**
+     * Starts a recording
+     * @param settings "default" or "profile"
+     * @return false if a recording was already started and not yet stopped
+     */
+    public synchronized boolean start(String settings) throws IOException, ParseException {
+        if (recording != null) {
+            return false;
+        }
+        Recording started = new Recording(Configuration.getConfiguration(settings));
+        started.setName("url-shortener");
+        started.enable(ShortenEvent.class);
+        started.enable(LookupEvent.class);
+        started.setToDisk(true);
+        started.setDuration(maxDuration);
+        started.start();
+        this.recording = started;
+        this.settings = settings;
+        log.info("JFR recording started with {} settings, stops itself after {}s", settings, maxDuration.getSeconds());
+        return true;
+    }
+    
+    /**
+     * Stops the recording and writes it to a temporary file, which the caller deletes
+     * @return the .jfr file, or null if no recording was started
+     */
+    public synchronized Path stop() throws IOException {
+        if (recording == null) {
+            return null;
+        }
+        try {
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+            }
+            Path file = Files.createTempFile("url-shortener-", ".jfr");
+            recording.dump(file);
+            log.info("JFR recording stopped, {} KB", Files.size(file) / 1024);
+            return file;
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+    
+    public synchronized RecordingStatus getStatus() {
+        if (recording == null) {
+            return new RecordingStatus(false);
+        }
+        RecordingStatus status = new RecordingStatus(true);
+        status.setState(recording.getState().name().toLowerCase());
+        status.setSettings(settings);
+        status.setStartedAt(String.valueOf(recording.getStartTime()));
+        status.setMaxDurationSeconds(maxDuration.getSeconds());
+        status.setSizeBytes(recording.getSize());
+        return status;
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
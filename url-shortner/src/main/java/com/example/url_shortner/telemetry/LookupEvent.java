@@ -0,0 +1,26 @@
+package com.example.url_shortner.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of one short code lookup (redirects and the click API)
+ * Free while no recording enables it, like {@link ShortenEvent}.
+ */
+@Name("urlshortener.Lookup")
+@Label("Short Code Lookup")
+@Category("URL Shortener")
+@Description("Lookup of the original URL for a short code")
+@StackTrace(false)
+public class LookupEvent extends Event {
+    
+    @Label("Short Code")
+    public String shortCode;
+    
+    @Label("Found")
+    public boolean found;
+}
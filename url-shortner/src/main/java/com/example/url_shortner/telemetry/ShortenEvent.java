@@ -0,0 +1,52 @@
+package com.example.url_shortner.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event of one shorten call, with the time spent in each phase
+ * Only recorded while a recording enables it; otherwise creating, beginning and committing
+ * the event are no-ops the JIT removes, and the phases are not timed.
+ */
+@Name("urlshortener.Shorten")
+@Label("Shorten")
+@Category("URL Shortener")
+@Description("Validation, code generation and storage of one shortened URL")
+@StackTrace(false)
+public class ShortenEvent extends Event {
+    
+    @Label("Outcome")
+    @Description("created, existing, invalid or exhausted")
+    public String outcome;
+    
+    @Label("Short Code")
+    public String shortCode;
+    
+    @Label("URL Length")
+    @DataAmount(DataAmount.BYTES)
+    public int urlLength;
+    
+    @Label("Validation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long validationTime;
+    
+    @Label("Hash Time")
+    @Description("Time generating candidate codes, summed over the probes")
+    @Timespan(Timespan.NANOSECONDS)
+    public long hashTime;
+    
+    @Label("Probes")
+    @Description("Candidate codes tried; 0 when the URL was already shortened")
+    public int probes;
+    
+    @Label("Store Time")
+    @Description("Time in storage reserving the code, excluding code generation")
+    @Timespan(Timespan.NANOSECONDS)
+    public long storeTime;
+}
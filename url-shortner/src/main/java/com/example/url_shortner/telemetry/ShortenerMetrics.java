@@ -0,0 +1,127 @@
+package com.example.url_shortner.telemetry;
+
+import com.example.url_shortner.storage.ShortCodeReservation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters of the shorten and redirect paths
+ * Meters are registered once, so the request paths only read the clock and update a meter:
+ * urlshortener.shorten (outcome: created, existing, invalid), urlshortener.shorten.validate,
+ * urlshortener.shorten.generate (per candidate code), urlshortener.shorten.probes (candidates
+ * tried per new code), urlshortener.shorten.collisions and urlshortener.redirect (result: hit, miss).
+ * With {@code app.telemetry.enabled=false} nothing is recorded and the clock is not read.
+ */
+@Component
+public class ShortenerMetrics {
+    
+    private final boolean enabled;
+    private final Timer created;
+    private final Timer existing;
+    private final Timer invalid;
+    private final Timer validate;
+    private final Timer generate;
+    private final DistributionSummary probes;
+    private final Counter collisions;
+    private final Timer redirectHit;
+    private final Timer redirectMiss;
+    
+    @Autowired
+    public ShortenerMetrics(MeterRegistry registry, @Value("${app.telemetry.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        this.created = shorten(registry, "created");
+        this.existing = shorten(registry, "existing");
+        this.invalid = shorten(registry, "invalid");
+        this.validate = Timer.builder("urlshortener.shorten.validate")
+                .description("URL validation and normalization latency")
+                .register(registry);
+        this.generate = Timer.builder("urlshortener.shorten.generate")
+                .description("Latency of generating one candidate short code")
+                .register(registry);
+        this.probes = DistributionSummary.builder("urlshortener.shorten.probes")
+                .description("Candidate codes tried per new short code")
+                // Buckets per probe count, for the probe-length histogram
+                .serviceLevelObjectives(1, 2, 3, 4, 6, 8, 12, 16, 24)
+                .register(registry);
+        this.collisions = Counter.builder("urlshortener.shorten.collisions")
+                .description("Candidate codes already taken by another URL")
+                .register(registry);
+        this.redirectHit = redirect(registry, "hit");
+        this.redirectMiss = redirect(registry, "miss");
+    }
+    
+    /**
+     * Metrics that record nothing, for services built outside Spring
+     */
+    public static ShortenerMetrics disabled() {
+        return new ShortenerMetrics(new SimpleMeterRegistry(), false);
+    }
+    
+    private static Timer shorten(MeterRegistry registry, String outcome) {
+        return Timer.builder("urlshortener.shorten")
+                .description("Shorten latency")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+    
+    private static Timer redirect(MeterRegistry registry, String result) {
+        return Timer.builder("urlshortener.redirect")
+                .description("Redirect lookup latency")
+                .tag("result", result)
+                .register(registry);
+    }
+    
+    /**
+     * @return the start time to pass to a record method, or 0 when disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+    
+    public void recordValidate(long start) {
+        record(validate, start);
+    }
+    
+    public void recordGenerate(long start) {
+        record(generate, start);
+    }
+    
+    public void recordInvalid(long start) {
+        record(invalid, start);
+    }
+    
+    /**
+     * Records a completed shorten, with the probes of the collision loop if a code was created
+     */
+    public void recordShorten(long start, ShortCodeReservation reservation) {
+        if (!enabled) {
+            return;
+        }
+        if (reservation.isCreated()) {
+            record(created, start);
+            probes.record(reservation.getProbes());
+            if (reservation.getProbes() > 1) {
+                collisions.increment(reservation.getProbes() - 1);
+            }
+        } else {
+            record(existing, start);
+        }
+    }
+    
+    public void recordRedirect(long start, boolean hit) {
+        record(hit ? redirectHit : redirectMiss, start);
+    }
+    
+    private void record(Timer timer, long start) {
+        if (enabled) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.url_shortner.telemetry;
+
+import com.example.url_shortner.storage.UrlStore;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Storage health, contributed to the readiness group as "storage"
+ * Down when the store reports a problem (e.g. a failing write-ahead log or snapshot, or
+ * consecutive failed operations) or when a probe lookup throws. The probe looks up a URL
+ * that is never stored, so it reaches the engine's index without adding a mapping.
+ */
+@Component
+public class StorageHealthIndicator implements HealthIndicator {
+    
+    static final String PROBE_URL = "https://health.invalid/probe";
+    
+    private final UrlStore urlStore;
+    
+    public StorageHealthIndicator(UrlStore urlStore) {
+        this.urlStore = urlStore;
+    }
+    
+    @Override
+    public Health health() {
+        long start = System.nanoTime();
+        long mappings;
+        try {
+            mappings = urlStore.size();
+            urlStore.getShortCode(PROBE_URL);
+        } catch (RuntimeException e) {
+            return Health.down(e).build();
+        }
+        long probeMicros = (System.nanoTime() - start) / 1_000;
+        String problem = urlStore.getHealthProblem();
+        Health.Builder health = problem == null ? Health.up() : Health.down().withDetail("problem", problem);
+        return health.withDetail("mappings", mappings)
+                .withDetail("estimated_memory_bytes", urlStore.estimatedMemoryBytes())
+                .withDetail("probe_micros", probeMicros)
+                .build();
+    }
+}
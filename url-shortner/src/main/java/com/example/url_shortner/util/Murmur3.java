@@ -0,0 +1,102 @@
+package com.example.url_shortner.util;
+
+/**
+ * MurmurHash3 (x64, 128-bit variant) computed directly over a String's UTF-16 chars
+ * Each char is fed as two little-endian bytes, so no byte[] encoding is needed;
+ * results match Guava's {@code murmur3_128().hashUnencodedChars(...)}.
+ */
+public final class Murmur3 {
+    
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    
+    private Murmur3() {
+    }
+    
+    /**
+     * @param chars the input
+     * @param seed the hash seed
+     * @return the first 64 bits of the 128-bit hash
+     */
+    public static long hash64(CharSequence chars, int seed) {
+        long h1 = seed & 0xFFFFFFFFL;
+        long h2 = h1;
+        int length = chars.length();
+        int i = 0;
+        
+        // 16-byte blocks: 8 chars each
+        for (; i + 8 <= length; i += 8) {
+            long k1 = block(chars, i);
+            long k2 = block(chars, i + 4);
+            
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+            
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        
+        // Tail: up to 7 chars
+        long k1 = 0;
+        long k2 = 0;
+        int remaining = length - i;
+        for (int j = remaining - 1; j >= 4; j--) {
+            k2 = (k2 << 16) | chars.charAt(i + j);
+        }
+        for (int j = Math.min(remaining, 4) - 1; j >= 0; j--) {
+            k1 = (k1 << 16) | chars.charAt(i + j);
+        }
+        if (remaining > 4) {
+            h2 ^= mixK2(k2);
+        }
+        if (remaining > 0) {
+            h1 ^= mixK1(k1);
+        }
+        
+        long byteLength = 2L * length;
+        h1 ^= byteLength;
+        h2 ^= byteLength;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        return h1 + h2;
+    }
+    
+    private static long block(CharSequence chars, int offset) {
+        return chars.charAt(offset)
+                | (long) chars.charAt(offset + 1) << 16
+                | (long) chars.charAt(offset + 2) << 32
+                | (long) chars.charAt(offset + 3) << 48;
+    }
+    
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+    
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+    
+    /**
+     * MurmurHash3 64-bit finalizer: spreads every input bit over the whole result
+     * @param k the value to mix
+     * @return the mixed value
+     */
+    public static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.url_shortner.util;
+
+/**
+ * Result of {@link UrlParser#parse}: either a normalized URL with its host offsets or a rejection reason
+ */
+public final class ParsedUrl {
+    
+    static final ParsedUrl EMPTY = invalid("URL cannot be empty");
+    static final ParsedUrl INVALID_SCHEME = invalid("URL must use http or https scheme");
+    static final ParsedUrl INVALID_HOST = invalid("URL must have a valid host");
+    static final ParsedUrl INVALID_PORT = invalid("Invalid URL format: invalid port");
+    static final ParsedUrl ILLEGAL_CHARACTER = invalid("Invalid URL format: illegal character");
+    
+    private final String url;
+    private final int hostStart;
+    private final int hostEnd;
+    private final String error;
+    
+    private ParsedUrl(String url, int hostStart, int hostEnd, String error) {
+        this.url = url;
+        this.hostStart = hostStart;
+        this.hostEnd = hostEnd;
+        this.error = error;
+    }
+    
+    static ParsedUrl valid(String url, int hostStart, int hostEnd) {
+        return new ParsedUrl(url, hostStart, hostEnd, null);
+    }
+    
+    private static ParsedUrl invalid(String error) {
+        return new ParsedUrl(null, -1, -1, error);
+    }
+    
+    public boolean isValid() {
+        return error == null;
+    }
+    
+    /**
+     * @return the normalized URL, or null if invalid
+     */
+    public String getUrl() {
+        return url;
+    }
+    
+    /**
+     * @return the host without userinfo or port, or null if invalid
+     */
+    public String getHost() {
+        return url == null ? null : url.substring(hostStart, hostEnd);
+    }
+    
+    public int getHostStart() {
+        return hostStart;
+    }
+    
+    public int getHostEnd() {
+        return hostEnd;
+    }
+    
+    /**
+     * @return why the URL was rejected, or null if valid
+     */
+    public String getError() {
+        return error;
+    }
+}
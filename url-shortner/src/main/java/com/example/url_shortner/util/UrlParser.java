@@ -0,0 +1,206 @@
+package com.example.url_shortner.util;
+
+/**
+ * Single-pass scanner for http(s) URLs
+ *
+ * Validates the scheme, authority (userinfo, host, port) and the remaining characters in one
+ * pass over the input and records the host offsets, so callers get the domain without parsing
+ * again. Invalid input yields one of the shared rejection results in {@link ParsedUrl}; nothing
+ * is thrown and, for input that is already normalized, nothing is allocated but the result.
+ */
+public final class UrlParser {
+    
+    private static final String DEFAULT_SCHEME = "https://";
+    // DNS names are at most 253 characters; longer hosts could not resolve anyway
+    static final int MAX_HOST_LENGTH = 253;
+    
+    // RFC 3986 reg-name characters: unreserved, pct-encoded and sub-delims; non-ASCII allowed for IDNs
+    private static final boolean[] HOST_CHARS = new boolean[128];
+    
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            HOST_CHARS[c] = true;
+            HOST_CHARS[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            HOST_CHARS[c] = true;
+        }
+        for (char c : "-._~%!$&'()*+,;=".toCharArray()) {
+            HOST_CHARS[c] = true;
+        }
+    }
+    
+    private UrlParser() {
+    }
+    
+    /**
+     * Parses user input, trimming it and defaulting the scheme to https
+     * @param input the raw URL, may be null
+     * @return the parsed URL or a rejection
+     */
+    public static ParsedUrl parseAndNormalize(String input) {
+        return parse(input, true);
+    }
+    
+    /**
+     * Parses a URL that must already carry an http or https scheme
+     * @param input the URL, may be null
+     * @return the parsed URL or a rejection
+     */
+    public static ParsedUrl parse(String input) {
+        return parse(input, false);
+    }
+    
+    private static ParsedUrl parse(String s, boolean defaultScheme) {
+        if (s == null) {
+            return ParsedUrl.EMPTY;
+        }
+        int start = 0;
+        int end = s.length();
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return ParsedUrl.EMPTY;
+        }
+        
+        // Scheme: ALPHA *( ALPHA / DIGIT / "+" / "-" / "." ) ":"
+        int i = start;
+        if (isAlpha(s.charAt(i))) {
+            i++;
+            while (i < end && isSchemeChar(s.charAt(i))) {
+                i++;
+            }
+        }
+        boolean hasSchemeSeparator = i > start && i < end && s.charAt(i) == ':';
+        boolean httpScheme = hasSchemeSeparator && isHttpScheme(s, start, i);
+        boolean lowercaseScheme = false;
+        int authorityStart;
+        if (hasSchemeSeparator && s.startsWith("//", i + 1)) {
+            if (!httpScheme) {
+                return ParsedUrl.INVALID_SCHEME;
+            }
+            lowercaseScheme = isLowerCase(s, start, i);
+            authorityStart = i + 3;
+        } else if (httpScheme || !defaultScheme) {
+            // "http:example.com", "https:/example.com", or no scheme where one is required
+            return ParsedUrl.INVALID_SCHEME;
+        } else {
+            authorityStart = start;
+        }
+        
+        // Authority ends at the first '/', '?' or '#'; the host follows the userinfo's '@'
+        // (a second '@' is not a host character, so it is rejected below)
+        int authorityEnd = authorityStart;
+        int hostStart = authorityStart;
+        for (; authorityEnd < end; authorityEnd++) {
+            char c = s.charAt(authorityEnd);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            if (isIllegal(c)) {
+                return ParsedUrl.ILLEGAL_CHARACTER;
+            }
+            if (c == '@' && hostStart == authorityStart) {
+                hostStart = authorityEnd + 1;
+            }
+        }
+        
+        int hostEnd = hostStart;
+        if (hostEnd < authorityEnd && s.charAt(hostEnd) == '[') {
+            // IP literal: "[" hex digits, ':' and '.' "]"
+            hostEnd++;
+            while (hostEnd < authorityEnd && isIpLiteralChar(s.charAt(hostEnd))) {
+                hostEnd++;
+            }
+            if (hostEnd == authorityEnd || s.charAt(hostEnd) != ']' || hostEnd == hostStart + 1) {
+                return ParsedUrl.INVALID_HOST;
+            }
+            hostEnd++;
+        } else {
+            while (hostEnd < authorityEnd && s.charAt(hostEnd) != ':') {
+                char c = s.charAt(hostEnd);
+                if (c < HOST_CHARS.length && !HOST_CHARS[c]) {
+                    return ParsedUrl.INVALID_HOST;
+                }
+                hostEnd++;
+            }
+        }
+        if (hostEnd == hostStart || hostEnd - hostStart > MAX_HOST_LENGTH) {
+            return ParsedUrl.INVALID_HOST;
+        }
+        
+        // Optional port: ":" followed by at most 65535; an empty port is allowed
+        if (hostEnd < authorityEnd) {
+            if (s.charAt(hostEnd) != ':') {
+                return ParsedUrl.INVALID_HOST;
+            }
+            int port = 0;
+            for (int p = hostEnd + 1; p < authorityEnd; p++) {
+                char c = s.charAt(p);
+                if (c < '0' || c > '9') {
+                    return ParsedUrl.INVALID_PORT;
+                }
+                port = port * 10 + (c - '0');
+                if (port > 65_535) {
+                    return ParsedUrl.INVALID_PORT;
+                }
+            }
+        }
+        
+        // Path, query and fragment: anything but whitespace and control characters
+        for (int p = authorityEnd; p < end; p++) {
+            if (isIllegal(s.charAt(p))) {
+                return ParsedUrl.ILLEGAL_CHARACTER;
+            }
+        }
+        
+        if (authorityStart == start) {
+            String url = DEFAULT_SCHEME + s.substring(start, end);
+            int shift = DEFAULT_SCHEME.length() - start;
+            return ParsedUrl.valid(url, hostStart + shift, hostEnd + shift);
+        }
+        if (!lowercaseScheme) {
+            String url = s.substring(start, authorityStart).toLowerCase() + s.substring(authorityStart, end);
+            return ParsedUrl.valid(url, hostStart - start, hostEnd - start);
+        }
+        if (start == 0 && end == s.length()) {
+            return ParsedUrl.valid(s, hostStart, hostEnd);
+        }
+        return ParsedUrl.valid(s.substring(start, end), hostStart - start, hostEnd - start);
+    }
+    
+    private static boolean isHttpScheme(String s, int start, int end) {
+        int length = end - start;
+        return (length == 4 || length == 5)
+                && s.regionMatches(true, start, "https", 0, length);
+    }
+    
+    private static boolean isLowerCase(String s, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (Character.isUpperCase(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isAlpha(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+    
+    private static boolean isSchemeChar(char c) {
+        return isAlpha(c) || (c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.';
+    }
+    
+    private static boolean isIpLiteralChar(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F') || c == ':' || c == '.';
+    }
+    
+    private static boolean isIllegal(char c) {
+        return c <= ' ' || c == 0x7F;
+    }
+}
@@ -1,18 +1,29 @@
 package com.example.url_shortner.util;
 
-import java.net.MalformedURLException;
-import java.net.URL;
+import com.example.url_shortner.exception.InvalidUrlException;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
 
 /**
  * Utility class for URL operations
  */
 public class UrlUtils {
     
-    private static final String DEFAULT_SCHEME = "https://";
+    private static final char[] BASE64_URL_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final int SHORT_CODE_LENGTH = 8;
+    // Long enough for any code a 64-bit hash can fill (6 bits per character)
+    private static final int MAX_CODE_LENGTH = Long.SIZE / 6;
+    private static final ThreadLocal<char[]> SHORT_CODE_BUFFER =
+            ThreadLocal.withInitial(() -> new char[MAX_CODE_LENGTH]);
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    });
     
     /**
      * Validates and normalizes a URL
@@ -21,32 +32,21 @@ public class UrlUtils {
      * @throws InvalidUrlException if URL is invalid
      */
     public static String validateAndNormalizeUrl(String urlString) {
-        if (urlString == null || urlString.trim().isEmpty()) {
-            throw new com.example.url_shortner.exception.InvalidUrlException("URL cannot be empty");
-        }
-        
-        String normalizedUrl = urlString.trim();
-        
-        // Add scheme if missing
-        if (!normalizedUrl.startsWith("http://") && !normalizedUrl.startsWith("https://")) {
-            normalizedUrl = DEFAULT_SCHEME + normalizedUrl;
-        }
-        
-        // Validate URL format
-        try {
-            URL url = new URL(normalizedUrl);
-            String scheme = url.getProtocol();
-            if (!"http".equals(scheme) && !"https".equals(scheme)) {
-                throw new com.example.url_shortner.exception.InvalidUrlException("URL must use http or https scheme");
-            }
-            if (url.getHost() == null || url.getHost().isEmpty()) {
-                throw new com.example.url_shortner.exception.InvalidUrlException("URL must have a valid host");
-            }
-        } catch (MalformedURLException e) {
-            throw new com.example.url_shortner.exception.InvalidUrlException("Invalid URL format: " + e.getMessage());
+        return parseUrl(urlString).getUrl();
+    }
+    
+    /**
+     * Validates and normalizes a URL, keeping the host offsets so the domain needs no second parse
+     * @param urlString the URL string to validate
+     * @return the parsed, normalized URL
+     * @throws InvalidUrlException if URL is invalid
+     */
+    public static ParsedUrl parseUrl(String urlString) {
+        ParsedUrl parsedUrl = UrlParser.parseAndNormalize(urlString);
+        if (!parsedUrl.isValid()) {
+            throw new InvalidUrlException(parsedUrl.getError());
         }
-        
-        return normalizedUrl;
+        return parsedUrl;
     }
     
     /**
@@ -55,41 +55,57 @@ public class UrlUtils {
      * @return the domain name
      */
     public static String extractDomain(String urlString) {
-        try {
-            URL url = new URL(urlString);
-            String host = url.getHost();
-            // Remove port if present
-            int portIndex = host.indexOf(':');
-            if (portIndex != -1) {
-                host = host.substring(0, portIndex);
-            }
-            return host;
-        } catch (MalformedURLException e) {
-            return "unknown";
-        }
+        ParsedUrl parsedUrl = UrlParser.parse(urlString);
+        return parsedUrl.isValid() ? parsedUrl.getHost() : "unknown";
     }
     
     /**
      * Generates a short code from a URL using MD5 hash
+     * The same code as the MD5 digest's Base64url prefix, without the Base64 round trip.
      * @param url the original URL
      * @return short code (8 characters)
      */
     public static String generateShortCode(String url) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] hashBytes = md.digest(url.getBytes(StandardCharsets.UTF_8));
-            
-            // Encode to base64 and take first 8 characters
-            String encoded = Base64.getUrlEncoder().withoutPadding().encodeToString(hashBytes);
-            
-            if (encoded.length() > 8) {
-                return encoded.substring(0, 8);
-            }
-            return encoded;
-        } catch (NoSuchAlgorithmException e) {
-            // Fallback to simple hash code
-            int hashCode = url.hashCode();
-            return Integer.toHexString(Math.abs(hashCode)).substring(0, Math.min(8, Integer.toHexString(Math.abs(hashCode)).length()));
+        return encodeShortCode(md5Hash64(url), SHORT_CODE_LENGTH);
+    }
+    
+    /**
+     * Generates a short code from a URL using a 64-bit Murmur3 hash of its chars
+     * Uses the same alphabet as {@link #generateShortCode(String)} without a MessageDigest or
+     * byte[] encoding; the returned String is the only allocation.
+     * @param url the original URL
+     * @return short code (8 characters, 48 bits of the hash)
+     */
+    public static String generateFastShortCode(String url) {
+        return encodeShortCode(Murmur3.hash64(url, 0), SHORT_CODE_LENGTH);
+    }
+    
+    /**
+     * @param url the original URL
+     * @return the first 8 bytes of the URL's MD5 digest, big-endian
+     */
+    public static long md5Hash64(String url) {
+        byte[] digest = MD5.get().digest(url.getBytes(StandardCharsets.UTF_8));
+        long hash = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = hash << 8 | (digest[i] & 0xFF);
+        }
+        return hash;
+    }
+    
+    /**
+     * Encodes the top 6 * length bits of a hash in the Base64url alphabet, most significant
+     * first (as Base64 encodes a byte array); the returned String is the only allocation
+     * @param hash the hash
+     * @param length code length, at most 10
+     * @return the short code
+     */
+    public static String encodeShortCode(long hash, int length) {
+        char[] code = SHORT_CODE_BUFFER.get();
+        for (int i = 0; i < length; i++) {
+            code[i] = BASE64_URL_ALPHABET[(int) (hash >>> 58)];
+            hash <<= 6;
         }
+        return new String(code, 0, length);
     }
 }
@@ -0,0 +1,140 @@
+package com.example.url_shortner.analytics;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickRecorderTest {
+    
+    @Test
+    void testRingBufferDropsWhenFullAndReusesSlots() {
+        ClickRingBuffer buffer = new ClickRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer("c" + i, 100 + i));
+        }
+        assertFalse(buffer.offer("overflow", 0));
+        
+        String[] batch = new String[3];
+        long[] visitors = new long[3];
+        assertEquals(3, buffer.drainTo(batch, visitors, 0));
+        assertArrayEquals(new String[] {"c0", "c1", "c2"}, batch);
+        assertArrayEquals(new long[] {100, 101, 102}, visitors);
+        assertTrue(buffer.offer("c4", 104));
+        
+        String[] rest = new String[8];
+        long[] restVisitors = new long[8];
+        assertEquals(2, buffer.drainTo(rest, restVisitors, 0));
+        assertEquals("c3", rest[0]);
+        assertEquals("c4", rest[1]);
+        assertEquals(104, restVisitors[1]);
+        assertEquals(0, buffer.drainTo(rest, restVisitors, 0));
+    }
+    
+    @Test
+    void testConcurrentClicksAreCountedExactly() throws InterruptedException {
+        ClickCounter counter = new ClickCounter();
+        // Large enough to hold every click even if the aggregator never runs
+        try (ClickRecorder recorder = new ClickRecorder(List.of(counter), true, 1 << 20, 1)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        recorder.record(i % 4 == 0 ? "hot" : "code" + (i % 100));
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            recorder.drain();
+            
+            assertEquals(0, recorder.getDroppedClicks());
+            assertEquals(40_000, counter.getClicks("hot"));
+            assertEquals(8 * 200, counter.getClicks("code1"));
+            assertEquals(0, counter.getClicks("unknown"));
+        }
+    }
+    
+    @Test
+    void testExpiredCodesAreRemovedFromSinksAfterTheirClicks() {
+        ClickCounter counter = new ClickCounter();
+        try (ClickRecorder recorder = new ClickRecorder(List.of(counter), true, 1024, 60_000)) {
+            recorder.record("gone");
+            recorder.record("kept");
+            recorder.onExpired("gone");
+            recorder.drain();
+            
+            assertEquals(0, counter.getClicks("gone"));
+            assertEquals(1, counter.getClicks("kept"));
+        }
+    }
+    
+    @Test
+    void testFullBufferDropsInsteadOfBlocking() {
+        ClickCounter counter = new ClickCounter();
+        // Drain interval long enough that the aggregator does not run during the test
+        try (ClickRecorder recorder = new ClickRecorder(List.of(counter), true, 16, 60_000)) {
+            for (int i = 0; i < 10_000; i++) {
+                recorder.record("abc");
+            }
+            recorder.drain();
+            
+            assertTrue(recorder.getDroppedClicks() > 0);
+            assertEquals(10_000, counter.getClicks("abc") + recorder.getDroppedClicks());
+        }
+    }
+    
+    @Test
+    void testDisabledRecorderRecordsNothing() {
+        ClickCounter counter = new ClickCounter();
+        try (ClickRecorder recorder = new ClickRecorder(List.of(counter), false, 1024, 1)) {
+            recorder.record("abc");
+            recorder.drain();
+            
+            assertEquals(0, counter.getClicks("abc"));
+        }
+    }
+    
+    @Test
+    void testAggregatorDeliversInBackground() throws InterruptedException {
+        ClickCounter counter = new ClickCounter();
+        try (ClickRecorder recorder = new ClickRecorder(List.of(counter), true, 1024, 1)) {
+            recorder.record("abc");
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (counter.getClicks("abc") == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            
+            assertEquals(1, counter.getClicks("abc"));
+        }
+    }
+    
+    @Test
+    @Tag(BenchmarkSupport.TAG)
+    void benchmarkRecordCost() throws InterruptedException {
+        try (ClickRecorder recorder = new ClickRecorder(List.of(new ClickCounter()), true, 1 << 16, 1)) {
+            String[] codes = new String[1024];
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = "code" + i;
+            }
+            // Thread 0 also drains inline, so the figure covers the whole pipeline rather
+            // than the drop path of a buffer the aggregator cannot keep up with
+            for (int threads : BenchmarkSupport.threadCounts()) {
+                long droppedBefore = recorder.getDroppedClicks();
+                double ops = BenchmarkSupport.throughput(threads, 2_000, (thread, i) -> {
+                    recorder.record(codes[(int) (i & 1023)]);
+                    if (thread == 0 && (i & 1023) == 1023) {
+                        recorder.drain();
+                    }
+                });
+                long dropped = recorder.getDroppedClicks() - droppedBefore;
+                BenchmarkSupport.report("click-record", "threads=%d clicks/s=%.0f ns/click=%.1f dropped=%.2f%%",
+                        threads, ops, threads * 1e9 / ops, 100.0 * dropped / (ops * 2));
+            }
+        }
+    }
+}
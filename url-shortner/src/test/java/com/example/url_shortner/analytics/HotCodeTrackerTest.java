@@ -0,0 +1,181 @@
+package com.example.url_shortner.analytics;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotCodeTrackerTest {
+    
+    private static final int BATCH = 4096;
+    
+    /**
+     * Zipf-like click stream over the given number of codes: code k is drawn with weight 1/(k+1)
+     */
+    private static String[] skewedClicks(int clicks, int codes, long seed) {
+        double[] cumulative = new double[codes];
+        double sum = 0;
+        for (int k = 0; k < codes; k++) {
+            sum += 1.0 / (k + 1);
+            cumulative[k] = sum;
+        }
+        Random random = new Random(seed);
+        String[] stream = new String[clicks];
+        for (int i = 0; i < clicks; i++) {
+            double target = random.nextDouble() * sum;
+            int low = 0;
+            int high = codes - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            stream[i] = "code" + low;
+        }
+        return stream;
+    }
+    
+    private static void feed(ClickSink sink, String[] stream, long timestampMillis) {
+        long[] visitors = new long[BATCH];
+        for (int offset = 0; offset < stream.length; offset += BATCH) {
+            int count = Math.min(BATCH, stream.length - offset);
+            String[] batch = new String[BATCH];
+            System.arraycopy(stream, offset, batch, 0, count);
+            sink.onClicks(batch, visitors, count, timestampMillis);
+        }
+    }
+    
+    @Test
+    void testSketchNeverUndercountsAndStaysWithinBound() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        String[] stream = skewedClicks(200_000, 50_000, 1);
+        Map<String, Long> exact = new HashMap<>();
+        for (String code : stream) {
+            sketch.increment(code);
+            exact.merge(code, 1L, Long::sum);
+        }
+        
+        assertEquals(200_000, sketch.getTotal());
+        int outsideBound = 0;
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), entry.getKey());
+            if (estimate - entry.getValue() > sketch.getErrorBound()) {
+                outsideBound++;
+            }
+        }
+        // The bound may fail with probability e^-4 (under 2%) per key
+        assertTrue(outsideBound < exact.size() * 0.02, "outside bound: " + outsideBound);
+        assertTrue(sketch.estimate("never-seen") <= sketch.getErrorBound());
+    }
+    
+    @Test
+    void testHeavyHittersAreFoundInSkewedTraffic() {
+        HotCodeTracker tracker = new HotCodeTracker(2048, 4, 20, 60);
+        String[] stream = skewedClicks(500_000, 100_000, 2);
+        feed(tracker, stream, 0);
+        
+        Map<String, Long> exact = new HashMap<>();
+        for (String code : stream) {
+            exact.merge(code, 1L, Long::sum);
+        }
+        List<String> trueTop = exact.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(10)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        List<String> found = tracker.getHotCodes(10).stream()
+                .map(HotCodeTracker.HotCode::getShortCode)
+                .collect(Collectors.toList());
+        
+        assertEquals(trueTop.subList(0, 5), found.subList(0, 5));
+        assertTrue(found.containsAll(trueTop.subList(0, 8)), "found=" + found + " true=" + trueTop);
+        HotCodeTracker.HotCode hottest = tracker.getHotCodes(1).get(0);
+        assertTrue(hottest.getEstimatedClicks() >= exact.get(hottest.getShortCode()));
+        assertTrue(hottest.getEstimatedClicks() - exact.get(hottest.getShortCode()) <= tracker.getErrorBound());
+        assertEquals(20, tracker.getHotCodes(100).size());
+    }
+    
+    @Test
+    void testDecayLetsNewHotCodesTakeOver() {
+        HotCodeTracker tracker = new HotCodeTracker(1024, 4, 2, 60);
+        String[] old = new String[1000];
+        Arrays.fill(old, "old");
+        feed(tracker, old, 0);
+        assertEquals("old", tracker.getHotCodes(1).get(0).getShortCode());
+        assertEquals(1000, tracker.getHotCodes(1).get(0).getEstimatedClicks());
+        
+        // Four decay intervals later the old code's count has been halved four times
+        String[] fresh = new String[100];
+        Arrays.fill(fresh, "fresh");
+        feed(tracker, fresh, 240_000);
+        List<HotCodeTracker.HotCode> hot = tracker.getHotCodes(2);
+        assertEquals("fresh", hot.get(0).getShortCode());
+        assertEquals(100, hot.get(0).getEstimatedClicks());
+        assertEquals("old", hot.get(1).getShortCode());
+        assertEquals(62, hot.get(1).getEstimatedClicks());
+    }
+    
+    @Test
+    void testIdleDecayDropsCodesWithoutTraffic() {
+        HotCodeTracker tracker = new HotCodeTracker(1024, 4, 2, 60);
+        String[] clicks = new String[8];
+        Arrays.fill(clicks, "quiet");
+        feed(tracker, clicks, 0);
+        
+        tracker.onIdle(59_999);
+        assertEquals(8, tracker.getHotCodes(1).get(0).getEstimatedClicks());
+        tracker.onIdle(60_000);
+        assertEquals(4, tracker.getHotCodes(1).get(0).getEstimatedClicks());
+        // No clicks for an hour: halved to zero and no longer ranked
+        tracker.onIdle(3_600_000);
+        assertTrue(tracker.getHotCodes(1).isEmpty());
+    }
+    
+    @Test
+    void testZeroDecayIntervalDisablesDecay() {
+        HotCodeTracker tracker = new HotCodeTracker(1024, 4, 2, 0);
+        String[] clicks = new String[8];
+        Arrays.fill(clicks, "steady");
+        feed(tracker, clicks, 0);
+        
+        tracker.onIdle(3_600_000);
+        feed(tracker, clicks, 7_200_000);
+        assertEquals(16, tracker.getHotCodes(1).get(0).getEstimatedClicks());
+    }
+    
+    @Test
+    @Tag(BenchmarkSupport.TAG)
+    void benchmarkPerClickOverhead() {
+        String[] stream = skewedClicks(1 << 20, 1_000_000, 3);
+        HotCodeTracker tracker = new HotCodeTracker(2048, 4, 100, 60);
+        Map<String, LongAdder> exact = new ConcurrentHashMap<>();
+        ClickSink exactSink = (codes, visitors, count, timestamp) -> {
+            for (int i = 0; i < count; i++) {
+                exact.computeIfAbsent(codes[i], code -> new LongAdder()).increment();
+            }
+        };
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            feed(tracker, stream, 0);
+            long sketchNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            feed(exactSink, stream, 0);
+            long exactNanos = System.nanoTime() - start;
+            BenchmarkSupport.report("hot-codes", "round=%d count-min+heap ns/click=%.1f exact map ns/click=%.1f (%d keys)",
+                    round, (double) sketchNanos / stream.length, (double) exactNanos / stream.length, exact.size());
+        }
+        assertFalse(tracker.getHotCodes(10).isEmpty());
+    }
+}
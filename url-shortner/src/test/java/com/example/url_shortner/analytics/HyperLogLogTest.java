@@ -0,0 +1,137 @@
+package com.example.url_shortner.analytics;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+    
+    @Test
+    void testEstimatesStayWithinThreeStandardErrors() {
+        for (int cardinality : new int[] {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (long i = 0; i < cardinality; i++) {
+                sketch.add(i);
+                // Repeats must not change the estimate
+                sketch.add(i);
+            }
+            double error = Math.abs(sketch.estimate() - cardinality) / (double) cardinality;
+            assertTrue(error <= 3 * HyperLogLog.RELATIVE_ERROR,
+                    "cardinality=" + cardinality + " estimate=" + sketch.estimate());
+        }
+        assertEquals(0, new HyperLogLog().estimate());
+    }
+    
+    @Test
+    void testStartsSparseAndTurnsDenseForHotCodes() {
+        HyperLogLog sketch = new HyperLogLog();
+        assertTrue(sketch.isSparse());
+        int emptyBytes = sketch.memoryBytes();
+        
+        for (long i = 0; i < 100; i++) {
+            sketch.add(i);
+        }
+        assertTrue(sketch.isSparse());
+        assertTrue(sketch.memoryBytes() < 1024, "sparse bytes=" + sketch.memoryBytes());
+        assertTrue(sketch.memoryBytes() > emptyBytes);
+        
+        for (long i = 100; i < 5_000; i++) {
+            sketch.add(i);
+        }
+        assertFalse(sketch.isSparse());
+        assertTrue(sketch.memoryBytes() >= HyperLogLog.REGISTERS);
+    }
+    
+    @Test
+    void testMergeEstimatesTheUnion() {
+        // Sparse + sparse, sparse + dense and dense + dense
+        int[][] sizes = {{200, 300}, {200, 50_000}, {50_000, 80_000}};
+        for (int[] size : sizes) {
+            HyperLogLog first = new HyperLogLog();
+            HyperLogLog second = new HyperLogLog();
+            HyperLogLog union = new HyperLogLog();
+            // The two ranges overlap by half of the smaller one
+            long secondStart = size[0] / 2;
+            for (long i = 0; i < size[0]; i++) {
+                first.add(i);
+                union.add(i);
+            }
+            for (long i = secondStart; i < secondStart + size[1]; i++) {
+                second.add(i);
+                union.add(i);
+            }
+            
+            first.merge(second);
+            assertEquals(union.estimate(), first.estimate(), "sizes=" + size[0] + "," + size[1]);
+            assertEquals(union.isSparse(), first.isSparse());
+        }
+    }
+    
+    @Test
+    void testUniqueVisitorCounterSkipsUnknownVisitors() {
+        UniqueVisitorCounter counter = new UniqueVisitorCounter(() -> 0);
+        String[] codes = {"a", "a", "a", "b", "a"};
+        long[] visitors = {11, 12, 11, ClickSink.UNKNOWN_VISITOR, 13};
+        counter.onClicks(codes, visitors, codes.length, 0);
+        
+        assertEquals(3, counter.getUniqueVisitors("a"));
+        assertEquals(0, counter.getUniqueVisitors("b"));
+        assertEquals(0, counter.getSketchBytes("b"));
+        assertTrue(counter.getSketchBytes("a") > 0);
+    }
+    
+    @Test
+    void testUniqueVisitorsMergeTheIntervalsOfTheWindow() {
+        long minute = 60_000;
+        long[] now = {0};
+        UniqueVisitorCounter counter = new UniqueVisitorCounter(() -> now[0]);
+        String[] codes = {"a", "a"};
+        counter.onClicks(codes, new long[] {1, 2}, 2, 0);
+        counter.onClicks(codes, new long[] {2, 3}, 2, minute);
+        now[0] = minute;
+        
+        assertEquals(2, counter.getUniqueVisitors("a", MetricsWindow.parse("1m")));
+        assertEquals(3, counter.getUniqueVisitors("a", MetricsWindow.parse("5m")));
+        assertEquals(3, counter.getUniqueVisitors("a", MetricsWindow.parse("1d")));
+        
+        now[0] = 120 * minute;
+        assertEquals(0, counter.getUniqueVisitors("a", MetricsWindow.parse("1h")));
+        assertEquals(3, counter.getUniqueVisitors("a", MetricsWindow.parse("3h")));
+    }
+    
+    @Test
+    void testUniqueVisitorCounterDropsRemovedAndIdleCodes() {
+        long hour = 3_600_000;
+        UniqueVisitorCounter counter = new UniqueVisitorCounter(() -> 0);
+        counter.onClicks(new String[] {"a", "b"}, new long[] {1, 2}, 2, 0);
+        
+        counter.onRemoved("a");
+        assertEquals(0, counter.getSketchBytes("a"));
+        assertTrue(counter.getSketchBytes("b") > 0);
+        
+        // The first batch a day later prunes codes without a click since
+        counter.onClicks(new String[] {"c"}, new long[] {3}, 1, 25 * hour);
+        assertEquals(0, counter.getSketchBytes("b"));
+        assertTrue(counter.getSketchBytes("c") > 0);
+    }
+    
+    @Test
+    @Tag(BenchmarkSupport.TAG)
+    void benchmarkMemoryPerCodeAndAddCost() throws InterruptedException {
+        for (int visitors : new int[] {1, 10, 100, 1_000, 10_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (long i = 0; i < visitors; i++) {
+                sketch.add(i * 0x9E3779B97F4A7C15L);
+            }
+            // An exact HashSet<Long> costs roughly 64 bytes per visitor (entry, node and boxed key)
+            BenchmarkSupport.report("hyperloglog", "visitors=%d estimate=%d sketch bytes=%d exact set bytes~%d",
+                    visitors, sketch.estimate(), sketch.memoryBytes(), 64L * visitors);
+        }
+        
+        HyperLogLog dense = new HyperLogLog();
+        double adds = BenchmarkSupport.throughput(1, 2_000, (thread, i) -> dense.add(i));
+        BenchmarkSupport.report("hyperloglog", "dense adds/s=%.0f", adds);
+        assertTrue(adds > 0);
+    }
+}
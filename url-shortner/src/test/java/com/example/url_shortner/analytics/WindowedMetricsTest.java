@@ -0,0 +1,154 @@
+package com.example.url_shortner.analytics;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindowedMetricsTest {
+    
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    // Aligned to an hour so bucket boundaries are predictable
+    private static final long START = 1_000 * HOUR;
+    
+    private final AtomicLong clock = new AtomicLong(START);
+    private final WindowedMetrics metrics = new WindowedMetrics(10_000, clock::get);
+    
+    @Test
+    void testWindowParsing() {
+        MetricsWindow fiveMinutes = MetricsWindow.parse("5m");
+        assertEquals(MetricsWindow.Resolution.MINUTE, fiveMinutes.getResolution());
+        assertEquals(5, fiveMinutes.getBuckets());
+        assertEquals("5m", fiveMinutes.toString());
+        
+        assertEquals(60, MetricsWindow.parse("1h").getBuckets());
+        assertEquals(MetricsWindow.Resolution.MINUTE, MetricsWindow.parse("1h").getResolution());
+        assertEquals(6, MetricsWindow.parse("6h").getBuckets());
+        assertEquals(MetricsWindow.Resolution.HOUR, MetricsWindow.parse("6h").getResolution());
+        assertEquals(24, MetricsWindow.parse("1d").getBuckets());
+        
+        for (String invalid : new String[] {null, "", "m", "0m", "61m", "0h", "25h", "2d", "5s", "xm"}) {
+            assertThrows(IllegalArgumentException.class, () -> MetricsWindow.parse(invalid), String.valueOf(invalid));
+        }
+    }
+    
+    @Test
+    void testDomainsAgeOutOfTheWindow() {
+        metrics.recordShorten("old.com");
+        clock.addAndGet(3 * MINUTE);
+        metrics.recordShorten("new.com");
+        metrics.recordShorten("new.com");
+        
+        assertEquals(List.of(Map.entry("new.com", 2L), Map.entry("old.com", 1L)),
+                metrics.getTopDomains(10, MetricsWindow.parse("5m")));
+        assertEquals(List.of(Map.entry("new.com", 2L)), metrics.getTopDomains(10, MetricsWindow.parse("2m")));
+        
+        clock.addAndGet(2 * MINUTE);
+        assertEquals(List.of(Map.entry("new.com", 2L)), metrics.getTopDomains(10, MetricsWindow.parse("5m")));
+        assertEquals(List.of(Map.entry("new.com", 2L), Map.entry("old.com", 1L)),
+                metrics.getTopDomains(10, MetricsWindow.parse("1h")));
+        
+        clock.addAndGet(2 * HOUR);
+        assertTrue(metrics.getTopDomains(10, MetricsWindow.parse("1h")).isEmpty());
+        assertEquals(List.of(Map.entry("new.com", 2L), Map.entry("old.com", 1L)),
+                metrics.getTopDomains(10, MetricsWindow.parse("1d")));
+        
+        clock.addAndGet(24 * HOUR);
+        assertTrue(metrics.getTopDomains(10, MetricsWindow.parse("1d")).isEmpty());
+    }
+    
+    @Test
+    void testSlotIsReusedWhenTheRingWraps() {
+        metrics.recordShorten("first-lap.com");
+        clock.addAndGet(60 * MINUTE);
+        metrics.recordShorten("second-lap.com");
+        
+        // Same minute slot one lap later: the earlier bucket is replaced, not merged
+        assertEquals(List.of(Map.entry("second-lap.com", 1L)), metrics.getTopDomains(10, MetricsWindow.parse("1h")));
+        
+        // Clicks older than the window never show up in it
+        metrics.onClicks(new String[] {"late"}, new long[1], 1, START);
+        assertTrue(metrics.getTopCodes(10, MetricsWindow.parse("1h")).isEmpty());
+    }
+    
+    @Test
+    void testTopCodesFromClickBatches() {
+        String[] batch = {"a", "b", "a", "c", "a", "b"};
+        metrics.onClicks(batch, new long[batch.length], batch.length, START + 30_000);
+        metrics.onClicks(new String[] {"c", "ignored"}, new long[2], 1, START + MINUTE);
+        clock.addAndGet(MINUTE);
+        
+        assertEquals(List.of(Map.entry("a", 3L), Map.entry("b", 2L)), metrics.getTopCodes(2, MetricsWindow.parse("5m")));
+        // Ties are broken by code so results are stable
+        assertEquals(List.of(Map.entry("a", 3L), Map.entry("b", 2L), Map.entry("c", 2L)),
+                metrics.getTopCodes(5, MetricsWindow.parse("1d")));
+        assertEquals(List.of(Map.entry("c", 1L)), metrics.getTopCodes(5, MetricsWindow.parse("1m")));
+    }
+    
+    @Test
+    void testKeysPerBucketAreBoundedWithoutLockingOutLateKeys() {
+        WindowedMetrics bounded = new WindowedMetrics(2, clock::get);
+        for (int i = 0; i < 3; i++) {
+            bounded.recordShorten("a.com");
+        }
+        bounded.recordShorten("b.com");
+        for (int i = 0; i < 5; i++) {
+            bounded.recordShorten("late.com");
+        }
+        
+        // late.com takes over b.com's counter and its count of 1
+        assertEquals(List.of(Map.entry("late.com", 6L), Map.entry("a.com", 3L)),
+                bounded.getTopDomains(10, MetricsWindow.parse("5m")));
+        
+        clock.addAndGet(MINUTE);
+        bounded.recordShorten("c.com");
+        assertEquals(List.of(Map.entry("c.com", 1L)), bounded.getTopDomains(10, MetricsWindow.parse("1m")));
+    }
+    
+    @Test
+    void testConcurrentRecordingAcrossRotation() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    metrics.recordShorten("d" + (i % 10) + ".com");
+                    if (i == 5_000) {
+                        // Threads race to rotate into the next minute's bucket
+                        clock.compareAndSet(START, START + MINUTE);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        long total = metrics.getTopDomains(10, MetricsWindow.parse("5m")).stream()
+                .mapToLong(Map.Entry::getValue).sum();
+        assertEquals(40_000, total);
+    }
+    
+    @Test
+    @Tag(BenchmarkSupport.TAG)
+    void benchmarkRecordAndQuery() throws InterruptedException {
+        WindowedMetrics live = new WindowedMetrics(10_000);
+        double records = BenchmarkSupport.throughput(1, 2_000,
+                (thread, i) -> live.recordShorten("domain" + (i % 5_000) + ".com"));
+        BenchmarkSupport.report("windowed-metrics", "recordShorten ops/s=%.0f", records);
+        
+        for (String window : new String[] {"5m", "1h", "1d"}) {
+            MetricsWindow metricsWindow = MetricsWindow.parse(window);
+            double queries = BenchmarkSupport.throughput(1, 2_000,
+                    (thread, i) -> live.getTopDomains(10, metricsWindow));
+            BenchmarkSupport.report("windowed-metrics", "window=%s top-10 queries/s=%.0f", window, queries);
+        }
+        assertTrue(records > 0);
+    }
+}
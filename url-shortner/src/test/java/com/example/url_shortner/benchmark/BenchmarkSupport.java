@@ -0,0 +1,113 @@
+package com.example.url_shortner.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Minimal multi-threaded throughput harness for the benchmark-tagged tests
+ * Run with: mvn test -Pbenchmark
+ */
+public final class BenchmarkSupport {
+
+    public static final String TAG = "benchmark";
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * An operation executed in a tight loop by each worker thread
+     */
+    @FunctionalInterface
+    public interface Operation {
+        void run(int threadIndex, long iteration);
+    }
+
+    /**
+     * Runs the operation on the given number of threads for the given duration
+     * @param threads number of worker threads
+     * @param durationMillis measurement duration
+     * @param operation the operation to execute
+     * @return operations per second across all threads
+     */
+    public static double throughput(int threads, long durationMillis, Operation operation) throws InterruptedException {
+        return throughput(threads, durationMillis, operation, null);
+    }
+
+    /**
+     * Runs the operation on the given number of threads while a background operation
+     * runs continuously on its own thread (e.g. writes during a read benchmark)
+     * @param threads number of measured worker threads
+     * @param durationMillis measurement duration
+     * @param operation the measured operation
+     * @param background unmeasured background operation, may be null
+     * @return measured operations per second across all threads
+     */
+    public static double throughput(int threads, long durationMillis, Operation operation, Operation background)
+            throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            workers.add(new Thread(() -> {
+                await(start);
+                long i = 0;
+                while ((i & 0xFF) != 0 || System.nanoTime() < deadline) {
+                    operation.run(index, i++);
+                }
+                ops.add(i);
+            }, "bench-" + t));
+        }
+        Thread backgroundThread = null;
+        if (background != null) {
+            backgroundThread = new Thread(() -> {
+                await(start);
+                long i = 0;
+                while (System.nanoTime() < deadline) {
+                    background.run(-1, i++);
+                }
+            }, "bench-background");
+            backgroundThread.start();
+        }
+        workers.forEach(Thread::start);
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (backgroundThread != null) {
+            backgroundThread.join();
+        }
+        return ops.sum() * 1_000_000_000.0 / elapsed;
+    }
+
+    /**
+     * Thread counts to sweep: 1, 2, 4, ... up to the number of available processors
+     */
+    public static int[] threadCounts() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<>();
+        for (int t = 1; t < cores; t <<= 1) {
+            counts.add(t);
+        }
+        counts.add(cores);
+        return counts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static void report(String name, String format, Object... args) {
+        System.out.printf("[%s] %s%n", name, String.format(format, args));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.url_shortner.benchmark;
+
+import java.util.Random;
+
+/**
+ * Deterministic corpus of realistic URLs for benchmarks and collision measurements
+ * Mixes popular hosts, multi-segment paths, slugs, numeric IDs and tracking query strings.
+ */
+public final class UrlCorpus {
+    
+    private static final String[] HOSTS = {
+            "www.example.com", "github.com", "docs.google.com", "www.youtube.com", "en.wikipedia.org",
+            "medium.com", "www.amazon.com", "news.ycombinator.com", "stackoverflow.com", "twitter.com",
+            "www.nytimes.com", "blog.example.org", "shop.example.co.uk", "api.example.io", "cdn.example.net"
+    };
+    private static final String[] SEGMENTS = {
+            "articles", "blog", "questions", "watch", "wiki", "products", "users", "posts", "docs",
+            "2024", "2025", "en-us", "category", "tags", "search", "issues", "pull", "releases"
+    };
+    private static final String[] WORDS = {
+            "how", "to", "build", "fast", "url", "shortener", "java", "spring", "performance", "cache",
+            "concurrency", "guide", "best", "practices", "review", "deal", "news", "update", "release"
+    };
+    private static final String[] QUERIES = {
+            "", "", "", "?utm_source=newsletter&utm_medium=email", "?ref=homepage", "?v=",
+            "?page=", "?q=", "?id=", "?utm_campaign=spring_sale&utm_source=twitter"
+    };
+    
+    private UrlCorpus() {
+    }
+    
+    /**
+     * @param size number of URLs
+     * @param seed random seed; the same seed always yields the same corpus
+     * @return distinct-in-practice URLs of realistic shape and length
+     */
+    public static String[] generate(int size, long seed) {
+        Random random = new Random(seed);
+        String[] urls = new String[size];
+        StringBuilder url = new StringBuilder(128);
+        for (int i = 0; i < size; i++) {
+            url.setLength(0);
+            url.append(random.nextInt(10) == 0 ? "http://" : "https://")
+                    .append(HOSTS[random.nextInt(HOSTS.length)]);
+            int segments = 1 + random.nextInt(3);
+            for (int s = 0; s < segments; s++) {
+                url.append('/').append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+            }
+            url.append('/');
+            int words = 2 + random.nextInt(5);
+            for (int w = 0; w < words; w++) {
+                url.append(w == 0 ? "" : "-").append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            url.append('-').append(i);
+            String query = QUERIES[random.nextInt(QUERIES.length)];
+            url.append(query);
+            if (query.endsWith("=")) {
+                url.append(Long.toString(random.nextLong() & Long.MAX_VALUE, 36));
+            }
+            urls[i] = url.toString();
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.url_shortner.codegen;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import com.example.url_shortner.benchmark.UrlCorpus;
+import com.example.url_shortner.exception.ShortCodeExhaustedException;
+import com.example.url_shortner.util.UrlUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashShortCodeGeneratorTest {
+    
+    @Test
+    void testDefaultsToMd5Codes() throws Exception {
+        HashShortCodeGenerator generator = new HashShortCodeGenerator();
+        String url = "https://example.com/path";
+        // The original codes: the MD5 digest's Base64url prefix
+        String base64 = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(MessageDigest.getInstance("MD5").digest(url.getBytes(StandardCharsets.UTF_8)));
+        
+        assertEquals(base64.substring(0, 8), generator.candidate(url, 0));
+        assertEquals(base64.substring(0, 8), UrlUtils.generateShortCode(url));
+        assertEquals(UrlUtils.generateFastShortCode(url), new HashShortCodeGenerator(HashAlgorithm.MURMUR3).candidate(url, 0));
+    }
+    
+    @Test
+    void testProbesKeepAFixedLengthThenGrow() {
+        HashShortCodeGenerator generator = new HashShortCodeGenerator();
+        String url = "https://example.com/path";
+        
+        Set<String> codes = new HashSet<>();
+        for (int attempt = 0; attempt < HashShortCodeGenerator.DEFAULT_PROBES_PER_LENGTH; attempt++) {
+            String code = generator.candidate(url, attempt);
+            assertTrue(code.matches("[A-Za-z0-9_-]{8}"), code);
+            assertTrue(codes.add(code), "repeated candidate " + code);
+        }
+        assertEquals(9, generator.candidate(url, HashShortCodeGenerator.DEFAULT_PROBES_PER_LENGTH).length());
+        assertEquals(generator.candidate(url, 3), generator.candidate(url, 3));
+    }
+    
+    @Test
+    void testProbingIsBounded() {
+        HashShortCodeGenerator generator = new HashShortCodeGenerator(HashAlgorithm.MURMUR3, 9, 4, 0.5, () -> 0);
+        
+        assertEquals(10, generator.candidate("https://example.com", 7).length());
+        assertThrows(ShortCodeExhaustedException.class, () -> generator.candidate("https://example.com", 8));
+    }
+    
+    @Test
+    void testLengthGrowsWithOccupancy() {
+        AtomicLong mappings = new AtomicLong();
+        HashShortCodeGenerator generator = new HashShortCodeGenerator(HashAlgorithm.MURMUR3, 2, 8, 0.5, mappings::get);
+        
+        assertEquals(2, generator.candidate("https://example.com", 0).length());
+        // 64^2 = 4096 two-character codes; more than half in use
+        mappings.set(2_049);
+        assertEquals(3, generator.candidate("https://example.com", 0).length());
+        assertEquals(3, generator.getLength());
+        assertEquals(2_049 / Math.pow(64, 3), generator.getLoadFactor(), 1e-12);
+        
+        // Never shrinks
+        mappings.set(0);
+        assertEquals(3, generator.candidate("https://example.com", 0).length());
+    }
+    
+    @Test
+    void testExpectedProbesStayConstantAsTheStoreFills() {
+        // Short codes make the space small enough to fill: 3 chars start at 262,144 codes
+        AtomicLong mappings = new AtomicLong();
+        HashShortCodeGenerator generator = new HashShortCodeGenerator(HashAlgorithm.MURMUR3, 3, 8, 0.5, mappings::get);
+        Set<String> taken = new HashSet<>();
+        long probes = 0;
+        int maxProbes = 0;
+        String[] urls = UrlCorpus.generate(400_000, 3);
+        for (String url : urls) {
+            int attempt = 0;
+            while (!taken.add(generator.candidate(url, attempt))) {
+                attempt++;
+            }
+            mappings.incrementAndGet();
+            probes += attempt + 1;
+            maxProbes = Math.max(maxProbes, attempt + 1);
+        }
+        
+        assertEquals(4, generator.getLength());
+        // At most half full, so 1 / (1 - 0.5) = 2 probes is the bound on the mean
+        assertTrue(probes / (double) urls.length < 2, "mean=" + probes / (double) urls.length);
+        assertTrue(maxProbes <= 3 * HashShortCodeGenerator.DEFAULT_PROBES_PER_LENGTH, "max=" + maxProbes);
+    }
+    
+    @Test
+    void testMurmur3CodesUseTheMd5Alphabet() {
+        HashShortCodeGenerator generator = new HashShortCodeGenerator(HashAlgorithm.MURMUR3);
+        
+        for (String url : UrlCorpus.generate(1_000, 1)) {
+            String code = generator.candidate(url, 0);
+            assertTrue(code.matches("[A-Za-z0-9_-]{8}"), code);
+            assertEquals(code, generator.candidate(url, 0));
+        }
+    }
+    
+    @Test
+    void testMurmur3HasNoCollisionsOnRealisticCorpus() {
+        // 200k codes in a 2^48 space: the birthday bound expects ~7e-5 collisions
+        assertEquals(0, collisions(UrlCorpus.generate(200_000, 42), UrlUtils::generateFastShortCode));
+    }
+    
+    @Test
+    void testHashAlgorithmFromString() {
+        assertEquals(HashAlgorithm.MURMUR3, HashAlgorithm.fromString(" murmur3 "));
+        assertEquals(HashAlgorithm.MD5, HashAlgorithm.fromString("MD5"));
+    }
+    
+    private static int collisions(String[] urls, UnaryOperator<String> hash) {
+        Set<String> codes = new HashSet<>();
+        int collisions = 0;
+        for (String url : urls) {
+            if (!codes.add(hash.apply(url))) {
+                collisions++;
+            }
+        }
+        return collisions;
+    }
+    
+    @Test
+    @Tag(BenchmarkSupport.TAG)
+    void benchmarkMd5VersusMurmur3() throws InterruptedException {
+        String[] urls = UrlCorpus.generate(1 << 16, 7);
+        int mask = urls.length - 1;
+        for (int threads : BenchmarkSupport.threadCounts()) {
+            double md5 = BenchmarkSupport.throughput(threads, 2_000,
+                    (thread, i) -> UrlUtils.generateShortCode(urls[(int) (i & mask)]));
+            double murmur3 = BenchmarkSupport.throughput(threads, 2_000,
+                    (thread, i) -> UrlUtils.generateFastShortCode(urls[(int) (i & mask)]));
+            BenchmarkSupport.report("hash", "threads=%d md5/s=%.0f murmur3/s=%.0f speedup=%.1fx",
+                    threads, md5, murmur3, md5 > 0 ? murmur3 / md5 : 0);
+        }
+        
+        // Collision rate on 2M URLs, and on the first 5 chars (30 bits) where the birthday
+        // bound n^2 / 2^31 makes collisions frequent enough to compare hash quality
+        String[] corpus = UrlCorpus.generate(2_000_000, 11);
+        double expected = (double) corpus.length * corpus.length / (1L << 31);
+        BenchmarkSupport.report("hash", "urls=%d full-code collisions md5=%d murmur3=%d",
+                corpus.length,
+                collisions(corpus, UrlUtils::generateShortCode),
+                collisions(corpus, UrlUtils::generateFastShortCode));
+        BenchmarkSupport.report("hash", "30-bit prefix collisions md5=%d murmur3=%d expected=%.0f",
+                collisions(corpus, url -> UrlUtils.generateShortCode(url).substring(0, 5)),
+                collisions(corpus, url -> UrlUtils.generateFastShortCode(url).substring(0, 5)),
+                expected);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.url_shortner.codegen;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SequenceShortCodeGeneratorTest {
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void testCodesAreEightBase62Characters() {
+        SequenceShortCodeGenerator generator = new SequenceShortCodeGenerator(new IdBlockAllocator(100));
+        
+        for (int i = 0; i < 1_000; i++) {
+            String code = generator.candidate("https://example.com/" + i, 0);
+            assertTrue(code.matches("[0-9A-Za-z]{8}"), code);
+        }
+    }
+    
+    @Test
+    void testEncodeIsInjective() {
+        Set<String> codes = new HashSet<>();
+        for (long id = 0; id < 100_000; id++) {
+            assertTrue(codes.add(SequenceShortCodeGenerator.encode(id)), "duplicate code for " + id);
+        }
+        long space = 218_340_105_584_896L;
+        assertTrue(codes.add(SequenceShortCodeGenerator.encode(space - 1)));
+        assertTrue(codes.add(SequenceShortCodeGenerator.encode(space)));
+        assertTrue(codes.add(SequenceShortCodeGenerator.encode(Long.MAX_VALUE)));
+    }
+    
+    @Test
+    void testConsecutiveIdsDoNotProduceConsecutiveCodes() {
+        String first = SequenceShortCodeGenerator.encode(1);
+        String second = SequenceShortCodeGenerator.encode(2);
+        
+        assertNotEquals(first.substring(0, 6), second.substring(0, 6));
+    }
+    
+    @Test
+    void testConcurrentThreadsNeverShareIds() throws InterruptedException {
+        SequenceShortCodeGenerator generator = new SequenceShortCodeGenerator(new IdBlockAllocator(64));
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    assertTrue(codes.add(generator.candidate("https://example.com", 0)));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        assertEquals(80_000, codes.size());
+    }
+    
+    @Test
+    void testAllocatorNeverReissuesIdsAfterRestart() throws IOException {
+        Path state = dir.resolve("ids.state");
+        IdBlockAllocator first = new IdBlockAllocator(10, 5, state);
+        assertEquals(0, first.allocateBlock());
+        assertEquals(10, first.allocateBlock());
+        
+        // The restarted allocator skips the rest of the persisted reservation
+        IdBlockAllocator second = new IdBlockAllocator(10, 5, state);
+        assertEquals(50, second.allocateBlock());
+        for (int i = 0; i < 5; i++) {
+            second.allocateBlock();
+        }
+        
+        IdBlockAllocator third = new IdBlockAllocator(10, 5, state);
+        assertEquals(150, third.allocateBlock());
+    }
+    
+    @Test
+    @Tag(BenchmarkSupport.TAG)
+    void benchmarkHashVersusSequence() throws InterruptedException {
+        HashShortCodeGenerator hash = new HashShortCodeGenerator();
+        SequenceShortCodeGenerator sequence = new SequenceShortCodeGenerator(new IdBlockAllocator(1_000));
+        String[] urls = new String[1_024];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = "https://example.com/articles/" + i + "?utm_source=newsletter";
+        }
+        
+        for (int threads : BenchmarkSupport.threadCounts()) {
+            double hashOps = BenchmarkSupport.throughput(threads, 2_000,
+                    (thread, i) -> hash.candidate(urls[(int) (i & 1_023)], 0));
+            double sequenceOps = BenchmarkSupport.throughput(threads, 2_000,
+                    (thread, i) -> sequence.candidate(urls[(int) (i & 1_023)], 0));
+            BenchmarkSupport.report("shortcode", "threads=%d md5/s=%.0f sequence/s=%.0f speedup=%.1fx",
+                    threads, hashOps, sequenceOps, sequenceOps / hashOps);
+        }
+    }
+}
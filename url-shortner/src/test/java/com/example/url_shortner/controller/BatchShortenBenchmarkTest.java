@@ -0,0 +1,71 @@
+package com.example.url_shortner.controller;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import com.example.url_shortner.benchmark.UrlCorpus;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * URLs shortened per second per core: one request per URL vs one NDJSON batch, over real HTTP
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag(BenchmarkSupport.TAG)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BatchShortenBenchmarkTest {
+    
+    private static final int URLS = 50_000;
+    
+    @LocalServerPort
+    private int port;
+    
+    @Test
+    void batchVersusSingleUrlEndpoint() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        String[] urls = UrlCorpus.generate(2 * URLS, 5);
+        int cores = Runtime.getRuntime().availableProcessors();
+        
+        long begin = System.nanoTime();
+        for (int i = 0; i < URLS; i++) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/api/shorten"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"url\":\"" + urls[i] + "\"}"))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+        }
+        double single = URLS / seconds(begin);
+        
+        StringBuilder body = new StringBuilder();
+        for (int i = URLS; i < 2 * URLS; i++) {
+            body.append('"').append(urls[i]).append("\"\n");
+        }
+        begin = System.nanoTime();
+        HttpResponse<Stream<String>> response = client.send(HttpRequest.newBuilder(uri("/api/shorten/batch"))
+                        .header("Content-Type", BatchShortenController.APPLICATION_NDJSON_VALUE)
+                        .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                        .build(),
+                HttpResponse.BodyHandlers.ofLines());
+        assertEquals(URLS, response.body().filter(line -> line.contains("short_url")).count());
+        double batch = URLS / seconds(begin);
+        
+        BenchmarkSupport.report("batch-shorten", "cores=%d single urls/s/core=%.0f batch urls/s/core=%.0f speedup=%.1fx",
+                cores, single / cores, batch / cores, batch / single);
+    }
+    
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+    
+    private static double seconds(long begin) {
+        return (System.nanoTime() - begin) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+}
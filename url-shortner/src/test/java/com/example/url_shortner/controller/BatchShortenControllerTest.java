@@ -0,0 +1,98 @@
+package com.example.url_shortner.controller;
+
+import com.example.url_shortner.service.ShortenResult;
+import com.example.url_shortner.service.UrlService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = BatchShortenController.class, properties = "app.batch.chunk-size=2")
+class BatchShortenControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @MockBean
+    private UrlService urlService;
+    
+    private MvcResult perform(MediaType contentType, String body) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/shorten/batch")
+                        .contentType(contentType)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+    
+    @Test
+    void testShortenBatch_JsonArray() throws Exception {
+        when(urlService.tryShortenUrl(anyString())).thenAnswer(invocation ->
+                ShortenResult.success("http://localhost:8080/" + invocation.getArgument(0, String.class).length()));
+        
+        MvcResult result = perform(MediaType.APPLICATION_JSON,
+                "[\"https://a.com\", {\"url\": \"https://bb.com\", \"tag\": [1, 2]}, \"https://ccc.com\"]");
+        
+        assertEquals(
+                "[{\"index\":0,\"short_url\":\"http://localhost:8080/13\",\"original_url\":\"https://a.com\"},"
+                        + "{\"index\":1,\"short_url\":\"http://localhost:8080/14\",\"original_url\":\"https://bb.com\"},"
+                        + "{\"index\":2,\"short_url\":\"http://localhost:8080/15\",\"original_url\":\"https://ccc.com\"}]",
+                result.getResponse().getContentAsString());
+        verify(urlService, times(3)).tryShortenUrl(anyString());
+    }
+    
+    @Test
+    void testShortenBatch_NdjsonWithPerItemErrors() throws Exception {
+        when(urlService.tryShortenUrl("https://example.com")).thenReturn(ShortenResult.success("http://localhost:8080/abc123"));
+        when(urlService.tryShortenUrl("not a url")).thenReturn(ShortenResult.invalid("Invalid URL format"));
+        
+        MvcResult result = perform(MediaType.parseMediaType(BatchShortenController.APPLICATION_NDJSON_VALUE),
+                "{\"url\": \"https://example.com\"}\n\"not a url\"\n{\"link\": \"x\"}\n");
+        
+        assertEquals(
+                "{\"index\":0,\"short_url\":\"http://localhost:8080/abc123\",\"original_url\":\"https://example.com\"}\n"
+                        + "{\"index\":1,\"original_url\":\"not a url\",\"error\":\"Invalid URL format\"}\n"
+                        + "{\"index\":2,\"error\":\"URL is required\"}\n",
+                result.getResponse().getContentAsString());
+        verify(urlService, times(2)).tryShortenUrl(anyString());
+    }
+    
+    @Test
+    void testShortenBatch_MalformedInputKeepsEarlierResults() throws Exception {
+        when(urlService.tryShortenUrl("https://example.com")).thenReturn(ShortenResult.success("http://localhost:8080/abc123"));
+        
+        MvcResult result = perform(MediaType.parseMediaType(BatchShortenController.APPLICATION_NDJSON_VALUE),
+                "\"https://example.com\"\n{\"url\": oops}\n\"https://never-read.com\"\n");
+        
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("{\"index\":1,\"error\":\"Malformed batch input"));
+        verify(urlService, never()).tryShortenUrl("https://never-read.com");
+    }
+    
+    @Test
+    void testShortenBatch_EmptyArray() throws Exception {
+        MvcResult result = perform(MediaType.APPLICATION_JSON, "[]");
+        
+        assertEquals("[]", result.getResponse().getContentAsString());
+        verify(urlService, never()).tryShortenUrl(anyString());
+    }
+    
+    @Test
+    void testShortenBatch_UnsupportedContentType() throws Exception {
+        mockMvc.perform(post("/api/shorten/batch")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content("https://example.com"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+}
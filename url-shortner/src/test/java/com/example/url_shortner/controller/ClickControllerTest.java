@@ -0,0 +1,72 @@
+package com.example.url_shortner.controller;
+
+import com.example.url_shortner.analytics.ClickCounter;
+import com.example.url_shortner.analytics.HyperLogLog;
+import com.example.url_shortner.analytics.MetricsWindow;
+import com.example.url_shortner.analytics.UniqueVisitorCounter;
+import com.example.url_shortner.exception.UrlNotFoundException;
+import com.example.url_shortner.service.UrlService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ClickController.class)
+class ClickControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @MockBean
+    private UrlService urlService;
+    
+    @MockBean
+    private ClickCounter clickCounter;
+    
+    @MockBean
+    private UniqueVisitorCounter uniqueVisitorCounter;
+    
+    @Test
+    void testGetClicks_Success() throws Exception {
+        when(urlService.getOriginalUrl("abc123")).thenReturn("https://example.com");
+        when(clickCounter.getClicks("abc123")).thenReturn(42L);
+        when(uniqueVisitorCounter.getUniqueVisitors(eq("abc123"), any(MetricsWindow.class))).thenReturn(17L);
+        when(uniqueVisitorCounter.getSketchBytes("abc123")).thenReturn(160);
+        
+        mockMvc.perform(get("/api/clicks/abc123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.short_code").value("abc123"))
+                .andExpect(jsonPath("$.clicks").value(42))
+                .andExpect(jsonPath("$.window").value("1d"))
+                .andExpect(jsonPath("$.unique_visitors").value(17))
+                .andExpect(jsonPath("$.unique_visitors_error").value(HyperLogLog.RELATIVE_ERROR))
+                .andExpect(jsonPath("$.sketch_bytes").value(160));
+    }
+    
+    @Test
+    void testGetClicks_NotFound() throws Exception {
+        when(urlService.getOriginalUrl("missing"))
+                .thenThrow(new UrlNotFoundException("Short URL not found"));
+        
+        mockMvc.perform(get("/api/clicks/missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Short URL not found"));
+        
+        verify(clickCounter, never()).getClicks(anyString());
+    }
+    
+    @Test
+    void testGetClicks_InvalidWindow() throws Exception {
+        mockMvc.perform(get("/api/clicks/abc123").param("window", "2d"))
+                .andExpect(status().isBadRequest());
+        
+        verify(uniqueVisitorCounter, never()).getUniqueVisitors(anyString(), any(MetricsWindow.class));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.url_shortner.controller;
+
+import com.example.url_shortner.analytics.ClickRecorder;
+import com.example.url_shortner.analytics.WindowedMetrics;
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import com.example.url_shortner.codegen.HashShortCodeGenerator;
+import com.example.url_shortner.model.ErrorResponse;
+import com.example.url_shortner.model.ShortenRequest;
+import com.example.url_shortner.service.UrlService;
+import com.example.url_shortner.storage.UrlStorage;
+import com.example.url_shortner.telemetry.ShortenerMetrics;
+import com.example.url_shortner.util.UrlUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Miss and invalid-input throughput of the controllers, against the exception-based handling they replaced
+ * Each path runs below a stack as deep as a servlet container's (Tomcat, filters, Spring MVC),
+ * since that depth is what a stack-trace capture has to walk.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag(BenchmarkSupport.TAG)
+class ErrorPathBenchmarkTest {
+    
+    private static final int STACK_DEPTH = 120;
+    private static final long DURATION_MILLIS = 2_000;
+    
+    /**
+     * The previous not-found exception, which captured a stack trace
+     */
+    private static final class StackTracedException extends RuntimeException {
+        StackTracedException(String message) {
+            super(message);
+        }
+    }
+    
+    private final UrlService urlService = new UrlService(new UrlStorage(), new HashShortCodeGenerator(),
+            new WindowedMetrics(10_000), "http://localhost:8080");
+    private final RedirectController redirectController = new RedirectController(urlService, mock(ClickRecorder.class),
+            ShortenerMetrics.disabled());
+    private final UrlController urlController = new UrlController(urlService);
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+    
+    @Test
+    void missAndInvalidInputThroughput() {
+        String[] unknown = new String[1 << 10];
+        String[] junk = new String[1 << 10];
+        for (int i = 0; i < unknown.length; i++) {
+            unknown[i] = "miss" + i;
+            junk[i] = "ftp://junk/" + i;
+        }
+        for (int round = 0; round < 3; round++) {
+            int[] i = {0};
+            double missBefore = throughput(() -> exceptionRedirect(unknown[i[0]++ & (unknown.length - 1)]).getStatusCode().value());
+            double missAfter = throughput(() -> redirectController.redirect(unknown[i[0]++ & (unknown.length - 1)], request).getStatusCode().value());
+            double junkBefore = throughput(() -> exceptionShorten(junk[i[0]++ & (junk.length - 1)]).getStatusCode().value());
+            double junkAfter = throughput(() -> urlController.shortenUrl(new ShortenRequest(junk[i[0]++ & (junk.length - 1)])).getStatusCode().value());
+            BenchmarkSupport.report("error-path", "round=%d 404/s exception=%.0f result=%.0f (%.1fx) 400/s exception=%.0f result=%.0f (%.1fx)",
+                    round, missBefore, missAfter, missAfter / missBefore, junkBefore, junkAfter, junkAfter / junkBefore);
+        }
+        assertEquals(404, redirectController.redirect("miss0", request).getStatusCode().value());
+    }
+    
+    /**
+     * The redirect miss path before: throw on a miss, catch in the controller, allocate a body
+     */
+    private ResponseEntity<?> exceptionRedirect(String shortCode) {
+        try {
+            String originalUrl = urlService.findOriginalUrl(shortCode)
+                    .orElseThrow(() -> new StackTracedException("Short URL not found"));
+            return ResponseEntity.status(HttpStatus.MOVED_PERMANENTLY).header("Location", originalUrl).build();
+        } catch (StackTracedException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    /**
+     * The shorten validation path before: throw from the validator, catch in the controller
+     */
+    private ResponseEntity<?> exceptionShorten(String url) {
+        try {
+            String normalized = validate(url);
+            return ResponseEntity.ok(urlService.shortenUrl(normalized));
+        } catch (StackTracedException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+    
+    private static String validate(String url) {
+        try {
+            return UrlUtils.validateAndNormalizeUrl(url);
+        } catch (RuntimeException e) {
+            throw new StackTracedException(e.getMessage());
+        }
+    }
+    
+    private static double throughput(IntSupplier operation) {
+        return atDepth(STACK_DEPTH, operation);
+    }
+    
+    private static double atDepth(int depth, IntSupplier operation) {
+        if (depth > 0) {
+            return atDepth(depth - 1, operation);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS);
+        long begin = System.nanoTime();
+        long ops = 0;
+        long sink = 0;
+        while ((ops & 0xFF) != 0 || System.nanoTime() < deadline) {
+            sink += operation.getAsInt();
+            ops++;
+        }
+        assertTrue(sink > 0);
+        return ops * 1_000_000_000.0 / (System.nanoTime() - begin);
+    }
+}
@@ -1,9 +1,16 @@
 package com.example.url_shortner.controller;
 
+import com.example.url_shortner.telemetry.StorageHealthIndicator;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -13,6 +20,18 @@ class HealthControllerTest {
     @Autowired
     private MockMvc mockMvc;
     
+    @MockBean
+    private StorageHealthIndicator storageHealth;
+    
+    @MockBean
+    private ApplicationAvailability availability;
+    
+    @BeforeEach
+    void setUp() {
+        when(availability.getReadinessState()).thenReturn(ReadinessState.ACCEPTING_TRAFFIC);
+        when(storageHealth.health()).thenReturn(Health.up().build());
+    }
+    
     @Test
     void testHealth_Success() throws Exception {
         mockMvc.perform(get("/health"))
@@ -20,6 +39,25 @@ class HealthControllerTest {
                 .andExpect(content().string("OK"));
     }
     
+    @Test
+    void testHealth_StorageDown() throws Exception {
+        when(storageHealth.health()).thenReturn(Health.down().withDetail("problem", "Write-ahead log: Fsync failed").build());
+        
+        mockMvc.perform(get("/health"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().string("UNAVAILABLE: storage DOWN"));
+    }
+    
+    @Test
+    void testHealth_RefusingTraffic() throws Exception {
+        when(availability.getReadinessState()).thenReturn(ReadinessState.REFUSING_TRAFFIC);
+        
+        mockMvc.perform(get("/health"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().string("UNAVAILABLE: refusing traffic"));
+        verify(storageHealth, never()).health();
+    }
+    
     @Test
     void testHealth_WrongMethod() throws Exception {
         mockMvc.perform(post("/health"))
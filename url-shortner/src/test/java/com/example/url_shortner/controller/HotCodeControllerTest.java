@@ -0,0 +1,46 @@
+package com.example.url_shortner.controller;
+
+import com.example.url_shortner.analytics.HotCodeTracker;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(HotCodeController.class)
+class HotCodeControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @MockBean
+    private HotCodeTracker hotCodeTracker;
+    
+    @Test
+    void testGetHotCodes_Success() throws Exception {
+        HotCodeTracker tracker = new HotCodeTracker(64, 2, 10, 60);
+        tracker.onClicks(new String[] {"hot", "hot", "warm"}, new long[3], 3, 0);
+        when(hotCodeTracker.getHotCodes(10)).thenReturn(tracker.getHotCodes(10));
+        when(hotCodeTracker.getErrorBound()).thenReturn(1L);
+        
+        mockMvc.perform(get("/api/hot-codes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hot_codes[0].short_code").value("hot"))
+                .andExpect(jsonPath("$.hot_codes[0].clicks").value(2))
+                .andExpect(jsonPath("$.hot_codes[1].short_code").value("warm"))
+                .andExpect(jsonPath("$.error_bound").value(1));
+    }
+    
+    @Test
+    void testGetHotCodes_InvalidN() throws Exception {
+        mockMvc.perform(get("/api/hot-codes").param("n", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+        
+        verify(hotCodeTracker, never()).getHotCodes(anyInt());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.url_shortner.controller;
+
+import com.example.url_shortner.model.RecordingStatus;
+import com.example.url_shortner.telemetry.FlightRecording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = RecordingController.class, properties = "app.telemetry.jfr.enabled=true")
+class RecordingControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @MockBean
+    private FlightRecording flightRecording;
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void testStart_Success() throws Exception {
+        RecordingStatus status = new RecordingStatus(true);
+        status.setSettings("profile");
+        when(flightRecording.start("profile")).thenReturn(true);
+        when(flightRecording.getStatus()).thenReturn(status);
+        
+        mockMvc.perform(post("/api/admin/recording/start").param("settings", "profile"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recording").value(true))
+                .andExpect(jsonPath("$.settings").value("profile"));
+    }
+    
+    @Test
+    void testStart_AlreadyRunning() throws Exception {
+        when(flightRecording.start("default")).thenReturn(false);
+        
+        mockMvc.perform(post("/api/admin/recording/start"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("A recording is already running; stop it first"));
+    }
+    
+    @Test
+    void testStart_UnknownSettings() throws Exception {
+        mockMvc.perform(post("/api/admin/recording/start").param("settings", "everything"))
+                .andExpect(status().isBadRequest());
+        
+        verify(flightRecording, never()).start(anyString());
+    }
+    
+    @Test
+    void testStop_StreamsTheRecording() throws Exception {
+        Path file = Files.write(dir.resolve("recording.jfr"), new byte[] {'F', 'L', 'R', 0});
+        when(flightRecording.stop()).thenReturn(file);
+        
+        mockMvc.perform(post("/api/admin/recording/stop"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"url-shortener.jfr\""))
+                .andExpect(content().bytes(new byte[] {'F', 'L', 'R', 0}));
+        
+        assertFalse(Files.exists(file));
+    }
+    
+    @Test
+    void testStop_NotRunning() throws Exception {
+        when(flightRecording.stop()).thenReturn(null);
+        
+        mockMvc.perform(post("/api/admin/recording/stop"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("No recording is running"));
+    }
+    
+    @Test
+    void testStatus() throws Exception {
+        when(flightRecording.getStatus()).thenReturn(new RecordingStatus(false));
+        
+        mockMvc.perform(get("/api/admin/recording"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recording").value(false));
+    }
+}
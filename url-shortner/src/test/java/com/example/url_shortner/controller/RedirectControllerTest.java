@@ -1,12 +1,15 @@
 package com.example.url_shortner.controller;
 
-import com.example.url_shortner.exception.UrlNotFoundException;
+import com.example.url_shortner.analytics.ClickRecorder;
 import com.example.url_shortner.service.UrlService;
+import com.example.url_shortner.telemetry.ShortenerMetrics;
+import com.example.url_shortner.util.Murmur3;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
+import java.util.Optional;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -20,46 +23,57 @@ class RedirectControllerTest {
     @MockBean
     private UrlService urlService;
     
+    @MockBean
+    private ClickRecorder clickRecorder;
+    
+    @MockBean
+    private ShortenerMetrics metrics;
+    
     @Test
     void testRedirect_Success() throws Exception {
         String shortCode = "abc123";
         String originalUrl = "https://example.com";
         
-        when(urlService.getOriginalUrl(shortCode)).thenReturn(originalUrl);
+        when(urlService.findOriginalUrl(shortCode)).thenReturn(Optional.of(originalUrl));
         
-        mockMvc.perform(get("/" + shortCode))
-                .andExpect(status().isMovedPermanently())
-                .andExpect(header().string("Location", originalUrl));
+        mockMvc.perform(get("/" + shortCode).with(request -> {
+                    request.setRemoteAddr("203.0.113.7");
+                    return request;
+                }))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", originalUrl))
+                .andExpect(header().string("Cache-Control", "no-store"));
         
-        verify(urlService).getOriginalUrl(shortCode);
+        verify(urlService).findOriginalUrl(shortCode);
+        verify(clickRecorder).record(shortCode, Murmur3.hash64("203.0.113.7", 0));
     }
     
     @Test
     void testRedirect_NotFound() throws Exception {
         String shortCode = "nonexistent";
         
-        when(urlService.getOriginalUrl(shortCode))
-                .thenThrow(new UrlNotFoundException("Short URL not found"));
+        when(urlService.findOriginalUrl(shortCode)).thenReturn(Optional.empty());
         
         mockMvc.perform(get("/" + shortCode))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.error").value("Short URL not found"));
         
-        verify(urlService).getOriginalUrl(shortCode);
+        verify(urlService).findOriginalUrl(shortCode);
+        verify(clickRecorder, never()).record(anyString(), anyLong());
     }
     
     @Test
     void testRedirect_InternalServerError() throws Exception {
         String shortCode = "abc123";
         
-        when(urlService.getOriginalUrl(shortCode))
+        when(urlService.findOriginalUrl(shortCode))
                 .thenThrow(new RuntimeException("Database error"));
         
         mockMvc.perform(get("/" + shortCode))
                 .andExpect(status().isInternalServerError())
                 .andExpect(jsonPath("$.error").exists());
         
-        verify(urlService).getOriginalUrl(shortCode);
+        verify(urlService).findOriginalUrl(shortCode);
     }
     
     @Test
@@ -69,6 +83,6 @@ class RedirectControllerTest {
         mockMvc.perform(post("/" + shortCode))
                 .andExpect(status().isMethodNotAllowed());
         
-        verify(urlService, never()).getOriginalUrl(anyString());
+        verify(urlService, never()).findOriginalUrl(anyString());
     }
 }
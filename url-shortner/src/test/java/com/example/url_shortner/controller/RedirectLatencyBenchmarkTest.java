@@ -0,0 +1,90 @@
+package com.example.url_shortner.controller;
+
+import com.example.url_shortner.analytics.ClickCounter;
+import com.example.url_shortner.analytics.ClickRecorder;
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import com.example.url_shortner.service.UrlService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Redirect latency over real HTTP with click recording off and on, in alternating rounds
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag(BenchmarkSupport.TAG)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RedirectLatencyBenchmarkTest {
+    
+    private static final int CODES = 1_000;
+    private static final int REQUESTS_PER_ROUND = 20_000;
+    private static final int ROUNDS = 3;
+    
+    @LocalServerPort
+    private int port;
+    
+    @Autowired
+    private UrlService urlService;
+    
+    @Autowired
+    private ClickRecorder clickRecorder;
+    
+    @Autowired
+    private ClickCounter clickCounter;
+    
+    @Test
+    void clickRecordingKeepsRedirectP99() throws Exception {
+        HttpClient client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).build();
+        HttpRequest[] requests = new HttpRequest[CODES];
+        for (int i = 0; i < CODES; i++) {
+            String shortUrl = urlService.shortenUrl("https://example.com/latency/" + i);
+            requests[i] = HttpRequest.newBuilder(URI.create("http://localhost:" + port + shortUrl.substring(shortUrl.lastIndexOf('/'))))
+                    .GET().build();
+        }
+        
+        // Warm up both paths
+        measure(client, requests, REQUESTS_PER_ROUND);
+        long[] off = new long[ROUNDS * REQUESTS_PER_ROUND];
+        long[] on = new long[ROUNDS * REQUESTS_PER_ROUND];
+        for (int round = 0; round < ROUNDS; round++) {
+            clickRecorder.setEnabled(false);
+            System.arraycopy(measure(client, requests, REQUESTS_PER_ROUND), 0, off, round * REQUESTS_PER_ROUND, REQUESTS_PER_ROUND);
+            clickRecorder.setEnabled(true);
+            System.arraycopy(measure(client, requests, REQUESTS_PER_ROUND), 0, on, round * REQUESTS_PER_ROUND, REQUESTS_PER_ROUND);
+        }
+        clickRecorder.drain();
+        
+        Arrays.sort(off);
+        Arrays.sort(on);
+        BenchmarkSupport.report("redirect-latency", "recording off: p50=%dus p99=%dus p99.9=%dus",
+                percentile(off, 50), percentile(off, 99), percentile(off, 99.9));
+        BenchmarkSupport.report("redirect-latency", "recording on:  p50=%dus p99=%dus p99.9=%dus (p99 %+.1f%%) dropped=%d",
+                percentile(on, 50), percentile(on, 99), percentile(on, 99.9),
+                100.0 * (percentile(on, 99) - percentile(off, 99)) / percentile(off, 99), clickRecorder.getDroppedClicks());
+        String firstCode = requests[0].uri().getPath().substring(1);
+        assertTrue(clickCounter.getClicks(firstCode) > 0);
+    }
+    
+    private static long[] measure(HttpClient client, HttpRequest[] requests, int count) throws Exception {
+        long[] micros = new long[count];
+        for (int i = 0; i < count; i++) {
+            long start = System.nanoTime();
+            HttpResponse<Void> response = client.send(requests[i % requests.length], HttpResponse.BodyHandlers.discarding());
+            micros[i] = (System.nanoTime() - start) / 1_000;
+            assertEquals(302, response.statusCode());
+        }
+        return micros;
+    }
+    
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile / 100 * sorted.length) - 1)];
+    }
+}
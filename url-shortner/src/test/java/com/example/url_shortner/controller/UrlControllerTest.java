@@ -1,7 +1,9 @@
 package com.example.url_shortner.controller;
 
-import com.example.url_shortner.exception.InvalidUrlException;
+import com.example.url_shortner.model.CodeMetric;
+import com.example.url_shortner.model.DomainMetric;
 import com.example.url_shortner.model.ShortenRequest;
+import com.example.url_shortner.service.ShortenResult;
 import com.example.url_shortner.service.UrlService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -10,6 +12,10 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import java.util.List;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -33,7 +39,7 @@ class UrlControllerTest {
         String shortUrl = "http://localhost:8080/abc123";
         ShortenRequest request = new ShortenRequest(originalUrl);
         
-        when(urlService.shortenUrl(originalUrl)).thenReturn(shortUrl);
+        when(urlService.tryShortenUrl(originalUrl, null)).thenReturn(ShortenResult.success(shortUrl));
         
         mockMvc.perform(post("/api/shorten")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -42,7 +48,37 @@ class UrlControllerTest {
                 .andExpect(jsonPath("$.short_url").value(shortUrl))
                 .andExpect(jsonPath("$.original_url").value(originalUrl));
         
-        verify(urlService).shortenUrl(originalUrl);
+        verify(urlService).tryShortenUrl(originalUrl, null);
+    }
+    
+    @Test
+    void testShortenUrl_WithExpiry() throws Exception {
+        String originalUrl = "https://example.com/campaign";
+        String shortUrl = "http://localhost:8080/abc123";
+        ShortenRequest request = new ShortenRequest(originalUrl);
+        request.setExpiresIn(2_592_000L);
+        
+        when(urlService.tryShortenUrl(originalUrl, 2_592_000L))
+                .thenReturn(ShortenResult.success(shortUrl, 1_700_000_000_000L));
+        
+        mockMvc.perform(post("/api/shorten")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.short_url").value(shortUrl))
+                .andExpect(jsonPath("$.expires_at").value("2023-11-14T22:13:20Z"));
+    }
+    
+    @Test
+    void testShortenUrl_PermanentLinkOmitsExpiry() throws Exception {
+        when(urlService.tryShortenUrl("https://example.com", null))
+                .thenReturn(ShortenResult.success("http://localhost:8080/abc123"));
+        
+        mockMvc.perform(post("/api/shorten")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"url\": \"https://example.com\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.expires_at").doesNotExist());
     }
     
     @Test
@@ -50,16 +86,16 @@ class UrlControllerTest {
         String originalUrl = "invalid-url";
         ShortenRequest request = new ShortenRequest(originalUrl);
         
-        when(urlService.shortenUrl(originalUrl))
-                .thenThrow(new InvalidUrlException("Invalid URL format"));
+        when(urlService.tryShortenUrl(originalUrl, null))
+                .thenReturn(ShortenResult.invalid("Invalid URL format"));
         
         mockMvc.perform(post("/api/shorten")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest())
-                .andExpect(jsonPath("$.error").exists());
+                .andExpect(jsonPath("$.error").value("Invalid URL format"));
         
-        verify(urlService).shortenUrl(originalUrl);
+        verify(urlService).tryShortenUrl(originalUrl, null);
     }
     
     @Test
@@ -72,7 +108,7 @@ class UrlControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("URL is required"));
         
-        verify(urlService, never()).shortenUrl(anyString());
+        verify(urlService, never()).tryShortenUrl(anyString(), any());
     }
     
     @Test
@@ -85,7 +121,7 @@ class UrlControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("URL is required"));
         
-        verify(urlService, never()).shortenUrl(anyString());
+        verify(urlService, never()).tryShortenUrl(anyString(), any());
     }
     
     @Test
@@ -93,7 +129,7 @@ class UrlControllerTest {
         String originalUrl = "https://example.com";
         ShortenRequest request = new ShortenRequest(originalUrl);
         
-        when(urlService.shortenUrl(originalUrl))
+        when(urlService.tryShortenUrl(originalUrl, null))
                 .thenThrow(new RuntimeException("Database error"));
         
         mockMvc.perform(post("/api/shorten")
@@ -102,7 +138,7 @@ class UrlControllerTest {
                 .andExpect(status().isInternalServerError())
                 .andExpect(jsonPath("$.error").exists());
         
-        verify(urlService).shortenUrl(originalUrl);
+        verify(urlService).tryShortenUrl(originalUrl, null);
     }
     
     @Test
@@ -114,6 +150,67 @@ class UrlControllerTest {
         verify(urlService).getTopDomains(3);
     }
     
+    @Test
+    void testGetMetrics_CustomN() throws Exception {
+        when(urlService.getTopDomains(10)).thenReturn(List.of(
+                new DomainMetric("example.com", 7)));
+        
+        mockMvc.perform(get("/api/metrics").param("n", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.top_domains[0].domain").value("example.com"))
+                .andExpect(jsonPath("$.top_domains[0].count").value(7));
+        
+        verify(urlService).getTopDomains(10);
+    }
+    
+    @Test
+    void testGetMetrics_InvalidN() throws Exception {
+        mockMvc.perform(get("/api/metrics").param("n", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+        
+        verify(urlService, never()).getTopDomains(anyInt());
+    }
+    
+    @Test
+    void testGetMetrics_Window() throws Exception {
+        when(urlService.getTopDomains(eq(3), any())).thenReturn(List.of(
+                new DomainMetric("example.com", 4)));
+        when(urlService.getTopCodes(eq(3), any())).thenReturn(List.of(
+                new CodeMetric("abc123", 12)));
+        
+        mockMvc.perform(get("/api/metrics").param("window", "5m"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.window").value("5m"))
+                .andExpect(jsonPath("$.top_domains[0].domain").value("example.com"))
+                .andExpect(jsonPath("$.top_domains[0].count").value(4))
+                .andExpect(jsonPath("$.top_codes[0].short_code").value("abc123"))
+                .andExpect(jsonPath("$.top_codes[0].clicks").value(12));
+        
+        verify(urlService, never()).getTopDomains(anyInt());
+    }
+    
+    @Test
+    void testGetMetrics_AllTimeOmitsWindowFields() throws Exception {
+        when(urlService.getTopDomains(3)).thenReturn(List.of());
+        
+        mockMvc.perform(get("/api/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.window").doesNotExist())
+                .andExpect(jsonPath("$.top_codes").doesNotExist());
+    }
+    
+    @Test
+    void testGetMetrics_InvalidWindow() throws Exception {
+        for (String window : new String[] {"", "5", "0m", "61m", "25h", "2d", "5x", "abc"}) {
+            mockMvc.perform(get("/api/metrics").param("window", window))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").exists());
+        }
+        
+        verify(urlService, never()).getTopCodes(anyInt(), any());
+    }
+    
     @Test
     void testShortenUrl_WrongMethod() throws Exception {
         mockMvc.perform(get("/api/shorten"))
@@ -0,0 +1,239 @@
+package com.example.url_shortner.expiry;
+
+import com.example.url_shortner.exception.UrlNotFoundException;
+import com.example.url_shortner.storage.FsyncPolicy;
+import com.example.url_shortner.storage.UrlStorage;
+import com.example.url_shortner.storage.WriteAheadLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinkExpiryTest {
+    
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private UrlStorage urlStore;
+    
+    @TempDir
+    Path tempDir;
+    
+    @BeforeEach
+    void setUp() {
+        urlStore = new UrlStorage();
+        urlStore.storeUrl("abc123", "https://example.com/a");
+        urlStore.storeUrl("def456", "https://example.com/b");
+        urlStore.incrementDomainCount("example.com");
+        urlStore.incrementDomainCount("example.com");
+    }
+    
+    private LinkExpiry expiry(boolean adjustDomainCounts) {
+        LinkExpiry expiry = new LinkExpiry(urlStore, 1000, 3600, adjustDomainCounts, now::get);
+        // No background ticker: the test drives expireDue() itself
+        expiry.close();
+        return expiry;
+    }
+    
+    private LinkExpiry journaled() throws IOException {
+        WriteAheadLog journal = new WriteAheadLog(tempDir.resolve("expiry.wal"), FsyncPolicy.INTERVAL, 1000);
+        return new LinkExpiry(urlStore, 1000, 3600, false, List.of(), journal, now::get);
+    }
+    
+    @Test
+    void testExpiredLinkIsRemovedAfterItsDeadline() {
+        LinkExpiry expiry = expiry(false);
+        long expiresAt = expiry.schedule("abc123", 30);
+        assertEquals(now.get() + 30_000, expiresAt);
+        
+        now.addAndGet(29_999);
+        assertEquals(0, expiry.expireDue());
+        assertEquals("https://example.com/a", urlStore.getOriginalUrl("abc123"));
+        
+        now.addAndGet(1);
+        assertEquals(1, expiry.expireDue());
+        assertNull(urlStore.getOriginalUrl("abc123"));
+        assertNull(urlStore.getShortCode("https://example.com/a"));
+        assertEquals("https://example.com/b", urlStore.getOriginalUrl("def456"));
+        assertEquals(2, urlStore.getDomainCounts().get("example.com"));
+        assertEquals(0, expiry.pending());
+        assertEquals(1, expiry.expired());
+    }
+    
+    @Test
+    void testListenersAreToldOfRemovedCodesOnly() {
+        List<String> expired = new ArrayList<>();
+        LinkExpiry expiry = new LinkExpiry(urlStore, 1000, 3600, false, List.of(expired::add), now::get);
+        expiry.close();
+        expiry.schedule("abc123", 1);
+        expiry.schedule("gone00", 1);
+        
+        now.addAndGet(1_000);
+        expiry.expireDue();
+        
+        assertEquals(List.of("abc123"), expired);
+    }
+    
+    @Test
+    void testFailedRemovalIsRetriedWithoutStrandingTheRestOfTheBatch() {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        urlStore = new UrlStorage() {
+            @Override
+            public String removeUrl(String shortCode) {
+                if (failing.get() && shortCode.equals("def456")) {
+                    throw new IllegalStateException("disk full");
+                }
+                return super.removeUrl(shortCode);
+            }
+        };
+        urlStore.storeUrl("abc123", "https://example.com/a");
+        urlStore.storeUrl("def456", "https://example.com/b");
+        urlStore.storeUrl("ghi789", "https://example.com/c");
+        LinkExpiry expiry = expiry(false);
+        expiry.schedule("abc123", 1);
+        expiry.schedule("def456", 1);
+        expiry.schedule("ghi789", 1);
+        
+        now.addAndGet(1_000);
+        assertThrows(IllegalStateException.class, expiry::expireDue);
+        
+        assertNull(urlStore.getOriginalUrl("abc123"));
+        assertEquals("https://example.com/b", urlStore.getOriginalUrl("def456"));
+        assertNull(urlStore.getOriginalUrl("ghi789"));
+        assertEquals(2, expiry.expired());
+        assertEquals(1, expiry.pending());
+        
+        failing.set(false);
+        now.addAndGet(1_000);
+        assertEquals(1, expiry.expireDue());
+        assertNull(urlStore.getOriginalUrl("def456"));
+        assertEquals(0, expiry.pending());
+    }
+    
+    @Test
+    void testDomainCountsAreAdjustedWhenEnabled() {
+        LinkExpiry expiry = expiry(true);
+        expiry.schedule("abc123", 1);
+        
+        now.addAndGet(1_000);
+        expiry.expireDue();
+        
+        assertEquals(1, urlStore.getDomainCounts().get("example.com"));
+    }
+    
+    @Test
+    void testExtendOnlyMovesDeadlinesLater() {
+        LinkExpiry expiry = expiry(false);
+        long expiresAt = expiry.schedule("abc123", 60);
+        
+        assertEquals(expiresAt, expiry.extend("abc123", 10));
+        assertEquals(now.get() + 120_000, expiry.extend("abc123", 120));
+        assertNull(expiry.extend("def456", 10), "permanent links stay permanent");
+        
+        now.addAndGet(60_000);
+        assertEquals(0, expiry.expireDue());
+        now.addAndGet(60_000);
+        assertEquals(1, expiry.expireDue());
+    }
+    
+    @Test
+    void testExistingLinksReportTheirExpiryOrThatTheyAreGone() {
+        LinkExpiry expiry = expiry(false);
+        long expiresAt = expiry.schedule("abc123", 1);
+        
+        assertEquals(expiresAt, expiry.expiresAt("abc123"));
+        assertNull(expiry.expiresAt("def456"));
+        
+        now.addAndGet(1_000);
+        expiry.expireDue();
+        
+        assertThrows(UrlNotFoundException.class, () -> expiry.expiresAt("abc123"));
+        assertThrows(UrlNotFoundException.class, () -> expiry.extend("abc123", 60));
+    }
+    
+    @Test
+    void testDeadlinesSurviveARestart() throws IOException {
+        LinkExpiry before = journaled();
+        long expiresAt = before.schedule("abc123", 60);
+        before.schedule("def456", 30);
+        before.extend("def456", 90);
+        urlStore.storeUrl("ghi789", "https://example.com/c");
+        before.schedule("ghi789", 10);
+        now.addAndGet(10_000);
+        before.expireDue();
+        before.close();
+        
+        LinkExpiry after = journaled();
+        try {
+            assertEquals(2, after.pending());
+            assertEquals(expiresAt, after.expiresAt("abc123"));
+            assertEquals(now.get() - 10_000 + 90_000, after.expiresAt("def456"));
+            
+            now.addAndGet(50_000);
+            after.expireDue();
+            assertNull(urlStore.getOriginalUrl("abc123"));
+            assertEquals("https://example.com/b", urlStore.getOriginalUrl("def456"));
+        } finally {
+            after.close();
+        }
+    }
+    
+    @Test
+    void testRestoreSkipsCodesThatNoLongerResolve() throws IOException {
+        LinkExpiry before = journaled();
+        before.schedule("abc123", 60);
+        before.close();
+        urlStore.removeUrl("abc123");
+        
+        LinkExpiry after = journaled();
+        try {
+            assertEquals(0, after.pending());
+        } finally {
+            after.close();
+        }
+    }
+    
+    @Test
+    void testJournalIsCompactedToThePendingDeadlines() throws IOException {
+        LinkExpiry before = journaled();
+        for (int i = 0; i < 2000; i++) {
+            urlStore.storeUrl("code" + i, "https://example.com/" + i);
+            before.schedule("code" + i, i < 1990 ? 1 : 60);
+        }
+        now.addAndGet(1_000);
+        before.expireDue();
+        long uncompacted = Files.size(tempDir.resolve("expiry.wal"));
+        
+        before.compactJournal();
+        
+        assertTrue(Files.size(tempDir.resolve("expiry.wal")) < uncompacted / 100);
+        before.close();
+        LinkExpiry after = journaled();
+        try {
+            assertEquals(10, after.pending());
+            assertEquals(now.get() + 59_000, after.expiresAt("code1999"));
+        } finally {
+            after.close();
+        }
+    }
+    
+    @Test
+    void testValidateAndMeters() {
+        LinkExpiry expiry = expiry(false);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        expiry.bindTo(registry);
+        expiry.schedule("abc123", 60);
+        
+        assertNull(expiry.validate(3600));
+        assertEquals("expires_in must be between 1 and 3600 seconds", expiry.validate(0));
+        assertNotNull(expiry.validate(3601));
+        assertEquals(1, registry.get("urlshortener.expiry.pending").gauge().value());
+        assertEquals(0, registry.get("urlshortener.expiry.expired").functionCounter().count());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.url_shortner.expiry;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+    
+    @Test
+    void testEntriesExpireExactlyAtTheirDeadline() {
+        TimingWheel wheel = new TimingWheel(0);
+        Random random = new Random(42);
+        Map<String, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            // Spread over every level, including deadlines that cascade more than once
+            long deadline = 1 + (long) Math.pow(random.nextDouble(), 3) * 300_000;
+            deadlines.put("code" + i, deadline);
+            wheel.schedule("code" + i, deadline);
+        }
+        
+        for (long tick = 1; tick <= 300_001; tick++) {
+            long now = tick;
+            wheel.advance(tick, key -> assertEquals(deadlines.remove(key), now, key));
+        }
+        
+        assertTrue(deadlines.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    void testAdvanceSkipsManyTicksAtOnce() {
+        TimingWheel wheel = new TimingWheel(0);
+        wheel.schedule("a", 10);
+        wheel.schedule("b", 5_000);
+        wheel.schedule("c", 400_000);
+        List<String> expired = new ArrayList<>();
+        
+        wheel.advance(4_999, expired::add);
+        assertEquals(List.of("a"), expired);
+        wheel.advance(400_000, expired::add);
+        
+        assertEquals(List.of("a", "b", "c"), expired);
+    }
+    
+    @Test
+    void testCancelAndReschedule() {
+        TimingWheel wheel = new TimingWheel(0);
+        TimingWheel.Entry a = wheel.schedule("a", 100);
+        TimingWheel.Entry b = wheel.schedule("b", 100);
+        wheel.schedule("c", 100);
+        List<String> expired = new ArrayList<>();
+        
+        wheel.cancel(b);
+        wheel.cancel(b);
+        wheel.reschedule(a, 200);
+        wheel.advance(150, expired::add);
+        
+        assertEquals(List.of("c"), expired);
+        assertEquals(1, wheel.size());
+        wheel.advance(200, expired::add);
+        assertEquals(List.of("c", "a"), expired);
+        assertFalse(a.isScheduled());
+    }
+    
+    @Test
+    void testDeadlinesBeyondTheSpanAndInThePast() {
+        TimingWheel wheel = new TimingWheel(1_000);
+        long far = 1_000 + (1L << 24) * 3 + 17;
+        wheel.schedule("far", far);
+        wheel.schedule("past", 10);
+        List<String> expired = new ArrayList<>();
+        
+        wheel.advance(1_001, expired::add);
+        assertEquals(List.of("past"), expired);
+        wheel.advance(far - 1, expired::add);
+        assertEquals(List.of("past"), expired);
+        wheel.advance(far, expired::add);
+        
+        assertEquals(List.of("past", "far"), expired);
+    }
+}
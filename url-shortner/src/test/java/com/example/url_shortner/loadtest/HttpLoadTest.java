@@ -0,0 +1,145 @@
+package com.example.url_shortner.loadtest;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import com.example.url_shortner.benchmark.UrlCorpus;
+import com.example.url_shortner.service.UrlService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end load test: the full application on a random port, driven through Tomcat, Spring MVC
+ * and Jackson by an {@link OpenLoopLoadGenerator} with a mix of shorten, redirect and metrics calls
+ * Run with: mvn test -Pbenchmark -Dtest=HttpLoadTest
+ *
+ * Settings (system properties, e.g. -Dloadtest.rate=5000):
+ * loadtest.rate (requests/s, default 1000), loadtest.duration-seconds (default 30),
+ * loadtest.warmup-seconds (default 10), loadtest.mix (weights, default shorten=10,redirect=85,metrics=5),
+ * loadtest.max-in-flight (default 1000) and loadtest.report-dir (default target/load-test).
+ * The report is described in {@link LoadReport}; runs are seeded, so the request sequence is the
+ * same for every release.
+ */
+@Tag(BenchmarkSupport.TAG)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class HttpLoadTest {
+    
+    private static final String SHORTEN = "POST /api/shorten";
+    private static final String REDIRECT = "GET /{shortCode}";
+    private static final String METRICS = "GET /api/metrics";
+    private static final int SEEDED_CODES = 10_000;
+    private static final int CORPUS_SIZE = 1 << 16;
+    
+    @LocalServerPort
+    private int port;
+    
+    @Autowired
+    private UrlService urlService;
+    
+    @Test
+    void openLoopMixedLoad() throws Exception {
+        int rate = Integer.getInteger("loadtest.rate", 1_000);
+        int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 30);
+        int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+        int maxInFlight = Integer.getInteger("loadtest.max-in-flight", 1_000);
+        String mix = System.getProperty("loadtest.mix", "shorten=10,redirect=85,metrics=5");
+        Path reportDir = Path.of(System.getProperty("loadtest.report-dir", "target/load-test"));
+        int[] weights = parseMix(mix);
+        
+        // Redirect targets, created directly through the service
+        String[] codes = new String[SEEDED_CODES];
+        String[] seedUrls = UrlCorpus.generate(SEEDED_CODES, 1);
+        for (int i = 0; i < SEEDED_CODES; i++) {
+            String shortUrl = urlService.shortenUrl(seedUrls[i]);
+            codes[i] = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+        }
+        String[] corpus = UrlCorpus.generate(CORPUS_SIZE, 2);
+        
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(client, rate, maxInFlight);
+        String base = "http://localhost:" + port;
+        
+        // Warm-up with its own seed, results discarded
+        generator.run(warmupSeconds, requests(base, weights, codes, corpus, "warmup", 3));
+        Map<String, OpenLoopLoadGenerator.EndpointResult> results =
+                generator.run(durationSeconds, requests(base, weights, codes, corpus, "run", 4));
+        
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("rate_per_second", rate);
+        settings.put("duration_seconds", durationSeconds);
+        settings.put("warmup_seconds", warmupSeconds);
+        settings.put("mix", mix);
+        settings.put("max_in_flight", maxInFlight);
+        settings.put("processors", Runtime.getRuntime().availableProcessors());
+        settings.put("java", System.getProperty("java.version"));
+        String summary = LoadReport.write(reportDir, settings, results);
+        BenchmarkSupport.report("http-load", "report written to %s%n%s", reportDir.toAbsolutePath(), summary);
+        
+        long sent = results.values().stream().mapToLong(result -> result.getHistogram().getTotalCount()).sum();
+        assertTrue(sent > 0);
+        for (OpenLoopLoadGenerator.EndpointResult result : results.values()) {
+            assertEquals(0, result.getErrors());
+        }
+    }
+    
+    /**
+     * @return cumulative weights for shorten, redirect and metrics
+     */
+    private static int[] parseMix(String mix) {
+        int shorten = 0;
+        int redirect = 0;
+        int metrics = 0;
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            int weight = Integer.parseInt(pair[1].trim());
+            switch (pair[0].trim()) {
+                case "shorten" -> shorten = weight;
+                case "redirect" -> redirect = weight;
+                case "metrics" -> metrics = weight;
+                default -> throw new IllegalArgumentException("Unknown endpoint in loadtest.mix: " + pair[0]);
+            }
+        }
+        return new int[] {shorten, shorten + redirect, shorten + redirect + metrics};
+    }
+    
+    private static OpenLoopLoadGenerator.RequestSource requests(String base, int[] weights, String[] codes,
+                                                                String[] corpus, String phase, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        URI shortenUri = URI.create(base + "/api/shorten");
+        URI metricsUri = URI.create(base + "/api/metrics?n=10");
+        URI windowedMetricsUri = URI.create(base + "/api/metrics?n=10&window=5m");
+        return index -> {
+            int pick = random.nextInt(weights[2]);
+            if (pick < weights[0]) {
+                // Mostly new URLs; the suffix keeps them distinct across phases and runs
+                String url = corpus[(int) (index % corpus.length)] + (index % 4 == 0 ? "" : "#" + phase + index);
+                HttpRequest request = HttpRequest.newBuilder(shortenUri)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"url\":\"" + url + "\"}"))
+                        .build();
+                return new OpenLoopLoadGenerator.LoadRequest(SHORTEN, request, 200);
+            }
+            if (pick < weights[1]) {
+                String code = codes[random.nextInt(codes.length)];
+                return new OpenLoopLoadGenerator.LoadRequest(REDIRECT,
+                        HttpRequest.newBuilder(URI.create(base + "/" + code)).GET().build(), 302);
+            }
+            URI uri = (index & 1) == 0 ? metricsUri : windowedMetricsUri;
+            return new OpenLoopLoadGenerator.LoadRequest(METRICS, HttpRequest.newBuilder(uri).GET().build(), 200);
+        };
+    }
+}
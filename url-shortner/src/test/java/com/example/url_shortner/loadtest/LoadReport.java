@@ -0,0 +1,64 @@
+package com.example.url_shortner.loadtest;
+
+import org.HdrHistogram.Histogram;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes load-test results in a stable, diffable layout
+ * {@code summary.txt} holds the run settings and one line of percentiles per endpoint; each
+ * endpoint also gets the full HdrHistogram percentile distribution ({@code .hgrm}), which the
+ * HdrHistogram plotter can overlay across releases. Nothing time-dependent is written, so two
+ * reports differ only where the results do.
+ */
+public final class LoadReport {
+    
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    
+    private LoadReport() {
+    }
+    
+    /**
+     * @param directory where to write the report, created if missing
+     * @param settings run settings, written as key=value lines
+     * @param results results per endpoint
+     * @return the summary text, as written to summary.txt
+     */
+    public static String write(Path directory, Map<String, Object> settings,
+                               Map<String, OpenLoopLoadGenerator.EndpointResult> results) throws IOException {
+        Files.createDirectories(directory);
+        StringBuilder summary = new StringBuilder();
+        settings.forEach((key, value) -> summary.append(key).append('=').append(value).append('\n'));
+        summary.append('\n');
+        summary.append(String.format(Locale.ROOT, "%-20s %9s %7s %8s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "dropped", "p50_us", "p90_us", "p99_us", "p99.9_us", "p99.99_us", "max_us"));
+        for (Map.Entry<String, OpenLoopLoadGenerator.EndpointResult> entry : results.entrySet()) {
+            OpenLoopLoadGenerator.EndpointResult result = entry.getValue();
+            Histogram histogram = result.getHistogram();
+            summary.append(String.format(Locale.ROOT, "%-20s %9d %7d %8d", entry.getKey(),
+                    histogram.getTotalCount(), result.getErrors(), result.getDropped()));
+            for (double percentile : PERCENTILES) {
+                summary.append(String.format(Locale.ROOT, " %9d", histogram.getValueAtPercentile(percentile)));
+            }
+            summary.append(String.format(Locale.ROOT, " %9d%n", histogram.getMaxValue()));
+            
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(fileName(entry.getKey()) + ".hgrm")))) {
+                // Values are recorded in microseconds; scale the output to milliseconds
+                histogram.outputPercentileDistribution(out, 1_000.0);
+            }
+        }
+        Files.writeString(directory.resolve("summary.txt"), summary);
+        return summary.toString();
+    }
+    
+    /**
+     * @return the endpoint label as a file name, e.g. "GET /{shortCode}" becomes "get-shortcode"
+     */
+    static String fileName(String endpoint) {
+        return endpoint.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+    }
+}
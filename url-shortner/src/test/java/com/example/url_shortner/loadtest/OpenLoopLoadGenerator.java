@@ -0,0 +1,135 @@
+package com.example.url_shortner.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends HTTP requests at a fixed rate regardless of how fast responses come back (open loop)
+ *
+ * Request i is due at start + i / rate. Latency is measured from that intended time, not from
+ * when the request was actually sent, so a server stall is charged to every request that should
+ * have been sent during it. This is what corrects coordinated omission: a closed-loop client that
+ * waits for each response would simply send fewer requests while the server is slow and never
+ * record the delay. Responses complete asynchronously, so a slow response never delays the
+ * schedule; requests beyond {@code maxInFlight} outstanding are counted as dropped.
+ */
+public final class OpenLoopLoadGenerator {
+    
+    // 1 us to 1 minute at 3 significant digits
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    
+    /**
+     * One request to send, with the endpoint it is reported under
+     */
+    public static final class LoadRequest {
+        private final String endpoint;
+        private final HttpRequest request;
+        private final int expectedStatus;
+        
+        public LoadRequest(String endpoint, HttpRequest request, int expectedStatus) {
+            this.endpoint = endpoint;
+            this.request = request;
+            this.expectedStatus = expectedStatus;
+        }
+    }
+    
+    /**
+     * Produces the i-th request of a run
+     */
+    @FunctionalInterface
+    public interface RequestSource {
+        LoadRequest next(long index);
+    }
+    
+    /**
+     * Latencies and outcome counts of one endpoint
+     */
+    public static final class EndpointResult {
+        private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private Histogram histogram;
+        
+        /**
+         * @return latencies in microseconds from intended send time to response
+         */
+        public Histogram getHistogram() {
+            return histogram;
+        }
+        
+        public long getErrors() {
+            return errors.sum();
+        }
+        
+        public long getDropped() {
+            return dropped.sum();
+        }
+    }
+    
+    private final HttpClient client;
+    private final int ratePerSecond;
+    private final int maxInFlight;
+    
+    /**
+     * @param client the client used for all requests
+     * @param ratePerSecond requests sent per second, across all endpoints
+     * @param maxInFlight outstanding requests beyond which new ones are dropped instead of sent
+     */
+    public OpenLoopLoadGenerator(HttpClient client, int ratePerSecond, int maxInFlight) {
+        this.client = client;
+        this.ratePerSecond = ratePerSecond;
+        this.maxInFlight = maxInFlight;
+    }
+    
+    /**
+     * Runs the schedule for the given duration, then waits for outstanding responses
+     * @param durationSeconds how long to send requests
+     * @param requests the request source
+     * @return results per endpoint, in order of first appearance
+     */
+    public Map<String, EndpointResult> run(long durationSeconds, RequestSource requests) throws InterruptedException {
+        Map<String, EndpointResult> results = new LinkedHashMap<>();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        double intervalNanos = 1_000_000_000.0 / ratePerSecond;
+        long total = durationSeconds * ratePerSecond;
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            LoadRequest load = requests.next(i);
+            EndpointResult result = results.computeIfAbsent(load.endpoint, endpoint -> new EndpointResult());
+            if (!inFlight.tryAcquire()) {
+                result.dropped.increment();
+                continue;
+            }
+            client.sendAsync(load.request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long micros = (System.nanoTime() - intended) / 1_000;
+                        result.recorder.recordValue(Math.min(Math.max(micros, 1), MAX_LATENCY_MICROS));
+                        if (failure != null || response.statusCode() != load.expectedStatus) {
+                            result.errors.increment();
+                        }
+                        inFlight.release();
+                    });
+        }
+        if (!inFlight.tryAcquire(maxInFlight, 1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Responses still outstanding a minute after the run");
+        }
+        for (EndpointResult result : results.values()) {
+            result.histogram = result.recorder.getIntervalHistogram();
+        }
+        return results;
+    }
+}
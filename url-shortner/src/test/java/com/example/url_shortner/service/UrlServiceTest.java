@@ -1,9 +1,16 @@
 package com.example.url_shortner.service;
 
+import com.example.url_shortner.analytics.WindowedMetrics;
+import com.example.url_shortner.codegen.HashShortCodeGenerator;
 import com.example.url_shortner.exception.InvalidUrlException;
+import com.example.url_shortner.exception.ShortCodeExhaustedException;
 import com.example.url_shortner.exception.UrlNotFoundException;
+import com.example.url_shortner.expiry.LinkExpiry;
 import com.example.url_shortner.model.DomainMetric;
-import com.example.url_shortner.storage.UrlStorage;
+import com.example.url_shortner.storage.ShortCodeReservation;
+import com.example.url_shortner.storage.UrlStore;
+import com.example.url_shortner.telemetry.ShortenerMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,15 +18,23 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntFunction;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class UrlServiceTest {
     
     @Mock
-    private UrlStorage urlStorage;
+    private UrlStore urlStore;
+    
+    @Mock
+    private WindowedMetrics windowedMetrics;
     
     @InjectMocks
     private UrlService urlService;
@@ -28,7 +43,7 @@ class UrlServiceTest {
     
     @BeforeEach
     void setUp() {
-        urlService = new UrlService(urlStorage, BASE_URL);
+        urlService = new UrlService(urlStore, new HashShortCodeGenerator(), windowedMetrics, BASE_URL);
     }
     
     @Test
@@ -36,15 +51,27 @@ class UrlServiceTest {
         String originalUrl = "https://example.com";
         String shortCode = "abc123";
         
-        when(urlStorage.getShortCode(anyString())).thenReturn(null);
-        when(urlStorage.getOriginalUrl(shortCode)).thenReturn(null);
+        when(urlStore.reserveShortCode(eq(originalUrl), any()))
+                .thenReturn(ShortCodeReservation.created(shortCode, 1));
         
         String result = urlService.shortenUrl(originalUrl);
         
-        assertNotNull(result);
-        assertTrue(result.startsWith(BASE_URL));
-        verify(urlStorage).storeUrl(anyString(), anyString());
-        verify(urlStorage).incrementDomainCount(anyString());
+        assertEquals(BASE_URL + "/" + shortCode, result);
+        verify(urlStore).reserveShortCode(eq(originalUrl), any());
+        verify(urlStore).incrementDomainCount("example.com");
+        verify(windowedMetrics).recordShorten("example.com");
+    }
+    
+    @Test
+    void testTryShortenUrl_ExhaustedCandidatesAreRejected() {
+        when(urlStore.reserveShortCode(eq("https://example.com"), any()))
+                .thenThrow(new ShortCodeExhaustedException("No free short code after 24 probes"));
+        
+        ShortenResult result = urlService.tryShortenUrl("https://example.com");
+        
+        assertFalse(result.isValid());
+        assertEquals("No short code is available for this URL", result.getError());
+        verify(urlStore, never()).incrementDomainCount(anyString());
     }
     
     @Test
@@ -53,13 +80,16 @@ class UrlServiceTest {
         String shortCode = "abc123";
         String normalizedUrl = "https://example.com";
         
-        when(urlStorage.getShortCode(normalizedUrl)).thenReturn(shortCode);
+        when(urlStore.reserveShortCode(eq(normalizedUrl), any()))
+                .thenReturn(ShortCodeReservation.existing(shortCode));
+        when(urlStore.getOriginalUrl(shortCode)).thenReturn(normalizedUrl);
         
         String result = urlService.shortenUrl(originalUrl);
         
         assertEquals(BASE_URL + "/" + shortCode, result);
-        verify(urlStorage, never()).storeUrl(anyString(), anyString());
-        verify(urlStorage, never()).incrementDomainCount(anyString());
+        verify(urlStore, never()).storeUrl(anyString(), anyString());
+        verify(urlStore, never()).incrementDomainCount(anyString());
+        verify(windowedMetrics, never()).recordShorten(anyString());
     }
     
     @Test
@@ -70,7 +100,84 @@ class UrlServiceTest {
             urlService.shortenUrl(invalidUrl);
         });
         
-        verify(urlStorage, never()).storeUrl(anyString(), anyString());
+        verify(urlStore, never()).reserveShortCode(anyString(), any());
+    }
+    
+    @Test
+    void testTryShortenUrl_InvalidUrlIsAResult() {
+        ShortenResult result = urlService.tryShortenUrl("ftp://example.com");
+        
+        assertFalse(result.isValid());
+        assertNull(result.getShortUrl());
+        assertEquals("URL must use http or https scheme", result.getError());
+        verify(urlStore, never()).reserveShortCode(anyString(), any());
+    }
+    
+    @Test
+    void testTryShortenUrl_Success() {
+        when(urlStore.reserveShortCode(eq("https://example.com"), any()))
+                .thenReturn(ShortCodeReservation.created("abc123", 1));
+        
+        ShortenResult result = urlService.tryShortenUrl("https://example.com");
+        
+        assertTrue(result.isValid());
+        assertEquals(BASE_URL + "/abc123", result.getShortUrl());
+        assertNull(result.getError());
+    }
+    
+    @Test
+    void testTryShortenUrl_ExpiryIsScheduledExtendedOrKept() {
+        LinkExpiry linkExpiry = mock(LinkExpiry.class);
+        UrlService expiring = new UrlService(urlStore, new HashShortCodeGenerator(), windowedMetrics, BASE_URL,
+                ShortenerMetrics.disabled(), linkExpiry);
+        when(urlStore.reserveShortCode(eq("https://example.com"), any()))
+                .thenReturn(ShortCodeReservation.created("abc123", 1))
+                .thenReturn(ShortCodeReservation.existing("abc123"));
+        when(linkExpiry.schedule("abc123", 60)).thenReturn(1_000L);
+        when(linkExpiry.extend("abc123", 120)).thenReturn(2_000L);
+        when(linkExpiry.expiresAt("abc123")).thenReturn(2_000L);
+        
+        assertEquals(1_000L, expiring.tryShortenUrl("https://example.com", 60L).getExpiresAt());
+        assertEquals(2_000L, expiring.tryShortenUrl("https://example.com", 120L).getExpiresAt());
+        // Shortening again without expires_in does not make someone else's link permanent
+        assertEquals(2_000L, expiring.tryShortenUrl("https://example.com").getExpiresAt());
+    }
+    
+    @Test
+    void testTryShortenUrl_LinkExpiringDuringTheRequestIsShortenedAgain() {
+        LinkExpiry linkExpiry = mock(LinkExpiry.class);
+        UrlService expiring = new UrlService(urlStore, new HashShortCodeGenerator(), windowedMetrics, BASE_URL,
+                ShortenerMetrics.disabled(), linkExpiry);
+        when(urlStore.reserveShortCode(eq("https://example.com"), any()))
+                .thenReturn(ShortCodeReservation.existing("abc123"))
+                .thenReturn(ShortCodeReservation.created("abc123", 1));
+        when(linkExpiry.expiresAt("abc123")).thenThrow(new UrlNotFoundException("Short URL expired"));
+        
+        ShortenResult result = expiring.tryShortenUrl("https://example.com");
+        
+        assertTrue(result.isValid());
+        assertNull(result.getExpiresAt());
+        verify(urlStore, times(2)).reserveShortCode(eq("https://example.com"), any());
+        verify(urlStore).incrementDomainCount("example.com");
+    }
+    
+    @Test
+    void testTryShortenUrl_InvalidExpiryIsAResult() {
+        ShortenResult result = urlService.tryShortenUrl("https://example.com", 0L);
+        
+        assertFalse(result.isValid());
+        assertEquals("expires_in must be between 1 and 31536000 seconds", result.getError());
+        verify(urlStore, never()).reserveShortCode(anyString(), any());
+    }
+    
+    @Test
+    void testExceptionsCarryNoStackTrace() {
+        InvalidUrlException invalid = assertThrows(InvalidUrlException.class, () -> urlService.shortenUrl(""));
+        when(urlStore.getOriginalUrl("missing")).thenReturn(null);
+        UrlNotFoundException notFound = assertThrows(UrlNotFoundException.class, () -> urlService.getOriginalUrl("missing"));
+        
+        assertEquals(0, invalid.getStackTrace().length);
+        assertEquals(0, notFound.getStackTrace().length);
     }
     
     @Test
@@ -91,8 +198,11 @@ class UrlServiceTest {
     void testShortenUrl_WithoutScheme() {
         String url = "example.com";
         
-        when(urlStorage.getShortCode(anyString())).thenReturn(null);
-        when(urlStorage.getOriginalUrl(anyString())).thenReturn(null);
+        when(urlStore.reserveShortCode(eq("https://example.com"), any()))
+                .thenAnswer(invocation -> {
+                    IntFunction<String> candidates = invocation.getArgument(1);
+                    return ShortCodeReservation.created(candidates.apply(0), 1);
+                });
         
         String result = urlService.shortenUrl(url);
         
@@ -100,12 +210,31 @@ class UrlServiceTest {
         assertTrue(result.startsWith(BASE_URL));
     }
     
+    @Test
+    void testShortenUrl_CollisionCandidatesKeepTheCodeLength() {
+        String url = "https://example.com";
+        String[] third = new String[1];
+        
+        when(urlStore.reserveShortCode(eq(url), any()))
+                .thenAnswer(invocation -> {
+                    IntFunction<String> candidates = invocation.getArgument(1);
+                    assertNotEquals(candidates.apply(0), candidates.apply(1));
+                    third[0] = candidates.apply(2);
+                    assertEquals(8, third[0].length());
+                    return ShortCodeReservation.created(third[0], 3);
+                });
+        
+        String result = urlService.shortenUrl(url);
+        
+        assertEquals(BASE_URL + "/" + third[0], result);
+    }
+    
     @Test
     void testGetOriginalUrl_Success() {
         String shortCode = "abc123";
         String originalUrl = "https://example.com";
         
-        when(urlStorage.getOriginalUrl(shortCode)).thenReturn(originalUrl);
+        when(urlStore.getOriginalUrl(shortCode)).thenReturn(originalUrl);
         
         String result = urlService.getOriginalUrl(shortCode);
         
@@ -116,16 +245,48 @@ class UrlServiceTest {
     void testGetOriginalUrl_NotFound() {
         String shortCode = "nonexistent";
         
-        when(urlStorage.getOriginalUrl(shortCode)).thenReturn(null);
+        when(urlStore.getOriginalUrl(shortCode)).thenReturn(null);
         
         assertThrows(UrlNotFoundException.class, () -> {
             urlService.getOriginalUrl(shortCode);
         });
     }
     
+    @Test
+    void testShortenOutcomesAndCollisionsAreMeasured() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UrlService measured = new UrlService(urlStore, new HashShortCodeGenerator(), windowedMetrics, BASE_URL,
+                new ShortenerMetrics(registry, true));
+        when(urlStore.reserveShortCode(eq("https://example.com"), any())).thenAnswer(invocation -> {
+            IntFunction<String> candidates = invocation.getArgument(1);
+            candidates.apply(0);
+            candidates.apply(1);
+            return ShortCodeReservation.created(candidates.apply(2), 3);
+        });
+        
+        measured.tryShortenUrl("https://example.com");
+        measured.tryShortenUrl("not a valid url");
+        
+        assertEquals(1, registry.get("urlshortener.shorten").tag("outcome", "created").timer().count());
+        assertEquals(1, registry.get("urlshortener.shorten").tag("outcome", "invalid").timer().count());
+        assertEquals(2, registry.get("urlshortener.shorten.validate").timer().count());
+        assertEquals(3, registry.get("urlshortener.shorten.generate").timer().count());
+        assertEquals(3, registry.get("urlshortener.shorten.probes").summary().totalAmount());
+        assertEquals(2, registry.get("urlshortener.shorten.collisions").counter().count());
+    }
+    
+    @Test
+    void testFindOriginalUrl() {
+        when(urlStore.getOriginalUrl("abc123")).thenReturn("https://example.com");
+        when(urlStore.getOriginalUrl("nonexistent")).thenReturn(null);
+        
+        assertEquals(Optional.of("https://example.com"), urlService.findOriginalUrl("abc123"));
+        assertEquals(Optional.empty(), urlService.findOriginalUrl("nonexistent"));
+    }
+    
     @Test
     void testGetTopDomains_Empty() {
-        when(urlStorage.getDomainCounts()).thenReturn(java.util.Map.of());
+        when(urlStore.getTopDomains(3)).thenReturn(List.of());
         
         List<DomainMetric> result = urlService.getTopDomains(3);
         
@@ -134,8 +295,8 @@ class UrlServiceTest {
     
     @Test
     void testGetTopDomains_SingleDomain() {
-        when(urlStorage.getDomainCounts()).thenReturn(
-            java.util.Map.of("example.com", 5)
+        when(urlStore.getTopDomains(3)).thenReturn(
+            List.of(Map.entry("example.com", 5L))
         );
         
         List<DomainMetric> result = urlService.getTopDomains(3);
@@ -147,12 +308,11 @@ class UrlServiceTest {
     
     @Test
     void testGetTopDomains_MultipleDomains() {
-        when(urlStorage.getDomainCounts()).thenReturn(
-            java.util.Map.of(
-                "youtube.com", 6,
-                "stackoverflow.com", 4,
-                "wikipedia.org", 2,
-                "udemy.com", 8
+        when(urlStore.getTopDomains(3)).thenReturn(
+            List.of(
+                Map.entry("udemy.com", 8L),
+                Map.entry("youtube.com", 6L),
+                Map.entry("stackoverflow.com", 4L)
             )
         );
         
@@ -169,17 +329,16 @@ class UrlServiceTest {
     
     @Test
     void testGetTopDomains_Limit() {
-        when(urlStorage.getDomainCounts()).thenReturn(
-            java.util.Map.of(
-                "domain1.com", 10,
-                "domain2.com", 8,
-                "domain3.com", 6,
-                "domain4.com", 4
+        when(urlStore.getTopDomains(2)).thenReturn(
+            List.of(
+                Map.entry("domain1.com", 10L),
+                Map.entry("domain2.com", 8L)
             )
         );
         
         List<DomainMetric> result = urlService.getTopDomains(2);
         
         assertEquals(2, result.size());
+        verify(urlStore, never()).getDomainCounts();
     }
 }
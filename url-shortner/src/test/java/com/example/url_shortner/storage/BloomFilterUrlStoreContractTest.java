@@ -0,0 +1,185 @@
+package com.example.url_shortner.storage;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterUrlStoreContractTest extends UrlStoreContractTest {
+    
+    @Override
+    protected UrlStore createStore() {
+        return new BloomFilterUrlStore(new UrlStorage(), 10_000, 0.01);
+    }
+    
+    @Test
+    void testDefiniteMissesSkipTheEngine() {
+        AtomicInteger engineLookups = new AtomicInteger();
+        UrlStorage engine = new UrlStorage() {
+            @Override
+            public String getOriginalUrl(String shortCode) {
+                engineLookups.incrementAndGet();
+                return super.getOriginalUrl(shortCode);
+            }
+        };
+        BloomFilterUrlStore filtered = new BloomFilterUrlStore(engine, 10_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filtered.storeUrl("code" + i, "https://example.com/" + i);
+        }
+        
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals("https://example.com/" + i, filtered.getOriginalUrl("code" + i));
+        }
+        assertEquals(1_000, engineLookups.get());
+        
+        for (int i = 0; i < 10_000; i++) {
+            assertNull(filtered.getOriginalUrl("unknown" + i));
+        }
+        // Only false positives reach the engine
+        assertEquals(filtered.getFalsePositives(), engineLookups.get() - 1_000);
+        assertEquals(10_000, filtered.getRejectedLookups() + filtered.getFalsePositives());
+        assertTrue(filtered.getRejectedLookups() > 9_900);
+    }
+    
+    @Test
+    void testExistingMappingsAreLoaded() {
+        UrlStorage engine = new UrlStorage();
+        engine.storeUrl("abc123", "https://example.com");
+        
+        BloomFilterUrlStore filtered = new BloomFilterUrlStore(engine, 1_000, 0.01);
+        
+        assertEquals("https://example.com", filtered.getOriginalUrl("abc123"));
+        assertEquals(1, filtered.getFilter().getInsertions());
+    }
+    
+    @Test
+    void testReservedCodesAreVisibleThroughTheFilter() {
+        ShortCodeReservation reservation = store.reserveShortCode("https://example.com", attempt -> "abc" + attempt);
+        
+        assertEquals("https://example.com", store.getOriginalUrl(reservation.getShortCode()));
+    }
+    
+    @Test
+    void testRepeatedAndLosingCandidatesAreNotCounted() {
+        BloomFilterUrlStore filtered = new BloomFilterUrlStore(new UrlStorage(), 1_000, 0.01);
+        filtered.storeUrl("abc0", "https://example.com/a");
+        filtered.storeUrl("abc0", "https://example.com/a");
+        // abc0 is taken, so the reservation loses it and settles on abc1
+        filtered.reserveShortCode("https://example.com/b", attempt -> "abc" + attempt);
+        
+        assertEquals(2, filtered.getFilter().getInsertions());
+    }
+    
+    @Test
+    void testRebuildDropsRemovedCodes() {
+        BloomFilterUrlStore filtered = new BloomFilterUrlStore(new UrlStorage(), 1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filtered.storeUrl("code" + i, "https://example.com/" + i);
+        }
+        for (int i = 0; i < 900; i++) {
+            filtered.removeUrl("code" + i);
+        }
+        
+        filtered.rebuild();
+        
+        assertEquals(100, filtered.getFilter().getInsertions());
+        for (int i = 0; i < 900; i++) {
+            assertNull(filtered.getOriginalUrl("code" + i));
+        }
+        assertTrue(filtered.getRejectedLookups() > 850);
+        for (int i = 900; i < 1_000; i++) {
+            assertEquals("https://example.com/" + i, filtered.getOriginalUrl("code" + i));
+        }
+    }
+    
+    @Test
+    void testCodesStoredDuringRebuildsStayVisible() throws InterruptedException {
+        BloomFilterUrlStore filtered = new BloomFilterUrlStore(new UrlStorage(), 1_000, 0.01);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger lost = new AtomicInteger();
+        Thread rebuilder = new Thread(() -> {
+            while (running.get()) {
+                filtered.rebuild();
+            }
+        });
+        rebuilder.start();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int writer = t;
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    String url = "https://example.com/" + writer + "/" + i;
+                    String code = filtered.reserveShortCode(url, attempt -> writer + "-" + url.hashCode() + "-" + attempt)
+                            .getShortCode();
+                    if (!url.equals(filtered.getOriginalUrl(code))) {
+                        lost.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        running.set(false);
+        rebuilder.join();
+        
+        assertEquals(0, lost.get());
+        assertEquals(0, filtered.getRejectedLookups());
+        filtered.forEach((code, url) -> assertEquals(url, filtered.getOriginalUrl(code)));
+    }
+    
+    @Test
+    void testFalsePositiveRateMatchesConfiguration() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("code" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 200_000; i++) {
+            if (filter.mightContain("unknown" + i)) {
+                falsePositives++;
+            }
+        }
+        
+        double observed = falsePositives / 200_000.0;
+        assertEquals(0.01, filter.getExpectedFalsePositiveRate(), 0.002);
+        assertTrue(observed > 0.005 && observed < 0.015, "observed=" + observed);
+        // 100k entries at 1%: about 9.6 bits per entry
+        assertTrue(filter.getMemoryBytes() < 125_000, "bytes=" + filter.getMemoryBytes());
+        assertEquals(7, filter.getHashCount());
+    }
+    
+    @Test
+    @Tag(BenchmarkSupport.TAG)
+    void benchmarkMissLookups() throws InterruptedException {
+        int stored = 1_000_000;
+        String[] unknown = new String[1 << 16];
+        for (int i = 0; i < unknown.length; i++) {
+            unknown[i] = "x" + Long.toString(i * 0x9E3779B97F4A7C15L >>> 16, 36);
+        }
+        engines(() -> new UrlStorage(), "memory", stored, unknown);
+        engines(() -> new SortedUrlStore(), "sorted", stored, unknown);
+        engines(() -> new OffHeapUrlStore(1 << 10), "offheap", stored, unknown);
+    }
+    
+    private static void engines(Supplier<UrlStore> engines, String name, int stored, String[] unknown)
+            throws InterruptedException {
+        UrlStore engine = engines.get();
+        for (int i = 0; i < stored; i++) {
+            engine.storeUrl("c" + Integer.toString(i, 36), "https://example.com/" + i);
+        }
+        BloomFilterUrlStore filtered = new BloomFilterUrlStore(engine, stored, 0.01);
+        double plain = BenchmarkSupport.throughput(1, 2_000,
+                (thread, i) -> engine.getOriginalUrl(unknown[(int) (i & (unknown.length - 1))]));
+        double withFilter = BenchmarkSupport.throughput(1, 2_000,
+                (thread, i) -> filtered.getOriginalUrl(unknown[(int) (i & (unknown.length - 1))]));
+        BenchmarkSupport.report("bloom-filter", "engine=%s misses/s without=%.0f with=%.0f (%.2fx) filter=%d KB",
+                name, plain, withFilter, withFilter / plain, filtered.getFilter().getMemoryBytes() / 1024);
+    }
+}
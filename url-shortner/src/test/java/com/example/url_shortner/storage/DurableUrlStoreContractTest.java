@@ -0,0 +1,183 @@
+package com.example.url_shortner.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurableUrlStoreContractTest extends UrlStoreContractTest {
+    
+    @TempDir
+    Path dir;
+    
+    @Override
+    protected UrlStore createStore() throws IOException {
+        return open();
+    }
+    
+    private DurableUrlStore open() throws IOException {
+        return new DurableUrlStore(new UrlStorage(),
+                new WriteAheadLog(dir.resolve("urls.wal"), FsyncPolicy.BATCHED, 100));
+    }
+    
+    @AfterEach
+    void closeStore() throws IOException {
+        ((DurableUrlStore) store).close();
+    }
+    
+    @Test
+    void testMappingsSurviveRestart() throws IOException {
+        ShortCodeReservation reservation = store.reserveShortCode("https://example.com/a", attempt -> "abc" + attempt);
+        store.reserveShortCode("https://example.com/a", attempt -> "ignored" + attempt);
+        store.storeUrl("def456", "https://google.com");
+        ((DurableUrlStore) store).close();
+        
+        store = open();
+        
+        assertEquals(2, store.size());
+        assertEquals("https://example.com/a", store.getOriginalUrl(reservation.getShortCode()));
+        assertEquals("def456", store.getShortCode("https://google.com"));
+        assertEquals(1, store.getDomainCounts().get("example.com"));
+        assertEquals(1, store.getDomainCounts().get("google.com"));
+    }
+    
+    @Test
+    void testRemovalsSurviveRestart() throws IOException {
+        store.storeUrl("abc123", "https://example.com/a");
+        store.storeUrl("def456", "https://example.com/b");
+        store.removeUrl("abc123");
+        store.decrementDomainCount("example.com");
+        ((DurableUrlStore) store).close();
+        
+        store = open();
+        
+        assertNull(store.getOriginalUrl("abc123"));
+        assertNull(store.getShortCode("https://example.com/a"));
+        assertEquals("https://example.com/b", store.getOriginalUrl("def456"));
+        assertEquals(1, store.getDomainCounts().get("example.com"));
+    }
+    
+    @Test
+    void testCheckpointTrimsLogAndMappingsSurviveRestart() throws IOException {
+        ((DurableUrlStore) store).close();
+        WriteAheadLog writeAheadLog = new WriteAheadLog(dir.resolve("snapshot.wal"), FsyncPolicy.BATCHED, 100);
+        DurableUrlStore durable = new DurableUrlStore(new SnapshotUrlStore(dir.resolve("urls.snapshot"), 0), writeAheadLog);
+        store = durable;
+        store.storeUrl("abc123", "https://example.com/a");
+        store.storeUrl("def456", "https://example.com/b");
+        long logged = writeAheadLog.size();
+        
+        assertTrue(durable.checkpoint());
+        store.removeUrl("abc123");
+        
+        assertTrue(writeAheadLog.size() < logged);
+        writeAheadLog.close();
+        store = new DurableUrlStore(new SnapshotUrlStore(dir.resolve("urls.snapshot"), 0),
+                new WriteAheadLog(dir.resolve("snapshot.wal"), FsyncPolicy.BATCHED, 100));
+        
+        assertNull(store.getOriginalUrl("abc123"));
+        assertEquals("https://example.com/b", store.getOriginalUrl("def456"));
+    }
+    
+    @Test
+    void testDecrementsAreNotReplayedOntoSnapshotCountsHoldingThem() throws Exception {
+        ((DurableUrlStore) store).close();
+        Path snapshot = dir.resolve("urls.snapshot");
+        WriteAheadLog writeAheadLog = new WriteAheadLog(dir.resolve("snapshot.wal"), FsyncPolicy.BATCHED, 100);
+        DurableUrlStore[] durable = new DurableUrlStore[1];
+        Thread[] expiring = new Thread[1];
+        // Expires a link while the checkpoint is under way, as the expiry ticker may
+        SnapshotUrlStore engine = new SnapshotUrlStore(snapshot, 0) {
+            @Override
+            public boolean checkpoint() throws IOException {
+                expiring[0] = new Thread(() -> {
+                    durable[0].removeUrl("def456");
+                    durable[0].decrementDomainCount("example.com");
+                });
+                expiring[0].start();
+                try {
+                    expiring[0].join(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.checkpoint();
+            }
+        };
+        durable[0] = new DurableUrlStore(engine, writeAheadLog);
+        store = durable[0];
+        for (String code : new String[] {"abc123", "def456", "ghi789"}) {
+            store.storeUrl(code, "https://example.com/" + code);
+            store.incrementDomainCount("example.com");
+        }
+        store.removeUrl("abc123");
+        store.decrementDomainCount("example.com");
+        
+        assertTrue(durable[0].checkpoint());
+        expiring[0].join();
+        assertEquals(1, store.getDomainCounts().get("example.com"));
+        writeAheadLog.close();
+        store = new DurableUrlStore(new SnapshotUrlStore(snapshot, 0),
+                new WriteAheadLog(dir.resolve("snapshot.wal"), FsyncPolicy.BATCHED, 100));
+        
+        assertNull(store.getOriginalUrl("def456"));
+        assertEquals(1, store.getDomainCounts().get("example.com"));
+    }
+    
+    @Test
+    void testDecrementsOfRemovalsTheTieredEngineHoldsAreNotReplayed() throws IOException {
+        ((DurableUrlStore) store).close();
+        Path file = dir.resolve("urls.tiered");
+        WriteAheadLog writeAheadLog = new WriteAheadLog(dir.resolve("tiered.wal"), FsyncPolicy.BATCHED, 100);
+        TieredUrlStore engine = new TieredUrlStore(file, 1 << 20);
+        DurableUrlStore durable = new DurableUrlStore(engine, writeAheadLog);
+        store = durable;
+        for (String code : new String[] {"abc123", "def456", "ghi789"}) {
+            store.storeUrl(code, "https://example.com/" + code);
+            store.incrementDomainCount("example.com");
+        }
+        assertTrue(durable.checkpoint());
+        // One removal of a checkpointed mapping, and one of a mapping created after the checkpoint
+        store.removeUrl("abc123");
+        store.decrementDomainCount("example.com");
+        store.storeUrl("jkl012", "https://example.com/jkl012");
+        store.incrementDomainCount("example.com");
+        store.removeUrl("jkl012");
+        store.decrementDomainCount("example.com");
+        writeAheadLog.close();
+        engine.close();
+        store = new DurableUrlStore(new TieredUrlStore(file, 1 << 20),
+                new WriteAheadLog(dir.resolve("tiered.wal"), FsyncPolicy.BATCHED, 100));
+        
+        assertNull(store.getOriginalUrl("abc123"));
+        assertNull(store.getOriginalUrl("jkl012"));
+        assertEquals(2, store.getDomainCounts().get("example.com"));
+    }
+    
+    @Test
+    void testCheckpointWithoutEngineFilesKeepsLog() throws IOException {
+        store.storeUrl("abc123", "https://example.com/a");
+        
+        assertFalse(((DurableUrlStore) store).checkpoint());
+        ((DurableUrlStore) store).close();
+        store = open();
+        
+        assertEquals("https://example.com/a", store.getOriginalUrl("abc123"));
+    }
+    
+    @Test
+    void testFailedAppendUndoesReservation() throws IOException {
+        WriteAheadLog writeAheadLog = new WriteAheadLog(dir.resolve("failing.wal"), FsyncPolicy.BATCHED, 100);
+        UrlStorage engine = new UrlStorage();
+        DurableUrlStore durable = new DurableUrlStore(engine, writeAheadLog);
+        writeAheadLog.close();
+        
+        assertThrows(RuntimeException.class,
+                () -> durable.reserveShortCode("https://example.com/a", attempt -> "abc" + attempt));
+        
+        assertNull(engine.getOriginalUrl("abc0"));
+        assertNull(engine.getShortCode("https://example.com/a"));
+        assertNotNull(durable.getHealthProblem());
+    }
+}
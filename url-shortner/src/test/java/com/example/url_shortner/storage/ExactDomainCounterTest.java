@@ -0,0 +1,177 @@
+package com.example.url_shortner.storage;
+
+import com.example.url_shortner.analytics.WindowedMetrics;
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import com.example.url_shortner.codegen.HashAlgorithm;
+import com.example.url_shortner.codegen.HashShortCodeGenerator;
+import com.example.url_shortner.service.UrlService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExactDomainCounterTest {
+    
+    @Test
+    void testIncrementAddAndGet() {
+        ExactDomainCounter counter = new ExactDomainCounter();
+        counter.increment("example.com");
+        counter.increment("example.com");
+        counter.add("google.com", 5_000_000_000L);
+        
+        assertEquals(2, counter.get("example.com"));
+        assertEquals(5_000_000_000L, counter.get("google.com"));
+        assertEquals(0, counter.get("missing.com"));
+        assertEquals(Map.of("example.com", 2L, "google.com", 5_000_000_000L), counter.snapshot());
+    }
+    
+    @Test
+    void testSnapshotIsACopy() {
+        ExactDomainCounter counter = new ExactDomainCounter();
+        counter.increment("example.com");
+        Map<String, Long> snapshot = counter.snapshot();
+        counter.increment("example.com");
+        
+        assertEquals(1L, snapshot.get("example.com"));
+        assertEquals(2L, counter.snapshot().get("example.com"));
+    }
+    
+    @Test
+    void testConcurrentIncrementsOnHotDomain() throws InterruptedException {
+        ExactDomainCounter counter = new ExactDomainCounter();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    counter.increment(i % 10 == 0 ? "rare.com" : "youtube.com");
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        assertEquals(360_000, counter.get("youtube.com"));
+        assertEquals(40_000, counter.get("rare.com"));
+    }
+    
+    @Test
+    void testTopMatchesFullSortOnSkewedStream() {
+        ExactDomainCounter counter = new ExactDomainCounter(10);
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            // Zipf-like: low ranks are far more frequent
+            String domain = "d" + (int) (5_000 * Math.pow(random.nextDouble(), 4)) + ".com";
+            counter.increment(domain);
+            expected.merge(domain, 1L, Long::sum);
+        }
+        
+        List<Long> expectedTop = expected.values().stream()
+                .sorted(Comparator.reverseOrder()).limit(10).collect(Collectors.toList());
+        List<Map.Entry<String, Long>> top = counter.top(10);
+        assertEquals(expectedTop, top.stream().map(Map.Entry::getValue).collect(Collectors.toList()));
+        top.forEach(entry -> assertEquals(expected.get(entry.getKey()), entry.getValue()));
+        assertEquals(3, counter.top(3).size());
+    }
+    
+    @Test
+    void testTopBeyondTrackedCapacityFallsBackToFullSort() {
+        ExactDomainCounter counter = new ExactDomainCounter(2);
+        counter.add("a.com", 1);
+        counter.add("b.com", 3);
+        counter.add("c.com", 2);
+        counter.add("d.com", 4);
+        
+        assertEquals(List.of(Map.entry("d.com", 4L), Map.entry("b.com", 3L)), counter.top(2));
+        assertEquals(List.of(Map.entry("d.com", 4L), Map.entry("b.com", 3L), Map.entry("c.com", 2L)), counter.top(3));
+    }
+    
+    @Test
+    void testLateRisingDomainEntersTop() {
+        ExactDomainCounter counter = new ExactDomainCounter(2);
+        counter.add("a.com", 10);
+        counter.add("b.com", 20);
+        for (int i = 0; i < 15; i++) {
+            counter.increment("c.com");
+        }
+        
+        assertEquals(List.of(Map.entry("b.com", 20L), Map.entry("c.com", 15L)), counter.top(2));
+    }
+    
+    @Test
+    void testDecrementedTopDomainMakesRoomForUntrackedOne() {
+        ExactDomainCounter counter = new ExactDomainCounter(2);
+        counter.add("a.com", 10);
+        counter.add("b.com", 20);
+        counter.add("c.com", 5);
+        for (int i = 0; i < 8; i++) {
+            counter.decrement("a.com");
+        }
+        
+        assertEquals(List.of(Map.entry("b.com", 20L), Map.entry("c.com", 5L)), counter.top(2));
+        counter.increment("a.com");
+        assertEquals(3, counter.get("a.com"));
+        assertEquals(List.of(Map.entry("b.com", 20L), Map.entry("c.com", 5L)), counter.top(2));
+    }
+    
+    /**
+     * 90% of traffic goes to three domains, as with youtube.com-heavy workloads
+     */
+    private static String skewedDomain(long i) {
+        long bucket = Long.remainderUnsigned(i * 0x9E3779B97F4A7C15L, 100);
+        return bucket < 90 ? "hot" + (bucket % 3) + ".com" : "tail" + (i % 10_000) + ".com";
+    }
+    
+    @Test
+    @Tag(BenchmarkSupport.TAG)
+    void benchmarkSkewedDomainCounting() throws InterruptedException {
+        for (int threads : BenchmarkSupport.threadCounts()) {
+            Map<String, Integer> merged = new ConcurrentHashMap<>();
+            ExactDomainCounter striped = new ExactDomainCounter();
+            double mergeOps = BenchmarkSupport.throughput(threads, 2_000,
+                    (thread, i) -> merged.merge(skewedDomain(i), 1, Integer::sum));
+            double stripedOps = BenchmarkSupport.throughput(threads, 2_000,
+                    (thread, i) -> striped.increment(skewedDomain(i)));
+            BenchmarkSupport.report("domain-count", "threads=%d merge/s=%.0f longadder/s=%.0f",
+                    threads, mergeOps, stripedOps);
+        }
+        
+        // /api/metrics cost with a million distinct domains: full copy and sort vs incremental top-K
+        ExactDomainCounter counter = new ExactDomainCounter();
+        for (long i = 0; i < 5_000_000; i++) {
+            counter.increment(i % 5 == 0 ? skewedDomain(i) : "d" + (i % 1_000_000) + ".com");
+        }
+        double sortAll = BenchmarkSupport.throughput(1, 3_000, (thread, i) -> counter.snapshot().entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed()).limit(3).collect(Collectors.toList()));
+        double topK = BenchmarkSupport.throughput(1, 2_000, (thread, i) -> counter.top(3));
+        BenchmarkSupport.report("domain-count", "top-3 of 1M domains: copy+sort/s=%.1f incremental/s=%.0f", sortAll, topK);
+        
+        // End-to-end shortens where most new URLs belong to a few domains
+        AtomicLong sequence = new AtomicLong();
+        double single = 0;
+        for (int threads : BenchmarkSupport.threadCounts()) {
+            UrlService urlService = new UrlService(new UrlStorage(),
+                    new HashShortCodeGenerator(HashAlgorithm.MURMUR3), new WindowedMetrics(10_000),
+                    "http://localhost:8080");
+            double shortens = BenchmarkSupport.throughput(threads, 2_000, (thread, i) -> {
+                long n = sequence.incrementAndGet();
+                urlService.shortenUrl("https://" + skewedDomain(n) + "/watch?v=" + n);
+            });
+            if (threads == 1) {
+                single = shortens;
+            }
+            BenchmarkSupport.report("domain-count", "threads=%d skewed shortens/s=%.0f speedup=%.2fx",
+                    threads, shortens, shortens / single);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.url_shortner.storage;
+
+import com.example.url_shortner.exception.ShortCodeExhaustedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedUrlStoreContractTest extends UrlStoreContractTest {
+    
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    
+    @Override
+    protected UrlStore createStore() {
+        return new InstrumentedUrlStore(new UrlStorage(), registry);
+    }
+    
+    private long count(String op, String result) {
+        return registry.get("urlshortener.storage.operation").tag("op", op).tag("result", result).timer().count();
+    }
+    
+    @Test
+    void testOperationsAreTimedByResult() {
+        store.reserveShortCode("https://example.com", attempt -> "abc" + attempt);
+        store.reserveShortCode("https://example.com", attempt -> "def" + attempt);
+        store.getOriginalUrl("abc0");
+        store.getOriginalUrl("unknown");
+        store.getOriginalUrl("unknown2");
+        
+        assertEquals(1, count("reserve", "created"));
+        assertEquals(1, count("reserve", "existing"));
+        assertEquals(1, count("get", "hit"));
+        assertEquals(2, count("get", "miss"));
+    }
+    
+    @Test
+    void testConsecutiveFailuresAreAHealthProblem() {
+        UrlStorage engine = new UrlStorage() {
+            @Override
+            public void storeUrl(String shortCode, String originalUrl) {
+                if (shortCode.startsWith("fail")) {
+                    throw new IllegalStateException("disk full");
+                }
+                super.storeUrl(shortCode, originalUrl);
+            }
+        };
+        InstrumentedUrlStore instrumented = new InstrumentedUrlStore(engine, registry);
+        assertNull(instrumented.getHealthProblem());
+        
+        assertThrows(IllegalStateException.class, () -> instrumented.storeUrl("fail1", "https://example.com"));
+        assertThrows(IllegalStateException.class, () -> instrumented.storeUrl("fail2", "https://example.com"));
+        
+        assertEquals("2 consecutive storage operation(s) failed, last: IllegalStateException: disk full",
+                instrumented.getHealthProblem());
+        assertEquals(2, registry.get("urlshortener.storage.errors").counter().count());
+        
+        instrumented.storeUrl("ok", "https://example.com");
+        assertNull(instrumented.getHealthProblem());
+    }
+    
+    @Test
+    void testExhaustedCandidatesAreNotAStorageFailure() {
+        InstrumentedUrlStore instrumented = new InstrumentedUrlStore(new UrlStorage(), registry);
+        
+        for (int i = 0; i < 3; i++) {
+            assertThrows(ShortCodeExhaustedException.class, () -> instrumented.reserveShortCode("https://example.com",
+                    attempt -> {
+                        throw new ShortCodeExhaustedException("No free short code after 0 probes");
+                    }));
+        }
+        
+        assertNull(instrumented.getHealthProblem());
+        assertEquals(0, registry.get("urlshortener.storage.errors").counter().count());
+    }
+}
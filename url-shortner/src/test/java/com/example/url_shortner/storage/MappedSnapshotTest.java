@@ -0,0 +1,93 @@
+package com.example.url_shortner.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSnapshotTest {
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void testWriteAndOpen() throws IOException {
+        UrlStorage source = new UrlStorage();
+        for (int i = 0; i < 1_000; i++) {
+            source.storeUrl("code" + i, "https://example.com/" + i);
+        }
+        Path path = dir.resolve("urls.snapshot");
+        
+        MappedSnapshot.write(path, source::forEach, Map.of("example.com", 1_000L));
+        MappedSnapshot snapshot = MappedSnapshot.open(path);
+        
+        assertEquals(1_000, snapshot.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals("https://example.com/" + i, snapshot.getOriginalUrl("code" + i));
+            assertEquals("code" + i, snapshot.getShortCode("https://example.com/" + i));
+        }
+        assertNull(snapshot.getOriginalUrl("code1000"));
+        assertNull(snapshot.getOriginalUrl(""));
+        assertNull(snapshot.getShortCode("https://example.com/missing"));
+        assertEquals(Map.of("example.com", 1_000L), snapshot.getDomainCounts());
+    }
+    
+    @Test
+    void testForEachInCodeOrder() throws IOException {
+        UrlStorage source = new UrlStorage();
+        source.storeUrl("b", "https://b.com");
+        source.storeUrl("a", "https://a.com");
+        source.storeUrl("ü", "https://u.com");
+        Path path = dir.resolve("urls.snapshot");
+        MappedSnapshot.write(path, source::forEach, Map.of());
+        
+        List<String> codes = new ArrayList<>();
+        MappedSnapshot.open(path).forEach((code, url) -> codes.add(code));
+        
+        assertEquals(List.of("a", "b", "ü"), codes);
+    }
+    
+    @Test
+    void testEmptySnapshot() throws IOException {
+        Path path = dir.resolve("urls.snapshot");
+        MappedSnapshot.write(path, action -> { }, Map.of());
+        MappedSnapshot snapshot = MappedSnapshot.open(path);
+        
+        assertEquals(0, snapshot.size());
+        assertNull(snapshot.getOriginalUrl("abc"));
+        assertNull(snapshot.getShortCode("https://example.com"));
+        assertNull(MappedSnapshot.empty().getOriginalUrl("abc"));
+    }
+    
+    @Test
+    void testOpen_RejectsIncompleteFile() throws IOException {
+        Path path = dir.resolve("urls.snapshot");
+        UrlStorage source = new UrlStorage();
+        source.storeUrl("abc", "https://example.com");
+        MappedSnapshot.write(path, source::forEach, Map.of());
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, java.util.Arrays.copyOf(bytes, bytes.length - 4));
+        
+        assertThrows(IOException.class, () -> MappedSnapshot.open(path));
+    }
+    
+    @Test
+    void testDomainCountsRoundTripAndOverlongNamesAreRejected() throws IOException {
+        Path path = dir.resolve("urls.snapshot");
+        Map<String, Long> domainCounts = new java.util.HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            domainCounts.put("host" + i + ".example.com", (long) i);
+        }
+        MappedSnapshot.write(path, action -> { }, domainCounts);
+        
+        assertEquals(domainCounts, MappedSnapshot.open(path).getDomainCounts());
+        Map<String, Long> overlong = Map.of("a".repeat(0x10000), 1L);
+        assertThrows(IllegalArgumentException.class, () -> MappedSnapshot.write(path, action -> { }, overlong));
+        assertEquals(domainCounts, MappedSnapshot.open(path).getDomainCounts());
+    }
+}
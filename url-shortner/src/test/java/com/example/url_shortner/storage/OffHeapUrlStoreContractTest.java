@@ -0,0 +1,122 @@
+package com.example.url_shortner.storage;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import com.example.url_shortner.util.UrlUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapUrlStoreContractTest extends UrlStoreContractTest {
+    
+    @Override
+    protected UrlStore createStore() {
+        // Tiny segments so the suite exercises resizing
+        return new OffHeapUrlStore(4);
+    }
+    
+    @Test
+    void testPackRoundTrip() {
+        assertEquals("pZqm5765", OffHeapUrlStore.unpack(OffHeapUrlStore.pack("pZqm5765")));
+        assertEquals("-_AAAAzz", OffHeapUrlStore.unpack(OffHeapUrlStore.pack("-_AAAAzz")));
+        assertEquals(-1, OffHeapUrlStore.pack("short"));
+        assertEquals(-1, OffHeapUrlStore.pack("pZqm57651"));
+        assertEquals(-1, OffHeapUrlStore.pack("pZqm 765"));
+    }
+    
+    @Test
+    void testPackedCodesAcrossResizes() {
+        for (int i = 0; i < 20_000; i++) {
+            String url = "https://example.com/" + i;
+            store.reserveShortCode(url, attempt -> UrlUtils.generateShortCode(url) + (attempt == 0 ? "" : attempt));
+        }
+        
+        assertEquals(20_000, store.size());
+        for (int i = 0; i < 20_000; i++) {
+            String url = "https://example.com/" + i;
+            String shortCode = store.getShortCode(url);
+            assertNotNull(shortCode);
+            assertEquals(url, store.getOriginalUrl(shortCode));
+        }
+    }
+    
+    @Test
+    void testOverwritePackedCodeKeepsTablesConsistent() {
+        for (int i = 0; i < 1_000; i++) {
+            store.storeUrl(OffHeapUrlStore.unpack(i), "https://example.com/" + i);
+        }
+        for (int i = 0; i < 1_000; i += 2) {
+            store.storeUrl(OffHeapUrlStore.unpack(i), "https://google.com/" + i);
+        }
+        
+        assertEquals(1_000, store.size());
+        for (int i = 0; i < 1_000; i++) {
+            String shortCode = OffHeapUrlStore.unpack(i);
+            String url = (i % 2 == 0 ? "https://google.com/" : "https://example.com/") + i;
+            assertEquals(url, store.getOriginalUrl(shortCode));
+            assertEquals(shortCode, store.getShortCode(url));
+        }
+        assertNull(store.getShortCode("https://example.com/0"));
+    }
+    
+    @Test
+    void testMemoryAccounting() {
+        OffHeapUrlStore offHeap = (OffHeapUrlStore) store;
+        store.storeUrl("pZqm5765", "https://example.com");
+        
+        assertTrue(offHeap.offHeapBytes() > 0);
+        assertTrue(offHeap.bytesPerMapping() > "https://example.com".length());
+    }
+    
+    @Test
+    @Tag(BenchmarkSupport.TAG)
+    void benchmarkBytesPerMapping() {
+        int mappings = 1_000_000;
+        String[] urls = new String[mappings];
+        for (int i = 0; i < mappings; i++) {
+            urls[i] = "https://www.example.com/articles/" + i + "/how-to-shorten-urls?utm_source=newsletter";
+        }
+        
+        long before = usedHeap();
+        UrlStorage heap = new UrlStorage();
+        for (String url : urls) {
+            heap.reserveShortCode(url, attempt -> UrlUtils.generateShortCode(url) + (attempt == 0 ? "" : attempt));
+        }
+        // Only the URL strings are shared with the corpus; count them as part of the heap engine
+        long heapBytes = usedHeap() - before + urlHeapBytes(urls);
+        heap = null;
+        
+        before = usedHeap();
+        OffHeapUrlStore offHeap = new OffHeapUrlStore();
+        for (String url : urls) {
+            offHeap.reserveShortCode(url, attempt -> UrlUtils.generateShortCode(url) + (attempt == 0 ? "" : attempt));
+        }
+        long offHeapHeapBytes = usedHeap() - before;
+        
+        double heapPerMapping = (double) heapBytes / mappings;
+        double offHeapPerMapping = offHeap.bytesPerMapping() + (double) offHeapHeapBytes / mappings;
+        double avgUrl = urlHeapBytes(urls) / (double) mappings;
+        BenchmarkSupport.report("memory", "url-avg-chars=%.0f heap-engine=%.0f B/mapping offheap-engine=%.0f B/mapping "
+                        + "(%.1fx); overhead excluding URL payload: %.0f vs %.0f B (%.1fx)",
+                avgUrl - 40, heapPerMapping, offHeapPerMapping, heapPerMapping / offHeapPerMapping,
+                heapPerMapping - (avgUrl - 40), offHeapPerMapping - (avgUrl - 40),
+                (heapPerMapping - (avgUrl - 40)) / (offHeapPerMapping - (avgUrl - 40)));
+        assertEquals(mappings, offHeap.size());
+    }
+    
+    private static long urlHeapBytes(String[] urls) {
+        long bytes = 0;
+        for (String url : urls) {
+            // String header + byte[] header + Latin-1 payload, 8-byte aligned
+            bytes += 24 + ((16 + url.length() + 7) & ~7);
+        }
+        return bytes;
+    }
+    
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.url_shortner.storage;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotUrlStoreContractTest extends UrlStoreContractTest {
+    
+    @TempDir
+    Path dir;
+    
+    @Override
+    protected UrlStore createStore() throws IOException {
+        return new SnapshotUrlStore(dir.resolve("urls.snapshot"), 0);
+    }
+    
+    @Test
+    void testLookupsSpanSnapshotAndDelta() throws IOException {
+        SnapshotUrlStore snapshotStore = (SnapshotUrlStore) store;
+        store.reserveShortCode("https://example.com/old", attempt -> "abc" + attempt);
+        snapshotStore.snapshot();
+        
+        assertEquals(0, snapshotStore.deltaSize());
+        ShortCodeReservation reservation = store.reserveShortCode("https://example.com/new", attempt -> "abc" + attempt);
+        
+        assertEquals("abc1", reservation.getShortCode(), "codes held by the snapshot must be skipped");
+        assertEquals("https://example.com/old", store.getOriginalUrl("abc0"));
+        assertEquals("abc0", store.getShortCode("https://example.com/old"));
+        assertFalse(store.reserveShortCode("https://example.com/old", attempt -> "x" + attempt).isCreated());
+        assertEquals(2, store.size());
+    }
+    
+    @Test
+    void testOverwriteInDeltaHidesSnapshotReverseMapping() throws IOException {
+        store.storeUrl("abc", "https://example.com");
+        ((SnapshotUrlStore) store).snapshot();
+        store.storeUrl("abc", "https://google.com");
+        
+        assertEquals("https://google.com", store.getOriginalUrl("abc"));
+        assertNull(store.getShortCode("https://example.com"));
+    }
+    
+    @Test
+    void testRemovedSnapshotCodeStaysRemovedAcrossSnapshots() throws IOException {
+        SnapshotUrlStore snapshotStore = (SnapshotUrlStore) store;
+        store.storeUrl("abc", "https://example.com");
+        store.storeUrl("def", "https://google.com");
+        snapshotStore.snapshot();
+        
+        assertEquals("https://example.com", store.removeUrl("abc"));
+        assertNull(store.getOriginalUrl("abc"));
+        assertNull(store.getShortCode("https://example.com"));
+        assertEquals(1, store.size());
+        
+        snapshotStore.snapshot();
+        
+        assertNull(store.getOriginalUrl("abc"));
+        assertEquals("https://google.com", store.getOriginalUrl("def"));
+        assertEquals(1, store.size());
+    }
+    
+    @Test
+    void testCodeRemovedFromSnapshotCanBeStoredAgain() throws IOException {
+        store.storeUrl("abc", "https://example.com");
+        ((SnapshotUrlStore) store).snapshot();
+        store.removeUrl("abc");
+        
+        store.storeUrl("abc", "https://google.com");
+        ((SnapshotUrlStore) store).snapshot();
+        
+        assertEquals("https://google.com", store.getOriginalUrl("abc"));
+        assertNull(store.getShortCode("https://example.com"));
+    }
+    
+    @Test
+    void testMappingsAndDomainCountsSurviveRestart() throws IOException {
+        store.reserveShortCode("https://example.com/a", attempt -> "abc" + attempt);
+        store.incrementDomainCount("example.com");
+        ((SnapshotUrlStore) store).close();
+        
+        store = createStore();
+        
+        assertEquals("https://example.com/a", store.getOriginalUrl("abc0"));
+        assertEquals("abc0", store.getShortCode("https://example.com/a"));
+        assertEquals(1, store.getDomainCounts().get("example.com"));
+    }
+    
+    @Test
+    void testFailedSnapshotKeepsFrozenMappingsForTheNextOne() throws IOException {
+        SnapshotUrlStore snapshotStore = (SnapshotUrlStore) store;
+        store.storeUrl("abc", "https://example.com/a");
+        // A directory where the temporary snapshot file goes makes the write fail
+        Path blocker = Files.createDirectory(dir.resolve("urls.snapshot.tmp"));
+        
+        assertThrows(IOException.class, snapshotStore::snapshot);
+        assertEquals("https://example.com/a", store.getOriginalUrl("abc"));
+        
+        store.storeUrl("def", "https://example.com/b");
+        assertThrows(IOException.class, snapshotStore::snapshot);
+        assertEquals("https://example.com/a", store.getOriginalUrl("abc"));
+        assertEquals("abc", store.getShortCode("https://example.com/a"));
+        assertEquals(2, store.size());
+        
+        Files.delete(blocker);
+        snapshotStore.close();
+        store = createStore();
+        
+        assertEquals("https://example.com/a", store.getOriginalUrl("abc"));
+        assertEquals("https://example.com/b", store.getOriginalUrl("def"));
+        assertEquals(2, store.size());
+    }
+    
+    @Test
+    @Tag(BenchmarkSupport.TAG)
+    void benchmarkTimeToFirstRedirect() throws IOException {
+        int mappings = 2_000_000;
+        Path walPath = dir.resolve("startup.wal");
+        Path snapshotPath = dir.resolve("startup.snapshot");
+        UrlStorage source = new UrlStorage();
+        try (WriteAheadLog wal = new WriteAheadLog(walPath, FsyncPolicy.INTERVAL, 1_000)) {
+            wal.replay((type, key, value) -> { });
+            for (int i = 0; i < mappings; i++) {
+                String code = Long.toString(i * 2654435761L & 0xFFFFFFFFFFL, 36);
+                String url = "https://example.com/articles/" + i + "?utm_source=newsletter";
+                source.storeUrl(code, url);
+                wal.append(WriteAheadLog.PUT, code, url);
+            }
+        }
+        MappedSnapshot.write(snapshotPath, source::forEach, Map.of());
+        String probe = Long.toString(12345 * 2654435761L & 0xFFFFFFFFFFL, 36);
+        source = null;
+        
+        long started = System.nanoTime();
+        DurableUrlStore replayed = new DurableUrlStore(new UrlStorage(), new WriteAheadLog(walPath, FsyncPolicy.INTERVAL, 1_000));
+        assertNotNull(replayed.getOriginalUrl(probe));
+        long replayMillis = (System.nanoTime() - started) / 1_000_000;
+        replayed.close();
+        replayed = null;
+        
+        started = System.nanoTime();
+        SnapshotUrlStore mapped = new SnapshotUrlStore(snapshotPath, 0);
+        assertNotNull(mapped.getOriginalUrl(probe));
+        long mappedMillis = (System.nanoTime() - started) / 1_000_000;
+        
+        BenchmarkSupport.report("startup", "mappings=%d wal-replay=%d ms mmap-snapshot=%d ms", mappings, replayMillis, mappedMillis);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.url_shortner.storage;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedUrlStoreContractTest extends UrlStoreContractTest {
+    
+    @Override
+    protected UrlStore createStore() {
+        return new SortedUrlStore();
+    }
+    
+    @Test
+    void testForEachVisitsCodesInOrder() {
+        store.storeUrl("c", "https://c.com");
+        store.storeUrl("a", "https://a.com");
+        store.storeUrl("b", "https://b.com");
+        
+        List<String> codes = new ArrayList<>();
+        store.forEach((code, url) -> codes.add(code));
+        
+        assertEquals(List.of("a", "b", "c"), codes);
+    }
+}
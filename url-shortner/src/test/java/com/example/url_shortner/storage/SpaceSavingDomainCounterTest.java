@@ -0,0 +1,111 @@
+package com.example.url_shortner.storage;
+
+import org.junit.jupiter.api.Test;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingDomainCounterTest {
+    
+    @Test
+    void testExactWhileUnderCapacity() {
+        SpaceSavingDomainCounter counter = new SpaceSavingDomainCounter(10, 10);
+        counter.add("a.com", 3);
+        counter.increment("b.com");
+        counter.add("a.com", 2);
+        
+        assertEquals(5, counter.get("a.com"));
+        assertEquals(0, counter.getError("a.com"));
+        assertEquals(List.of(Map.entry("a.com", 5L), Map.entry("b.com", 1L)), counter.top(5));
+    }
+    
+    @Test
+    void testBoundedMemoryAndHeavyHittersOnLongTail() {
+        SpaceSavingDomainCounter counter = new SpaceSavingDomainCounter(200, 10);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(11);
+        int total = 300_000;
+        for (int i = 0; i < total; i++) {
+            String domain = random.nextInt(100) < 40
+                    ? "hot" + random.nextInt(5) + ".com"
+                    : "tail" + random.nextInt(100_000) + ".com";
+            counter.increment(domain);
+            exact.merge(domain, 1L, Long::sum);
+        }
+        
+        assertTrue(counter.snapshot().size() <= 200);
+        for (int h = 0; h < 5; h++) {
+            String domain = "hot" + h + ".com";
+            long estimate = counter.get(domain);
+            // Never under-estimates; over-estimation is bounded by the inherited error
+            assertTrue(estimate >= exact.get(domain), domain);
+            assertTrue(estimate - counter.getError(domain) <= exact.get(domain), domain);
+        }
+        List<Map.Entry<String, Long>> top = counter.top(5);
+        assertEquals(5, top.size());
+        top.forEach(entry -> assertTrue(entry.getKey().startsWith("hot"), entry.getKey()));
+    }
+    
+    @Test
+    void testTopNeverExceedsCapacity() {
+        SpaceSavingDomainCounter counter = new SpaceSavingDomainCounter(3, 100);
+        for (int i = 0; i < 10; i++) {
+            counter.add("d" + i + ".com", i + 1);
+        }
+        
+        assertEquals(3, counter.top(100).size());
+    }
+    
+    @Test
+    void testCounterThatOutgrewItsVictimBatchIsNotEvicted() {
+        SpaceSavingDomainCounter counter = new SpaceSavingDomainCounter(8, 8);
+        for (int i = 1; i <= 8; i++) {
+            counter.add("d" + i + ".com", i);
+        }
+        // Selects the batch {d1, d2} and evicts d1
+        counter.increment("x.com");
+        counter.add("d2.com", 100);
+        counter.increment("y.com");
+        
+        assertEquals(102, counter.get("d2.com"));
+        assertEquals(0, counter.getError("d2.com"));
+    }
+    
+    @Test
+    void testConcurrentEvictionsLeaveOnlyMonitoredDomainsInTop() throws Exception {
+        SpaceSavingDomainCounter counter = new SpaceSavingDomainCounter(16, 16);
+        int threads = 4;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                for (int i = 0; i < 50_000; i++) {
+                    counter.increment("d" + random.nextInt(200) + ".com");
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        
+        Map<String, Long> monitored = counter.snapshot();
+        Set<String> seen = new HashSet<>();
+        for (Map.Entry<String, Long> entry : counter.top(16)) {
+            assertTrue(seen.add(entry.getKey()), "duplicate " + entry.getKey());
+            assertTrue(monitored.containsKey(entry.getKey()), "phantom " + entry.getKey());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.url_shortner.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredUrlStoreContractTest extends UrlStoreContractTest {
+    
+    @TempDir
+    Path dir;
+    
+    private SimpleMeterRegistry registry;
+    
+    @Override
+    protected UrlStore createStore() throws IOException {
+        return open(1 << 20);
+    }
+    
+    private TieredUrlStore open(long hotMaxBytes) throws IOException {
+        registry = new SimpleMeterRegistry();
+        return new TieredUrlStore(dir.resolve("urls.tiered"), hotMaxBytes, new ExactDomainCounter(), registry);
+    }
+    
+    @AfterEach
+    void closeStore() throws IOException {
+        ((TieredUrlStore) store).close();
+    }
+    
+    @Test
+    void testMappingsRemovalsAndDomainCountsSurviveRestart() throws IOException {
+        store.reserveShortCode("https://example.com/a", attempt -> "abc" + attempt);
+        store.storeUrl("def456", "https://google.com");
+        store.storeUrl("ghi789", "https://example.com/b");
+        store.storeUrl("def456", "https://bing.com");
+        store.removeUrl("ghi789");
+        ((TieredUrlStore) store).close();
+        
+        store = open(1 << 20);
+        
+        assertEquals(2, store.size());
+        assertEquals("https://example.com/a", store.getOriginalUrl("abc0"));
+        assertEquals("https://bing.com", store.getOriginalUrl("def456"));
+        assertNull(store.getShortCode("https://google.com"));
+        assertNull(store.getOriginalUrl("ghi789"));
+        assertEquals(1, store.getDomainCounts().get("example.com"));
+        assertEquals(1, store.getDomainCounts().get("bing.com"));
+    }
+    
+    @Test
+    void testTornRecordIsDroppedOnOpen() throws IOException {
+        store.storeUrl("abc123", "https://example.com/a");
+        store.storeUrl("def456", "https://example.com/b");
+        ((TieredUrlStore) store).close();
+        Path file = dir.resolve("urls.tiered");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        
+        store = open(1 << 20);
+        store.storeUrl("ghi789", "https://example.com/c");
+        
+        assertEquals("https://example.com/a", store.getOriginalUrl("abc123"));
+        assertNull(store.getOriginalUrl("def456"));
+        assertEquals("https://example.com/c", store.getOriginalUrl("ghi789"));
+    }
+    
+    @Test
+    void testHotTierIsBoundedAndColdReadsAreMeasured() throws IOException {
+        ((TieredUrlStore) store).close();
+        long hotMaxBytes = 64 * 1024;
+        store = open(hotMaxBytes);
+        for (int i = 0; i < 20_000; i++) {
+            store.storeUrl("code" + i, "https://example.com/" + i);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 20_000; i++) {
+                assertEquals("https://example.com/" + i, store.getOriginalUrl("code" + i));
+            }
+        }
+        
+        assertEquals(20_000, store.size());
+        assertTrue(registry.get("urlshortener.storage.hot.bytes").gauge().value() <= hotMaxBytes);
+        assertTrue(store.estimatedMemoryBytes() < 20_000 * 100L, "heap must not grow with the mappings");
+        double hot = registry.get("urlshortener.storage.tier.lookups").tag("tier", "hot").counter().count();
+        double cold = registry.get("urlshortener.storage.tier.lookups").tag("tier", "cold").counter().count();
+        assertEquals(100_000, hot + cold);
+        assertEquals((long) cold, registry.get("urlshortener.storage.cold.read").timer().count());
+        assertNull(store.getOriginalUrl("missing"));
+        assertEquals(1, registry.get("urlshortener.storage.tier.lookups").tag("tier", "miss").counter().count());
+    }
+    
+    @Test
+    void testIndexesGrowAndShrinkConsistently() {
+        for (int i = 0; i < 10_000; i++) {
+            store.storeUrl("code" + i, "https://example.com/" + i);
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            store.removeUrl("code" + i);
+        }
+        
+        assertEquals(5_000, store.size());
+        for (int i = 0; i < 10_000; i++) {
+            String expected = i % 2 == 0 ? null : "https://example.com/" + i;
+            assertEquals(expected, store.getOriginalUrl("code" + i));
+            assertEquals(i % 2 == 0 ? null : "code" + i, store.getShortCode("https://example.com/" + i));
+        }
+    }
+    
+    @Test
+    void testLogIsCompactedOnceMostlyDead() throws IOException {
+        String padding = "/" + "x".repeat(500);
+        for (int version = 0; version < 4; version++) {
+            for (int i = 0; i < 2_000; i++) {
+                store.storeUrl("code" + i, "https://example.com/" + i + "/" + version + padding);
+            }
+        }
+        for (int i = 0; i < 1_000; i++) {
+            store.removeUrl("code" + i);
+        }
+        
+        assertTrue(registry.get("urlshortener.storage.cold.compactions").functionCounter().count() >= 1);
+        // 1000 live records of about 530 bytes, plus at most as many dead bytes
+        assertTrue(Files.size(dir.resolve("urls.tiered")) < 2 * 1_000 * 600 + (1 << 20));
+        ((TieredUrlStore) store).close();
+        store = open(1 << 20);
+        
+        assertEquals(1_000, store.size());
+        for (int i = 0; i < 2_000; i++) {
+            String expected = i < 1_000 ? null : "https://example.com/" + i + "/3" + padding;
+            assertEquals(expected, store.getOriginalUrl("code" + i));
+            if (expected != null) {
+                assertEquals("code" + i, store.getShortCode(expected));
+            }
+        }
+        assertNull(store.getShortCode("https://example.com/1500/2" + padding));
+    }
+    
+    @Test
+    void testLargestIndexFitsOneMapping() {
+        assertTrue((long) DiskUrlFile.HashIndex.MAX_SLOTS * DiskUrlFile.HashIndex.SLOT_BYTES <= Integer.MAX_VALUE);
+        assertEquals(DiskUrlFile.HashIndex.MAX_SLOTS / 4 * 3L, DiskUrlFile.MAX_MAPPINGS);
+    }
+    
+    @Test
+    void testFullIndexesRejectNewCodesBeforeWritingThem() throws IOException {
+        ((TieredUrlStore) store).close();
+        Path file = dir.resolve("urls.tiered");
+        store = new TieredUrlStore(file, 1 << 20, 3, new ExactDomainCounter(), new SimpleMeterRegistry());
+        for (int i = 0; i < 3; i++) {
+            store.storeUrl("code" + i, "https://example.com/" + i);
+        }
+        assertNotNull(store.getHealthProblem());
+        long logBytes = Files.size(file);
+        
+        assertThrows(IllegalStateException.class, () -> store.storeUrl("code3", "https://example.com/3"));
+        assertEquals(logBytes, Files.size(file));
+        // Replacing and removing mappings still works, and frees room for a new code
+        store.storeUrl("code0", "https://example.com/0/v2");
+        store.removeUrl("code1");
+        assertNull(store.getHealthProblem());
+        store.storeUrl("code3", "https://example.com/3");
+        ((TieredUrlStore) store).close();
+        store = new TieredUrlStore(file, 1 << 20, 3, new ExactDomainCounter(), new SimpleMeterRegistry());
+        
+        assertEquals(3, store.size());
+        assertEquals("https://example.com/0/v2", store.getOriginalUrl("code0"));
+        assertNull(store.getOriginalUrl("code1"));
+        assertEquals("https://example.com/3", store.getOriginalUrl("code3"));
+    }
+}
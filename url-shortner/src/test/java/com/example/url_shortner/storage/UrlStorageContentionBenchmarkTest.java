@@ -0,0 +1,43 @@
+package com.example.url_shortner.storage;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Redirect (read) throughput under concurrent shortens (writes), swept across thread counts
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag(BenchmarkSupport.TAG)
+class UrlStorageContentionBenchmarkTest {
+
+    private static final int PRELOADED = 100_000;
+    private static final long DURATION_MILLIS = 2_000;
+
+    @Test
+    void redirectThroughputScalesWithConcurrentWrites() throws InterruptedException {
+        UrlStorage urlStorage = new UrlStorage();
+        String[] codes = new String[PRELOADED];
+        for (int i = 0; i < PRELOADED; i++) {
+            codes[i] = "c" + i;
+            urlStorage.storeUrl(codes[i], "https://example.com/" + i);
+        }
+
+        double single = 0;
+        for (int threads : BenchmarkSupport.threadCounts()) {
+            double opsPerSecond = BenchmarkSupport.throughput(threads, DURATION_MILLIS,
+                    (thread, i) -> urlStorage.getOriginalUrl(codes[(int) ((i * 31 + thread) % PRELOADED)]),
+                    (thread, i) -> {
+                        urlStorage.storeUrl("w" + i, "https://writer.example.com/" + i);
+                        urlStorage.incrementDomainCount("writer.example.com");
+                    });
+            if (threads == 1) {
+                single = opsPerSecond;
+            }
+            BenchmarkSupport.report("storage-contention", "threads=%d reads/s=%.0f speedup=%.2fx",
+                    threads, opsPerSecond, opsPerSecond / single);
+        }
+        assertTrue(single > 0);
+    }
+}
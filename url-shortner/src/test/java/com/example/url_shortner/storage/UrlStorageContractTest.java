@@ -0,0 +1,9 @@
+package com.example.url_shortner.storage;
+
+class UrlStorageContractTest extends UrlStoreContractTest {
+    
+    @Override
+    protected UrlStore createStore() {
+        return new UrlStorage();
+    }
+}
@@ -2,6 +2,14 @@ package com.example.url_shortner.storage;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
 import static org.junit.jupiter.api.Assertions.*;
 
 class UrlStorageTest {
@@ -104,4 +112,140 @@ class UrlStorageTest {
         String retrieved = urlStorage.getOriginalUrl(shortCode);
         assertEquals(originalUrl2, retrieved);
     }
+    
+    @Test
+    void testStoreUrl_ConcurrentWritersKeepBothDirectionsConsistent() throws InterruptedException {
+        int threads = 4;
+        int perThread = 5_000;
+        Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            writers[t] = new Thread(() -> {
+                for (int i = offset; i < offset + perThread; i++) {
+                    urlStorage.storeUrl("code" + i, "https://example.com/" + i);
+                    urlStorage.incrementDomainCount("example.com");
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        
+        for (int i = 0; i < threads * perThread; i++) {
+            String url = "https://example.com/" + i;
+            assertEquals(url, urlStorage.getOriginalUrl("code" + i));
+            assertEquals("code" + i, urlStorage.getShortCode(url));
+        }
+        assertEquals(threads * perThread, urlStorage.getDomainCounts().get("example.com"));
+    }
+    
+    @Test
+    void testStoreUrl_ConcurrentOverwritesOfOneCodeLeaveNoStaleReverseMapping() throws InterruptedException {
+        int threads = 4;
+        int rounds = 5_000;
+        Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            String url = "https://example.com/" + t;
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    urlStorage.storeUrl("shared", url);
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        
+        String winner = urlStorage.getOriginalUrl("shared");
+        for (int t = 0; t < threads; t++) {
+            String url = "https://example.com/" + t;
+            assertEquals(url.equals(winner) ? "shared" : null, urlStorage.getShortCode(url));
+        }
+    }
+    
+    @Test
+    void testReserveShortCode_NewUrl() {
+        ShortCodeReservation reservation = urlStorage.reserveShortCode("https://example.com", attempt -> "abc" + attempt);
+        
+        assertTrue(reservation.isCreated());
+        assertEquals("abc0", reservation.getShortCode());
+        assertEquals(1, reservation.getProbes());
+        assertEquals("https://example.com", urlStorage.getOriginalUrl("abc0"));
+        assertEquals("abc0", urlStorage.getShortCode("https://example.com"));
+    }
+    
+    @Test
+    void testReserveShortCode_ExistingUrl() {
+        urlStorage.storeUrl("abc123", "https://example.com");
+        
+        ShortCodeReservation reservation = urlStorage.reserveShortCode("https://example.com", attempt -> {
+            throw new AssertionError("candidates must not be generated for an existing URL");
+        });
+        
+        assertFalse(reservation.isCreated());
+        assertEquals("abc123", reservation.getShortCode());
+    }
+    
+    @Test
+    void testReserveShortCode_Collision() {
+        urlStorage.storeUrl("abc0", "https://google.com");
+        
+        ShortCodeReservation reservation = urlStorage.reserveShortCode("https://example.com", attempt -> "abc" + attempt);
+        
+        assertTrue(reservation.isCreated());
+        assertEquals("abc1", reservation.getShortCode());
+        assertEquals(2, reservation.getProbes());
+        assertEquals("https://google.com", urlStorage.getOriginalUrl("abc0"));
+    }
+    
+    @Test
+    void testReserveShortCode_ConcurrentStressHasNoDuplicateOrLostMappings() throws Exception {
+        int threads = 8;
+        int urls = 2_000;
+        ConcurrentHashMap<String, String> assigned = new ConcurrentHashMap<>();
+        AtomicInteger created = new AtomicInteger();
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        List<Thread> workers = new ArrayList<>();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    barrier.await();
+                    for (int n = 0; n < urls; n++) {
+                        // Every thread shortens every URL, in a different order per thread
+                        int i = (n * 7 + seed * 331) % urls;
+                        String url = "https://example.com/" + i;
+                        // Only 64 base codes, so different URLs collide constantly
+                        ShortCodeReservation reservation =
+                                urlStorage.reserveShortCode(url, attempt -> "h" + (i % 64) + "-" + attempt);
+                        if (reservation.isCreated()) {
+                            created.incrementAndGet();
+                        }
+                        String previous = assigned.putIfAbsent(url, reservation.getShortCode());
+                        if (previous != null && !previous.equals(reservation.getShortCode())) {
+                            throw new AssertionError(url + " got two codes: " + previous + ", " + reservation.getShortCode());
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        
+        assertTrue(failures.isEmpty(), () -> failures.peek().toString());
+        assertEquals(urls, created.get());
+        assertEquals(urls, new HashSet<>(assigned.values()).size());
+        assigned.forEach((url, code) -> {
+            assertEquals(url, urlStorage.getOriginalUrl(code));
+            assertEquals(code, urlStorage.getShortCode(url));
+        });
+    }
 }
@@ -0,0 +1,231 @@
+package com.example.url_shortner.storage;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Conformance and performance suite shared by every {@link UrlStore} engine
+ * Each engine adds a subclass implementing {@link #createStore()}.
+ */
+abstract class UrlStoreContractTest {
+    
+    protected UrlStore store;
+    
+    protected abstract UrlStore createStore() throws Exception;
+    
+    @BeforeEach
+    void setUpStore() throws Exception {
+        store = createStore();
+    }
+    
+    @Test
+    void testStoreAndLookupBothDirections() {
+        store.storeUrl("abc123", "https://example.com");
+        
+        assertEquals("https://example.com", store.getOriginalUrl("abc123"));
+        assertEquals("abc123", store.getShortCode("https://example.com"));
+        assertEquals(1, store.size());
+    }
+    
+    @Test
+    void testLookupMisses() {
+        assertNull(store.getOriginalUrl("missing"));
+        assertNull(store.getShortCode("https://missing.com"));
+        assertEquals(0, store.size());
+    }
+    
+    @Test
+    void testStoreUrl_OverwriteDropsStaleReverseMapping() {
+        store.storeUrl("abc123", "https://example.com");
+        store.storeUrl("abc123", "https://google.com");
+        
+        assertEquals("https://google.com", store.getOriginalUrl("abc123"));
+        assertEquals("abc123", store.getShortCode("https://google.com"));
+        assertNull(store.getShortCode("https://example.com"));
+    }
+    
+    @Test
+    void testReserveShortCode_CreatesThenReturnsExisting() {
+        ShortCodeReservation first = store.reserveShortCode("https://example.com", attempt -> "abc" + attempt);
+        ShortCodeReservation second = store.reserveShortCode("https://example.com", attempt -> "xyz" + attempt);
+        
+        assertTrue(first.isCreated());
+        assertFalse(second.isCreated());
+        assertEquals("abc0", first.getShortCode());
+        assertEquals("abc0", second.getShortCode());
+    }
+    
+    @Test
+    void testReserveShortCode_SkipsTakenCodes() {
+        store.storeUrl("abc0", "https://google.com");
+        store.storeUrl("abc1", "https://bing.com");
+        
+        ShortCodeReservation reservation = store.reserveShortCode("https://example.com", attempt -> "abc" + attempt);
+        
+        assertEquals("abc2", reservation.getShortCode());
+        assertEquals(3, reservation.getProbes());
+        assertEquals("https://google.com", store.getOriginalUrl("abc0"));
+    }
+    
+    @Test
+    void testReserveShortCode_ConcurrentCallersAgree() throws Exception {
+        int threads = 8;
+        int urls = 1_000;
+        Map<String, String> assigned = new ConcurrentHashMap<>();
+        AtomicInteger created = new AtomicInteger();
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    barrier.await();
+                    for (int n = 0; n < urls; n++) {
+                        int i = (n * 7 + seed * 331) % urls;
+                        String url = "https://example.com/" + i;
+                        ShortCodeReservation reservation =
+                                store.reserveShortCode(url, attempt -> "h" + (i % 32) + "-" + attempt);
+                        if (reservation.isCreated()) {
+                            created.incrementAndGet();
+                        }
+                        String previous = assigned.putIfAbsent(url, reservation.getShortCode());
+                        if (previous != null && !previous.equals(reservation.getShortCode())) {
+                            throw new AssertionError(url + " got two codes");
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        
+        assertTrue(failures.isEmpty(), () -> failures.peek().toString());
+        assertEquals(urls, created.get());
+        assertEquals(urls, new HashSet<>(assigned.values()).size());
+        assertEquals(urls, store.size());
+        assigned.forEach((url, code) -> assertEquals(url, store.getOriginalUrl(code)));
+    }
+    
+    @Test
+    void testRemoveUrl_DropsBothDirections() {
+        store.storeUrl("abc123", "https://example.com");
+        store.storeUrl("def456", "https://google.com");
+        
+        assertEquals("https://example.com", store.removeUrl("abc123"));
+        
+        assertNull(store.getOriginalUrl("abc123"));
+        assertNull(store.getShortCode("https://example.com"));
+        assertEquals("def456", store.getShortCode("https://google.com"));
+        assertEquals(1, store.size());
+        assertNull(store.removeUrl("abc123"));
+    }
+    
+    @Test
+    void testRemoveUrl_CodeAndUrlCanBeReserved() {
+        store.reserveShortCode("https://example.com", attempt -> "abc" + attempt);
+        store.removeUrl("abc0");
+        
+        ShortCodeReservation reservation = store.reserveShortCode("https://google.com", attempt -> "abc" + attempt);
+        
+        assertEquals("abc0", reservation.getShortCode());
+        assertTrue(store.reserveShortCode("https://example.com", attempt -> "xyz" + attempt).isCreated());
+        Map<String, String> visited = new HashMap<>();
+        store.forEach(visited::put);
+        assertEquals(Map.of("abc0", "https://google.com", "xyz0", "https://example.com"), visited);
+    }
+    
+    @Test
+    void testDecrementDomainCount() {
+        store.incrementDomainCount("example.com");
+        store.incrementDomainCount("example.com");
+        store.incrementDomainCount("google.com");
+        
+        store.decrementDomainCount("example.com");
+        store.decrementDomainCount("example.com");
+        store.decrementDomainCount("missing.com");
+        
+        assertEquals(0, store.getDomainCounts().get("example.com"));
+        assertEquals(List.of(Map.entry("google.com", 1L)), store.getTopDomains(1));
+    }
+    
+    @Test
+    void testDomainCounts() {
+        store.incrementDomainCount("example.com");
+        store.incrementDomainCount("example.com");
+        store.incrementDomainCount("google.com");
+        
+        Map<String, Long> counts = store.getDomainCounts();
+        assertEquals(2, counts.get("example.com"));
+        assertEquals(1, counts.get("google.com"));
+        assertNotSame(counts, store.getDomainCounts());
+    }
+    
+    @Test
+    void testTopDomains() {
+        for (int i = 0; i < 5; i++) {
+            store.incrementDomainCount("youtube.com");
+        }
+        store.incrementDomainCount("google.com");
+        store.incrementDomainCount("example.com");
+        store.incrementDomainCount("example.com");
+        
+        assertEquals(List.of(Map.entry("youtube.com", 5L), Map.entry("example.com", 2L)), store.getTopDomains(2));
+        assertEquals(3, store.getTopDomains(10).size());
+    }
+    
+    @Test
+    void testForEachVisitsEveryMapping() {
+        Map<String, String> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            expected.put("code" + i, "https://example.com/" + i);
+            store.storeUrl("code" + i, "https://example.com/" + i);
+        }
+        
+        Map<String, String> visited = new HashMap<>();
+        store.forEach(visited::put);
+        
+        assertEquals(expected, visited);
+    }
+    
+    @Test
+    @Tag(BenchmarkSupport.TAG)
+    void benchmarkMixedWorkload() throws InterruptedException {
+        int preloaded = 100_000;
+        String[] codes = new String[preloaded];
+        for (int i = 0; i < preloaded; i++) {
+            codes[i] = "c" + i;
+            store.storeUrl(codes[i], "https://example.com/" + i);
+        }
+        AtomicInteger next = new AtomicInteger();
+        for (int threads : BenchmarkSupport.threadCounts()) {
+            double reads = BenchmarkSupport.throughput(threads, 1_000,
+                    (thread, i) -> store.getOriginalUrl(codes[(int) ((i * 31 + thread) % preloaded)]));
+            double writes = BenchmarkSupport.throughput(threads, 1_000,
+                    (thread, i) -> {
+                        int n = next.incrementAndGet();
+                        store.reserveShortCode("https://writer.example.com/" + n, attempt -> "w" + n + "-" + attempt);
+                    });
+            BenchmarkSupport.report(getClass().getSimpleName(), "threads=%d lookups/s=%.0f reserves/s=%.0f",
+                    threads, reads, writes);
+        }
+    }
+}
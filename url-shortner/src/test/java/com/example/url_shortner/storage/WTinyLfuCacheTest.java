@@ -0,0 +1,77 @@
+package com.example.url_shortner.storage;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WTinyLfuCacheTest {
+    
+    private static String url(int i) {
+        return "https://example.com/" + i;
+    }
+    
+    @Test
+    void testWeightNeverExceedsCapacity() {
+        WTinyLfuCache cache = new WTinyLfuCache(10_000);
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("code" + i, url(i));
+            // The frequency sketch counts against the capacity too
+            assertTrue(cache.weightedSize() + cache.sketchBytes() <= 10_000);
+        }
+        
+        assertTrue(cache.size() > 0);
+        assertEquals(cache.size() * 1L, countPresent(cache, 1_000));
+    }
+    
+    @Test
+    void testReplaceAndRemove() {
+        WTinyLfuCache cache = new WTinyLfuCache(10_000);
+        cache.put("abc", "https://example.com");
+        cache.put("abc", "https://google.com");
+        
+        assertEquals("https://google.com", cache.get("abc"));
+        assertEquals(1, cache.size());
+        cache.remove("abc");
+        assertNull(cache.get("abc"));
+        assertEquals(0, cache.weightedSize());
+    }
+    
+    @Test
+    void testPopularEntriesSurviveAScanOfOneOffKeys() {
+        int capacityEntries = 100;
+        WTinyLfuCache cache = new WTinyLfuCache(capacityEntries * (WTinyLfuCache.ENTRY_OVERHEAD_BYTES + 30L));
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 50; i++) {
+                if (cache.get("hot" + i) == null) {
+                    cache.put("hot" + i, url(i));
+                }
+            }
+        }
+        
+        // One lookup each of many more codes than fit, as a crawler would cause
+        for (int i = 0; i < 10_000; i++) {
+            if (cache.get("scan" + i) == null) {
+                cache.put("scan" + i, url(i));
+            }
+        }
+        
+        int survivors = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get("hot" + i) != null) {
+                survivors++;
+            }
+        }
+        // An LRU of this size would keep none; only a hot key still in the window has to win
+        // admission again, after the scan has aged its frequency out
+        assertTrue(survivors >= 49, "hot keys kept: " + survivors);
+    }
+    
+    private static long countPresent(WTinyLfuCache cache, int keys) {
+        long present = 0;
+        for (int i = 0; i < keys; i++) {
+            if (cache.get("code" + i) != null) {
+                present++;
+            }
+        }
+        return present;
+    }
+}
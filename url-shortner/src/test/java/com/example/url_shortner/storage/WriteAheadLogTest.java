@@ -0,0 +1,170 @@
+package com.example.url_shortner.storage;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+    
+    @TempDir
+    Path dir;
+    
+    private List<String> replay(Path path) throws IOException {
+        List<String> records = new ArrayList<>();
+        try (WriteAheadLog wal = new WriteAheadLog(path, FsyncPolicy.BATCHED, 100)) {
+            wal.replay((type, key, value) -> records.add(type + ":" + key + "=" + value));
+        }
+        return records;
+    }
+    
+    @Test
+    void testAppendAndReplay() throws IOException {
+        Path path = dir.resolve("urls.wal");
+        try (WriteAheadLog wal = new WriteAheadLog(path, FsyncPolicy.ALWAYS, 100)) {
+            assertEquals(0, wal.replay((type, key, value) -> fail("log should be empty")));
+            wal.append(WriteAheadLog.PUT, "abc123", "https://example.com");
+            wal.append(WriteAheadLog.PUT, "ünï", "https://example.com/ü");
+        }
+        
+        assertEquals(List.of("1:abc123=https://example.com", "1:ünï=https://example.com/ü"), replay(path));
+    }
+    
+    @Test
+    void testReplay_TruncatesTornTail() throws IOException {
+        Path path = dir.resolve("urls.wal");
+        try (WriteAheadLog wal = new WriteAheadLog(path, FsyncPolicy.BATCHED, 100)) {
+            wal.replay((type, key, value) -> { });
+            wal.append(WriteAheadLog.PUT, "abc123", "https://example.com");
+            wal.append(WriteAheadLog.PUT, "def456", "https://google.com");
+        }
+        long intactSize = Files.size(path);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            // Simulate a crash halfway through a third record
+            file.setLength(intactSize - 5);
+        }
+        
+        assertEquals(List.of("1:abc123=https://example.com"), replay(path));
+        
+        // The torn bytes are gone and new appends land right after the last good record
+        try (WriteAheadLog wal = new WriteAheadLog(path, FsyncPolicy.BATCHED, 100)) {
+            wal.replay((type, key, value) -> { });
+            wal.append(WriteAheadLog.PUT, "ghi789", "https://bing.com");
+        }
+        assertEquals(List.of("1:abc123=https://example.com", "1:ghi789=https://bing.com"), replay(path));
+    }
+    
+    @Test
+    void testReplay_StopsAtCorruptRecord() throws IOException {
+        Path path = dir.resolve("urls.wal");
+        try (WriteAheadLog wal = new WriteAheadLog(path, FsyncPolicy.BATCHED, 100)) {
+            wal.replay((type, key, value) -> { });
+            wal.append(WriteAheadLog.PUT, "abc123", "https://example.com");
+            wal.append(WriteAheadLog.PUT, "def456", "https://google.com");
+        }
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            file.write('X');
+        }
+        
+        assertEquals(List.of("1:abc123=https://example.com"), replay(path));
+    }
+    
+    @Test
+    void testOpen_RejectsForeignFile() throws IOException {
+        Path path = dir.resolve("other.bin");
+        Files.writeString(path, "definitely not a log");
+        
+        assertThrows(IOException.class, () -> new WriteAheadLog(path, FsyncPolicy.BATCHED, 100));
+    }
+    
+    @Test
+    void testAppend_RequiresReplayFirst() throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(dir.resolve("urls.wal"), FsyncPolicy.BATCHED, 100)) {
+            assertThrows(IllegalStateException.class, () -> wal.append(WriteAheadLog.PUT, "a", "b"));
+        }
+    }
+    
+    @Test
+    void testGroupCommit_ConcurrentWritersAllDurable() throws Exception {
+        Path path = dir.resolve("urls.wal");
+        int threads = 8;
+        int perThread = 200;
+        try (WriteAheadLog wal = new WriteAheadLog(path, FsyncPolicy.BATCHED, 100)) {
+            wal.replay((type, key, value) -> { });
+            Thread[] writers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                int offset = t * perThread;
+                writers[t] = new Thread(() -> {
+                    for (int i = offset; i < offset + perThread; i++) {
+                        wal.append(WriteAheadLog.PUT, "code" + i, "https://example.com/" + i);
+                    }
+                });
+                writers[t].start();
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+        
+        assertEquals(threads * perThread, replay(path).size());
+    }
+    
+    @Test
+    void testIntervalPolicy() throws Exception {
+        Path path = dir.resolve("urls.wal");
+        try (WriteAheadLog wal = new WriteAheadLog(path, FsyncPolicy.INTERVAL, 5)) {
+            wal.replay((type, key, value) -> { });
+            wal.append(WriteAheadLog.PUT, "abc123", "https://example.com");
+        }
+        
+        assertEquals(1, replay(path).size());
+    }
+    
+    @Test
+    void testDiscardBefore_KeepsLaterRecordsAndPositions() throws IOException {
+        Path path = dir.resolve("urls.wal");
+        try (WriteAheadLog wal = new WriteAheadLog(path, FsyncPolicy.BATCHED, 100)) {
+            wal.replay((type, key, value) -> { });
+            wal.append(WriteAheadLog.PUT, "abc123", "https://example.com");
+            wal.append(WriteAheadLog.PUT, "def456", "https://google.com");
+            long checkpoint = wal.position();
+            long sizeBefore = wal.size();
+            wal.append(WriteAheadLog.REMOVE, "abc123", "");
+            
+            wal.discardBefore(checkpoint);
+            
+            assertTrue(wal.size() < sizeBefore);
+            assertEquals(Files.size(path), wal.size());
+            // Positions keep counting from before the discard
+            long position = wal.write(WriteAheadLog.PUT, "ghi789", "https://bing.com");
+            assertEquals(wal.position(), position);
+            wal.await(position);
+        }
+        
+        assertEquals(List.of("2:abc123=", "1:ghi789=https://bing.com"), replay(path));
+    }
+    
+    @Test
+    @Tag(BenchmarkSupport.TAG)
+    void benchmarkFsyncPolicies() throws Exception {
+        for (FsyncPolicy policy : FsyncPolicy.values()) {
+            for (int threads : new int[] {1, 16}) {
+                Path path = dir.resolve(policy + "-" + threads + ".wal");
+                try (WriteAheadLog wal = new WriteAheadLog(path, policy, 10)) {
+                    wal.replay((type, key, value) -> { });
+                    double opsPerSecond = BenchmarkSupport.throughput(threads, 1_000,
+                            (thread, i) -> wal.append(WriteAheadLog.PUT, "c" + thread + "-" + i, "https://example.com/" + i));
+                    BenchmarkSupport.report("wal", "policy=%s threads=%d appends/s=%.0f", policy, threads, opsPerSecond);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.url_shortner.telemetry;
+
+import com.example.url_shortner.analytics.WindowedMetrics;
+import com.example.url_shortner.codegen.HashShortCodeGenerator;
+import com.example.url_shortner.service.UrlService;
+import com.example.url_shortner.storage.UrlStorage;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingTest {
+    
+    private final FlightRecording flightRecording = new FlightRecording(60);
+    private final UrlService urlService = new UrlService(new UrlStorage(), new HashShortCodeGenerator(),
+            new WindowedMetrics(10_000), "http://localhost:8080");
+    
+    @AfterEach
+    void tearDown() {
+        flightRecording.close();
+    }
+    
+    private static List<RecordedEvent> events(Path file, String name) throws Exception {
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+    
+    @Test
+    void testRecordingCapturesShortenAndLookupEvents() throws Exception {
+        assertTrue(flightRecording.start("default"));
+        assertTrue(flightRecording.getStatus().isRecording());
+        
+        String shortUrl = urlService.shortenUrl("https://example.com/a");
+        urlService.shortenUrl("https://example.com/a");
+        urlService.tryShortenUrl("not a url");
+        String shortCode = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+        urlService.findOriginalUrl(shortCode);
+        urlService.findOriginalUrl("unknown");
+        
+        Path file = flightRecording.stop();
+        try {
+            List<RecordedEvent> shortens = events(file, "urlshortener.Shorten");
+            assertEquals(List.of("created", "existing", "invalid"),
+                    shortens.stream().map(event -> event.getString("outcome")).collect(Collectors.toList()));
+            RecordedEvent created = shortens.get(0);
+            assertEquals(shortCode, created.getString("shortCode"));
+            assertEquals(1, created.getInt("probes"));
+            assertTrue(created.getLong("validationTime") > 0);
+            assertTrue(created.getLong("hashTime") > 0);
+            assertTrue(created.getLong("storeTime") > 0);
+            assertEquals(0, shortens.get(1).getInt("probes"));
+            
+            List<RecordedEvent> lookups = events(file, "urlshortener.Lookup");
+            assertEquals(2, lookups.size());
+            assertTrue(lookups.get(0).getBoolean("found"));
+            assertFalse(lookups.get(1).getBoolean("found"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        assertFalse(flightRecording.getStatus().isRecording());
+    }
+    
+    @Test
+    void testOneRecordingAtATime() throws Exception {
+        assertNull(flightRecording.stop());
+        assertTrue(flightRecording.start("default"));
+        assertFalse(flightRecording.start("profile"));
+        Files.deleteIfExists(flightRecording.stop());
+    }
+}
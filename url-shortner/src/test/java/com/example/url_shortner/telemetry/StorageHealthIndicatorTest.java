@@ -0,0 +1,59 @@
+package com.example.url_shortner.telemetry;
+
+import com.example.url_shortner.storage.UrlStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageHealthIndicatorTest {
+    
+    @Mock
+    private UrlStore urlStore;
+    
+    private StorageHealthIndicator indicator;
+    
+    @BeforeEach
+    void setUp() {
+        indicator = new StorageHealthIndicator(urlStore);
+    }
+    
+    @Test
+    void testUpWithDetails() {
+        when(urlStore.size()).thenReturn(42L);
+        when(urlStore.estimatedMemoryBytes()).thenReturn(10_752L);
+        
+        Health health = indicator.health();
+        
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(42L, health.getDetails().get("mappings"));
+        assertEquals(10_752L, health.getDetails().get("estimated_memory_bytes"));
+        verify(urlStore).getShortCode(StorageHealthIndicator.PROBE_URL);
+    }
+    
+    @Test
+    void testDownWhenTheStoreReportsAProblem() {
+        when(urlStore.getHealthProblem()).thenReturn("Write-ahead log: Fsync failed");
+        
+        Health health = indicator.health();
+        
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals("Write-ahead log: Fsync failed", health.getDetails().get("problem"));
+    }
+    
+    @Test
+    void testDownWhenTheProbeThrows() {
+        when(urlStore.getShortCode(anyString())).thenThrow(new IllegalStateException("closed"));
+        
+        Health health = indicator.health();
+        
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals("java.lang.IllegalStateException: closed", health.getDetails().get("error"));
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.url_shortner.util;
+
+import com.example.url_shortner.benchmark.BenchmarkSupport;
+import com.example.url_shortner.benchmark.UrlCorpus;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlParserTest {
+    
+    @Test
+    void testParseRecordsHostOffsets() {
+        ParsedUrl parsed = UrlParser.parseAndNormalize("  https://user:pw@www.example.com:8080/a?b#c ");
+        
+        assertTrue(parsed.isValid());
+        assertEquals("https://user:pw@www.example.com:8080/a?b#c", parsed.getUrl());
+        assertEquals("www.example.com", parsed.getHost());
+        assertEquals(16, parsed.getHostStart());
+    }
+    
+    @Test
+    void testAlreadyNormalizedInputIsReturnedAsIs() {
+        String url = "https://example.com/path";
+        
+        assertSame(url, UrlParser.parseAndNormalize(url).getUrl());
+    }
+    
+    @Test
+    void testDefaultsSchemeAndLowercasesIt() {
+        assertEquals("https://example.com:8080/x", UrlParser.parseAndNormalize("example.com:8080/x").getUrl());
+        assertEquals("example.com", UrlParser.parseAndNormalize("example.com:8080/x").getHost());
+        assertEquals("http://Example.com", UrlParser.parseAndNormalize("HTTP://Example.com").getUrl());
+    }
+    
+    @Test
+    void testIpLiteralHost() {
+        assertEquals("[::1]", UrlParser.parse("http://[::1]:8080/").getHost());
+        assertFalse(UrlParser.parse("http://[::1/").isValid());
+        assertFalse(UrlParser.parse("http://[]/").isValid());
+    }
+    
+    @Test
+    void testRejections() {
+        assertSame(ParsedUrl.EMPTY, UrlParser.parseAndNormalize(null));
+        assertSame(ParsedUrl.EMPTY, UrlParser.parseAndNormalize(" \t"));
+        assertSame(ParsedUrl.INVALID_SCHEME, UrlParser.parseAndNormalize("ftp://example.com"));
+        assertSame(ParsedUrl.INVALID_SCHEME, UrlParser.parseAndNormalize("https:/example.com"));
+        assertSame(ParsedUrl.INVALID_SCHEME, UrlParser.parse("example.com"));
+        assertSame(ParsedUrl.INVALID_HOST, UrlParser.parseAndNormalize("https://"));
+        assertSame(ParsedUrl.INVALID_HOST, UrlParser.parseAndNormalize("https://:80/"));
+        assertSame(ParsedUrl.INVALID_HOST, UrlParser.parseAndNormalize("https://exa<mple.com"));
+        assertTrue(UrlParser.parseAndNormalize("https://" + "a".repeat(UrlParser.MAX_HOST_LENGTH)).isValid());
+        assertSame(ParsedUrl.INVALID_HOST, UrlParser.parseAndNormalize("https://" + "a".repeat(UrlParser.MAX_HOST_LENGTH + 1)));
+        assertSame(ParsedUrl.INVALID_PORT, UrlParser.parseAndNormalize("https://example.com:65536"));
+        assertSame(ParsedUrl.INVALID_PORT, UrlParser.parseAndNormalize("https://example.com:8o"));
+        assertSame(ParsedUrl.ILLEGAL_CHARACTER, UrlParser.parseAndNormalize("not a valid url"));
+        assertSame(ParsedUrl.ILLEGAL_CHARACTER, UrlParser.parseAndNormalize("https://example.com/a b"));
+        assertNull(UrlParser.parseAndNormalize("ftp://example.com").getHost());
+    }
+    
+    /**
+     * Differential fuzz against the java.net.URL implementation this parser replaced
+     * The parser is deliberately stricter in a few places; everything else must agree exactly.
+     */
+    @Test
+    void testAgreesWithLegacyParserOnFuzzedInput() {
+        String[] fragments = {
+                "http://", "https://", "HTTPS://", "ftp://", "https:/", "mailto:", "//", "/", "?", "#", "@", ":",
+                "example.com", "www.", "sub-domain", "localhost", "127.0.0.1", "8080", "65536", "0", "a", "Z", ".",
+                "-", "_", "%20", "~", "user:pw@", " ", "\t", "ü", "é.com", "path/to", "q=1&r=2", "+", "!", ",",
+                "<", "\\", "|", "\"", "{"
+        };
+        Random random = new Random(2024);
+        int compared = 0;
+        for (int n = 0; n < 200_000; n++) {
+            StringBuilder input = new StringBuilder();
+            int parts = 1 + random.nextInt(6);
+            for (int p = 0; p < parts; p++) {
+                input.append(fragments[random.nextInt(fragments.length)]);
+            }
+            String s = input.toString();
+            String legacy = legacyValidateAndNormalize(s);
+            ParsedUrl parsed = UrlParser.parseAndNormalize(s);
+            
+            if (parsed.isValid()) {
+                assertNotNull(legacy, "parser accepted input the legacy parser rejected: " + s);
+            }
+            if (legacy == null || isDeliberateDivergence(s, legacy)) {
+                continue;
+            }
+            compared++;
+            assertTrue(parsed.isValid(), "parser rejected " + s + ": " + parsed.getError());
+            assertEquals(legacy, parsed.getUrl(), s);
+            assertEquals(legacyExtractDomain(legacy), parsed.getHost(), s);
+            assertEquals(legacyExtractDomain(legacy), UrlUtils.extractDomain(parsed.getUrl()), s);
+        }
+        assertTrue(compared > 10_000, "too few comparable inputs: " + compared);
+    }
+    
+    /**
+     * Inputs where the legacy parser is knowingly lax: an explicit scheme other than lowercase
+     * http/https (it was treated as the host), whitespace or control characters, a host outside the
+     * RFC 3986 reg-name set, or a port that is not 0-65535
+     */
+    private static boolean isDeliberateDivergence(String input, String legacy) {
+        String trimmed = input.trim();
+        if (trimmed.matches("(?s)[A-Za-z][A-Za-z0-9+.-]*:/.*")
+                && !trimmed.startsWith("http://") && !trimmed.startsWith("https://")) {
+            return true;
+        }
+        if (trimmed.matches("(?i)https?:.*") && !trimmed.matches("https?://.*")) {
+            return true;
+        }
+        if (trimmed.chars().anyMatch(c -> c <= ' ' || c == 0x7F)) {
+            return true;
+        }
+        try {
+            URL url = new URL(legacy);
+            if (!url.getHost().matches("[\\p{Alnum}\\-._~%!$&'()*+,;=\\x{80}-\\x{FFFF}]+")) {
+                return true;
+            }
+            String authority = url.getAuthority();
+            int portSeparator = authority.lastIndexOf(':');
+            return portSeparator > authority.lastIndexOf('@')
+                    && !authority.substring(portSeparator + 1).matches("|[0-9]{1,4}|[0-5][0-9]{4}|6[0-4][0-9]{3}|65[0-4][0-9]{2}|655[0-2][0-9]|6553[0-5]");
+        } catch (MalformedURLException e) {
+            return true;
+        }
+    }
+    
+    @Test
+    @Tag(BenchmarkSupport.TAG)
+    void benchmarkParserVersusJavaNetUrl() throws InterruptedException {
+        String[] urls = UrlCorpus.generate(1 << 16, 3);
+        int mask = urls.length - 1;
+        double legacy = BenchmarkSupport.throughput(1, 2_000, (thread, i) -> {
+            String normalized = legacyValidateAndNormalize(urls[(int) (i & mask)]);
+            legacyExtractDomain(normalized);
+        });
+        double parser = BenchmarkSupport.throughput(1, 2_000,
+                (thread, i) -> UrlUtils.parseUrl(urls[(int) (i & mask)]).getHost());
+        BenchmarkSupport.report("url-parse", "validate+domain java.net.URL/s=%.0f parser/s=%.0f speedup=%.1fx",
+                legacy, parser, parser / legacy);
+    }
+    
+    // The java.net.URL based implementation UrlUtils used before the single-pass parser
+    
+    private static String legacyValidateAndNormalize(String urlString) {
+        if (urlString == null || urlString.trim().isEmpty()) {
+            return null;
+        }
+        String normalizedUrl = urlString.trim();
+        if (!normalizedUrl.startsWith("http://") && !normalizedUrl.startsWith("https://")) {
+            normalizedUrl = "https://" + normalizedUrl;
+        }
+        try {
+            URL url = new URL(normalizedUrl);
+            String scheme = url.getProtocol();
+            if (!"http".equals(scheme) && !"https".equals(scheme)) {
+                return null;
+            }
+            if (url.getHost() == null || url.getHost().isEmpty()) {
+                return null;
+            }
+        } catch (MalformedURLException e) {
+            return null;
+        }
+        return normalizedUrl;
+    }
+    
+    private static String legacyExtractDomain(String urlString) {
+        try {
+            String host = new URL(urlString).getHost();
+            int portIndex = host.indexOf(':');
+            if (portIndex != -1) {
+                host = host.substring(0, portIndex);
+            }
+            return host;
+        } catch (MalformedURLException e) {
+            return "unknown";
+        }
+    }
+}
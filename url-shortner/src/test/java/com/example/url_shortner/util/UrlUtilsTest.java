@@ -129,4 +129,24 @@ class UrlUtilsTest {
         assertFalse(code.isEmpty());
     }
     
+    @Test
+    void testGenerateFastShortCode_Consistency() {
+        String url = "https://example.com/path?q=1";
+        assertEquals(UrlUtils.generateFastShortCode(url), UrlUtils.generateFastShortCode(url));
+        assertEquals(8, UrlUtils.generateFastShortCode(url).length());
+        assertNotEquals(UrlUtils.generateFastShortCode("https://example.com"),
+                UrlUtils.generateFastShortCode("https://google.com"));
+    }
+    
+    @Test
+    void testMurmur3_MatchesReferenceVectors() {
+        // Reference MurmurHash3_x64_128 over the UTF-16LE bytes of each string, first 64 bits
+        assertEquals(0L, Murmur3.hash64("", 0));
+        assertEquals(-7591212652331886403L, Murmur3.hash64("a", 0));
+        assertEquals(6092521851254755144L, Murmur3.hash64("abcd", 0));
+        assertEquals(-1187713617218555668L, Murmur3.hash64("abcde", 0));
+        assertEquals(6659915760121432085L, Murmur3.hash64("https://example.com/ünï/path?x=1", 0));
+        assertEquals(2348289032334721128L, Murmur3.hash64("https://www.google.com/search?q=url+shortener", 0));
+    }
+    
 }